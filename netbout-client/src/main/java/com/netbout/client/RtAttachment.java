@@ -37,6 +37,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
+import java.util.Date;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import lombok.EqualsAndHashCode;
@@ -116,6 +117,16 @@ final class RtAttachment implements Attachment {
         );
     }
 
+    @Override
+    public long length() {
+        return -1L;
+    }
+
+    @Override
+    public Date date() {
+        return new Date(0L);
+    }
+
     @Override
     public InputStream read() throws IOException {
         return new ByteArrayInputStream(
@@ -128,6 +139,23 @@ final class RtAttachment implements Attachment {
         );
     }
 
+    @Override
+    public InputStream read(final long first, final long last)
+        throws IOException {
+        return new ByteArrayInputStream(
+            this.request.fetch()
+                .as(RestResponse.class)
+                .assertStatus(HttpURLConnection.HTTP_OK)
+                .as(XmlResponse.class)
+                .rel(this.xpath("links/link[@rel='download']/@href"))
+                .header("Range", String.format("bytes=%d-%d", first, last))
+                .fetch()
+                .as(RestResponse.class)
+                .assertStatus(HttpURLConnection.HTTP_PARTIAL)
+                .binary()
+        );
+    }
+
     @Override
     public void write(final InputStream stream, final String ctype,
         final String etag) throws IOException {
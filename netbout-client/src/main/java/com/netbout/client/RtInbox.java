@@ -32,13 +32,17 @@ import com.jcabi.http.Request;
 import com.jcabi.http.response.RestResponse;
 import com.jcabi.http.response.XmlResponse;
 import com.jcabi.log.Logger;
+import com.jcabi.xml.XML;
 import com.netbout.spi.Bout;
 import com.netbout.spi.Inbox;
 import com.netbout.spi.Pageable;
 import java.io.IOException;
 import java.net.HttpURLConnection;
+import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
@@ -112,6 +116,51 @@ final class RtInbox implements Inbox {
         throw new UnsupportedOperationException("#jump()");
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The cursor is the URI of the "more" link of the last bout
+     * in the page. Pages of the server are fetched one by one, following
+     * "more" links, until there are enough bouts.
+     */
+    @Override
+    public Pageable.Page<Bout> page(final String cursor, final int size)
+        throws IOException {
+        Request req = this.request;
+        if (!cursor.isEmpty()) {
+            req = req.uri().set(URI.create(cursor)).back();
+        }
+        final Collection<Bout> items = new LinkedList<>();
+        String next = cursor;
+        boolean more = true;
+        while (more && items.size() < size) {
+            final List<XML> nodes = req.fetch()
+                .as(RestResponse.class)
+                .assertStatus(HttpURLConnection.HTTP_OK)
+                .as(XmlResponse.class)
+                .xml()
+                .nodes("/page/bouts/bout");
+            more = !nodes.isEmpty();
+            if (!more) {
+                next = "";
+            }
+            for (final XML node : nodes) {
+                if (items.size() < size) {
+                    items.add(
+                        this.bout(
+                            Long.parseLong(node.xpath("number/text()").get(0))
+                        )
+                    );
+                    next = req.uri().get().resolve(
+                        node.xpath("links/link[@rel='more']/@href").get(0)
+                    ).toString();
+                }
+            }
+            req = req.uri().set(URI.create(next)).back();
+        }
+        return new Pageable.Page<>(items, next);
+    }
+
     @Override
     public Iterable<Bout> iterate() {
         return new Iterable<Bout>() {
@@ -142,7 +142,7 @@ final class RtMessageIterator implements Iterator<Message> {
      * @param xml The XML
      * @return Message
      */
-    private static Message msg(final XML xml) {
+    static Message msg(final XML xml) {
         // @checkstyle AnonInnerLengthCheck (50 lines)
         return new Message() {
             @Override
@@ -32,13 +32,17 @@ import com.jcabi.http.Request;
 import com.jcabi.http.response.RestResponse;
 import com.jcabi.http.response.XmlResponse;
 import com.jcabi.log.Logger;
+import com.jcabi.xml.XML;
 import com.netbout.spi.Message;
 import com.netbout.spi.Messages;
 import com.netbout.spi.Pageable;
 import java.io.IOException;
 import java.net.HttpURLConnection;
+import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
@@ -92,6 +96,47 @@ final class RtMessages implements Messages {
         throw new UnsupportedOperationException("#jump()");
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The cursor is the URI of the "more" link of the last message
+     * in the page. Pages of the server are fetched one by one, following
+     * "more" links, until there are enough messages.
+     */
+    @Override
+    public Pageable.Page<Message> page(final String cursor, final int size)
+        throws IOException {
+        Request req = this.request;
+        if (!cursor.isEmpty()) {
+            req = req.uri().set(URI.create(cursor)).back();
+        }
+        final Collection<Message> items = new LinkedList<>();
+        String next = cursor;
+        boolean more = true;
+        while (more && items.size() < size) {
+            final List<XML> nodes = req.fetch()
+                .as(RestResponse.class)
+                .assertStatus(HttpURLConnection.HTTP_OK)
+                .as(XmlResponse.class)
+                .xml()
+                .nodes("/page/bout/messages/message");
+            more = !nodes.isEmpty();
+            if (!more) {
+                next = "";
+            }
+            for (final XML node : nodes) {
+                if (items.size() < size) {
+                    items.add(RtMessageIterator.msg(node));
+                    next = req.uri().get().resolve(
+                        node.xpath("links/link[@rel='more']/@href").get(0)
+                    ).toString();
+                }
+            }
+            req = req.uri().set(URI.create(next)).back();
+        }
+        return new Pageable.Page<>(items, next);
+    }
+
     @Override
     public Iterable<Message> iterate() {
         return new Iterable<Message>() {
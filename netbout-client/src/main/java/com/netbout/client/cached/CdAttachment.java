@@ -32,6 +32,7 @@ import com.jcabi.aspects.Loggable;
 import com.netbout.spi.Attachment;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Date;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
@@ -85,11 +86,29 @@ public final class CdAttachment implements Attachment {
         return this.origin.unseen();
     }
 
+    @Override
+    @Cacheable
+    public long length() throws IOException {
+        return this.origin.length();
+    }
+
+    @Override
+    @Cacheable
+    public Date date() throws IOException {
+        return this.origin.date();
+    }
+
     @Override
     public InputStream read() throws IOException {
         return this.origin.read();
     }
 
+    @Override
+    public InputStream read(final long first, final long last)
+        throws IOException {
+        return this.origin.read(first, last);
+    }
+
     @Override
     public void write(final InputStream stream, final String ctype,
         final String etag) throws IOException {
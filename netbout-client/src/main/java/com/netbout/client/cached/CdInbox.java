@@ -86,6 +86,25 @@ public final class CdInbox implements Inbox {
         return this.origin.jump(number);
     }
 
+    @Override
+    @Cacheable
+    public Pageable.Page<Bout> page(final String cursor, final int size)
+        throws IOException {
+        final Pageable.Page<Bout> page = this.origin.page(cursor, size);
+        return new Pageable.Page<Bout>(
+            Iterables.transform(
+                page.items(),
+                new Function<Bout, Bout>() {
+                    @Override
+                    public Bout apply(final Bout bout) {
+                        return new CdBout(bout);
+                    }
+                }
+            ),
+            page.cursor()
+        );
+    }
+
     @Override
     @Cacheable
     public Iterable<Bout> iterate() throws IOException {
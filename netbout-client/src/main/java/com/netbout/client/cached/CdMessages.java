@@ -80,6 +80,25 @@ public final class CdMessages implements Messages {
         return this.origin.jump(number);
     }
 
+    @Override
+    @Cacheable.FlushBefore
+    public Pageable.Page<Message> page(final String cursor, final int size)
+        throws IOException {
+        final Pageable.Page<Message> page = this.origin.page(cursor, size);
+        return new Pageable.Page<Message>(
+            Iterables.transform(
+                page.items(),
+                new Function<Message, Message>() {
+                    @Override
+                    public Message apply(final Message message) {
+                        return new CdMessage(message);
+                    }
+                }
+            ),
+            page.cursor()
+        );
+    }
+
     @Override
     @Cacheable.FlushBefore
     public Iterable<Message> iterate() throws IOException {
@@ -34,6 +34,7 @@ import com.netbout.spi.Attachment;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Date;
 import java.util.concurrent.TimeUnit;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
@@ -101,6 +102,24 @@ public final class ReAttachment implements Attachment {
         return this.origin.unseen();
     }
 
+    @Override
+    @RetryOnFailure(
+        verbose = false, attempts = Tv.TWENTY,
+        delay = Tv.FIVE, unit = TimeUnit.SECONDS
+    )
+    public long length() throws IOException {
+        return this.origin.length();
+    }
+
+    @Override
+    @RetryOnFailure(
+        verbose = false, attempts = Tv.TWENTY,
+        delay = Tv.FIVE, unit = TimeUnit.SECONDS
+    )
+    public Date date() throws IOException {
+        return this.origin.date();
+    }
+
     @Override
     @RetryOnFailure(
         verbose = false, attempts = Tv.TWENTY,
@@ -110,6 +129,16 @@ public final class ReAttachment implements Attachment {
         return this.origin.read();
     }
 
+    @Override
+    @RetryOnFailure(
+        verbose = false, attempts = Tv.TWENTY,
+        delay = Tv.FIVE, unit = TimeUnit.SECONDS
+    )
+    public InputStream read(final long first, final long last)
+        throws IOException {
+        return this.origin.read(first, last);
+    }
+
     @Override
     public void write(final InputStream stream, final String ctype,
         final String etag) throws IOException {
@@ -102,6 +102,28 @@ public final class ReInbox implements Inbox {
         return this.origin.jump(number);
     }
 
+    @Override
+    @RetryOnFailure(
+        verbose = false, attempts = Tv.TWENTY,
+        delay = Tv.FIVE, unit = TimeUnit.SECONDS
+    )
+    public Pageable.Page<Bout> page(final String cursor, final int size)
+        throws IOException {
+        final Pageable.Page<Bout> page = this.origin.page(cursor, size);
+        return new Pageable.Page<Bout>(
+            Iterables.transform(
+                page.items(),
+                new Function<Bout, Bout>() {
+                    @Override
+                    public Bout apply(final Bout bout) {
+                        return new ReBout(bout);
+                    }
+                }
+            ),
+            page.cursor()
+        );
+    }
+
     @Override
     @RetryOnFailure(
         verbose = false, attempts = Tv.TWENTY,
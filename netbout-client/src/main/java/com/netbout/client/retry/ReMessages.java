@@ -93,6 +93,28 @@ public final class ReMessages implements Messages {
         return this.origin.jump(number);
     }
 
+    @Override
+    @RetryOnFailure(
+        verbose = false, attempts = Tv.TWENTY,
+        delay = Tv.FIVE, unit = TimeUnit.SECONDS
+    )
+    public Pageable.Page<Message> page(final String cursor, final int size)
+        throws IOException {
+        final Pageable.Page<Message> page = this.origin.page(cursor, size);
+        return new Pageable.Page<Message>(
+            Iterables.transform(
+                page.items(),
+                new Function<Message, Message>() {
+                    @Override
+                    public Message apply(final Message message) {
+                        return new ReMessage(message);
+                    }
+                }
+            ),
+            page.cursor()
+        );
+    }
+
     @Override
     @RetryOnFailure(
         verbose = false, attempts = Tv.TWENTY,
@@ -32,9 +32,12 @@ import com.jcabi.jdbc.JdbcSession;
 import com.jcabi.jdbc.Outcome;
 import com.jcabi.jdbc.SingleOutcome;
 import com.netbout.spi.Attachment;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Date;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.apache.commons.io.IOUtils;
@@ -116,6 +119,16 @@ final class MkAttachment implements Attachment {
         return false;
     }
 
+    @Override
+    public long length() throws IOException {
+        return (long) this.data().length;
+    }
+
+    @Override
+    public Date date() {
+        return new Date(0L);
+    }
+
     @Override
     public InputStream read() throws IOException {
         try {
@@ -133,6 +146,19 @@ final class MkAttachment implements Attachment {
         }
     }
 
+    @Override
+    public InputStream read(final long first, final long last)
+        throws IOException {
+        final byte[] data = this.data();
+        return new ByteArrayInputStream(
+            Arrays.copyOfRange(
+                data,
+                (int) Math.min(first, (long) data.length),
+                (int) Math.min(last + 1L, (long) data.length)
+            )
+        );
+    }
+
     @Override
     public void write(final InputStream stream, final String ctype,
         final String etag) throws IOException {
@@ -150,4 +176,13 @@ final class MkAttachment implements Attachment {
             throw new IOException(ex);
         }
     }
+
+    /**
+     * Read all bytes of the content.
+     * @return Bytes
+     * @throws IOException If fails
+     */
+    private byte[] data() throws IOException {
+        return IOUtils.toByteArray(this.read());
+    }
 }
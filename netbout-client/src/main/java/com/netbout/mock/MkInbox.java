@@ -119,6 +119,12 @@ final class MkInbox implements Inbox {
         return this;
     }
 
+    @Override
+    public Pageable.Page<Bout> page(final String cursor, final int size)
+        throws IOException {
+        return new MkPage<Bout>(this.iterate()).page(cursor, size);
+    }
+
     @Override
     public Iterable<Bout> iterate() throws IOException {
         try {
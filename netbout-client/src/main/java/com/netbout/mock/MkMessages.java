@@ -109,6 +109,12 @@ final class MkMessages implements Messages {
         return this;
     }
 
+    @Override
+    public Pageable.Page<Message> page(final String cursor, final int size)
+        throws IOException {
+        return new MkPage<Message>(this.iterate()).page(cursor, size);
+    }
+
     @Override
     public Iterable<Message> iterate() throws IOException {
         try {
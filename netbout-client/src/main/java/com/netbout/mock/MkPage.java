@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.mock;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.netbout.spi.Pageable;
+import java.util.List;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Page of items, cut out of all of them.
+ *
+ * <p>The cursor is just the position of the next item, which is good
+ * enough for a mock, where nothing is paged on the storage side.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ * @param <T> Type of items
+ */
+@ToString
+@EqualsAndHashCode(of = "all")
+final class MkPage<T> {
+
+    /**
+     * All items.
+     */
+    private final transient Iterable<T> all;
+
+    /**
+     * Ctor.
+     * @param items All items
+     */
+    MkPage(final Iterable<T> items) {
+        this.all = items;
+    }
+
+    /**
+     * Cut the page.
+     * @param cursor Cursor or {@link Pageable#FIRST}
+     * @param size Maximum size of the page
+     * @return Page
+     */
+    public Pageable.Page<T> page(final String cursor, final int size) {
+        int start = 0;
+        if (!cursor.isEmpty()) {
+            start = Integer.parseInt(cursor);
+        }
+        final List<T> items = Lists.newArrayList(
+            Iterables.limit(Iterables.skip(this.all, start), size + 1)
+        );
+        String next = Pageable.FIRST;
+        if (items.size() > size) {
+            next = Integer.toString(start + size);
+            items.remove(size);
+        }
+        return new Pageable.Page<T>(items, next);
+    }
+
+}
@@ -29,6 +29,7 @@ package com.netbout.mock;
 import com.netbout.spi.Bout;
 import com.netbout.spi.Message;
 import com.netbout.spi.Messages;
+import com.netbout.spi.Pageable;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.Test;
@@ -61,4 +62,27 @@ public final class MkMessagesTest {
         );
     }
 
+    /**
+     * MkMessages can read messages page by page.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void readsMessagesByPages() throws Exception {
+        final Messages messages = new MkBase().randomBout().messages();
+        messages.post("first");
+        messages.post("second");
+        messages.post("third");
+        final Pageable.Page<Message> first = messages.page(Pageable.FIRST, 2);
+        MatcherAssert.assertThat(
+            first.items(), Matchers.<Message>iterableWithSize(2)
+        );
+        MatcherAssert.assertThat(first.last(), Matchers.is(false));
+        final Pageable.Page<Message> second =
+            messages.page(first.cursor(), 2);
+        MatcherAssert.assertThat(
+            second.items(), Matchers.<Message>iterableWithSize(1)
+        );
+        MatcherAssert.assertThat(second.last(), Matchers.is(true));
+    }
+
 }
@@ -29,6 +29,7 @@ package com.netbout.spi;
 import com.jcabi.aspects.Immutable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Date;
 
 /**
  * Attachment.
@@ -73,6 +74,22 @@ public interface Attachment {
      */
     boolean unseen() throws IOException;
 
+    /**
+     * Get length of its content, without reading it.
+     * @return Length in bytes or -1 if it is not known in advance
+     * @throws IOException If fails
+     * @since 3.0
+     */
+    long length() throws IOException;
+
+    /**
+     * When its content was written last time.
+     * @return Date or epoch start if it is not known
+     * @throws IOException If fails
+     * @since 3.0
+     */
+    Date date() throws IOException;
+
     /**
      * Read content.
      * @return Content
@@ -80,6 +97,16 @@ public interface Attachment {
      */
     InputStream read() throws IOException;
 
+    /**
+     * Read a range of content, without reading the rest of it.
+     * @param first Position of the first byte to read, starting from zero
+     * @param last Position of the last byte to read, inclusive
+     * @return Content of the range
+     * @throws IOException If fails
+     * @since 3.0
+     */
+    InputStream read(long first, long last) throws IOException;
+
     /**
      * Write content (don't touch it if etag is the same as before).
      * @param stream Stream with content
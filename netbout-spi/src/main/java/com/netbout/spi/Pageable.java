@@ -28,6 +28,7 @@ package com.netbout.spi;
 
 import com.jcabi.aspects.Immutable;
 import java.io.IOException;
+import lombok.ToString;
 
 /**
  * Pageable.
@@ -39,6 +40,12 @@ import java.io.IOException;
 @Immutable
 public interface Pageable<T> {
 
+    /**
+     * Cursor of the very first page.
+     * @since 3.0
+     */
+    String FIRST = "";
+
     /**
      * Jump to the given position.
      * @param number Message number to start with
@@ -54,4 +61,65 @@ public interface Pageable<T> {
      */
     Iterable<T> iterate() throws IOException;
 
+    /**
+     * Read one page, starting right after the cursor.
+     *
+     * <p>The cursor is opaque, it is only valid for the collection that
+     * returned it (the same bout, inbox and jump position).
+     *
+     * @param cursor Cursor returned by {@link Pageable.Page#cursor()} or
+     *  {@link #FIRST} to start from the top
+     * @param size Maximum number of items in the page
+     * @return The page
+     * @throws IOException If fails
+     * @since 3.0
+     */
+    Pageable.Page<T> page(String cursor, int size) throws IOException;
+
+    /**
+     * One page of items, with a cursor to the next one.
+     * @since 3.0
+     */
+    @ToString(of = "next")
+    final class Page<T> {
+        /**
+         * Items.
+         */
+        private final transient Iterable<T> list;
+        /**
+         * Cursor of the next page or empty if this is the last one.
+         */
+        private final transient String next;
+        /**
+         * Ctor.
+         * @param items Items of the page
+         * @param cursor Cursor of the next page, empty if there is none
+         */
+        public Page(final Iterable<T> items, final String cursor) {
+            this.list = items;
+            this.next = cursor;
+        }
+        /**
+         * Items of the page.
+         * @return Items
+         */
+        public Iterable<T> items() {
+            return this.list;
+        }
+        /**
+         * Cursor of the next page.
+         * @return Cursor or empty if this is the last page
+         */
+        public String cursor() {
+            return this.next;
+        }
+        /**
+         * Is it the last page?
+         * @return TRUE if there are no more pages
+         */
+        public boolean last() {
+            return this.next.isEmpty();
+        }
+    }
+
 }
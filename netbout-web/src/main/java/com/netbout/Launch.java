@@ -33,7 +33,12 @@ import com.jcabi.manifests.Manifests;
 import com.netbout.cached.CdBase;
 import com.netbout.dynamo.DyBase;
 import com.netbout.email.EmBase;
+import com.netbout.misc.Bus;
+import com.netbout.misc.Multicast;
+import com.netbout.misc.Traced;
+import com.netbout.misc.Tracer;
 import com.netbout.rest.TkApp;
+import java.io.IOException;
 import org.takes.http.Exit;
 import org.takes.http.FtCLI;
 
@@ -59,17 +64,43 @@ public final class Launch {
      * @throws Exception If fails
      */
     public static void main(final String[] args) throws Exception {
+        Launch.cluster(System.getProperty("netbout.cluster", ""));
+        final Tracer tracer = new Tracer();
         new FtCLI(
             new TkApp(
-                new EmBase(
-                    new CdBase(new DyBase()),
-                    new PostNoLoops(Launch.postman())
-                )
+                Traced.base(
+                    tracer, "app",
+                    new EmBase(
+                        new CdBase(
+                            Traced.base(tracer, "dynamo", new DyBase())
+                        ),
+                        new PostNoLoops(Launch.postman())
+                    )
+                ),
+                tracer
             ),
             args
         ).start(Exit.NEVER);
     }
 
+    /**
+     * Join the cluster, to invalidate caches of other nodes.
+     * @param group Multicast group and port, like "239.255.27.1:4446",
+     *  or empty if this node is alone
+     * @throws IOException If fails
+     */
+    private static void cluster(final String group) throws IOException {
+        if (!group.isEmpty()) {
+            final int colon = group.lastIndexOf(':');
+            Bus.SHARED.attach(
+                new Multicast(
+                    group.substring(0, colon),
+                    Integer.parseInt(group.substring(colon + 1))
+                )
+            );
+        }
+    }
+
     /**
      * Create a postman.
      * @return Postman
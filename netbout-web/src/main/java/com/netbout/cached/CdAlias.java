@@ -26,10 +26,9 @@
  */
 package com.netbout.cached;
 
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.aspects.Tv;
+import com.netbout.misc.Bus;
 import com.netbout.spi.Alias;
 import com.netbout.spi.Bout;
 import com.netbout.spi.Inbox;
@@ -48,62 +47,97 @@ import lombok.ToString;
  * @since 2.0
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
 @EqualsAndHashCode(of = "origin")
 final class CdAlias implements Alias {
 
+    /**
+     * Photos, emails and locales of aliases, shared with
+     * {@link CdFriend}.
+     */
+    static final Lfu CACHE = new Lfu(
+        "alias", (long) Tv.EIGHT * (long) Tv.MILLION,
+        (long) Tv.FIVE, TimeUnit.HOURS
+    );
+
     /**
      * Original.
      */
     private final transient Alias origin;
 
+    /**
+     * Name of the alias.
+     */
+    private final transient String label;
+
     /**
      * Public ctor.
      * @param org Origin
+     * @param name Name of the alias
      */
-    CdAlias(final Alias org) {
+    CdAlias(final Alias org, final String name) {
         this.origin = org;
+        this.label = name;
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
-    public String name() throws IOException {
-        return this.origin.name();
+    public String name() {
+        return this.label;
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public URI photo() throws IOException {
-        return this.origin.photo();
+        return CdAlias.CACHE.get(
+            this.key("photo"),
+            Bus.alias(this.label),
+            new Lfu.Source<URI, IOException>() {
+                @Override
+                public URI load() throws IOException {
+                    return CdAlias.this.origin.photo();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public Locale locale() throws IOException {
-        return this.origin.locale();
+        return CdAlias.CACHE.get(
+            this.key("locale"),
+            Bus.alias(this.label),
+            new Lfu.Source<Locale, IOException>() {
+                @Override
+                public Locale load() throws IOException {
+                    return CdAlias.this.origin.locale();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void photo(final URI uri) throws IOException {
         this.origin.photo(uri);
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public String email() throws IOException {
-        return this.origin.email();
+        return CdAlias.CACHE.get(
+            this.key("email"),
+            Bus.alias(this.label),
+            new Lfu.Source<String, IOException>() {
+                @Override
+                public String load() throws IOException {
+                    return CdAlias.this.origin.email();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void email(final String email) throws IOException {
         this.origin.email(email);
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void email(final String email, final String urn,
         final Bout bout)
         throws IOException {
@@ -112,6 +146,16 @@ final class CdAlias implements Alias {
 
     @Override
     public Inbox inbox() throws IOException {
-        return new CdInbox(this.origin.inbox());
+        return new CdInbox(this.origin.inbox(), this.label);
     }
+
+    /**
+     * Key of a field.
+     * @param field Field
+     * @return Key
+     */
+    private Key key(final String field) {
+        return new Key(this.label, 0L, field);
+    }
+
 }
@@ -26,16 +26,14 @@
  */
 package com.netbout.cached;
 
-import com.google.common.base.Function;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Lists;
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.aspects.Tv;
+import com.netbout.misc.Bus;
 import com.netbout.spi.Alias;
 import com.netbout.spi.Aliases;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.concurrent.TimeUnit;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
@@ -48,22 +46,36 @@ import lombok.ToString;
  * @since 2.0
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
 @EqualsAndHashCode(of = "origin")
 final class CdAliases implements Aliases {
 
+    /**
+     * Aliases of users, by their URNs.
+     */
+    private static final Lfu CACHE = new Lfu(
+        "aliases", (long) Tv.FOUR * (long) Tv.MILLION,
+        (long) Tv.FIVE, TimeUnit.HOURS
+    );
+
     /**
      * Original.
      */
     private final transient Aliases origin;
 
+    /**
+     * URN of the user.
+     */
+    private final transient String urn;
+
     /**
      * Public ctor.
      * @param org Origin
+     * @param name URN of the user
      */
-    CdAliases(final Aliases org) {
+    CdAliases(final Aliases org, final String name) {
         this.origin = org;
+        this.urn = name;
     }
 
     @Override
@@ -72,24 +84,26 @@ final class CdAliases implements Aliases {
     }
 
     @Override
-    @Cacheable.FlushBefore
     public Alias add(final String name) throws IOException {
         return this.origin.add(name);
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public Iterable<Alias> iterate() throws IOException {
-        return Lists.newArrayList(
-            Iterables.transform(
-                this.origin.iterate(),
-                new Function<Alias, Alias>() {
-                    @Override
-                    public Alias apply(final Alias input) {
-                        return new CdAlias(input);
+        return CdAliases.CACHE.get(
+            new Key(this.urn, 0L, "aliases"),
+            Bus.aliases(this.urn),
+            new Lfu.Source<Iterable<Alias>, IOException>() {
+                @Override
+                public Iterable<Alias> load() throws IOException {
+                    final Collection<Alias> aliases = new ArrayList<>(1);
+                    for (final Alias alias
+                        : CdAliases.this.origin.iterate()) {
+                        aliases.add(new CdAlias(alias, alias.name()));
                     }
+                    return aliases;
                 }
-            )
+            }
         );
     }
 
@@ -26,26 +26,25 @@
  */
 package com.netbout.cached;
 
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
-import com.jcabi.aspects.Tv;
+import com.netbout.misc.Bus;
 import com.netbout.spi.Attachment;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.concurrent.TimeUnit;
+import java.util.Date;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
 /**
  * Cached Attachments.
  *
+ * <p>Values are cached in the region of {@link CdAttachments}.
+ *
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 2.2
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
 @EqualsAndHashCode(of = "origin")
 final class CdAttachment implements Attachment {
@@ -55,36 +54,112 @@ final class CdAttachment implements Attachment {
      */
     private final transient Attachment origin;
 
+    /**
+     * Alias of myself.
+     */
+    private final transient String self;
+
+    /**
+     * Bout number.
+     */
+    private final transient long bout;
+
+    /**
+     * Name of the attachment.
+     */
+    private final transient String label;
+
     /**
      * Public ctor.
      * @param org Origin
+     * @param slf Alias of myself
+     * @param num Bout number
+     * @param name Name of the attachment
+     * @checkstyle ParameterNumberCheck (5 lines)
      */
-    CdAttachment(final Attachment org) {
+    CdAttachment(final Attachment org, final String slf, final long num,
+        final String name) {
         this.origin = org;
+        this.self = slf;
+        this.bout = num;
+        this.label = name;
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
-    public String name() throws IOException {
-        return this.origin.name();
+    public String name() {
+        return this.label;
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public String ctype() throws IOException {
-        return this.origin.ctype();
+        return CdAttachments.CACHE.get(
+            this.key("ctype"),
+            Bus.bout(this.bout),
+            new Lfu.Source<String, IOException>() {
+                @Override
+                public String load() throws IOException {
+                    return CdAttachment.this.origin.ctype();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public String etag() throws IOException {
-        return this.origin.etag();
+        return CdAttachments.CACHE.get(
+            this.key("etag"),
+            Bus.bout(this.bout),
+            new Lfu.Source<String, IOException>() {
+                @Override
+                public String load() throws IOException {
+                    return CdAttachment.this.origin.etag();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public boolean unseen() throws IOException {
-        return this.origin.unseen();
+        return CdAttachments.CACHE.get(
+            this.key("unseen"),
+            Bus.row(this.bout, this.self),
+            new Lfu.Source<Boolean, IOException>() {
+                @Override
+                public Boolean load() throws IOException {
+                    return CdAttachment.this.origin.unseen();
+                }
+            }
+        );
+    }
+
+    @Override
+    public long length() throws IOException {
+        return CdAttachments.CACHE.get(
+            this.key("length"),
+            Bus.bout(this.bout),
+            new Lfu.Source<Long, IOException>() {
+                @Override
+                public Long load() throws IOException {
+                    return CdAttachment.this.origin.length();
+                }
+            }
+        );
+    }
+
+    @Override
+    public Date date() throws IOException {
+        return new Date(
+            CdAttachments.CACHE.get(
+                this.key("date"),
+                Bus.bout(this.bout),
+                new Lfu.Source<Long, IOException>() {
+                    @Override
+                    public Long load() throws IOException {
+                        return CdAttachment.this.origin.date().getTime();
+                    }
+                }
+            )
+        );
     }
 
     @Override
@@ -93,9 +168,26 @@ final class CdAttachment implements Attachment {
     }
 
     @Override
-    @Cacheable.FlushAfter
+    public InputStream read(final long first, final long last)
+        throws IOException {
+        return this.origin.read(first, last);
+    }
+
+    @Override
     public void write(final InputStream stream, final String ctype,
         final String etag) throws IOException {
         this.origin.write(stream, ctype, etag);
     }
+
+    /**
+     * Key of a field.
+     * @param field Field
+     * @return Key
+     */
+    private Key key(final String field) {
+        return new Key(
+            this.self, this.bout, String.format("%s/%s", this.label, field)
+        );
+    }
+
 }
@@ -26,16 +26,14 @@
  */
 package com.netbout.cached;
 
-import com.google.common.base.Function;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Lists;
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.aspects.Tv;
+import com.netbout.misc.Bus;
 import com.netbout.spi.Attachment;
 import com.netbout.spi.Attachments;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.concurrent.TimeUnit;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
@@ -48,61 +46,109 @@ import lombok.ToString;
  * @since 2.2
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
 @EqualsAndHashCode(of = "origin")
 final class CdAttachments implements Attachments {
 
+    /**
+     * Attachments of bouts, shared with {@link CdAttachment}.
+     */
+    static final Lfu CACHE = new Lfu(
+        "attachments", (long) Tv.EIGHT * (long) Tv.MILLION,
+        (long) Tv.FIVE, TimeUnit.HOURS
+    );
+
     /**
      * Original.
      */
     private final transient Attachments origin;
 
+    /**
+     * Alias of myself.
+     */
+    private final transient String self;
+
+    /**
+     * Bout number.
+     */
+    private final transient long bout;
+
     /**
      * Public ctor.
      * @param org Origin
+     * @param slf Alias of myself
+     * @param num Bout number
      */
-    CdAttachments(final Attachments org) {
+    CdAttachments(final Attachments org, final String slf, final long num) {
         this.origin = org;
+        this.self = slf;
+        this.bout = num;
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public int unseen() throws IOException {
-        return this.origin.unseen();
+        return CdAttachments.CACHE.get(
+            new Key(this.self, this.bout, "unseen"),
+            Bus.row(this.bout, this.self),
+            new Lfu.Source<Integer, IOException>() {
+                @Override
+                public Integer load() throws IOException {
+                    return CdAttachments.this.origin.unseen();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void create(final String name) throws IOException {
         this.origin.create(name);
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void delete(final String name) throws IOException {
         this.origin.delete(name);
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public Attachment get(final String name) throws IOException {
-        return new CdAttachment(this.origin.get(name));
+        return CdAttachments.CACHE.get(
+            new Key(this.self, this.bout, String.format("%s/", name)),
+            Bus.bout(this.bout),
+            new Lfu.Source<Attachment, IOException>() {
+                @Override
+                public Attachment load() throws IOException {
+                    return new CdAttachment(
+                        CdAttachments.this.origin.get(name),
+                        CdAttachments.this.self, CdAttachments.this.bout,
+                        name
+                    );
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public Iterable<Attachment> iterate() throws IOException {
-        return Lists.newArrayList(
-            Iterables.transform(
-                this.origin.iterate(),
-                new Function<Attachment, Attachment>() {
-                    @Override
-                    public Attachment apply(final Attachment attachment) {
-                        return new CdAttachment(attachment);
+        return CdAttachments.CACHE.get(
+            new Key(this.self, this.bout, "attachments"),
+            Bus.bout(this.bout),
+            new Lfu.Source<Iterable<Attachment>, IOException>() {
+                @Override
+                public Iterable<Attachment> load() throws IOException {
+                    final Collection<Attachment> all = new ArrayList<>(1);
+                    for (final Attachment att
+                        : CdAttachments.this.origin.iterate()) {
+                        all.add(
+                            new CdAttachment(
+                                att, CdAttachments.this.self,
+                                CdAttachments.this.bout, att.name()
+                            )
+                        );
                     }
+                    return all;
                 }
-            )
+            }
         );
     }
+
 }
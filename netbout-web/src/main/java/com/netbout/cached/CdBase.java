@@ -27,7 +27,6 @@
 package com.netbout.cached;
 
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.urn.URN;
 import com.netbout.spi.Base;
 import com.netbout.spi.User;
@@ -38,12 +37,14 @@ import lombok.ToString;
 /**
  * Cached Base.
  *
+ * <p>Values are cached in regions of {@link Lfu}, bounded by weight,
+ * by keys of alias, bout and field.
+ *
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 2.0
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
 @EqualsAndHashCode(of = "origin")
 public final class CdBase implements Base {
@@ -63,7 +64,7 @@ public final class CdBase implements Base {
 
     @Override
     public User user(final URN urn) throws IOException {
-        return new CdUser(this.origin.user(urn));
+        return new CdUser(this.origin.user(urn), urn.toString());
     }
 
     @Override
@@ -71,4 +72,15 @@ public final class CdBase implements Base {
         this.origin.close();
     }
 
+    /**
+     * Statistics of all cache regions, in Prometheus text format.
+     * @return Metrics
+     * @since 3.0
+     */
+    public static String metrics() {
+        final StringBuilder out = new StringBuilder(0);
+        Lfu.metrics(out);
+        return out.toString();
+    }
+
 }
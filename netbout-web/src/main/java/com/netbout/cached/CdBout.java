@@ -26,10 +26,9 @@
  */
 package com.netbout.cached;
 
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.aspects.Tv;
+import com.netbout.misc.Bus;
 import com.netbout.spi.Attachments;
 import com.netbout.spi.Bout;
 import com.netbout.spi.Friends;
@@ -48,23 +47,37 @@ import lombok.ToString;
  * @since 2.0
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
 @EqualsAndHashCode(of = "origin")
 @SuppressWarnings("PMD.TooManyMethods")
 final class CdBout implements Bout {
 
+    /**
+     * Dates, titles and subscriptions of bouts.
+     */
+    private static final Lfu CACHE = new Lfu(
+        "bout", (long) Tv.TWENTY * (long) Tv.MILLION,
+        (long) Tv.FIVE, TimeUnit.HOURS
+    );
+
     /**
      * Original.
      */
     private final transient Bout origin;
 
+    /**
+     * Alias of myself.
+     */
+    private final transient String self;
+
     /**
      * Public ctor.
      * @param org Origin
+     * @param slf Alias of myself
      */
-    CdBout(final Bout org) {
+    CdBout(final Bout org, final String slf) {
         this.origin = org;
+        this.self = slf;
     }
 
     @Override
@@ -73,33 +86,64 @@ final class CdBout implements Bout {
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public Date date() throws IOException {
-        return this.origin.date();
+        return CdBout.CACHE.get(
+            this.key("date"),
+            this.tag(),
+            new Lfu.Source<Date, IOException>() {
+                @Override
+                public Date load() throws IOException {
+                    return CdBout.this.origin.date();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public Date updated() throws IOException {
-        return this.origin.updated();
+        return CdBout.CACHE.get(
+            this.key("updated"),
+            this.tag(),
+            new Lfu.Source<Date, IOException>() {
+                @Override
+                public Date load() throws IOException {
+                    return CdBout.this.origin.updated();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public String title() throws IOException {
-        return this.origin.title();
+        return CdBout.CACHE.get(
+            this.key("title"),
+            this.tag(),
+            new Lfu.Source<String, IOException>() {
+                @Override
+                public String load() throws IOException {
+                    return CdBout.this.origin.title();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void rename(final String text) throws IOException {
         this.origin.rename(text);
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public boolean subscription() throws IOException {
-        return this.origin.subscription();
+        return CdBout.CACHE.get(
+            this.key("subscription"),
+            this.tag(),
+            new Lfu.Source<Boolean, IOException>() {
+                @Override
+                public Boolean load() throws IOException {
+                    return CdBout.this.origin.subscription();
+                }
+            }
+        );
     }
 
     @Override
@@ -108,23 +152,48 @@ final class CdBout implements Bout {
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void subscribe(final boolean subs) throws IOException {
         this.origin.subscribe(subs);
     }
 
     @Override
     public Messages messages() throws IOException {
-        return new CdMessages(this.origin.messages());
+        return new CdMessages(
+            this.origin.messages(), this.self, this.number()
+        );
     }
 
     @Override
     public Friends friends() throws IOException {
-        return new CdFriends(this.origin.friends());
+        return new CdFriends(
+            this.origin.friends(), this.self, this.number()
+        );
     }
 
     @Override
     public Attachments attachments() throws IOException {
-        return new CdAttachments(this.origin.attachments());
+        return new CdAttachments(
+            this.origin.attachments(), this.self, this.number()
+        );
     }
+
+    /**
+     * Key of a field.
+     * @param field Field
+     * @return Key
+     * @throws IOException If fails
+     */
+    private Key key(final String field) throws IOException {
+        return new Key(this.self, this.number(), field);
+    }
+
+    /**
+     * Tag of my row, which all values depend on.
+     * @return Tag
+     * @throws IOException If fails
+     */
+    private String tag() throws IOException {
+        return Bus.row(this.number(), this.self);
+    }
+
 }
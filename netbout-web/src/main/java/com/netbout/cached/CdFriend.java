@@ -26,26 +26,25 @@
  */
 package com.netbout.cached;
 
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
-import com.jcabi.aspects.Tv;
+import com.netbout.misc.Bus;
 import com.netbout.spi.Friend;
 import java.io.IOException;
 import java.net.URI;
-import java.util.concurrent.TimeUnit;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
 /**
  * Cached Friend.
  *
+ * <p>Values are cached in the region of {@link CdAlias}, under the same
+ * tag as the values of the alias.
+ *
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 2.0
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
 @EqualsAndHashCode(of = "origin")
 final class CdFriend implements Friend {
@@ -64,20 +63,46 @@ final class CdFriend implements Friend {
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public String alias() throws IOException {
         return this.origin.alias();
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public URI photo() throws IOException {
-        return this.origin.photo();
+        return CdAlias.CACHE.get(
+            this.key("friend-photo"),
+            Bus.alias(this.origin.alias()),
+            new Lfu.Source<URI, IOException>() {
+                @Override
+                public URI load() throws IOException {
+                    return CdFriend.this.origin.photo();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public String email() throws IOException {
-        return this.origin.email();
+        return CdAlias.CACHE.get(
+            this.key("friend-email"),
+            Bus.alias(this.origin.alias()),
+            new Lfu.Source<String, IOException>() {
+                @Override
+                public String load() throws IOException {
+                    return CdFriend.this.origin.email();
+                }
+            }
+        );
+    }
+
+    /**
+     * Key of a field.
+     * @param field Field
+     * @return Key
+     * @throws IOException If fails
+     */
+    private Key key(final String field) throws IOException {
+        return new Key(this.origin.alias(), 0L, field);
     }
+
 }
@@ -26,16 +26,14 @@
  */
 package com.netbout.cached;
 
-import com.google.common.base.Function;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.Lists;
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.aspects.Tv;
+import com.netbout.misc.Bus;
 import com.netbout.spi.Friend;
 import com.netbout.spi.Friends;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.concurrent.TimeUnit;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
@@ -48,49 +46,72 @@ import lombok.ToString;
  * @since 2.0
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
 @EqualsAndHashCode(of = "origin")
 final class CdFriends implements Friends {
 
+    /**
+     * Members of bouts.
+     */
+    private static final Lfu CACHE = new Lfu(
+        "friends", (long) Tv.TWENTY * (long) Tv.MILLION,
+        (long) Tv.FIVE, TimeUnit.HOURS
+    );
+
     /**
      * Original.
      */
     private final transient Friends origin;
 
+    /**
+     * Alias of myself.
+     */
+    private final transient String self;
+
+    /**
+     * Bout number.
+     */
+    private final transient long bout;
+
     /**
      * Public ctor.
      * @param org Origin
+     * @param slf Alias of myself
+     * @param num Bout number
      */
-    CdFriends(final Friends org) {
+    CdFriends(final Friends org, final String slf, final long num) {
         this.origin = org;
+        this.self = slf;
+        this.bout = num;
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void invite(final String friend) throws IOException {
         this.origin.invite(friend);
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void kick(final String friend) throws IOException {
         this.origin.kick(friend);
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public Iterable<Friend> iterate() throws IOException {
-        return Lists.newArrayList(
-            Iterables.transform(
-                this.origin.iterate(),
-                new Function<Friend, Friend>() {
-                    @Override
-                    public Friend apply(final Friend input) {
-                        return new CdFriend(input);
+        return CdFriends.CACHE.get(
+            new Key(this.self, this.bout, "friends"),
+            Bus.bout(this.bout),
+            new Lfu.Source<Iterable<Friend>, IOException>() {
+                @Override
+                public Iterable<Friend> load() throws IOException {
+                    final Collection<Friend> friends = new ArrayList<>(1);
+                    for (final Friend friend
+                        : CdFriends.this.origin.iterate()) {
+                        friends.add(new CdFriend(friend));
                     }
+                    return friends;
                 }
-            )
+            }
         );
     }
+
 }
@@ -28,10 +28,9 @@ package com.netbout.cached;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.aspects.Tv;
+import com.netbout.misc.Bus;
 import com.netbout.spi.Bout;
 import com.netbout.spi.Inbox;
 import com.netbout.spi.Pageable;
@@ -48,49 +47,76 @@ import lombok.ToString;
  * @since 2.0
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
 @EqualsAndHashCode(of = "origin")
 final class CdInbox implements Inbox {
 
+    /**
+     * Unread counters and bouts of inboxes.
+     */
+    private static final Lfu CACHE = new Lfu(
+        "inbox", (long) Tv.EIGHT * (long) Tv.MILLION,
+        (long) Tv.FIVE, TimeUnit.HOURS
+    );
+
     /**
      * Original.
      */
     private final transient Inbox origin;
 
+    /**
+     * Alias of the inbox owner.
+     */
+    private final transient String self;
+
     /**
      * Public ctor.
      * @param org Origin
+     * @param slf Alias of the inbox owner
      */
-    CdInbox(final Inbox org) {
+    CdInbox(final Inbox org, final String slf) {
         this.origin = org;
+        this.self = slf;
     }
 
     @Override
-    @Cacheable.FlushBefore
     public long start() throws IOException {
         return this.origin.start();
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
     public long unread() throws IOException {
-        return this.origin.unread();
+        return CdInbox.CACHE.get(
+            new Key(this.self, 0L, "unread"),
+            Bus.inbox(this.self),
+            new Lfu.Source<Long, IOException>() {
+                @Override
+                public Long load() throws IOException {
+                    return CdInbox.this.origin.unread();
+                }
+            }
+        );
     }
 
     @Override
-    @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.HOURS)
-    @Loggable(
-        value = Loggable.DEBUG,
-        ignore = Inbox.BoutNotFoundException.class
-    )
     public Bout bout(final long number) throws Inbox.BoutNotFoundException {
-        return new CdBout(this.origin.bout(number));
+        return CdInbox.CACHE.get(
+            new Key(this.self, number, "bout"),
+            Bus.row(number, this.self),
+            new Lfu.Source<Bout, Inbox.BoutNotFoundException>() {
+                @Override
+                public Bout load() throws Inbox.BoutNotFoundException {
+                    return new CdBout(
+                        CdInbox.this.origin.bout(number), CdInbox.this.self
+                    );
+                }
+            }
+        );
     }
 
     @Override
     public Pageable<Bout> jump(final long number) throws IOException {
-        return new CdPageable<Bout>(this.origin.jump(number));
+        return new CdPageable<Bout>(this.origin.jump(number), this.self);
     }
 
     @Override
@@ -100,12 +126,18 @@ final class CdInbox implements Inbox {
             new Function<Bout, Bout>() {
                 @Override
                 public Bout apply(final Bout input) {
-                    return new CdBout(input);
+                    return new CdBout(input, CdInbox.this.self);
                 }
             }
         );
     }
 
+    @Override
+    public Pageable.Page<Bout> page(final String cursor, final int size)
+        throws IOException {
+        return new CdPageable<Bout>(this.origin, this.self).page(cursor, size);
+    }
+
     @Override
     public Iterable<Bout> search(final String term) throws IOException {
         return Iterables.transform(
@@ -113,9 +145,10 @@ final class CdInbox implements Inbox {
             new Function<Bout, Bout>() {
                 @Override
                 public Bout apply(final Bout input) {
-                    return new CdBout(input);
+                    return new CdBout(input, CdInbox.this.self);
                 }
             }
         );
     }
+
 }
@@ -27,8 +27,8 @@
 package com.netbout.cached;
 
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.netbout.spi.Message;
+import com.netbout.spi.Rendered;
 import java.io.IOException;
 import java.util.Date;
 import lombok.EqualsAndHashCode;
@@ -42,10 +42,9 @@ import lombok.ToString;
  * @since 2.10.3
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
 @EqualsAndHashCode(of = "origin")
-final class CdMessage implements Message {
+final class CdMessage implements Message, Rendered {
 
     /**
      * Original.
@@ -79,4 +78,13 @@ final class CdMessage implements Message {
     public String author() throws IOException {
         return this.origin.author();
     }
+
+    @Override
+    public String html() throws IOException {
+        String html = "";
+        if (this.origin instanceof Rendered) {
+            html = Rendered.class.cast(this.origin).html();
+        }
+        return html;
+    }
 }
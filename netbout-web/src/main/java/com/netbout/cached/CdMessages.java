@@ -28,10 +28,9 @@ package com.netbout.cached;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.aspects.Tv;
+import com.netbout.misc.Bus;
 import com.netbout.spi.Message;
 import com.netbout.spi.Messages;
 import com.netbout.spi.Pageable;
@@ -43,54 +42,80 @@ import lombok.ToString;
 /**
  * Cached Messages.
  *
+ * <p>Unread counter is cached for five minutes and forgotten as soon
+ * as messages are read.
+ *
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 2.2
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
 @EqualsAndHashCode(of = "origin")
 final class CdMessages implements Messages {
 
+    /**
+     * Unread counters of bouts.
+     */
+    private static final Lfu CACHE = new Lfu(
+        "messages", (long) Tv.FOUR * (long) Tv.MILLION,
+        (long) Tv.FIVE, TimeUnit.MINUTES
+    );
+
     /**
      * Original.
      */
     private final transient Messages origin;
 
     /**
-     * Flag to use for caching.
+     * Alias of myself.
      */
-    private final transient CdMessages.Flag flag;
+    private final transient String self;
+
+    /**
+     * Bout number.
+     */
+    private final transient long bout;
 
     /**
      * Public ctor.
      * @param org Origin
+     * @param slf Alias of myself
+     * @param num Bout number
      */
-    CdMessages(final Messages org) {
+    CdMessages(final Messages org, final String slf, final long num) {
         this.origin = org;
-        this.flag = new CdMessages.Flag(org);
+        this.self = slf;
+        this.bout = num;
     }
 
     @Override
-    @Cacheable.FlushBefore
     public void post(final String text) throws IOException {
         this.origin.post(text);
     }
 
     @Override
     public long unread() throws IOException {
-        return this.flag.unread();
+        return CdMessages.CACHE.get(
+            this.counter(),
+            Bus.row(this.bout, this.self),
+            new Lfu.Source<Long, IOException>() {
+                @Override
+                public Long load() throws IOException {
+                    return CdMessages.this.origin.unread();
+                }
+            }
+        );
     }
 
     @Override
     public Pageable<Message> jump(final long number) throws IOException {
-        return new CdPageable<Message>(this.origin.jump(number));
+        return new CdPageable<Message>(this.origin.jump(number), this.self);
     }
 
     @Override
     public Iterable<Message> iterate() throws IOException {
-        this.flag.touch();
+        CdMessages.CACHE.invalidate(this.counter());
         return Iterables.transform(
             this.origin.iterate(),
             new Function<Message, Message>() {
@@ -102,9 +127,17 @@ final class CdMessages implements Messages {
         );
     }
 
+    @Override
+    public Pageable.Page<Message> page(final String cursor, final int size)
+        throws IOException {
+        CdMessages.CACHE.invalidate(this.counter());
+        return new CdPageable<Message>(this.origin, this.self)
+            .page(cursor, size);
+    }
+
     @Override
     public Iterable<Message> search(final String term) throws IOException {
-        this.flag.touch();
+        CdMessages.CACHE.invalidate(this.counter());
         return Iterables.transform(
             this.origin.search(term),
             new Function<Message, Message>() {
@@ -115,42 +148,13 @@ final class CdMessages implements Messages {
             }
         );
     }
+
     /**
-     * Flag of read/unread.
-     * @since 2.6
+     * Key of unread counter.
+     * @return Key
      */
-    @Immutable
-    @Loggable(Loggable.DEBUG)
-    @ToString(of = "messages")
-    @EqualsAndHashCode(of = "messages")
-    private static final class Flag {
-        /**
-         * Original.
-         */
-        private final transient Messages messages;
-        /**
-         * Public ctor.
-         * @param org Origin
-         */
-        Flag(final Messages org) {
-            this.messages = org;
-        }
-        /**
-         * How many unread.
-         * @return Number
-         * @throws IOException If fails
-         */
-        @Cacheable(lifetime = Tv.FIVE, unit = TimeUnit.MINUTES)
-        public long unread() throws IOException {
-            return this.messages.unread();
-        }
-        /**
-         * I've seen them all.
-         */
-        @Cacheable.FlushBefore
-        public void touch() {
-            // nothing special
-        }
+    private Key counter() {
+        return new Key(this.self, this.bout, "unread");
     }
 
 }
@@ -29,7 +29,6 @@ package com.netbout.cached;
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.netbout.spi.Bout;
 import com.netbout.spi.Message;
 import com.netbout.spi.Pageable;
@@ -45,7 +44,6 @@ import lombok.ToString;
  * @since 2.10.3
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
 @EqualsAndHashCode(of = "origin")
 final class CdPageable<T> implements Pageable<T> {
@@ -55,23 +53,51 @@ final class CdPageable<T> implements Pageable<T> {
      */
     private final transient Pageable<T> origin;
 
+    /**
+     * Alias of myself.
+     */
+    private final transient String self;
+
     /**
      * Public ctor.
      * @param org Origin
+     * @param slf Alias of myself
      */
-    CdPageable(final Pageable<T> org) {
+    CdPageable(final Pageable<T> org, final String slf) {
         this.origin = org;
+        this.self = slf;
     }
 
     @Override
     public Pageable<T> jump(final long number) throws IOException {
-        return new CdPageable<T>(this.origin.jump(number));
+        return new CdPageable<T>(this.origin.jump(number), this.self);
     }
 
     @Override
     public Iterable<T> iterate() throws IOException {
+        return CdPageable.wrap(this.origin.iterate(), this.self);
+    }
+
+    @Override
+    public Pageable.Page<T> page(final String cursor, final int size)
+        throws IOException {
+        final Pageable.Page<T> page = this.origin.page(cursor, size);
+        return new Pageable.Page<T>(
+            CdPageable.wrap(page.items(), this.self), page.cursor()
+        );
+    }
+
+    /**
+     * Wrap items into cached decorators.
+     * @param items Items
+     * @param self Alias of myself
+     * @param <T> Type of items
+     * @return Decorated items
+     */
+    private static <T> Iterable<T> wrap(final Iterable<T> items,
+        final String self) {
         return Iterables.transform(
-            this.origin.iterate(),
+            items,
             new Function<T, T>() {
                 @Override
                 @SuppressWarnings("unchecked")
@@ -80,11 +106,12 @@ final class CdPageable<T> implements Pageable<T> {
                     if (input instanceof Message) {
                         result = new CdMessage(Message.class.cast(input));
                     } else {
-                        result = new CdBout(Bout.class.cast(input));
+                        result = new CdBout(Bout.class.cast(input), self);
                     }
                     return (T) result;
                 }
             }
         );
     }
+
 }
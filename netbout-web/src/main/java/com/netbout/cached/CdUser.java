@@ -27,7 +27,6 @@
 package com.netbout.cached;
 
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.netbout.spi.Aliases;
 import com.netbout.spi.Friend;
 import com.netbout.spi.User;
@@ -43,7 +42,6 @@ import lombok.ToString;
  * @since 2.0
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
 @EqualsAndHashCode(of = "origin")
 final class CdUser implements User {
@@ -53,21 +51,29 @@ final class CdUser implements User {
      */
     private final transient User origin;
 
+    /**
+     * URN of the user.
+     */
+    private final transient String urn;
+
     /**
      * Public ctor.
      * @param org Origin
+     * @param name URN of the user
      */
-    CdUser(final User org) {
+    CdUser(final User org, final String name) {
         this.origin = org;
+        this.urn = name;
     }
 
     @Override
     public Aliases aliases() {
-        return new CdAliases(this.origin.aliases());
+        return new CdAliases(this.origin.aliases(), this.urn);
     }
 
     @Override
     public Iterable<Friend> friends(final String text) throws IOException {
         return this.origin.friends(text);
     }
+
 }
@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.cached;
+
+import com.jcabi.aspects.Immutable;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Key of a cached value: alias, bout and field.
+ *
+ * <p>Values that don't belong to any bout use zero.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+@Immutable
+@EqualsAndHashCode(of = { "alias", "bout", "field" })
+final class Key {
+
+    /**
+     * Alias.
+     */
+    private final transient String alias;
+
+    /**
+     * Bout number or zero.
+     */
+    private final transient long bout;
+
+    /**
+     * Field, like "title".
+     */
+    private final transient String field;
+
+    /**
+     * Ctor.
+     * @param name Alias
+     * @param num Bout number or zero
+     * @param fld Field
+     */
+    Key(final String name, final long num, final String fld) {
+        this.alias = name;
+        this.bout = num;
+        this.field = fld;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s#%d/%s", this.alias, this.bout, this.field);
+    }
+
+    /**
+     * Approximate size of the key in memory, in bytes.
+     * @return Bytes
+     */
+    public long weight() {
+        return (long) (Lfu.OBJECT + Lfu.OBJECT
+            + (this.alias.length() + this.field.length()) * 2);
+    }
+
+}
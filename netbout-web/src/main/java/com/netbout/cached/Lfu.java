@@ -0,0 +1,762 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.cached;
+
+import com.jcabi.aspects.Tv;
+import com.netbout.misc.Bus;
+import java.net.URI;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import lombok.ToString;
+
+/**
+ * Region of the cache, bounded by weight in bytes, with W-TinyLFU
+ * admission and eviction.
+ *
+ * <p>New values go to a small LRU window, one percent of the weight.
+ * Values pushed out of the window are admitted to the main area only
+ * if they were requested more often than the values they would evict
+ * there, according to a {@link Sketch} of all requests, hits and
+ * misses. The main area is a segmented LRU: a value hit while on
+ * probation is promoted to the protected segment, which takes
+ * 80 percent of the main area. This keeps popular values, like titles
+ * of busy bouts and photos of active aliases, while one-off reads
+ * of old bouts pass through the window without flushing them.
+ *
+ * <p>Weights are estimated by {@link #weigh(Object)}; decorators,
+ * like {@link CdBout}, are counted as {@link #DECORATOR} bytes each,
+ * since their origins hold a few rows of DynamoDB.
+ *
+ * <p>Values live no longer than the lifetime of the region. Every value
+ * depends on one tag of {@link Bus}, like {@link Bus#row(long, String)},
+ * and is evicted as soon as an event with this tag is published,
+ * on this node or another one. If events of another node are lost,
+ * all values are evicted.
+ *
+ * <p>A value loaded while its key or its tag was invalidated is returned
+ * but not cached, since it may be stale already. Keys and tags are
+ * hashed into {@link #STRIPES} version counters, which are bumped by
+ * invalidations, so an event about one bout doesn't stop caching of
+ * the others; two tags sharing a counter only cost an extra load.
+ *
+ * <p>The region is split into segments by hashes of keys, up to
+ * {@link #SEGMENTS} of them, one per megabyte, each with its own
+ * lock, sketch and share of the weight, so concurrent readers of
+ * different keys rarely wait for each other. Invalidation by a tag
+ * visits all segments.
+ *
+ * <p>Every region registers itself, in order to print statistics of
+ * all of them, see {@link #metrics(StringBuilder)}, and subscribes
+ * to the bus.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+@ToString(of = "name")
+@SuppressWarnings("PMD.TooManyMethods")
+final class Lfu implements Bus.Listener {
+
+    /**
+     * Approximate size of an object header with a few fields, in bytes.
+     */
+    public static final int OBJECT = Tv.FORTY;
+
+    /**
+     * Approximate size of a decorator with its origin, in bytes.
+     */
+    public static final int DECORATOR = Tv.THOUSAND;
+
+    /**
+     * Maximum number of segments.
+     */
+    public static final int SEGMENTS = Tv.EIGHT * 2;
+
+    /**
+     * Number of version counters of keys and tags.
+     */
+    public static final int STRIPES = 1 << Tv.TEN;
+
+    /**
+     * Approximate overhead of an entry in maps, in bytes.
+     */
+    private static final int ENTRY = Tv.HUNDRED;
+
+    /**
+     * Expected average weight of an entry, to size the sketch, in bytes.
+     */
+    private static final int AVERAGE = Tv.HUNDRED * 2;
+
+    /**
+     * Prefix of metrics.
+     */
+    private static final String PREFIX = "netbout_cache_";
+
+    /**
+     * All regions.
+     */
+    private static final Collection<Lfu> ALL =
+        new CopyOnWriteArrayList<>();
+
+    /**
+     * Name of the region.
+     */
+    private final transient String name;
+
+    /**
+     * Segments.
+     */
+    private final transient Lfu.Segment[] segments;
+
+    /**
+     * Versions of keys and tags, by their hashes; the last one
+     * is bumped when everything is invalidated.
+     */
+    private final transient AtomicLongArray versions;
+
+    /**
+     * Ctor.
+     * @param label Name of the region
+     * @param bytes Max weight, in bytes
+     * @param time Lifetime of values
+     * @param unit Unit of the lifetime
+     */
+    Lfu(final String label, final long bytes, final long time,
+        final TimeUnit unit) {
+        this(label, bytes, time, unit, Bus.SHARED);
+    }
+
+    /**
+     * Ctor.
+     * @param label Name of the region
+     * @param bytes Max weight, in bytes
+     * @param time Lifetime of values
+     * @param unit Unit of the lifetime
+     * @param bus Bus to listen to
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    Lfu(final String label, final long bytes, final long time,
+        final TimeUnit unit, final Bus bus) {
+        this.name = label;
+        final int total = (int) Math.max(
+            1L, Math.min((long) Lfu.SEGMENTS, bytes / (long) Tv.MILLION)
+        );
+        this.segments = new Lfu.Segment[total];
+        for (int idx = 0; idx < total; ++idx) {
+            this.segments[idx] = new Lfu.Segment(
+                bytes / (long) total, unit.toMillis(time)
+            );
+        }
+        this.versions = new AtomicLongArray(Lfu.STRIPES + 1);
+        Lfu.ALL.add(this);
+        bus.subscribe(this);
+    }
+
+    /**
+     * Source of a value.
+     * @param <T> Type of value
+     * @param <E> Type of exception
+     */
+    interface Source<T, E extends Exception> {
+        /**
+         * Load the value.
+         * @return Value
+         * @throws E If fails
+         */
+        T load() throws E;
+    }
+
+    /**
+     * Get the value, loading it if absent.
+     * @param key Key
+     * @param tag Tag of the data the value depends on
+     * @param source Source of the value
+     * @param <T> Type of value
+     * @param <E> Type of exception
+     * @return Value
+     * @throws E If fails to load
+     */
+    @SuppressWarnings("unchecked")
+    public <T, E extends Exception> T get(final Key key, final String tag,
+        final Lfu.Source<T, E> source) throws E {
+        final long before = this.stamp(key, tag);
+        final Lfu.Segment segment = this.segment(key);
+        final Object found = segment.find(key);
+        final T value;
+        if (found == null) {
+            value = source.load();
+            if (value != null) {
+                synchronized (segment) {
+                    if (this.stamp(key, tag) == before) {
+                        segment.put(key, tag, value);
+                    }
+                }
+            }
+        } else {
+            value = (T) found;
+        }
+        return value;
+    }
+
+    /**
+     * Invalidate one value.
+     * @param key Key
+     */
+    public void invalidate(final Key key) {
+        this.versions.incrementAndGet(Lfu.stripe(key.hashCode()));
+        this.segment(key).invalidate(key);
+    }
+
+    /**
+     * Invalidate all values that depend on the tag.
+     * @param tag Tag
+     */
+    public void invalidate(final String tag) {
+        this.versions.incrementAndGet(Lfu.stripe(tag.hashCode()));
+        for (final Lfu.Segment segment : this.segments) {
+            segment.invalidate(tag);
+        }
+    }
+
+    /**
+     * Invalidate all values.
+     */
+    public void invalidate() {
+        this.versions.incrementAndGet(Lfu.STRIPES);
+        for (final Lfu.Segment segment : this.segments) {
+            segment.invalidate();
+        }
+    }
+
+    @Override
+    public void on(final String event, final Collection<String> tags) {
+        if (Bus.LOST.equals(event)) {
+            this.invalidate();
+        }
+        for (final String tag : tags) {
+            this.invalidate(tag);
+        }
+    }
+
+    /**
+     * Statistics of the region.
+     * @return Counters and weights, by name
+     */
+    public Map<String, Long> stats() {
+        final Map<String, Long> stats = new TreeMap<>();
+        for (final Lfu.Segment segment : this.segments) {
+            for (final Map.Entry<String, Long> stat
+                : segment.stats().entrySet()) {
+                stats.put(
+                    stat.getKey(),
+                    Lfu.value(stats, stat.getKey()) + stat.getValue()
+                );
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Print statistics of all regions, in Prometheus text format.
+     * @param out Where to print
+     */
+    public static void metrics(final StringBuilder out) {
+        final Map<String, Map<String, Long>> all = new TreeMap<>();
+        for (final Lfu lfu : Lfu.ALL) {
+            all.put(lfu.name, lfu.stats());
+        }
+        final String requests = String.format("%srequests_total", Lfu.PREFIX);
+        out.append(String.format("# TYPE %s counter\n", requests));
+        for (final Map.Entry<String, Map<String, Long>> ent : all.entrySet()) {
+            for (final String result : new String[] {"hits", "misses"}) {
+                out.append(
+                    String.format(
+                        "%s{region=\"%s\",result=\"%s\"} %d\n",
+                        requests, ent.getKey(), result,
+                        Lfu.value(ent.getValue(), result)
+                    )
+                );
+            }
+        }
+        Lfu.print(out, all, "evictions", "evictions_total counter");
+        Lfu.print(out, all, "rejections", "rejections_total counter");
+        Lfu.print(out, all, "invalidations", "invalidations_total counter");
+        Lfu.print(out, all, "weight", "weight_bytes gauge");
+        Lfu.print(out, all, "capacity", "capacity_bytes gauge");
+        Lfu.print(out, all, "entries", "entries gauge");
+    }
+
+    /**
+     * Approximate size of a value in memory, in bytes.
+     * @param value Value
+     * @return Bytes
+     */
+    public static long weigh(final Object value) {
+        long weight = (long) Lfu.OBJECT;
+        if (value instanceof String) {
+            weight += (long) (String.class.cast(value).length() * 2);
+        } else if (value instanceof URI) {
+            weight += (long) (value.toString().length() * Tv.FOUR);
+        } else if (value instanceof Collection) {
+            for (final Object item : Collection.class.cast(value)) {
+                weight += Lfu.weigh(item);
+            }
+        } else if (!(value instanceof Number || value instanceof Boolean
+            || value instanceof Date || value instanceof Locale)) {
+            weight = (long) Lfu.DECORATOR;
+        }
+        return weight;
+    }
+
+    /**
+     * Versions of the key and the tag, to detect stale loads.
+     * @param key Key
+     * @param tag Tag
+     * @return Sum of their versions and the version of everything
+     */
+    private long stamp(final Key key, final String tag) {
+        return this.versions.get(Lfu.stripe(key.hashCode()))
+            + this.versions.get(Lfu.stripe(tag.hashCode()))
+            + this.versions.get(Lfu.STRIPES);
+    }
+
+    /**
+     * Segment of the key.
+     * @param key Key
+     * @return Segment
+     */
+    private Lfu.Segment segment(final Key key) {
+        return this.segments[
+            (key.hashCode() & Integer.MAX_VALUE) % this.segments.length
+        ];
+    }
+
+    /**
+     * Version counter of the hash.
+     * @param hash Hash of a key or a tag
+     * @return Index of the counter
+     */
+    private static int stripe(final int hash) {
+        return (hash & Integer.MAX_VALUE) % Lfu.STRIPES;
+    }
+
+    /**
+     * Value of a counter.
+     * @param map Counters
+     * @param counter Name of it
+     * @return Value or zero
+     */
+    private static long value(final Map<String, Long> map,
+        final String counter) {
+        final Long value = map.get(counter);
+        long val = 0L;
+        if (value != null) {
+            val = value;
+        }
+        return val;
+    }
+
+    /**
+     * Print one metric of all regions.
+     * @param out Where to print
+     * @param all Statistics by regions
+     * @param metric Name of the statistic
+     * @param type Name of the metric and its Prometheus type
+     */
+    private static void print(final StringBuilder out,
+        final Map<String, Map<String, Long>> all, final String metric,
+        final String type) {
+        final String name = String.format(
+            "%s%s", Lfu.PREFIX, type.substring(0, type.indexOf(' '))
+        );
+        out.append(String.format("# TYPE %s%s\n", Lfu.PREFIX, type));
+        for (final Map.Entry<String, Map<String, Long>> ent : all.entrySet()) {
+            out.append(
+                String.format(
+                    "%s{region=\"%s\"} %d\n",
+                    name, ent.getKey(), Lfu.value(ent.getValue(), metric)
+                )
+            );
+        }
+    }
+
+    /**
+     * Segment of the region, with its own lock.
+     */
+    private static final class Segment {
+        /**
+         * Max weight of the window.
+         */
+        private final transient long window;
+        /**
+         * Max weight of the main area.
+         */
+        private final transient long main;
+        /**
+         * Max weight of the protected segment.
+         */
+        private final transient long protect;
+        /**
+         * Lifetime of values, in milliseconds.
+         */
+        private final transient long lifetime;
+        /**
+         * Window, least recent first.
+         */
+        private final transient Map<Key, Lfu.Entry> eden;
+        /**
+         * Probation segment of the main area, least recent first.
+         */
+        private final transient Map<Key, Lfu.Entry> probation;
+        /**
+         * Protected segment of the main area, least recent first.
+         */
+        private final transient Map<Key, Lfu.Entry> protection;
+        /**
+         * Keys of values, by their tags.
+         */
+        private final transient Map<String, Collection<Key>> tagged;
+        /**
+         * Frequencies of requests.
+         */
+        private final transient Sketch sketch;
+        /**
+         * Counters: hits, misses, evictions, etc.
+         */
+        private final transient Map<String, Long> counters;
+        /**
+         * Weights of the window, probation and protected segments.
+         */
+        private final transient long[] weights;
+        /**
+         * Ctor.
+         * @param bytes Max weight, in bytes
+         * @param msec Lifetime of values, in milliseconds
+         */
+        Segment(final long bytes, final long msec) {
+            this.window = Math.max(bytes / Tv.HUNDRED, 1L);
+            this.main = bytes - this.window;
+            this.protect = this.main * Tv.EIGHT / Tv.TEN;
+            this.lifetime = msec;
+            this.eden = new LinkedHashMap<>(0);
+            this.probation = new LinkedHashMap<>(0);
+            this.protection = new LinkedHashMap<>(0);
+            this.tagged = new HashMap<>(0);
+            this.sketch = new Sketch(
+                (int) Math.min(bytes / Lfu.AVERAGE, (long) Integer.MAX_VALUE)
+            );
+            this.counters = new TreeMap<>();
+            this.weights = new long[Tv.THREE];
+        }
+        /**
+         * Invalidate one value.
+         * @param key Key
+         */
+        public synchronized void invalidate(final Key key) {
+            if (this.remove(key)) {
+                this.count("invalidations");
+            }
+        }
+        /**
+         * Invalidate all values that depend on the tag.
+         * @param tag Tag
+         */
+        public synchronized void invalidate(final String tag) {
+            final Collection<Key> keys = this.tagged.remove(tag);
+            if (keys != null) {
+                for (final Key key : keys) {
+                    this.detach(key);
+                    this.count("invalidations");
+                }
+            }
+        }
+        /**
+         * Invalidate all values.
+         */
+        public synchronized void invalidate() {
+            for (final Collection<Key> keys : this.tagged.values()) {
+                for (final Key key : keys) {
+                    this.detach(key);
+                    this.count("invalidations");
+                }
+            }
+            this.tagged.clear();
+        }
+        /**
+         * Statistics of the segment.
+         * @return Counters and weights, by name
+         */
+        public synchronized Map<String, Long> stats() {
+            final Map<String, Long> stats = new TreeMap<>(this.counters);
+            stats.put(
+                "weight", this.weights[0] + this.weights[1] + this.weights[2]
+            );
+            stats.put("capacity", this.window + this.main);
+            stats.put(
+                "entries",
+                (long) (this.eden.size() + this.probation.size()
+                    + this.protection.size())
+            );
+            return stats;
+        }
+        /**
+         * Find a live value and count the request.
+         * @param key Key
+         * @return Value or NULL if absent
+         */
+        public synchronized Object find(final Key key) {
+            this.sketch.increment(key.hashCode());
+            Lfu.Entry entry = this.eden.get(key);
+            int queue = 0;
+            if (entry == null) {
+                entry = this.probation.get(key);
+                queue = 1;
+            }
+            if (entry == null) {
+                entry = this.protection.get(key);
+                queue = 2;
+            }
+            if (entry != null && entry.expires < System.currentTimeMillis()) {
+                this.remove(key);
+                entry = null;
+            }
+            final Object value;
+            if (entry == null) {
+                this.count("misses");
+                value = null;
+            } else {
+                this.count("hits");
+                this.touch(key, entry, queue);
+                value = entry.value;
+            }
+            return value;
+        }
+        /**
+         * Put a loaded value.
+         * @param key Key
+         * @param tag Tag of the data the value depends on
+         * @param value Value
+         */
+        public synchronized void put(final Key key, final String tag,
+            final Object value) {
+            final long weight = key.weight() + Lfu.weigh(value) + Lfu.ENTRY;
+            if (weight <= this.main) {
+                this.remove(key);
+                this.eden.put(
+                    key,
+                    new Lfu.Entry(
+                        value, tag, weight,
+                        System.currentTimeMillis() + this.lifetime
+                    )
+                );
+                this.weights[0] += weight;
+                Collection<Key> keys = this.tagged.get(tag);
+                if (keys == null) {
+                    keys = new HashSet<>(1);
+                    this.tagged.put(tag, keys);
+                }
+                keys.add(key);
+                while (this.weights[0] > this.window) {
+                    final Iterator<Map.Entry<Key, Lfu.Entry>> oldest =
+                        this.eden.entrySet().iterator();
+                    final Map.Entry<Key, Lfu.Entry> candidate = oldest.next();
+                    oldest.remove();
+                    this.weights[0] -= candidate.getValue().weight;
+                    this.admit(candidate.getKey(), candidate.getValue());
+                }
+            }
+        }
+        /**
+         * Move a candidate from the window to the main area, evicting less
+         * frequent values there, or evict the candidate.
+         * @param key Key of the candidate
+         * @param entry The candidate
+         */
+        private void admit(final Key key, final Lfu.Entry entry) {
+            final int freq = this.sketch.frequency(key.hashCode());
+            boolean admitted = true;
+            while (admitted && this.weights[1] + this.weights[2]
+                + entry.weight > this.main) {
+                Map<Key, Lfu.Entry> area = this.probation;
+                if (area.isEmpty()) {
+                    area = this.protection;
+                }
+                final Map.Entry<Key, Lfu.Entry> victim =
+                    area.entrySet().iterator().next();
+                if (victim.getValue().expires < System.currentTimeMillis()
+                    || this.sketch.frequency(victim.getKey().hashCode())
+                    < freq) {
+                    this.remove(victim.getKey());
+                    this.count("evictions");
+                } else {
+                    admitted = false;
+                }
+            }
+            if (admitted) {
+                this.probation.put(key, entry);
+                this.weights[1] += entry.weight;
+            } else {
+                this.untag(key, entry.tag);
+                this.count("rejections");
+            }
+        }
+        /**
+         * Register a hit.
+         * @param key Key
+         * @param entry Entry
+         * @param queue Where it is: window, probation or protected
+         */
+        private void touch(final Key key, final Lfu.Entry entry,
+            final int queue) {
+            if (queue == 0) {
+                this.eden.remove(key);
+                this.eden.put(key, entry);
+            } else if (queue == 1) {
+                this.probation.remove(key);
+                this.weights[1] -= entry.weight;
+                this.protection.put(key, entry);
+                this.weights[2] += entry.weight;
+                while (this.weights[2] > this.protect) {
+                    final Iterator<Map.Entry<Key, Lfu.Entry>> oldest =
+                        this.protection.entrySet().iterator();
+                    final Map.Entry<Key, Lfu.Entry> demoted = oldest.next();
+                    oldest.remove();
+                    this.weights[2] -= demoted.getValue().weight;
+                    this.probation.put(demoted.getKey(), demoted.getValue());
+                    this.weights[1] += demoted.getValue().weight;
+                }
+            } else {
+                this.protection.remove(key);
+                this.protection.put(key, entry);
+            }
+        }
+        /**
+         * Remove the value, wherever it is.
+         * @param key Key
+         * @return TRUE if it was there
+         */
+        private boolean remove(final Key key) {
+            final Lfu.Entry entry = this.detach(key);
+            if (entry != null) {
+                this.untag(key, entry.tag);
+            }
+            return entry != null;
+        }
+        /**
+         * Remove the value from its queue, but not from its tag.
+         * @param key Key
+         * @return Entry removed or NULL if it was absent
+         */
+        private Lfu.Entry detach(final Key key) {
+            Lfu.Entry entry = this.eden.remove(key);
+            int queue = 0;
+            if (entry == null) {
+                entry = this.probation.remove(key);
+                queue = 1;
+            }
+            if (entry == null) {
+                entry = this.protection.remove(key);
+                queue = 2;
+            }
+            if (entry != null) {
+                this.weights[queue] -= entry.weight;
+            }
+            return entry;
+        }
+        /**
+         * Remove the key from its tag.
+         * @param key Key
+         * @param tag Tag
+         */
+        private void untag(final Key key, final String tag) {
+            final Collection<Key> keys = this.tagged.get(tag);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    this.tagged.remove(tag);
+                }
+            }
+        }
+        /**
+         * Increment a counter.
+         * @param counter Name of it
+         */
+        private void count(final String counter) {
+            this.counters.put(counter, Lfu.value(this.counters, counter) + 1L);
+        }
+    }
+
+    /**
+     * Cached value.
+     */
+    private static final class Entry {
+        /**
+         * Value.
+         */
+        private final transient Object value;
+        /**
+         * Tag of the data it depends on.
+         */
+        private final transient String tag;
+        /**
+         * Weight, in bytes.
+         */
+        private final transient long weight;
+        /**
+         * When it expires, in milliseconds.
+         */
+        private final transient long expires;
+        /**
+         * Ctor.
+         * @param val Value
+         * @param tgd Tag of the data it depends on
+         * @param wgt Weight
+         * @param exp When it expires
+         * @checkstyle ParameterNumberCheck (5 lines)
+         */
+        Entry(final Object val, final String tgd, final long wgt,
+            final long exp) {
+            this.value = val;
+            this.tag = tgd;
+            this.weight = wgt;
+            this.expires = exp;
+        }
+    }
+
+}
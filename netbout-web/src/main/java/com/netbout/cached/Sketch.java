@@ -0,0 +1,165 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.cached;
+
+import com.jcabi.aspects.Tv;
+import lombok.ToString;
+
+/**
+ * Count-min sketch of access frequencies, with aging.
+ *
+ * <p>Every hash has a counter in each of {@link #DEPTH} rows and its
+ * frequency is the smallest of them. Counters stop at {@link #MAX}.
+ * When the number of increments reaches ten times the width, all
+ * counters are halved, so that old popularity fades away.
+ *
+ * <p>The class is not thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+@ToString(of = { "mask", "additions" })
+final class Sketch {
+
+    /**
+     * Seeds of rows.
+     */
+    private static final int[] SEEDS = {
+        0x97cb3127, 0xb7a1e2a5, 0x5a4bf1e3, 0x2f0f3a8b,
+    };
+
+    /**
+     * Number of rows.
+     */
+    private static final int DEPTH = Sketch.SEEDS.length;
+
+    /**
+     * Max value of a counter.
+     */
+    private static final int MAX = Tv.FIFTEEN;
+
+    /**
+     * Multiplier that spreads hashes.
+     */
+    private static final int SPREAD = 0x9e3779b9;
+
+    /**
+     * Shift that mixes high bits of a hash into low ones.
+     */
+    private static final int SHIFT = 16;
+
+    /**
+     * Counters, row by row.
+     */
+    private final transient byte[][] table;
+
+    /**
+     * Mask of an index in a row.
+     */
+    private final transient int mask;
+
+    /**
+     * Increments before the aging.
+     */
+    private final transient int sample;
+
+    /**
+     * Increments since the last aging.
+     */
+    private transient int additions;
+
+    /**
+     * Ctor.
+     * @param width Minimum number of counters in a row
+     */
+    Sketch(final int width) {
+        final int size = Integer.highestOneBit(Math.max(width, 2) - 1) << 1;
+        this.table = new byte[Sketch.DEPTH][size];
+        this.mask = size - 1;
+        this.sample = size * Tv.TEN;
+    }
+
+    /**
+     * Count one more access.
+     * @param hash Hash of the key
+     */
+    public void increment(final int hash) {
+        boolean added = false;
+        for (int row = 0; row < Sketch.DEPTH; ++row) {
+            final int idx = this.index(hash, row);
+            if (this.table[row][idx] < Sketch.MAX) {
+                ++this.table[row][idx];
+                added = true;
+            }
+        }
+        if (added) {
+            ++this.additions;
+            if (this.additions >= this.sample) {
+                this.reset();
+            }
+        }
+    }
+
+    /**
+     * Estimated frequency.
+     * @param hash Hash of the key
+     * @return Frequency, from zero to {@link #MAX}
+     */
+    public int frequency(final int hash) {
+        int freq = Sketch.MAX;
+        for (int row = 0; row < Sketch.DEPTH; ++row) {
+            freq = Math.min(freq, this.table[row][this.index(hash, row)]);
+        }
+        return freq;
+    }
+
+    /**
+     * Index of the counter in the row.
+     * @param hash Hash of the key
+     * @param row Row
+     * @return Index
+     */
+    private int index(final int hash, final int row) {
+        int idx = (hash ^ Sketch.SEEDS[row]) * Sketch.SPREAD;
+        idx ^= idx >>> Sketch.SHIFT;
+        return idx & this.mask;
+    }
+
+    /**
+     * Halve all counters.
+     */
+    private void reset() {
+        for (final byte[] row : this.table) {
+            for (int idx = 0; idx < row.length; ++idx) {
+                row[idx] >>= 1;
+            }
+        }
+        this.additions /= 2;
+    }
+
+}
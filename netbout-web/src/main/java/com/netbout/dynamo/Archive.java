@@ -0,0 +1,499 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.DeleteRequest;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Conditions;
+import com.jcabi.dynamo.Item;
+import com.jcabi.dynamo.QueryValve;
+import com.jcabi.dynamo.Region;
+import com.jcabi.log.Logger;
+import com.jcabi.s3.Bucket;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Archive of old messages.
+ *
+ * <p>Messages older than a threshold are moved out of "messages" table
+ * into segments in S3 (see {@link Segment}), a few hundred messages each,
+ * oldest first. Every segment has a row in "segments" table, which is
+ * the index of the archive: the highest and the lowest message numbers
+ * in the segment and its S3 key. A segment is written first, then its
+ * row, and only then messages are deleted from "messages" table. A crash
+ * in between may leave some messages in both places, but never loses
+ * them.
+ *
+ * <p>Segments read are kept in memory, up to a total number of messages,
+ * since cold pages are read again and again by everybody who scrolls
+ * a long bout down to its beginning.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ */
+@Immutable
+@ToString(of = { "age", "size" })
+@EqualsAndHashCode(of = { "region", "bucket", "age", "size" })
+@SuppressWarnings("PMD.ExcessiveImports")
+final class Archive {
+
+    /**
+     * Table name.
+     */
+    public static final String TBL = "segments";
+
+    /**
+     * Bout attribute.
+     */
+    public static final String HASH = "bout";
+
+    /**
+     * Highest message number in the segment.
+     */
+    public static final String RANGE = "top";
+
+    /**
+     * Lowest message number in the segment.
+     */
+    public static final String ATTR_BOTTOM = "bottom";
+
+    /**
+     * Total messages in the segment.
+     */
+    public static final String ATTR_TOTAL = "total";
+
+    /**
+     * S3 key of the segment.
+     */
+    public static final String ATTR_KEY = "key";
+
+    /**
+     * Max rows in one BatchWriteItem request.
+     */
+    private static final int CHUNK = 25;
+
+    /**
+     * Segments read, by their S3 keys, highest numbers first.
+     */
+    private static final Cache<String, List<Attributes>> PAGES = CacheBuilder
+        .newBuilder()
+        .maximumWeight((long) Tv.HUNDRED * (long) Tv.THOUSAND)
+        .weigher(
+            new Weigher<String, List<Attributes>>() {
+                @Override
+                public int weigh(final String key,
+                    final List<Attributes> rows) {
+                    return rows.size();
+                }
+            }
+        )
+        .expireAfterAccess(1L, TimeUnit.HOURS)
+        .build();
+
+    /**
+     * Bouts recently compacted, by their numbers.
+     */
+    private static final Cache<Long, Boolean> COMPACTED = CacheBuilder
+        .newBuilder()
+        .expireAfterWrite(1L, TimeUnit.DAYS)
+        .maximumSize((long) Tv.HUNDRED * (long) Tv.THOUSAND)
+        .build();
+
+    /**
+     * Region we're in.
+     */
+    private final transient Region region;
+
+    /**
+     * Bucket for segments.
+     */
+    private final transient Bucket bucket;
+
+    /**
+     * Age of messages to archive, in milliseconds.
+     */
+    private final transient long age;
+
+    /**
+     * Messages in one segment.
+     */
+    private final transient int size;
+
+    /**
+     * Ctor.
+     * @param reg Region
+     * @param bkt Bucket
+     */
+    Archive(final Region reg, final Bucket bkt) {
+        this(
+            reg, bkt, TimeUnit.DAYS.toMillis((long) Tv.HUNDRED),
+            Tv.FIVE * Tv.HUNDRED
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param reg Region
+     * @param bkt Bucket
+     * @param msec Age of messages to archive, in milliseconds
+     * @param total Messages in one segment
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    Archive(final Region reg, final Bucket bkt, final long msec,
+        final int total) {
+        this.region = reg;
+        this.bucket = bkt;
+        this.age = msec;
+        this.size = total;
+    }
+
+    /**
+     * Move old messages of the bout into the archive, unless it was
+     * done recently in this JVM.
+     * @param bout Bout number
+     * @return How many messages were archived
+     * @throws IOException If fails
+     */
+    public int compact(final long bout) throws IOException {
+        int total = 0;
+        if (Archive.COMPACTED.asMap().putIfAbsent(bout, true) == null) {
+            while (true) {
+                final List<Attributes> rows = this.oldest(bout);
+                if (rows.size() < this.size) {
+                    break;
+                }
+                this.archive(bout, rows);
+                total += rows.size();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Archived messages of the bout, highest numbers first.
+     * @param bout Bout number
+     * @param before Take only messages with numbers lower than this one
+     * @return Rows of "messages" table, loaded lazily, segment by segment
+     */
+    public Iterable<Attributes> messages(final long bout, final long before) {
+        return Iterables.concat(
+            Iterables.transform(
+                Iterables.filter(
+                    this.region.table(Archive.TBL)
+                        .frame()
+                        .through(
+                            new QueryValve()
+                                .withScanIndexForward(false)
+                                .withAttributesToGet(
+                                    Archive.ATTR_BOTTOM, Archive.ATTR_KEY
+                                )
+                        )
+                        .where(Archive.HASH, Conditions.equalTo(bout)),
+                    new Predicate<Item>() {
+                        @Override
+                        public boolean apply(final Item item) {
+                            try {
+                                return Archive.number(
+                                    item.get(Archive.ATTR_BOTTOM)
+                                ) < before;
+                            } catch (final IOException ex) {
+                                throw new IllegalStateException(ex);
+                            }
+                        }
+                    }
+                ),
+                new Function<Item, Iterable<Attributes>>() {
+                    @Override
+                    public Iterable<Attributes> apply(final Item item) {
+                        try {
+                            return Archive.below(
+                                Archive.this.segment(
+                                    item.get(Archive.ATTR_KEY).getS()
+                                ),
+                                before
+                            );
+                        } catch (final IOException ex) {
+                            throw new IllegalStateException(ex);
+                        }
+                    }
+                }
+            )
+        );
+    }
+
+    /**
+     * Find one archived message.
+     * @param bout Bout number
+     * @param number Message number
+     * @return Row of "messages" table or empty if it is not in the archive
+     * @throws IOException If fails
+     */
+    public Attributes message(final long bout, final long number)
+        throws IOException {
+        final Iterator<Item> items = this.region.table(Archive.TBL)
+            .frame()
+            .through(
+                new QueryValve()
+                    .withLimit(1)
+                    .withAttributesToGet(Archive.ATTR_BOTTOM, Archive.ATTR_KEY)
+            )
+            .where(Archive.HASH, Conditions.equalTo(bout))
+            .where(
+                Archive.RANGE,
+                new Condition()
+                    .withComparisonOperator(ComparisonOperator.GE)
+                    .withAttributeValueList(
+                        new AttributeValue().withN(Long.toString(number))
+                    )
+            )
+            .iterator();
+        Attributes found = new Attributes();
+        if (items.hasNext()) {
+            final Item item = items.next();
+            if (Archive.number(item.get(Archive.ATTR_BOTTOM)) <= number) {
+                for (final Attributes row
+                    : this.segment(item.get(Archive.ATTR_KEY).getS())) {
+                    if (Archive.number(row.get(DyMessages.RANGE)) == number) {
+                        found = row;
+                        break;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Oldest messages of the bout, which are old enough to be archived.
+     * @param bout Bout number
+     * @return Rows, lowest numbers first, not more than one segment
+     * @throws IOException If fails
+     */
+    private List<Attributes> oldest(final long bout) throws IOException {
+        final long edge = System.currentTimeMillis() - this.age;
+        final List<Attributes> rows = new ArrayList<>(this.size);
+        for (final Item item : Iterables.limit(
+            this.region.table(DyMessages.TBL)
+                .frame()
+                .through(
+                    new QueryValve()
+                        .withLimit(this.size)
+                        .withAttributesToGet(
+                            DyMessages.ATTR_TEXT,
+                            DyMessages.ATTR_ALIAS,
+                            DyMessages.ATTR_DATE,
+                            DyMessages.ATTR_HTML
+                        )
+                )
+                .where(DyMessages.HASH, Conditions.equalTo(bout)),
+            this.size
+        )) {
+            final AttributeValue date = item.get(DyMessages.ATTR_DATE);
+            if (Archive.number(date) >= edge) {
+                break;
+            }
+            Attributes row = new Attributes().with(DyMessages.ATTR_DATE, date);
+            for (final String attr : new String[] {
+                DyMessages.HASH, DyMessages.RANGE,
+                DyMessages.ATTR_ALIAS, DyMessages.ATTR_TEXT
+            }) {
+                row = row.with(attr, item.get(attr));
+            }
+            if (item.has(DyMessages.ATTR_HTML)) {
+                row = row.with(
+                    DyMessages.ATTR_HTML, item.get(DyMessages.ATTR_HTML)
+                );
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Archive these messages as one segment.
+     * @param bout Bout number
+     * @param rows Rows, lowest numbers first
+     * @throws IOException If fails
+     */
+    private void archive(final long bout, final List<Attributes> rows)
+        throws IOException {
+        final long bottom = Archive.number(rows.get(0).get(DyMessages.RANGE));
+        final long top = Archive.number(
+            rows.get(rows.size() - 1).get(DyMessages.RANGE)
+        );
+        final String key = String.format("segments/%d/%d.gz", bout, top);
+        final List<Attributes> ordered = Lists.reverse(rows);
+        new Segment(this.bucket, key).write(ordered);
+        this.region.table(Archive.TBL).put(
+            new Attributes()
+                .with(Archive.HASH, bout)
+                .with(Archive.RANGE, top)
+                .with(Archive.ATTR_BOTTOM, bottom)
+                .with(Archive.ATTR_TOTAL, rows.size())
+                .with(Archive.ATTR_KEY, key)
+        );
+        Archive.PAGES.put(key, new ArrayList<>(ordered));
+        this.delete(rows);
+        Logger.info(
+            this, "%d message(s) of #%d archived into %s",
+            rows.size(), bout, key
+        );
+    }
+
+    /**
+     * Delete rows from "messages" table.
+     * @param rows Rows to delete
+     * @throws IOException If fails
+     */
+    private void delete(final Collection<Attributes> rows)
+        throws IOException {
+        final String name = this.region.table(DyMessages.TBL).name();
+        final AmazonDynamoDB aws = this.region.aws();
+        try {
+            for (final List<Attributes> chunk
+                : Lists.partition(new ArrayList<>(rows), Archive.CHUNK)) {
+                final List<WriteRequest> requests =
+                    new ArrayList<>(chunk.size());
+                for (final Attributes row : chunk) {
+                    requests.add(
+                        new WriteRequest().withDeleteRequest(
+                            new DeleteRequest().withKey(
+                                row.only(
+                                    Lists.newArrayList(
+                                        DyMessages.HASH, DyMessages.RANGE
+                                    )
+                                )
+                            )
+                        )
+                    );
+                }
+                Map<String, List<WriteRequest>> left =
+                    Collections.singletonMap(name, requests);
+                int attempt = 0;
+                while (left != null && !left.isEmpty()) {
+                    if (attempt > Tv.FIVE) {
+                        throw new IOException(
+                            String.format(
+                                "failed to delete %d row(s) from %s",
+                                left.get(name).size(), name
+                            )
+                        );
+                    }
+                    BatchGet.backoff(attempt);
+                    left = aws.batchWriteItem(
+                        new BatchWriteItemRequest().withRequestItems(left)
+                    ).getUnprocessedItems();
+                    ++attempt;
+                }
+            }
+        } catch (final AmazonClientException ex) {
+            throw new IOException(ex);
+        } finally {
+            aws.shutdown();
+        }
+    }
+
+    /**
+     * Read segment, through the cache.
+     * @param key S3 key of it
+     * @return Rows, highest numbers first
+     * @throws IOException If fails
+     */
+    private List<Attributes> segment(final String key) throws IOException {
+        try {
+            return Archive.PAGES.get(
+                key,
+                new Callable<List<Attributes>>() {
+                    @Override
+                    public List<Attributes> call() throws IOException {
+                        return new Segment(Archive.this.bucket, key).read();
+                    }
+                }
+            );
+        } catch (final ExecutionException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * Rows with numbers lower than the given one.
+     * @param rows Rows
+     * @param before Number
+     * @return Rows below it
+     */
+    private static Iterable<Attributes> below(final Iterable<Attributes> rows,
+        final long before) {
+        return Iterables.filter(
+            rows,
+            new Predicate<Attributes>() {
+                @Override
+                public boolean apply(final Attributes row) {
+                    return Archive.number(row.get(DyMessages.RANGE)) < before;
+                }
+            }
+        );
+    }
+
+    /**
+     * Numeric value.
+     * @param value Attribute value
+     * @return Number
+     */
+    private static long number(final AttributeValue value) {
+        return Long.parseLong(value.getN());
+    }
+
+}
@@ -0,0 +1,205 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.google.common.collect.Lists;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Region;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Read of many rows of one table by their keys, with BatchGetItem.
+ *
+ * <p>Keys are sent in chunks of {@link #CHUNK}, the maximum allowed
+ * by DynamoDB; unprocessed keys are retried a few times, with exponential
+ * backoff (see {@link #backoff(int)}), since they are usually the result
+ * of throttling.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+@Immutable
+@ToString
+@EqualsAndHashCode(of = { "region", "table", "consistent" })
+final class BatchGet {
+
+    /**
+     * Max keys in one BatchGetItem request.
+     */
+    private static final int CHUNK = Tv.HUNDRED;
+
+    /**
+     * Region we're in.
+     */
+    private final transient Region region;
+
+    /**
+     * Table name, not prefixed.
+     */
+    private final transient String table;
+
+    /**
+     * Read strongly consistent?
+     */
+    private final transient boolean consistent;
+
+    /**
+     * Ctor, for eventually consistent reads.
+     * @param reg Region
+     * @param tbl Table name
+     */
+    BatchGet(final Region reg, final String tbl) {
+        this(reg, tbl, false);
+    }
+
+    /**
+     * Ctor.
+     * @param reg Region
+     * @param tbl Table name
+     * @param strong Read strongly consistent?
+     */
+    BatchGet(final Region reg, final String tbl, final boolean strong) {
+        this.region = reg;
+        this.table = tbl;
+        this.consistent = strong;
+    }
+
+    /**
+     * Read one row, with all its attributes.
+     * @param key Key of the row
+     * @return Row found or empty attributes if it is absent
+     * @throws IOException If fails
+     */
+    public Attributes read(final Attributes key) throws IOException {
+        final Iterator<Attributes> rows = this.read(
+            Collections.singleton(key)
+        ).iterator();
+        Attributes row = new Attributes();
+        if (rows.hasNext()) {
+            row = rows.next();
+        }
+        return row;
+    }
+
+    /**
+     * Read rows.
+     * @param keys Keys of the rows, duplicates are not allowed
+     * @param attrs Attributes to read, besides keys, or none to read all
+     * @return Rows found, in no particular order
+     * @throws IOException If fails
+     */
+    public Collection<Attributes> read(final Collection<Attributes> keys,
+        final String... attrs) throws IOException {
+        final String name = this.region.table(this.table).name();
+        final Collection<Attributes> rows = new LinkedList<>();
+        final AmazonDynamoDB aws = this.region.aws();
+        try {
+            for (final List<Attributes> chunk
+                : Lists.partition(new ArrayList<>(keys), BatchGet.CHUNK)) {
+                final KeysAndAttributes request = new KeysAndAttributes()
+                    .withKeys(new ArrayList<Map<String, AttributeValue>>(chunk))
+                    .withConsistentRead(this.consistent);
+                if (attrs.length > 0) {
+                    final Collection<String> names = new HashSet<>(
+                        Arrays.asList(attrs)
+                    );
+                    names.addAll(chunk.get(0).keySet());
+                    request.setAttributesToGet(names);
+                }
+                Map<String, KeysAndAttributes> left =
+                    Collections.singletonMap(name, request);
+                int attempt = 0;
+                while (left != null && !left.isEmpty()) {
+                    if (attempt > Tv.FIVE) {
+                        throw new IOException(
+                            String.format(
+                                "failed to read %d row(s) from %s",
+                                left.get(name).getKeys().size(), name
+                            )
+                        );
+                    }
+                    BatchGet.backoff(attempt);
+                    final BatchGetItemResult result = aws.batchGetItem(
+                        new BatchGetItemRequest().withRequestItems(left)
+                    );
+                    final List<Map<String, AttributeValue>> found =
+                        result.getResponses().get(name);
+                    if (found != null) {
+                        for (final Map<String, AttributeValue> row : found) {
+                            rows.add(new Attributes(row));
+                        }
+                    }
+                    left = result.getUnprocessedKeys();
+                    ++attempt;
+                }
+            }
+        } catch (final AmazonClientException ex) {
+            throw new IOException(ex);
+        } finally {
+            aws.shutdown();
+        }
+        return rows;
+    }
+
+    /**
+     * Wait before the next attempt of a batch request, longer and longer.
+     * @param attempt How many attempts were made already
+     * @throws IOException If interrupted
+     */
+    public static void backoff(final int attempt) throws IOException {
+        if (attempt > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep((long) Tv.FIFTY << attempt);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException(ex);
+            }
+        }
+    }
+
+}
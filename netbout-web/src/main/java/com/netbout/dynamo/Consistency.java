@@ -0,0 +1,212 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.jcabi.aspects.Immutable;
+import com.netbout.misc.Session;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Read consistency policy, per operation and per session.
+ *
+ * <p>Every read of a base table asks {@link #strong(String, long)}
+ * whether it must be strongly consistent. The answer depends on the
+ * mode of the operation: {@link Consistency.Mode#STRONG} and
+ * {@link Consistency.Mode#EVENTUAL} are fixed, while
+ * {@link Consistency.Mode#SESSION} reads strongly only when the same
+ * alias wrote to the same bout during the last {@link Session#TTL}
+ * milliseconds, which is much longer than DynamoDB needs to propagate
+ * a write.
+ * This is how the writer reads their own writes, while everybody else
+ * reads eventually, for half the capacity.
+ *
+ * <p>Every write calls {@link #wrote(long)}, which records the write of
+ * the alias to the bout in the {@link Session}. The session travels with
+ * the client, in a cookie, so the writer reads strongly on any node
+ * of the cluster.
+ *
+ * <p>Operations are {@link #MESSAGES}, {@link #FRIENDS}, {@link #ROW}
+ * and {@link #ATTACHMENTS}, all in session mode by default; unknown
+ * operations are eventual. Modes can be changed in system property
+ * {@code netbout.consistency}, for example
+ * {@code messages:strong,friends:eventual}.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+@Immutable
+@ToString
+@EqualsAndHashCode(of = "self")
+final class Consistency {
+
+    /**
+     * Messages of a bout, in "messages" table.
+     */
+    public static final String MESSAGES = "messages";
+
+    /**
+     * Members of a bout, in "friends" table.
+     */
+    public static final String FRIENDS = "friends";
+
+    /**
+     * My row of a bout, in "friends" table.
+     */
+    public static final String ROW = "row";
+
+    /**
+     * Attachments of a bout, in "attachments" table.
+     */
+    public static final String ATTACHMENTS = "attachments";
+
+    /**
+     * Modes of operations.
+     */
+    private static final Map<String, Consistency.Mode> POLICY =
+        Consistency.parse(System.getProperty("netbout.consistency", ""));
+
+    /**
+     * Alias of the session.
+     */
+    private final transient String self;
+
+    /**
+     * Ctor.
+     * @param slf Alias of the session
+     */
+    Consistency(final String slf) {
+        this.self = slf;
+    }
+
+    /**
+     * Read mode.
+     */
+    enum Mode {
+        /**
+         * Always strongly consistent.
+         */
+        STRONG,
+        /**
+         * Always eventually consistent.
+         */
+        EVENTUAL,
+        /**
+         * Strongly consistent for the writer, eventually for others.
+         */
+        SESSION;
+    }
+
+    /**
+     * The alias just wrote to the bout.
+     * @param bout Bout number
+     * @return Version token of the write
+     */
+    public long wrote(final long bout) {
+        return Session.wrote(this.key(bout));
+    }
+
+    /**
+     * Version token of the last recent write of the alias to the bout.
+     * @param bout Bout number
+     * @return Version or zero if nothing was written recently
+     */
+    public long version(final long bout) {
+        return Session.written(this.key(bout));
+    }
+
+    /**
+     * Shall this read of the bout be strongly consistent?
+     * @param operation Operation, like {@link #MESSAGES}
+     * @param bout Bout number
+     * @return TRUE if strongly consistent
+     */
+    public boolean strong(final String operation, final long bout) {
+        Consistency.Mode mode = Consistency.POLICY.get(operation);
+        if (mode == null) {
+            mode = Consistency.Mode.EVENTUAL;
+        }
+        final boolean strong;
+        if (mode == Consistency.Mode.SESSION) {
+            strong = this.version(bout) > 0L;
+        } else {
+            strong = mode == Consistency.Mode.STRONG;
+        }
+        return strong;
+    }
+
+    /**
+     * Change the mode of an operation.
+     * @param operation Operation, like {@link #MESSAGES}
+     * @param mode New mode
+     * @return Previous mode or NULL if it was unknown
+     */
+    public static Consistency.Mode policy(final String operation,
+        final Consistency.Mode mode) {
+        return Consistency.POLICY.put(operation, mode);
+    }
+
+    /**
+     * Parse modes of operations, on top of defaults.
+     * @param text Comma separated pairs, like "messages:strong"
+     * @return Modes
+     */
+    static Map<String, Consistency.Mode> parse(final String text) {
+        final Map<String, Consistency.Mode> modes =
+            new ConcurrentHashMap<>(0);
+        modes.put(Consistency.MESSAGES, Consistency.Mode.SESSION);
+        modes.put(Consistency.FRIENDS, Consistency.Mode.SESSION);
+        modes.put(Consistency.ROW, Consistency.Mode.SESSION);
+        modes.put(Consistency.ATTACHMENTS, Consistency.Mode.SESSION);
+        for (final String pair : text.split(",")) {
+            final String[] parts = pair.trim().split(":");
+            if (parts.length == 2) {
+                modes.put(
+                    parts[0].trim(),
+                    Consistency.Mode.valueOf(
+                        parts[1].trim().toUpperCase(Locale.ENGLISH)
+                    )
+                );
+            }
+        }
+        return modes;
+    }
+
+    /**
+     * Key of the token.
+     * @param bout Bout number
+     * @return Key
+     */
+    private String key(final long bout) {
+        return String.format("%s#%d", this.self, bout);
+    }
+
+}
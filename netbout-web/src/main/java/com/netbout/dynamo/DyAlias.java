@@ -27,11 +27,11 @@
 package com.netbout.dynamo;
 
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.dynamo.AttributeUpdates;
 import com.jcabi.dynamo.Item;
 import com.jcabi.dynamo.Region;
 import com.jcabi.log.Logger;
+import com.netbout.misc.Bus;
 import com.netbout.spi.Alias;
 import com.netbout.spi.Bout;
 import com.netbout.spi.Inbox;
@@ -49,7 +49,6 @@ import lombok.ToString;
  * @since 2.0
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "item")
 @EqualsAndHashCode(of = { "region", "item" })
 final class DyAlias implements Alias {
@@ -98,6 +97,7 @@ final class DyAlias implements Alias {
         this.item.put(
             new AttributeUpdates().with(DyAliases.ATTR_PHOTO, uri)
         );
+        Bus.SHARED.publish(Bus.ALIASED, Bus.alias(this.name()));
     }
 
     @Override
@@ -119,6 +119,7 @@ final class DyAlias implements Alias {
         this.item.put(
             new AttributeUpdates().with(DyAliases.ATTR_EMAIL, email)
         );
+        Bus.SHARED.publish(Bus.ALIASED, Bus.alias(this.name()));
         Logger.info(this, "@%s changed email to %s", this.name(), email);
     }
 
@@ -30,7 +30,6 @@ import com.amazonaws.services.dynamodbv2.model.Select;
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.aspects.Tv;
 import com.jcabi.dynamo.Attributes;
 import com.jcabi.dynamo.Conditions;
@@ -39,6 +38,7 @@ import com.jcabi.dynamo.QueryValve;
 import com.jcabi.dynamo.Region;
 import com.jcabi.log.Logger;
 import com.jcabi.urn.URN;
+import com.netbout.misc.Bus;
 import com.netbout.spi.Alias;
 import com.netbout.spi.Aliases;
 import java.io.IOException;
@@ -54,7 +54,6 @@ import lombok.ToString;
  * @since 2.0
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "urn")
 @EqualsAndHashCode(of = { "region", "urn" })
 final class DyAliases implements Aliases {
@@ -90,6 +89,18 @@ final class DyAliases implements Aliases {
      */
     public static final String ATTR_EMAIL = "email";
 
+    /**
+     * Total number of unread messages in all bouts.
+     * @since 3.0
+     */
+    public static final String ATTR_UNREAD = "unread";
+
+    /**
+     * When the total of unread messages was reconciled last time.
+     * @since 3.0
+     */
+    public static final String ATTR_CHECKED = "checked";
+
     /**
      * Index name.
      */
@@ -116,14 +127,14 @@ final class DyAliases implements Aliases {
     }
 
     @Override
-    public String check(final String name) {
+    public String check(final String name) throws IOException {
         final String answer;
         if (name.length() < Tv.FOUR) {
             answer = "too short, must be 4 letters at least";
         } else if (name.length() > Tv.TWENTY) {
             answer = "too long, must be 20 letters at most";
         } else if (name.matches("[a-z0-9]+")) {
-            if (new Everybody(this.region).occupied(name)) {
+            if (new Everybody(this.region).taken(name)) {
                 answer = "this alias is occupied";
             } else {
                 answer = "";
@@ -154,6 +165,10 @@ final class DyAliases implements Aliases {
                 .with(DyAliases.ATTR_PHOTO, Alias.BLANK)
                 .with(DyAliases.ATTR_LOCALE, Locale.ENGLISH)
         );
+        new Everybody(this.region).add(name);
+        Bus.SHARED.publish(
+            Bus.ALIASED, Bus.aliases(this.urn.toString()), Bus.alias(name)
+        );
         Logger.info(this, "alias @%s added to %s", name, this.urn);
         return new DyAlias(this.region, item);
     }
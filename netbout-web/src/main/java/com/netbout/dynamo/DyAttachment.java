@@ -26,34 +26,32 @@
  */
 package com.netbout.dynamo;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.dynamodbv2.model.AttributeAction;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
-import com.amazonaws.services.s3.model.ObjectMetadata;
-import com.google.common.base.Predicate;
-import com.google.common.collect.Iterables;
-import com.jcabi.aspects.Async;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.aspects.Tv;
 import com.jcabi.dynamo.AttributeUpdates;
-import com.jcabi.dynamo.Conditions;
+import com.jcabi.dynamo.Attributes;
 import com.jcabi.dynamo.Item;
-import com.jcabi.dynamo.QueryValve;
 import com.jcabi.dynamo.Region;
 import com.jcabi.log.Logger;
 import com.jcabi.manifests.Manifests;
 import com.jcabi.s3.Bucket;
 import com.jcabi.s3.mock.MkRegion;
+import com.netbout.misc.Bus;
 import com.netbout.spi.Attachment;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.nio.ByteBuffer;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Arrays;
+import java.util.Date;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.apache.commons.codec.CharEncoding;
@@ -68,7 +66,6 @@ import org.apache.commons.io.IOUtils;
  * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "item")
 @EqualsAndHashCode(of = { "region", "item", "self" })
 @SuppressWarnings({ "PMD.TooManyMethods", "PMD.ExcessiveImports" })
@@ -99,14 +96,23 @@ final class DyAttachment implements Attachment {
      */
     private final transient String self;
 
+    /**
+     * Snapshot of my row in "friends" table.
+     */
+    private final transient Snapshot snapshot;
+
     /**
      * Ctor.
      * @param reg Region
      * @param itm Item
      * @param slf Self alias
+     * @param snap Snapshot of my row in "friends" table
+     * @since 3.0
+     * @checkstyle ParameterNumberCheck (5 lines)
      */
-    DyAttachment(final Region reg, final Item itm, final String slf) {
-        this(reg, DyAttachment.storage(), itm, slf);
+    DyAttachment(final Region reg, final Item itm, final String slf,
+        final Snapshot snap) {
+        this(reg, DyAttachment.storage(), itm, slf, snap);
     }
 
     /**
@@ -115,15 +121,17 @@ final class DyAttachment implements Attachment {
      * @param bkt Bucket
      * @param itm Item
      * @param slf Self alias
+     * @param snap Snapshot of my row in "friends" table
      * @since 2.8
      * @checkstyle ParameterNumberCheck (5 lines)
      */
     DyAttachment(final Region reg, final Bucket bkt,
-        final Item itm, final String slf) {
+        final Item itm, final String slf, final Snapshot snap) {
         this.region = reg;
         this.bucket = bkt;
         this.item = itm;
         this.self = slf;
+        this.snapshot = snap;
     }
 
     @Override
@@ -149,40 +157,64 @@ final class DyAttachment implements Attachment {
 
     @Override
     public boolean unseen() throws IOException {
-        final Item itm = this.region.table(DyFriends.TBL)
-            .frame()
-            .through(
-                new QueryValve()
-                    .withLimit(1)
-                    .withAttributesToGet(DyFriends.ATTR_UNSEEN)
-            )
-            .where(DyFriends.HASH, Conditions.equalTo(this.bout()))
-            .where(DyFriends.RANGE, Conditions.equalTo(this.self))
-            .iterator().next();
-        return itm.has(DyFriends.ATTR_UNSEEN)
-            && itm.get(DyFriends.ATTR_UNSEEN).getSS().contains(this.name());
+        final Attributes row = this.snapshot.row();
+        return row.containsKey(DyFriends.ATTR_UNSEEN)
+            && row.get(DyFriends.ATTR_UNSEEN).getSS().contains(this.name());
+    }
+
+    @Override
+    public long length() throws IOException {
+        final long length;
+        if (this.item.has(DyAttachments.ATTR_SIZE)) {
+            length = Long.parseLong(
+                this.item.get(DyAttachments.ATTR_SIZE).getN()
+            );
+        } else if (this.item.has(DyAttachments.ATTR_KEY)) {
+            length = this.meta(this.item.get(DyAttachments.ATTR_KEY).getS());
+        } else {
+            length = (long) this.data().length;
+        }
+        return length;
+    }
+
+    @Override
+    public Date date() throws IOException {
+        return new Date(this.modified());
     }
 
     @Override
     public InputStream read() throws IOException {
         this.seen();
-        final byte[] bytes;
+        final InputStream stream;
         if (this.item.has(DyAttachments.ATTR_KEY)) {
-            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            this.bucket.ocket(
-                this.item.get(DyAttachments.ATTR_KEY).getS()
-            ).read(baos);
-            bytes = baos.toByteArray();
+            stream = this.stream(
+                new GetObjectRequest(
+                    this.bucket.name(),
+                    this.item.get(DyAttachments.ATTR_KEY).getS()
+                )
+            );
         } else {
-            final ByteBuffer buf =
-                this.item.get(DyAttachments.ATTR_DATA).getB();
-            if (buf == null) {
-                bytes = "temporary unavailable".getBytes(CharEncoding.UTF_8);
-            } else {
-                bytes = buf.array();
-            }
+            stream = new ByteArrayInputStream(this.data());
         }
-        return new ByteArrayInputStream(bytes);
+        return stream;
+    }
+
+    @Override
+    public InputStream read(final long first, final long last)
+        throws IOException {
+        this.seen();
+        final InputStream stream;
+        if (this.item.has(DyAttachments.ATTR_KEY)) {
+            stream = this.stream(
+                new GetObjectRequest(
+                    this.bucket.name(),
+                    this.item.get(DyAttachments.ATTR_KEY).getS()
+                ).withRange(first, last)
+            );
+        } else {
+            stream = DyAttachment.range(this.data(), first, last);
+        }
+        return stream;
     }
 
     @Override
@@ -208,84 +240,199 @@ final class DyAttachment implements Attachment {
                 "ctype is too long, 100 bytes maximum allowed"
             );
         }
-        final byte[] data = IOUtils.toByteArray(stream);
-        if (data.length == 0) {
-            throw new Attachment.BrokenContentException(
-                String.format(
-                    "content of attachment \"%s\" can't be empty",
-                    this.name()
-                )
+        if (!etag.equals(this.etag())) {
+            final LimitedInput input = new LimitedInput(
+                stream, (long) (Tv.TEN * Tv.MILLION)
             );
-        }
-        if (data.length > Tv.TEN * Tv.MILLION) {
-            throw new Attachment.TooBigException(
-                "attachment is too big, 10Mb is the maximum size"
+            final byte[] head = new byte[DyAttachment.MAX_SIZE];
+            final int len = IOUtils.read(input, head);
+            if (len == 0) {
+                throw new Attachment.BrokenContentException(
+                    String.format(
+                        "content of attachment \"%s\" can't be empty",
+                        this.name()
+                    )
+                );
+            }
+            final AttributeUpdates updates;
+            if (len < head.length) {
+                updates = this.inline(Arrays.copyOf(head, len));
+            } else {
+                updates = this.upload(
+                    new SequenceInputStream(
+                        new ByteArrayInputStream(head), input
+                    ),
+                    ctype
+                );
+            }
+            this.item.put(
+                updates
+                    .with(DyAttachments.ATTR_CTYPE, ctype)
+                    .with(DyAttachments.ATTR_ETAG, etag)
+                    .with(DyAttachments.ATTR_DATE, System.currentTimeMillis())
+                    .with(DyAttachments.ATTR_SIZE, input.getByteCount())
             );
-        }
-        if (!etag.equals(this.etag())) {
-            final AttributeUpdates updates = this.save(data, ctype)
-                .with(DyAttachments.ATTR_ETAG, etag);
-            this.item.put(updates);
+            new Consistency(this.self).wrote(this.bout());
+            Bus.SHARED.publish(Bus.ATTACHED, Bus.bout(this.bout()));
             this.updated();
             Logger.info(
                 this, "attachment %s (%d bytes) uploaded into #%d by @%s",
-                this.name(), data.length, this.bout(), this.self
+                this.name(), input.getByteCount(), this.bout(), this.self
             );
         }
     }
 
     /**
-     * Save content.
+     * Save small content right in DynamoDB.
      * @param data Data to save
-     * @param ctype CType
      * @return Updates to apply
      * @throws IOException If fails
      */
-    private AttributeUpdates save(final byte[] data, final String ctype)
-        throws IOException {
-        AttributeUpdates updates = new AttributeUpdates()
-            .with(DyAttachments.ATTR_CTYPE, ctype);
-        if (data.length < DyAttachment.MAX_SIZE) {
-            if (this.item.has(DyAttachments.ATTR_KEY)) {
-                this.bucket.remove(
-                    this.item.get(DyAttachments.ATTR_KEY).getS()
-                );
-            }
-            updates = updates.with(
+    private AttributeUpdates inline(final byte[] data) throws IOException {
+        if (this.item.has(DyAttachments.ATTR_KEY)) {
+            this.bucket.remove(
+                this.item.get(DyAttachments.ATTR_KEY).getS()
+            );
+        }
+        return new AttributeUpdates()
+            .with(
                 DyAttachments.ATTR_DATA,
                 new AttributeValue().withB(ByteBuffer.wrap(data))
-            );
-            updates = updates.with(
+            )
+            .with(
                 DyAttachments.ATTR_KEY,
-                new AttributeValueUpdate().withAction(
-                    AttributeAction.DELETE
-                )
+                new AttributeValueUpdate().withAction(AttributeAction.DELETE)
             );
+    }
+
+    /**
+     * Stream large content into S3, without keeping it in memory.
+     * @param stream Stream with data
+     * @param ctype CType
+     * @return Updates to apply
+     * @throws IOException If fails
+     */
+    private AttributeUpdates upload(final InputStream stream,
+        final String ctype) throws IOException {
+        final String key;
+        if (this.item.has(DyAttachments.ATTR_KEY)) {
+            key = this.item.get(DyAttachments.ATTR_KEY).getS();
         } else {
-            final String key;
-            if (this.item.has(DyAttachments.ATTR_KEY)) {
-                key = this.item.get(DyAttachments.ATTR_KEY).getS();
+            key = String.format(
+                "%d/%s",
+                Long.parseLong(
+                    this.item.get(DyAttachments.HASH).getN()
+                ),
+                this.item.get(DyAttachments.RANGE).getS()
+            );
+        }
+        new Upload(this.bucket, key).write(stream, ctype);
+        return new AttributeUpdates()
+            .with(DyAttachments.ATTR_DATA, key)
+            .with(DyAttachments.ATTR_KEY, key);
+    }
+
+    /**
+     * Open S3 object for reading, without copying it into memory.
+     * @param request Request, maybe with a range
+     * @return Stream with content
+     * @throws IOException If fails
+     */
+    private InputStream stream(final GetObjectRequest request)
+        throws IOException {
+        final com.jcabi.s3.Region s3 = this.bucket.region();
+        final InputStream stream;
+        if (s3 instanceof MkRegion) {
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            this.bucket.ocket(request.getKey()).read(baos);
+            final long[] range = request.getRange();
+            if (range == null) {
+                stream = new ByteArrayInputStream(baos.toByteArray());
             } else {
-                key = String.format(
-                    "%d/%s",
-                    Long.parseLong(
-                        this.item.get(DyAttachments.HASH).getN()
-                    ),
-                    this.item.get(DyAttachments.RANGE).getS()
+                stream = DyAttachment.range(
+                    baos.toByteArray(), range[0], range[1]
                 );
             }
-            final ObjectMetadata meta = new ObjectMetadata();
-            meta.setContentType(ctype);
-            meta.setContentLength((long) data.length);
-            this.bucket.ocket(key).write(
-                new ByteArrayInputStream(data),
-                meta
+        } else {
+            try {
+                stream = s3.aws().getObject(request).getObjectContent();
+            } catch (final AmazonClientException ex) {
+                throw new IOException(ex);
+            }
+        }
+        return stream;
+    }
+
+    /**
+     * Length of S3 object, from its metadata, for attachments uploaded
+     * before their length was saved in DynamoDB.
+     * @param key Object key
+     * @return Length in bytes
+     * @throws IOException If fails
+     */
+    private long meta(final String key) throws IOException {
+        final com.jcabi.s3.Region s3 = this.bucket.region();
+        final long length;
+        if (s3 instanceof MkRegion) {
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            this.bucket.ocket(key).read(baos);
+            length = (long) baos.size();
+        } else {
+            try {
+                length = s3.aws().getObjectMetadata(this.bucket.name(), key)
+                    .getContentLength();
+            } catch (final AmazonClientException ex) {
+                throw new IOException(ex);
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Content saved right in DynamoDB.
+     * @return Bytes
+     * @throws IOException If fails
+     */
+    private byte[] data() throws IOException {
+        final ByteBuffer buf = this.item.get(DyAttachments.ATTR_DATA).getB();
+        final byte[] bytes;
+        if (buf == null) {
+            bytes = "temporary unavailable".getBytes(CharEncoding.UTF_8);
+        } else {
+            bytes = buf.array();
+        }
+        return bytes;
+    }
+
+    /**
+     * Date of the last upload.
+     * @return Milliseconds or zero if unknown
+     * @throws IOException If fails
+     */
+    private long modified() throws IOException {
+        long date = 0L;
+        if (this.item.has(DyAttachments.ATTR_DATE)) {
+            date = Long.parseLong(
+                this.item.get(DyAttachments.ATTR_DATE).getN()
             );
-            updates = updates
-                .with(DyAttachments.ATTR_DATA, key)
-                .with(DyAttachments.ATTR_KEY, key);
         }
-        return updates;
+        return date;
+    }
+
+    /**
+     * Range of bytes.
+     * @param bytes All bytes
+     * @param first Position of the first byte
+     * @param last Position of the last byte, inclusive
+     * @return Stream with the range
+     */
+    private static InputStream range(final byte[] bytes, final long first,
+        final long last) {
+        final int start = (int) Math.min(first, (long) bytes.length);
+        return new ByteArrayInputStream(
+            bytes, start,
+            (int) Math.min(last + 1L, (long) bytes.length) - start
+        );
     }
 
     /**
@@ -299,44 +446,14 @@ final class DyAttachment implements Attachment {
 
     /**
      * It was updated just now.
+     *
+     * <p>The name is ADDed to "unseen" sets of all other participants by
+     * the fan-out, one write per participant, without reading them first.
      * @throws IOException If fails
      */
-    @Async
     private void updated() throws IOException {
-        Iterables.all(
-            this.region.table(DyFriends.TBL).frame()
-                .through(new QueryValve())
-                .where(DyFriends.HASH, Conditions.equalTo(this.bout())),
-            // @checkstyle AnonInnerLengthCheck (50 lines)
-            new Predicate<Item>() {
-                @Override
-                public boolean apply(final Item input) {
-                    AttributeUpdates updates = new AttributeUpdates().with(
-                        DyFriends.ATTR_UPDATED,
-                        System.currentTimeMillis()
-                    );
-                    try {
-                        final String alias = input.get(DyFriends.RANGE).getS();
-                        if (!alias.equals(DyAttachment.this.self)) {
-                            final Set<String> list =
-                                DyAttachment.this.list(alias);
-                            list.add(DyAttachment.this.name());
-                            updates = updates.with(
-                                DyFriends.ATTR_UNSEEN,
-                                new AttributeValueUpdate()
-                                    .withAction(AttributeAction.PUT)
-                                    .withValue(
-                                        new AttributeValue().withSS(list)
-                                    )
-                            );
-                        }
-                        input.put(updates);
-                    } catch (final IOException ex) {
-                        throw new IllegalStateException(ex);
-                    }
-                    return true;
-                }
-            }
+        Fanout.SHARED.upload(
+            this.region, this.bout(), this.self, this.name()
         );
     }
 
@@ -344,67 +461,12 @@ final class DyAttachment implements Attachment {
      * It was seen just now.
      * @throws IOException If fails
      */
-    @Async
     private void seen() throws IOException {
-        Iterables.all(
-            this.region.table(DyFriends.TBL).frame()
-                .through(new QueryValve())
-                .where(DyFriends.HASH, Conditions.equalTo(this.bout()))
-                .where(DyFriends.RANGE, this.self),
-            new Predicate<Item>() {
-                @Override
-                public boolean apply(final Item input) {
-                    try {
-                        final Set<String> list =
-                            DyAttachment.this.list(DyAttachment.this.self);
-                        list.remove(DyAttachment.this.name());
-                        if (list.isEmpty()) {
-                            input.put(
-                                new AttributeUpdates().with(
-                                    DyFriends.ATTR_UNSEEN,
-                                    new AttributeValueUpdate().withAction(
-                                        AttributeAction.DELETE
-                                    )
-                                )
-                            );
-                        } else {
-                            input.put(
-                                new AttributeUpdates().with(
-                                    DyFriends.ATTR_UNSEEN,
-                                    new AttributeValueUpdate()
-                                        .withAction(AttributeAction.PUT)
-                                        .withValue(
-                                            new AttributeValue().withSS(list)
-                                        )
-                                )
-                            );
-                        }
-                    } catch (final IOException ex) {
-                        throw new IllegalStateException(ex);
-                    }
-                    return true;
-                }
-            }
-        );
-    }
-
-    /**
-     * Existing list of unseen attachments.
-     * @param alias Alias
-     * @return List of attachments that are unseen
-     * @throws IOException If fails
-     */
-    private Set<String> list(final String alias) throws IOException {
-        final Item itm = this.region.table(DyFriends.TBL)
-            .frame().through(new QueryValve())
-            .where(DyFriends.HASH, Conditions.equalTo(this.bout()))
-            .where(DyFriends.RANGE, Conditions.equalTo(alias))
-            .iterator().next();
-        final Set<String> list = new HashSet<String>(0);
-        if (itm.has(DyFriends.ATTR_UNSEEN)) {
-            list.addAll(itm.get(DyFriends.ATTR_UNSEEN).getSS());
+        if (this.unseen()) {
+            Seen.SHARED.attachment(
+                this.region, this.bout(), this.self, this.name()
+            );
         }
-        return list;
     }
 
     /**
@@ -412,7 +474,7 @@ final class DyAttachment implements Attachment {
      * @return Bucket
      */
     @Cacheable(forever = true)
-    private static Bucket storage() {
+    static Bucket storage() {
         final String key = Manifests.read("Netbout-S3Key");
         final com.jcabi.s3.Region region;
         if (key.matches("[0-9A-Z]{20}")) {
@@ -29,7 +29,6 @@ package com.netbout.dynamo;
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.aspects.Tv;
 import com.jcabi.dynamo.Attributes;
 import com.jcabi.dynamo.Conditions;
@@ -37,6 +36,7 @@ import com.jcabi.dynamo.Item;
 import com.jcabi.dynamo.QueryValve;
 import com.jcabi.dynamo.Region;
 import com.jcabi.log.Logger;
+import com.netbout.misc.Bus;
 import com.netbout.spi.Attachment;
 import com.netbout.spi.Attachments;
 import java.io.IOException;
@@ -52,7 +52,6 @@ import lombok.ToString;
  * @since 2.0
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "bout")
 @EqualsAndHashCode(of = { "region", "bout", "self" })
 final class DyAttachments implements Attachments {
@@ -97,6 +96,18 @@ final class DyAttachments implements Attachments {
      */
     public static final String ATTR_KEY = "s3";
 
+    /**
+     * Date of the last upload.
+     * @since 3.0
+     */
+    public static final String ATTR_DATE = "date";
+
+    /**
+     * Length of the content, in bytes.
+     * @since 3.0
+     */
+    public static final String ATTR_SIZE = "size";
+
     /**
      * Region to work with.
      */
@@ -112,16 +123,25 @@ final class DyAttachments implements Attachments {
      */
     private final transient String self;
 
+    /**
+     * Snapshot of my row in "friends" table.
+     */
+    private final transient Snapshot snapshot;
+
     /**
      * Ctor.
      * @param reg Region
      * @param num Bout number
      * @param slf Self
+     * @param snap Snapshot of my row in "friends" table
+     * @since 3.0
      */
-    DyAttachments(final Region reg, final long num, final String slf) {
+    DyAttachments(final Region reg, final long num, final String slf,
+        final Snapshot snap) {
         this.region = reg;
         this.bout = num;
         this.self = slf;
+        this.snapshot = snap;
     }
 
     @Override
@@ -132,10 +152,13 @@ final class DyAttachments implements Attachments {
             .through(
                 new QueryValve()
                     .withLimit(1)
+                    .withConsistentRead(this.strong())
                     .withAttributesToGet(
                         DyAttachments.ATTR_CTYPE,
                         DyAttachments.ATTR_ETAG,
-                        DyAttachments.ATTR_KEY
+                        DyAttachments.ATTR_KEY,
+                        DyAttachments.ATTR_DATE,
+                        DyAttachments.ATTR_SIZE
                     )
             )
             .where(DyAttachments.HASH, Conditions.equalTo(this.bout))
@@ -146,20 +169,24 @@ final class DyAttachments implements Attachments {
                 String.format("attachment \"%s\" not found", name)
             );
         }
-        return new DyAttachment(this.region, items.next(), this.self);
+        return new DyAttachment(
+            this.region, items.next(), this.self, this.snapshot
+        );
     }
 
     @Override
-    public Iterable<Attachment> iterate() {
+    public Iterable<Attachment> iterate() throws IOException {
         return Iterables.transform(
             this.region.table(DyAttachments.TBL)
                 .frame()
                 .through(
-                    new QueryValve().withAttributesToGet(
-                        DyAttachments.ATTR_ALIAS,
-                        DyAttachments.ATTR_CTYPE,
-                        DyAttachments.ATTR_ETAG
-                    )
+                    new QueryValve()
+                        .withConsistentRead(this.strong())
+                        .withAttributesToGet(
+                            DyAttachments.ATTR_ALIAS,
+                            DyAttachments.ATTR_CTYPE,
+                            DyAttachments.ATTR_ETAG
+                        )
                 )
                 .where(DyAttachments.HASH, Conditions.equalTo(this.bout)),
             new Function<Item, Attachment>() {
@@ -167,7 +194,8 @@ final class DyAttachments implements Attachments {
                 public Attachment apply(final Item item) {
                     return new DyAttachment(
                         DyAttachments.this.region,
-                        item, DyAttachments.this.self
+                        item, DyAttachments.this.self,
+                        DyAttachments.this.snapshot
                     );
                 }
             }
@@ -176,19 +204,10 @@ final class DyAttachments implements Attachments {
 
     @Override
     public int unseen() throws IOException {
-        final Item itm = this.region.table(DyFriends.TBL)
-            .frame()
-            .through(
-                new QueryValve()
-                    .withLimit(1)
-                    .withAttributesToGet(DyFriends.ATTR_UNSEEN)
-            )
-            .where(DyFriends.HASH, Conditions.equalTo(this.bout))
-            .where(DyFriends.RANGE, Conditions.equalTo(this.self))
-            .iterator().next();
+        final Attributes row = this.snapshot.row();
         final int unseen;
-        if (itm.has(DyFriends.ATTR_UNSEEN)) {
-            unseen = itm.get(DyFriends.ATTR_UNSEEN).getSS().size();
+        if (row.containsKey(DyFriends.ATTR_UNSEEN)) {
+            unseen = row.get(DyFriends.ATTR_UNSEEN).getSS().size();
         } else {
             unseen = 0;
         }
@@ -216,6 +235,8 @@ final class DyAttachments implements Attachments {
                 .with(DyAttachments.ATTR_DATA, " ")
                 .with(DyAttachments.ATTR_ETAG, "empty")
         );
+        new Consistency(this.self).wrote(this.bout);
+        Bus.SHARED.publish(Bus.ATTACHED, Bus.bout(this.bout));
         Logger.info(this, "attachment %s created in #%d", name, this.bout);
     }
 
@@ -247,6 +268,18 @@ final class DyAttachments implements Attachments {
         }
         items.next();
         items.remove();
+        new Consistency(this.self).wrote(this.bout);
+        Bus.SHARED.publish(Bus.ATTACHED, Bus.bout(this.bout));
+    }
+
+    /**
+     * Shall attachments be read strongly consistent?
+     * @return TRUE if so
+     */
+    private boolean strong() {
+        return new Consistency(this.self).strong(
+            Consistency.ATTACHMENTS, this.bout
+        );
     }
 
 }
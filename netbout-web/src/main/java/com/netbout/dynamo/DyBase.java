@@ -27,15 +27,14 @@
 package com.netbout.dynamo;
 
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.dynamo.Credentials;
 import com.jcabi.dynamo.Region;
-import com.jcabi.dynamo.retry.ReRegion;
 import com.jcabi.manifests.Manifests;
 import com.jcabi.urn.URN;
 import com.netbout.spi.Base;
 import com.netbout.spi.User;
 import java.io.IOException;
+import java.util.Map;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
@@ -47,11 +46,20 @@ import lombok.ToString;
  * @since 2.0
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "region")
 @EqualsAndHashCode(of = "region")
 public final class DyBase implements Base {
 
+    /**
+     * Throttle of all DynamoDB calls in this JVM.
+     */
+    private static final Throttle THROTTLE = new Throttle();
+
+    /**
+     * Meter of all DynamoDB calls in this JVM.
+     */
+    private static final Meter METER = new Meter();
+
     /**
      * Region we're in.
      */
@@ -72,7 +80,11 @@ public final class DyBase implements Base {
             );
         }
         this.region = new Region.Prefixed(
-            new ReRegion(new Region.Simple(creds)),
+            new Region.Simple(
+                new Throttled(
+                    new Metered(creds, DyBase.METER), DyBase.THROTTLE
+                )
+            ),
             Manifests.read("Netbout-DynamoPrefix")
         );
     }
@@ -87,4 +99,25 @@ public final class DyBase implements Base {
         // nothing to do here
     }
 
+    /**
+     * Throttling and retry counters of DynamoDB tables.
+     * @return Counters, by names like "nb-friends.throttled"
+     * @since 3.0
+     */
+    public static Map<String, Long> throttling() {
+        return DyBase.THROTTLE.metrics();
+    }
+
+    /**
+     * All metrics of DynamoDB calls, in Prometheus text format.
+     * @return Metrics
+     * @since 3.0
+     */
+    public static String metrics() {
+        final StringBuilder out = new StringBuilder(0);
+        DyBase.METER.print(out);
+        DyBase.THROTTLE.print(out);
+        return out.toString();
+    }
+
 }
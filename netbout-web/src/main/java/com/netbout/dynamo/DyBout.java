@@ -27,16 +27,19 @@
 package com.netbout.dynamo;
 
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.aspects.Tv;
 import com.jcabi.dynamo.AttributeUpdates;
+import com.jcabi.dynamo.Attributes;
 import com.jcabi.dynamo.Conditions;
 import com.jcabi.dynamo.Item;
 import com.jcabi.dynamo.QueryValve;
 import com.jcabi.dynamo.Region;
+import com.jcabi.immutable.Array;
 import com.jcabi.log.Logger;
+import com.netbout.misc.Bus;
 import com.netbout.spi.Attachments;
 import com.netbout.spi.Bout;
+import com.netbout.spi.Friend;
 import com.netbout.spi.Friends;
 import com.netbout.spi.Messages;
 import java.io.IOException;
@@ -53,7 +56,6 @@ import lombok.ToString;
  * @since 2.0
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "self")
 @EqualsAndHashCode(of = { "region", "item", "self" })
 @SuppressWarnings("PMD.TooManyMethods")
@@ -74,21 +76,51 @@ final class DyBout implements Bout {
      */
     private final transient String self;
 
+    /**
+     * Snapshot of my row in "friends" table.
+     */
+    private final transient Snapshot snapshot;
+
+    /**
+     * Friends of the bout, loaded already, or empty.
+     */
+    private final transient Array<Friend> members;
+
+    /**
+     * Ctor.
+     * @param reg Region we're in
+     * @param itm Item in "friends" table
+     * @param slf Self alias
+     * @param snap Snapshot of my row in "friends" table
+     * @since 3.0
+     */
+    DyBout(final Region reg, final Item itm, final String slf,
+        final Snapshot snap) {
+        this(reg, itm, slf, snap, new Array<Friend>());
+    }
+
     /**
      * Ctor.
      * @param reg Region we're in
      * @param itm Item in "friends" table
      * @param slf Self alias
+     * @param snap Snapshot of my row in "friends" table
+     * @param friends Friends of the bout, loaded already, or empty
+     * @since 3.0
+     * @checkstyle ParameterNumberCheck (5 lines)
      */
-    DyBout(final Region reg, final Item itm, final String slf) {
+    DyBout(final Region reg, final Item itm, final String slf,
+        final Snapshot snap, final Iterable<Friend> friends) {
         this.region = reg;
         this.item = itm;
         this.self = slf;
+        this.snapshot = snap;
+        this.members = new Array<>(friends);
     }
 
     @Override
     public long number() throws IOException {
-        return Long.parseLong(this.item.get(DyFriends.HASH).getN());
+        return Shards.bout(this.item.get(DyFriends.HASH));
     }
 
     @Override
@@ -121,15 +153,18 @@ final class DyBout implements Bout {
         this.item.put(
             new AttributeUpdates().with(DyFriends.ATTR_TITLE, text)
         );
+        new Consistency(this.self).wrote(this.number());
+        Bus.SHARED.publish(Bus.RENAMED, Bus.row(this.number(), this.self));
         Logger.info(this, "bout #%d renamed to \"%s\"", this.number(), text);
     }
 
     @Override
     public boolean subscription() throws IOException {
+        final Attributes row = this.snapshot.row();
         boolean subs = true;
-        if (this.item.has(DyFriends.ATTR_SUBSCRIPTION)) {
+        if (row.containsKey(DyFriends.ATTR_SUBSCRIPTION)) {
             subs = Boolean.parseBoolean(
-                this.item.get(DyFriends.ATTR_SUBSCRIPTION).getS()
+                row.get(DyFriends.ATTR_SUBSCRIPTION).getS()
             );
         }
         return subs;
@@ -137,22 +172,11 @@ final class DyBout implements Bout {
 
     @Override
     public boolean subscription(final String alias) throws IOException {
-        final QueryValve thr = new QueryValve()
-            .withLimit(1)
-            .withAttributesToGet(DyFriends.ATTR_SUBSCRIPTION);
-        final Iterator<Item> items = this.region.table(DyFriends.TBL).frame()
-            .where(DyFriends.RANGE, alias)
-            .where(DyFriends.HASH, Conditions.equalTo(this.number()))
-            .through(thr)
-            .iterator();
-        boolean subs = true;
-        if (items.hasNext()) {
-            final Item itm = items.next();
-            if (itm.has(DyFriends.ATTR_SUBSCRIPTION)) {
-                subs = Boolean.parseBoolean(
-                    itm.get(DyFriends.ATTR_SUBSCRIPTION).getS()
-                );
-            }
+        final boolean subs;
+        if (alias.equals(this.self)) {
+            subs = this.subscription();
+        } else {
+            subs = this.others(alias);
         }
         return subs;
     }
@@ -162,6 +186,10 @@ final class DyBout implements Bout {
         this.item.put(
             new AttributeUpdates().with(DyFriends.ATTR_SUBSCRIPTION, subs)
         );
+        new Consistency(this.self).wrote(this.number());
+        Bus.SHARED.publish(
+            Bus.SUBSCRIBED, Bus.row(this.number(), this.self)
+        );
         Logger.info(
             this, "bout #%d subscribe to \"%s\" by %s",
             this.number(),
@@ -172,16 +200,58 @@ final class DyBout implements Bout {
 
     @Override
     public Messages messages() throws IOException {
-        return new DyMessages(this.region, this.number(), this.self);
+        return new DyMessages(
+            this.region, this.number(), this.self, this.snapshot
+        );
     }
 
     @Override
     public Friends friends() {
-        return new DyFriends(this.region, this.item);
+        return new DyFriends(this.region, this.item, this.members);
     }
 
     @Override
     public Attachments attachments() throws IOException {
-        return new DyAttachments(this.region, this.number(), this.self);
+        return new DyAttachments(
+            this.region, this.number(), this.self, this.snapshot
+        );
     }
+
+    /**
+     * Subscription of another friend.
+     * @param alias Alias of the friend
+     * @return TRUE if subscribed
+     * @throws IOException If fails
+     */
+    private boolean others(final String alias) throws IOException {
+        final QueryValve thr = new QueryValve()
+            .withLimit(1)
+            .withAttributesToGet(DyFriends.ATTR_SUBSCRIPTION)
+            .withConsistentRead(
+                new Consistency(this.self).strong(
+                    Consistency.FRIENDS, this.number()
+                )
+            );
+        final Iterator<Item> items = this.region.table(DyFriends.TBL).frame()
+            .where(DyFriends.RANGE, alias)
+            .where(
+                DyFriends.HASH,
+                Conditions.equalTo(
+                    new Shards(this.region).hash(this.number(), alias)
+                )
+            )
+            .through(thr)
+            .iterator();
+        boolean subs = true;
+        if (items.hasNext()) {
+            final Item itm = items.next();
+            if (itm.has(DyFriends.ATTR_SUBSCRIPTION)) {
+                subs = Boolean.parseBoolean(
+                    itm.get(DyFriends.ATTR_SUBSCRIPTION).getS()
+                );
+            }
+        }
+        return subs;
+    }
+
 }
@@ -0,0 +1,267 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import co.stateful.Counter;
+import co.stateful.RtSttc;
+import co.stateful.cached.CdSttc;
+import co.stateful.retry.ReSttc;
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeAction;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ReturnValue;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Region;
+import com.jcabi.log.Logger;
+import com.jcabi.manifests.Manifests;
+import com.jcabi.urn.URN;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Counter in DynamoDB.
+ *
+ * <p>The value is kept in "counters" table and is incremented with
+ * atomic ADD, so that two nodes never get the same number. A counter
+ * is never created implicitly: if its row is missing, the increment
+ * fails, since starting it over from zero would give out numbers that
+ * are taken already. When moving a counter off sttc, {@link #set(long)}
+ * it to the last number sttc gave out, before the first increment.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ */
+@Immutable
+@ToString(of = "label")
+@EqualsAndHashCode(of = { "region", "label" })
+@SuppressWarnings("PMD.ExcessiveImports")
+final class DyCounter implements Counter {
+
+    /**
+     * Table name.
+     */
+    public static final String TBL = "counters";
+
+    /**
+     * Name of the counter.
+     */
+    public static final String HASH = "name";
+
+    /**
+     * Current value of the counter.
+     */
+    public static final String ATTR_VALUE = "value";
+
+    /**
+     * The counter doesn't exist.
+     */
+    static final long ABSENT = -1L;
+
+    /**
+     * Region we're in.
+     */
+    private final transient Region region;
+
+    /**
+     * Name of the counter.
+     */
+    private final transient String label;
+
+    /**
+     * Ctor.
+     * @param reg Region
+     * @param name Name of the counter
+     */
+    DyCounter(final Region reg, final String name) {
+        this.region = reg;
+        this.label = name;
+    }
+
+    /**
+     * Counter in sttc, if it is configured, or in DynamoDB otherwise.
+     * @param reg Region
+     * @param name Name of the counter
+     * @return Counter
+     */
+    public static Counter make(final Region reg, final String name) {
+        final String urn = Manifests.read("Netbout-SttcUrn");
+        final Counter counter;
+        if (StringUtils.isBlank(urn) || urn.startsWith("${")) {
+            counter = new DyCounter(reg, name);
+        } else {
+            try {
+                counter = new CdSttc(
+                    new ReSttc(
+                        RtSttc.make(
+                            URN.create(urn),
+                            Manifests.read("Netbout-SttcToken")
+                        )
+                    )
+                ).counters().get(name);
+            } catch (final IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+        return counter;
+    }
+
+    @Override
+    public String name() {
+        return this.label;
+    }
+
+    @Override
+    public void set(final long value) throws IOException {
+        this.region.table(DyCounter.TBL).put(
+            new Attributes()
+                .with(DyCounter.HASH, this.label)
+                .with(DyCounter.ATTR_VALUE, value)
+        );
+        Logger.info(this, "counter \"%s\" set to %d", this.label, value);
+    }
+
+    @Override
+    public long incrementAndGet(final long delta) throws IOException {
+        final long value = this.add(delta);
+        if (value == DyCounter.ABSENT) {
+            throw new IOException(
+                String.format(
+                    "counter \"%s\" doesn't exist, set() it first",
+                    this.label
+                )
+            );
+        }
+        return value;
+    }
+
+    /**
+     * Add to the value of existing counter.
+     * @param delta How much to add
+     * @return New value or {@link #ABSENT} if the counter doesn't exist
+     * @throws IOException If fails
+     */
+    long add(final long delta) throws IOException {
+        final AmazonDynamoDB aws = this.region.aws();
+        long value = DyCounter.ABSENT;
+        try {
+            value = Long.parseLong(
+                aws.updateItem(
+                    this.request(AttributeAction.ADD, delta)
+                        .withExpected(
+                            DyCounter.expected(ComparisonOperator.NOT_NULL)
+                        )
+                        .withReturnValues(ReturnValue.UPDATED_NEW)
+                ).getAttributes().get(DyCounter.ATTR_VALUE).getN()
+            );
+        } catch (final ConditionalCheckFailedException ex) {
+            Logger.debug(
+                this, "counter \"%s\" not found: %s",
+                this.label, ex.getLocalizedMessage()
+            );
+        } catch (final AmazonClientException ex) {
+            throw new IOException(ex);
+        } finally {
+            aws.shutdown();
+        }
+        return value;
+    }
+
+    /**
+     * Create the counter, unless somebody did it already.
+     * @param value Initial value
+     * @throws IOException If fails
+     */
+    void create(final long value) throws IOException {
+        final AmazonDynamoDB aws = this.region.aws();
+        try {
+            aws.updateItem(
+                this.request(AttributeAction.PUT, value).withExpected(
+                    DyCounter.expected(ComparisonOperator.NULL)
+                )
+            );
+        } catch (final ConditionalCheckFailedException ex) {
+            Logger.debug(
+                this, "counter \"%s\" created by somebody else: %s",
+                this.label, ex.getLocalizedMessage()
+            );
+        } catch (final AmazonClientException ex) {
+            throw new IOException(ex);
+        } finally {
+            aws.shutdown();
+        }
+    }
+
+    /**
+     * Update of the value.
+     * @param action Action
+     * @param value Value
+     * @return Request
+     */
+    private UpdateItemRequest request(final AttributeAction action,
+        final long value) {
+        return new UpdateItemRequest()
+            .withTableName(this.region.table(DyCounter.TBL).name())
+            .withKey(new Attributes().with(DyCounter.HASH, this.label))
+            .withAttributeUpdates(
+                Collections.singletonMap(
+                    DyCounter.ATTR_VALUE,
+                    new AttributeValueUpdate()
+                        .withAction(action)
+                        .withValue(
+                            new AttributeValue().withN(Long.toString(value))
+                        )
+                )
+            );
+    }
+
+    /**
+     * Expectation on the value.
+     * @param cond Condition
+     * @return Expected attributes
+     */
+    private static Map<String, ExpectedAttributeValue> expected(
+        final ComparisonOperator cond) {
+        return Collections.singletonMap(
+            DyCounter.ATTR_VALUE,
+            new ExpectedAttributeValue().withComparisonOperator(cond)
+        );
+    }
+
+}
@@ -27,7 +27,7 @@
 package com.netbout.dynamo;
 
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
+import com.jcabi.dynamo.Attributes;
 import com.jcabi.dynamo.Item;
 import com.jcabi.dynamo.QueryValve;
 import com.jcabi.dynamo.Region;
@@ -48,7 +48,6 @@ import lombok.ToString;
  * @since 2.0
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "name")
 @EqualsAndHashCode(of = { "table", "name" })
 final class DyFriend implements Friend {
@@ -63,14 +62,32 @@ final class DyFriend implements Friend {
      */
     private final transient String name;
 
+    /**
+     * Row of "aliases" table, loaded already, or empty.
+     */
+    private final transient Attributes row;
+
     /**
      * Ctor.
      * @param region Region we're in
      * @param alias Alias
      */
     DyFriend(final Region region, final String alias) {
+        this(region, alias, new Attributes());
+    }
+
+    /**
+     * Ctor.
+     * @param region Region we're in
+     * @param alias Alias
+     * @param loaded Row of "aliases" table, loaded already, or empty
+     * @since 3.0
+     */
+    DyFriend(final Region region, final String alias,
+        final Attributes loaded) {
         this.table = region.table(DyAliases.TBL);
         this.name = alias;
+        this.row = loaded;
     }
 
     @Override
@@ -80,17 +97,10 @@ final class DyFriend implements Friend {
 
     @Override
     public URI photo() throws IOException {
-        final Iterator<Item> items = this.table.frame()
-            .where(DyAliases.HASH, this.name)
-            .through(
-                new QueryValve()
-                    .withLimit(1)
-                    .withAttributesToGet(DyAliases.ATTR_PHOTO)
-            )
-            .iterator();
+        final Attributes attrs = this.attrs(DyAliases.ATTR_PHOTO);
         final URI uri;
-        if (items.hasNext()) {
-            uri = URI.create(items.next().get(DyAliases.ATTR_PHOTO).getS());
+        if (attrs.containsKey(DyAliases.ATTR_PHOTO)) {
+            uri = URI.create(attrs.get(DyAliases.ATTR_PHOTO).getS());
         } else {
             uri = Alias.BLANK;
         }
@@ -99,21 +109,38 @@ final class DyFriend implements Friend {
 
     @Override
     public String email() throws IOException {
-        final Iterator<Item> items = this.table.frame()
-            .where(DyAliases.HASH, this.name)
-            .through(
-                new QueryValve()
-                    .withLimit(1)
-                    .withAttributesToGet(DyAliases.ATTR_EMAIL)
-            )
-            .iterator();
+        final Attributes attrs = this.attrs(DyAliases.ATTR_EMAIL);
         String email = "";
-        if (items.hasNext()) {
-            final Item item = items.next();
-            if (item.has(DyAliases.ATTR_EMAIL)) {
-                email = item.get(DyAliases.ATTR_EMAIL).getS();
-            }
+        if (attrs.containsKey(DyAliases.ATTR_EMAIL)) {
+            email = attrs.get(DyAliases.ATTR_EMAIL).getS();
         }
         return email;
     }
+
+    /**
+     * Attributes of the alias, from the loaded row or from the table.
+     * @param attr Attribute we need
+     * @return Attributes
+     * @throws IOException If fails
+     */
+    private Attributes attrs(final String attr) throws IOException {
+        Attributes attrs = this.row;
+        if (attrs.isEmpty()) {
+            final Iterator<Item> items = this.table.frame()
+                .where(DyAliases.HASH, this.name)
+                .through(
+                    new QueryValve()
+                        .withLimit(1)
+                        .withAttributesToGet(attr)
+                )
+                .iterator();
+            if (items.hasNext()) {
+                final Item item = items.next();
+                if (item.has(attr)) {
+                    attrs = new Attributes().with(attr, item.get(attr));
+                }
+            }
+        }
+        return attrs;
+    }
 }
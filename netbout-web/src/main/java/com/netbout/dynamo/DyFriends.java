@@ -26,22 +26,32 @@
  */
 package com.netbout.dynamo;
 
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
-import com.google.common.base.Function;
-import com.google.common.collect.Iterables;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ReturnValue;
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.aspects.Tv;
 import com.jcabi.dynamo.Attributes;
-import com.jcabi.dynamo.Conditions;
 import com.jcabi.dynamo.Item;
 import com.jcabi.dynamo.QueryValve;
 import com.jcabi.dynamo.Region;
+import com.jcabi.immutable.Array;
 import com.jcabi.log.Logger;
+import com.netbout.misc.Bus;
 import com.netbout.spi.Friend;
 import com.netbout.spi.Friends;
 import java.io.IOException;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.apache.commons.lang3.StringUtils;
@@ -52,11 +62,12 @@ import org.apache.commons.lang3.StringUtils;
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 2.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "item")
 @EqualsAndHashCode(of = { "region", "item" })
+@SuppressWarnings("PMD.ExcessiveImports")
 final class DyFriends implements Friends {
 
     /**
@@ -114,14 +125,32 @@ final class DyFriends implements Friends {
      */
     private final transient Item item;
 
+    /**
+     * Friends of the bout, loaded already, or empty.
+     */
+    private final transient Array<Friend> loaded;
+
     /**
      * Ctor.
      * @param reg Region
      * @param itm Item in "friends" table
      */
     DyFriends(final Region reg, final Item itm) {
+        this(reg, itm, new Array<Friend>());
+    }
+
+    /**
+     * Ctor.
+     * @param reg Region
+     * @param itm Item in "friends" table
+     * @param friends Friends of the bout, loaded already, or empty
+     * @since 3.0
+     */
+    DyFriends(final Region reg, final Item itm,
+        final Iterable<Friend> friends) {
         this.region = reg;
         this.item = itm;
+        this.loaded = new Array<>(friends);
     }
 
     @Override
@@ -132,56 +161,140 @@ final class DyFriends implements Friends {
                 String.format("alias '%s' doesn't exist", friend)
             );
         }
+        final Shards shards = new Shards(this.region);
         this.region.table(DyFriends.TBL).put(
             new Attributes()
-                .with(DyFriends.HASH, this.bout())
+                .with(DyFriends.HASH, shards.hash(this.bout(), alias))
                 .with(DyFriends.RANGE, alias)
                 .with(DyFriends.ATTR_TITLE, this.item.get(DyFriends.ATTR_TITLE))
                 .with(DyFriends.ATTR_SUBSCRIPTION, true)
                 .with(DyFriends.ATTR_UPDATED, System.currentTimeMillis())
         );
-        Logger.info(this, "@%s invited to #%s", friend, this.bout().getN());
+        new Consistency(this.self()).wrote(this.bout());
+        shards.balance(this.bout());
+        Bus.SHARED.publish(
+            Bus.INVITED, Bus.bout(this.bout()),
+            Bus.row(this.bout(), alias), Bus.inbox(alias)
+        );
+        Logger.info(this, "@%s invited to #%d", friend, this.bout());
     }
 
     @Override
     public void kick(final String friend) throws IOException {
         final String alias = DyFriends.clean(friend);
-        final Iterator<Item> items = this.region.table(DyFriends.TBL).frame()
-            .through(new QueryValve())
-            .where(DyFriends.HASH, Conditions.equalTo(this.bout()))
-            .where(DyFriends.RANGE, alias)
-            .iterator();
-        if (!items.hasNext()) {
+        final Map<String, AttributeValue> row = this.delete(alias);
+        if (row == null) {
             throw new Friends.UnknownAliasException(
                 String.format("alias '%s' is not in the bout", friend)
             );
         }
-        items.next();
-        items.remove();
-        Logger.info(this, "@%s kicked off #%s", friend, this.bout().getN());
+        if (row.containsKey(DyFriends.ATTR_UNREAD)) {
+            new Unread(this.region).add(
+                alias, -Long.parseLong(row.get(DyFriends.ATTR_UNREAD).getN())
+            );
+        }
+        new Consistency(this.self()).wrote(this.bout());
+        Bus.SHARED.publish(
+            Bus.KICKED, Bus.bout(this.bout()),
+            Bus.row(this.bout(), alias), Bus.inbox(alias)
+        );
+        Logger.info(this, "@%s kicked off #%d", friend, this.bout());
     }
 
     @Override
     public Iterable<Friend> iterate() throws IOException {
-        return Iterables.transform(
-            this.region.table(DyFriends.TBL)
-                .frame()
-                .through(new QueryValve())
-                .where(DyFriends.HASH, Conditions.equalTo(this.bout())),
-            new Function<Item, Friend>() {
-                @Override
-                public Friend apply(final Item input) {
-                    try {
-                        return new DyFriend(
-                            DyFriends.this.region,
-                            input.get(DyFriends.RANGE).getS()
-                        );
-                    } catch (final IOException ex) {
-                        throw new IllegalStateException(ex);
-                    }
-                }
+        Iterable<Friend> friends = this.loaded;
+        if (this.loaded.isEmpty()) {
+            friends = this.fetch();
+        }
+        return friends;
+    }
+
+    /**
+     * Fetch friends of the bout, with their rows in "aliases" table.
+     * @return Friends
+     * @throws IOException If fails
+     */
+    private Collection<Friend> fetch() throws IOException {
+        final Collection<String> aliases = new LinkedList<>();
+        final Collection<Attributes> keys = new LinkedList<>();
+        final long bout = this.bout();
+        for (final Item item : new Shards(this.region).rows(
+            bout,
+            new QueryValve().withConsistentRead(
+                new Consistency(this.self()).strong(Consistency.FRIENDS, bout)
+            )
+        )) {
+            final String alias = item.get(DyFriends.RANGE).getS();
+            aliases.add(alias);
+            keys.add(new Attributes().with(DyAliases.HASH, alias));
+        }
+        final Map<String, Attributes> rows = new HashMap<>(aliases.size());
+        for (final Attributes row : new BatchGet(this.region, DyAliases.TBL)
+            .read(keys, DyAliases.ATTR_PHOTO, DyAliases.ATTR_EMAIL)) {
+            rows.put(row.get(DyAliases.HASH).getS(), row);
+        }
+        final Collection<Friend> friends = new ArrayList<>(aliases.size());
+        for (final String alias : aliases) {
+            Attributes row = rows.get(alias);
+            if (row == null) {
+                row = new Attributes();
             }
-        );
+            friends.add(new DyFriend(this.region, alias, row));
+        }
+        return friends;
+    }
+
+    /**
+     * Delete the row of the alias, in one conditional DeleteItem.
+     *
+     * <p>The row is returned as it was right before the deletion, in order
+     * to subtract exactly that number of unread messages from the total,
+     * even if the row is changed concurrently.
+     *
+     * @param alias Alias
+     * @return The row deleted or NULL if there was no such row
+     * @throws IOException If fails
+     */
+    private Map<String, AttributeValue> delete(final String alias)
+        throws IOException {
+        final AmazonDynamoDB aws = this.region.aws();
+        Map<String, AttributeValue> row = null;
+        try {
+            row = aws.deleteItem(
+                new DeleteItemRequest()
+                    .withTableName(this.region.table(DyFriends.TBL).name())
+                    .withKey(
+                        new Attributes()
+                            .with(
+                                DyFriends.HASH,
+                                new Shards(this.region).hash(
+                                    this.bout(), alias
+                                )
+                            )
+                            .with(DyFriends.RANGE, alias)
+                    )
+                    .withExpected(
+                        Collections.singletonMap(
+                            DyFriends.RANGE,
+                            new ExpectedAttributeValue().withComparisonOperator(
+                                ComparisonOperator.NOT_NULL
+                            )
+                        )
+                    )
+                    .withReturnValues(ReturnValue.ALL_OLD)
+            ).getAttributes();
+        } catch (final ConditionalCheckFailedException ex) {
+            Logger.debug(
+                this, "@%s is not in #%d: %s",
+                alias, this.bout(), ex.getLocalizedMessage()
+            );
+        } catch (final AmazonClientException ex) {
+            throw new IOException(ex);
+        } finally {
+            aws.shutdown();
+        }
+        return row;
     }
 
     /**
@@ -189,8 +302,17 @@ final class DyFriends implements Friends {
      * @return Bout number
      * @throws IOException If fails
      */
-    private AttributeValue bout() throws IOException {
-        return this.item.get(DyFriends.HASH);
+    private long bout() throws IOException {
+        return Shards.bout(this.item.get(DyFriends.HASH));
+    }
+
+    /**
+     * Alias of myself, the owner of the item.
+     * @return Alias
+     * @throws IOException If fails
+     */
+    private String self() throws IOException {
+        return this.item.get(DyFriends.RANGE).getS();
     }
 
     /**
@@ -27,33 +27,31 @@
 package com.netbout.dynamo;
 
 import co.stateful.Counter;
-import co.stateful.RtSttc;
-import co.stateful.cached.CdSttc;
-import co.stateful.retry.ReSttc;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
 import com.amazonaws.services.dynamodbv2.model.Select;
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
 import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.dynamo.Attributes;
-import com.jcabi.dynamo.Conditions;
 import com.jcabi.dynamo.Item;
 import com.jcabi.dynamo.QueryValve;
 import com.jcabi.dynamo.Region;
 import com.jcabi.log.Logger;
 import com.jcabi.manifests.Manifests;
-import com.jcabi.urn.URN;
+import com.netbout.misc.Bus;
 import com.netbout.spi.Bout;
 import com.netbout.spi.Inbox;
 import com.netbout.spi.Pageable;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
@@ -69,12 +67,16 @@ import lombok.ToString;
  * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "self")
 @EqualsAndHashCode(of = { "counter", "region", "self", "since" })
 @SuppressWarnings({ "PMD.TooManyMethods", "PMD.ExcessiveImports" })
 final class DyInbox implements Inbox {
 
+    /**
+     * Pages of bouts, read ahead.
+     */
+    private static final Keyset KEYSET = new Keyset(true);
+
     /**
      * Counter with bout number.
      */
@@ -101,7 +103,7 @@ final class DyInbox implements Inbox {
      * @param slf My alias
      */
     DyInbox(final Region reg, final String slf) {
-        this(reg, slf, DyInbox.sttc(), Inbox.NEVER);
+        this(reg, slf, DyInbox.counter(reg), Inbox.NEVER);
     }
 
     /**
@@ -132,68 +134,44 @@ final class DyInbox implements Inbox {
                 .with(DyFriends.ATTR_UPDATED, System.currentTimeMillis())
                 .with(DyFriends.ATTR_TITLE, "untitled")
         );
+        new Sequence(this.region, number).set(0L);
+        new Consistency(this.self).wrote(number);
+        Bus.SHARED.publish(Bus.STARTED, Bus.inbox(this.self));
         Logger.info(this, "bout #%d started by @%s", number, this.self);
         return number;
     }
 
-    /**
-     * {@inheritDoc}
-     * @todo #1 DynamoDBLocal doesn't work with all attributes
-     *  in global index. If we remove this check for a local version,
-     *  most tests fail. I'm not sure how to fix that. I suspect, it's
-     *  a bug in DynamoDBLocal, but I don't even know how to report
-     *  it to them :( Anyway, let's try to investigate and either fix
-     *  property or introduce a better workaround. Pay attention that this
-     *  code works correctly in production.
-     */
     @Override
     public long unread() throws IOException {
-        long unread = 0L;
-        if (!"1.0-LOCAL".equals(Manifests.read("Netbout-Version"))) {
-            final Iterable<Item> items = this.region.table(DyFriends.TBL)
-                .frame()
-                .where(DyFriends.RANGE, this.self)
-                .through(
-                    new QueryValve()
-                        .withIndexName(DyFriends.INDEX)
-                        .withConsistentRead(false)
-                        .withSelect(Select.SPECIFIC_ATTRIBUTES)
-                        .withAttributesToGet(DyFriends.ATTR_UNREAD)
-                        .withScanIndexForward(false)
-                );
-            for (final Item item : items) {
-                if (item.has(DyFriends.ATTR_UNREAD)) {
-                    unread += Long.parseLong(
-                        item.get(DyFriends.ATTR_UNREAD).getN()
-                    );
-                }
-            }
+        final Unread total = new Unread(this.region);
+        long unread = total.get(this.self);
+        if (unread == Unread.UNKNOWN) {
+            final long before = total.raw(this.self);
+            unread = this.sum();
+            total.seed(this.self, before, unread);
         }
         return unread;
     }
 
     @Override
-    @Loggable(
-        value = Loggable.DEBUG,
-        ignore = Inbox.BoutNotFoundException.class
-    )
     public Bout bout(final long number) throws Inbox.BoutNotFoundException {
-        final Iterator<Item> items = this.region.table(DyFriends.TBL)
-            .frame()
-            .through(
-                new QueryValve().withLimit(1)
-                    .withSelect(Select.SPECIFIC_ATTRIBUTES)
-                    .withAttributesToGet(
-                        DyFriends.HASH, DyFriends.RANGE
-                    )
-            )
-            .where(DyFriends.HASH, Conditions.equalTo(number))
-            .where(DyFriends.RANGE, this.self)
-            .iterator();
-        if (!items.hasNext()) {
+        final Snapshot snapshot;
+        try {
+            snapshot = Snapshot.read(this.region, number, this.self);
+        } catch (final IOException ex) {
+            throw new Inbox.BoutNotFoundException(number, ex);
+        }
+        if (snapshot.row().isEmpty()) {
             throw new Inbox.BoutNotFoundException(number);
         }
-        return new DyBout(this.region, items.next(), this.self);
+        return new DyBout(
+            this.region,
+            new Row(
+                this.region, DyFriends.TBL, snapshot.row(),
+                DyFriends.HASH, DyFriends.RANGE
+            ),
+            this.self, snapshot
+        );
     }
 
     @Override
@@ -203,7 +181,7 @@ final class DyInbox implements Inbox {
 
     @Override
     public Iterable<Bout> iterate() {
-        return Iterables.transform(
+        return this.prefetched(
             this.region.table(DyFriends.TBL)
                 .frame()
                 .where(DyFriends.RANGE, this.self)
@@ -224,50 +202,165 @@ final class DyInbox implements Inbox {
                         .withLimit(Inbox.PAGE)
                         .withSelect(Select.ALL_PROJECTED_ATTRIBUTES)
                         .withScanIndexForward(false)
-                ),
-            new Function<Item, Bout>() {
-                @Override
-                public Bout apply(final Item item) {
-                    return new Bout.ReadOnly(
-                        new DyBout(
-                            DyInbox.this.region,
-                            item, DyInbox.this.self
-                        )
-                    );
-                }
-            }
+                )
+        );
+    }
+
+    @Override
+    public Pageable.Page<Bout> page(final String cursor, final int size)
+        throws IOException {
+        final Map<String, Condition> conditions = new HashMap<>(2);
+        conditions.put(
+            DyFriends.RANGE,
+            new Condition()
+                .withComparisonOperator(ComparisonOperator.EQ)
+                .withAttributeValueList(new AttributeValue(this.self))
+        );
+        conditions.put(
+            DyFriends.ATTR_UPDATED,
+            new Condition()
+                .withComparisonOperator(ComparisonOperator.LT)
+                .withAttributeValueList(
+                    new AttributeValue().withN(Long.toString(this.since))
+                )
+        );
+        final Pageable.Page<Attributes> page = DyInbox.KEYSET.page(
+            this.region,
+            new QueryRequest()
+                .withTableName(this.region.table(DyFriends.TBL).name())
+                .withIndexName(DyFriends.INDEX)
+                .withKeyConditions(conditions)
+                .withConsistentRead(false)
+                .withSelect(Select.ALL_PROJECTED_ATTRIBUTES)
+                .withScanIndexForward(false)
+                .withLimit(size),
+            cursor
+        );
+        final Collection<Item> items = new LinkedList<>();
+        for (final Attributes row : page.items()) {
+            items.add(
+                new Row(
+                    this.region, DyFriends.TBL, row,
+                    DyFriends.HASH, DyFriends.RANGE
+                )
+            );
+        }
+        return new Pageable.Page<Bout>(
+            new Prefetch(this.region, this.self).bouts(items),
+            page.cursor()
         );
     }
 
     @Override
     public Iterable<Bout> search(final String term) throws IOException {
-        final List<Bout> result = new ArrayList<>(16);
-        for (final Bout bout : this.iterate()) {
-            if (bout.messages().search(term).iterator().hasNext()) {
-                result.add(bout);
+        final Map<Long, Item> mine = new HashMap<>(0);
+        for (final Item item : this.region.table(DyFriends.TBL)
+            .frame()
+            .where(DyFriends.RANGE, this.self)
+            .where(
+                DyFriends.ATTR_UPDATED,
+                new Condition()
+                    .withComparisonOperator(ComparisonOperator.LT)
+                    .withAttributeValueList(
+                        new AttributeValue().withN(Long.toString(this.since))
+                    )
+            )
+            .through(
+                new QueryValve()
+                    .withIndexName(DyFriends.INDEX)
+                    .withConsistentRead(false)
+                    .withSelect(Select.SPECIFIC_ATTRIBUTES)
+                    .withAttributesToGet(DyFriends.HASH, DyFriends.RANGE)
+            )) {
+            mine.put(Shards.bout(item.get(DyFriends.HASH)), item);
+        }
+        final Index index = new Index(this.region);
+        for (final Long bout : mine.keySet()) {
+            index.ensure(bout);
+        }
+        return this.prefetched(
+            Iterables.transform(
+                index.bouts(term, mine.keySet()),
+                new Function<Long, Item>() {
+                    @Override
+                    public Item apply(final Long bout) {
+                        return mine.get(bout);
+                    }
+                }
+            )
+        );
+    }
+
+    /**
+     * Turn my items in "friends" table into bouts, page by page,
+     * loading everything the inbox shows with a few batch reads.
+     * @param items Items, one per bout
+     * @return Bouts
+     */
+    private Iterable<Bout> prefetched(final Iterable<Item> items) {
+        final Prefetch prefetch = new Prefetch(this.region, this.self);
+        return Iterables.concat(
+            Iterables.transform(
+                Iterables.partition(items, Inbox.PAGE),
+                new Function<List<Item>, Iterable<Bout>>() {
+                    @Override
+                    public Iterable<Bout> apply(final List<Item> page) {
+                        try {
+                            return prefetch.bouts(page);
+                        } catch (final IOException ex) {
+                            throw new IllegalStateException(ex);
+                        }
+                    }
+                }
+            )
+        );
+    }
+
+    /**
+     * Sum up unread messages in all bouts of the alias.
+     * @return Total number of unread messages
+     * @throws IOException If fails
+     * @todo #1 DynamoDBLocal doesn't work with all attributes
+     *  in global index. If we remove this check for a local version,
+     *  most tests fail. I'm not sure how to fix that. I suspect, it's
+     *  a bug in DynamoDBLocal, but I don't even know how to report
+     *  it to them :( Anyway, let's try to investigate and either fix
+     *  property or introduce a better workaround. Pay attention that this
+     *  code works correctly in production.
+     */
+    private long sum() throws IOException {
+        long unread = 0L;
+        if (!"1.0-LOCAL".equals(Manifests.read("Netbout-Version"))) {
+            final Iterable<Item> items = this.region.table(DyFriends.TBL)
+                .frame()
+                .where(DyFriends.RANGE, this.self)
+                .through(
+                    new QueryValve()
+                        .withIndexName(DyFriends.INDEX)
+                        .withConsistentRead(false)
+                        .withSelect(Select.SPECIFIC_ATTRIBUTES)
+                        .withAttributesToGet(DyFriends.ATTR_UNREAD)
+                        .withScanIndexForward(false)
+                );
+            for (final Item item : items) {
+                if (item.has(DyFriends.ATTR_UNREAD)) {
+                    unread += Long.parseLong(
+                        item.get(DyFriends.ATTR_UNREAD).getN()
+                    );
+                }
             }
         }
-        return result;
+        return unread;
     }
 
     /**
-     * Sttc counter.
+     * Counter, shared by all objects in the JVM.
+     * @param reg Region
      * @return Counter
      */
     @Cacheable(forever = true)
-    private static Counter sttc() {
-        try {
-            return new CdSttc(
-                new ReSttc(
-                    RtSttc.make(
-                        URN.create(Manifests.read("Netbout-SttcUrn")),
-                        Manifests.read("Netbout-SttcToken")
-                    )
-                )
-            ).counters().get("nb-bout");
-        } catch (final IOException ex) {
-            throw new IllegalStateException(ex);
-        }
+    private static Counter counter(final Region reg) {
+        return new Leased(DyCounter.make(reg, "nb-bout"));
     }
 
 }
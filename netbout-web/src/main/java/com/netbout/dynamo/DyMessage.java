@@ -27,9 +27,9 @@
 package com.netbout.dynamo;
 
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.dynamo.Item;
 import com.netbout.spi.Message;
+import com.netbout.spi.Rendered;
 import java.io.IOException;
 import java.util.Date;
 import lombok.EqualsAndHashCode;
@@ -38,15 +38,19 @@ import lombok.ToString;
 /**
  * Dynamo message.
  *
+ * <p>HTML of the text is stored by {@link DyMessages#post(String)} and
+ * given to the message when its row is read with it. Messages posted
+ * before that, archived ones and those read by
+ * {@link DyMessages#iterate()} have none.
+ *
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 2.0
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "item")
-@EqualsAndHashCode(of = "item")
-final class DyMessage implements Message {
+@EqualsAndHashCode(of = { "item", "rendered" })
+final class DyMessage implements Message, Rendered {
 
     /**
      * Item with data.
@@ -54,11 +58,27 @@ final class DyMessage implements Message {
     private final transient Item item;
 
     /**
-     * Ctor.
+     * HTML of the text, if it is stored.
+     */
+    private final transient String rendered;
+
+    /**
+     * Ctor, for a message without HTML.
      * @param itm Item with data
      */
     DyMessage(final Item itm) {
+        this(itm, "");
+    }
+
+    /**
+     * Ctor.
+     * @param itm Item with data
+     * @param html HTML of the text, as stored, or empty
+     * @since 3.0
+     */
+    DyMessage(final Item itm, final String html) {
         this.item = itm;
+        this.rendered = html;
     }
 
     @Override
@@ -82,4 +102,9 @@ final class DyMessage implements Message {
     public String author() throws IOException {
         return this.item.get(DyMessages.ATTR_ALIAS).getS();
     }
+
+    @Override
+    public String html() {
+        return this.rendered;
+    }
 }
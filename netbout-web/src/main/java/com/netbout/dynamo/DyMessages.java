@@ -27,38 +27,33 @@
 package com.netbout.dynamo;
 
 import co.stateful.Counter;
-import co.stateful.RtSttc;
-import co.stateful.cached.CdSttc;
-import co.stateful.retry.ReSttc;
-import com.amazonaws.services.dynamodbv2.model.AttributeAction;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
-import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
 import com.google.common.base.Function;
-import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.jcabi.aspects.Async;
-import com.jcabi.aspects.Cacheable;
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.aspects.Tv;
-import com.jcabi.dynamo.AttributeUpdates;
 import com.jcabi.dynamo.Attributes;
 import com.jcabi.dynamo.Conditions;
 import com.jcabi.dynamo.Item;
 import com.jcabi.dynamo.QueryValve;
 import com.jcabi.dynamo.Region;
 import com.jcabi.log.Logger;
-import com.jcabi.manifests.Manifests;
-import com.jcabi.urn.URN;
+import com.netbout.misc.Bus;
+import com.netbout.misc.Markdown;
 import com.netbout.spi.Inbox;
 import com.netbout.spi.Message;
 import com.netbout.spi.Messages;
 import com.netbout.spi.Pageable;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import org.apache.commons.lang3.StringUtils;
@@ -75,7 +70,6 @@ import org.apache.commons.lang3.StringUtils;
  * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "bout")
 @EqualsAndHashCode(of = { "counter", "region", "bout", "self", "start" })
 @SuppressWarnings({ "PMD.TooManyMethods", "PMD.ExcessiveImports" })
@@ -111,6 +105,22 @@ final class DyMessages implements Messages {
      */
     public static final String ATTR_DATE = "date";
 
+    /**
+     * HTML of the text, rendered when posted, absent in old messages.
+     * @since 3.0
+     */
+    public static final String ATTR_HTML = "html";
+
+    /**
+     * Pages of messages, read ahead.
+     */
+    private static final Keyset KEYSET = new Keyset(true);
+
+    /**
+     * Prefix of cursors that point into the archive.
+     */
+    private static final String COLD = "~";
+
     /**
      * Counter with message number.
      */
@@ -136,14 +146,22 @@ final class DyMessages implements Messages {
      */
     private final transient long start;
 
+    /**
+     * Snapshot of my row in "friends" table.
+     */
+    private final transient Snapshot snapshot;
+
     /**
      * Ctor.
      * @param reg Region
      * @param num Bout number
      * @param slf Self alias
+     * @param snap Snapshot of my row in "friends" table
+     * @since 3.0
      */
-    DyMessages(final Region reg, final long num, final String slf) {
-        this(reg, num, slf, DyMessages.sttc(), Inbox.NEVER);
+    DyMessages(final Region reg, final long num, final String slf,
+        final Snapshot snap) {
+        this(reg, num, slf, new Sequence(reg, num), Inbox.NEVER, snap);
     }
 
     /**
@@ -153,16 +171,18 @@ final class DyMessages implements Messages {
      * @param slf Self alias
      * @param ctr Counter
      * @param strt Start message number
-     * @since 2.7.1
+     * @param snap Snapshot of my row in "friends" table
+     * @since 3.0
      * @checkstyle ParameterNumberCheck (5 lines)
      */
     DyMessages(final Region reg, final long num, final String slf,
-        final Counter ctr, final long strt) {
+        final Counter ctr, final long strt, final Snapshot snap) {
         this.region = reg;
         this.bout = num;
         this.self = slf;
         this.counter = ctr;
         this.start = strt;
+        this.snapshot = snap;
     }
 
     @Override
@@ -186,26 +206,22 @@ final class DyMessages implements Messages {
                 .with(DyMessages.ATTR_TEXT, clean)
                 .with(DyMessages.ATTR_ALIAS, this.self)
                 .with(DyMessages.ATTR_DATE, System.currentTimeMillis())
+                .with(DyMessages.ATTR_HTML, new Markdown(clean).html())
         );
+        new Consistency(this.self).wrote(this.bout);
         this.updated();
+        this.indexed(number, clean);
+        this.compacted();
+        Bus.SHARED.publish(Bus.POSTED, Bus.bout(this.bout));
         Logger.info(this, "posted to #%d by @%s", this.bout, this.self);
     }
 
     @Override
     public long unread() throws IOException {
-        final Item item = this.region.table(DyFriends.TBL)
-            .frame()
-            .through(
-                new QueryValve()
-                    .withLimit(1)
-                    .withAttributesToGet(DyFriends.ATTR_UNREAD)
-            )
-            .where(DyFriends.HASH, Conditions.equalTo(this.bout))
-            .where(DyFriends.RANGE, Conditions.equalTo(this.self))
-            .iterator().next();
+        final Attributes row = this.snapshot.row();
         final long unread;
-        if (item.has(DyFriends.ATTR_UNREAD)) {
-            unread = Long.parseLong(item.get(DyFriends.ATTR_UNREAD).getN());
+        if (row.containsKey(DyFriends.ATTR_UNREAD)) {
+            unread = Long.parseLong(row.get(DyFriends.ATTR_UNREAD).getN());
         } else {
             unread = 0L;
         }
@@ -215,7 +231,8 @@ final class DyMessages implements Messages {
     @Override
     public Pageable<Message> jump(final long number) {
         return new DyMessages(
-            this.region, this.bout, this.self, this.counter, number
+            this.region, this.bout, this.self, this.counter, number,
+            this.snapshot
         );
     }
 
@@ -224,11 +241,12 @@ final class DyMessages implements Messages {
         if (this.start != Long.MAX_VALUE) {
             this.seen();
         }
-        return Iterables.transform(
+        final Iterable<Message> hot = Iterables.transform(
             this.region.table(DyMessages.TBL)
                 .frame()
                 .through(
                     new QueryValve()
+                        .withConsistentRead(this.strong())
                         .withScanIndexForward(false)
                         .withLimit(Messages.PAGE)
                         .withAttributesToGet(
@@ -255,99 +273,257 @@ final class DyMessages implements Messages {
                 }
             }
         );
+        return Iterables.concat(
+            hot,
+            this.messages(this.archive().messages(this.bout, this.start))
+        );
     }
 
     @Override
-    public Iterable<Message> search(final String term) throws IOException {
-        final List<Message> result = new ArrayList<>(16);
-        for (final Message message : this.iterate()) {
-            if (message.text().contains(term)) {
-                result.add(message);
-            }
+    public Pageable.Page<Message> page(final String cursor, final int size)
+        throws IOException {
+        if (this.start != Long.MAX_VALUE && cursor.isEmpty()) {
+            this.seen();
+        }
+        final Pageable.Page<Attributes> page;
+        if (cursor.startsWith(DyMessages.COLD)) {
+            page = this.cold(
+                Long.parseLong(cursor.substring(DyMessages.COLD.length())),
+                size
+            );
+        } else {
+            page = this.hot(cursor, size);
         }
-        return result;
+        return new Pageable.Page<Message>(
+            this.messages(page.items()), page.cursor()
+        );
     }
 
-    /**
-     * It was updated just now.
-     */
-    @Async
-    private void updated() {
-        final String alias = this.self;
-        Iterables.all(
-            this.region.table(DyFriends.TBL).frame()
-                .through(new QueryValve())
-                .where(DyFriends.HASH, Conditions.equalTo(this.bout)),
-            // @checkstyle AnonInnerLengthCheck (50 lines)
-            new Predicate<Item>() {
+    @Override
+    public Iterable<Message> search(final String term) throws IOException {
+        final Index index = new Index(this.region);
+        index.ensure(this.bout);
+        return Iterables.transform(
+            index.messages(this.bout, term, this.start),
+            new Function<Long, Message>() {
                 @Override
-                public boolean apply(final Item input) {
-                    AttributeUpdates updates = new AttributeUpdates().with(
-                        DyFriends.ATTR_UPDATED,
-                        System.currentTimeMillis()
-                    );
+                public Message apply(final Long number) {
                     try {
-                        if (!input.get(DyFriends.RANGE).getS().equals(alias)) {
-                            updates = updates.with(
-                                DyFriends.ATTR_UNREAD,
-                                new AttributeValueUpdate()
-                                    .withAction(AttributeAction.ADD)
-                                    .withValue(new AttributeValue().withN("1"))
-                            );
-                        }
-                        input.put(updates);
+                        return DyMessages.this.message(number);
                     } catch (final IOException ex) {
                         throw new IllegalStateException(ex);
                     }
-                    return true;
                 }
             }
         );
     }
 
     /**
-     * It was seen just now.
+     * Read one page from "messages" table.
+     *
+     * <p>The last page of the table points to the archive, if there is
+     * anything archived.
+     *
+     * @param cursor Cursor of the page
+     * @param size Maximum size of the page
+     * @return Page of rows
+     * @throws IOException If fails
      */
-    @Async
-    private void seen() {
-        Iterables.all(
-            this.region.table(DyFriends.TBL).frame()
-                .through(new QueryValve())
-                .where(DyFriends.HASH, Conditions.equalTo(this.bout))
-                .where(DyFriends.RANGE, this.self),
-            new Predicate<Item>() {
+    private Pageable.Page<Attributes> hot(final String cursor,
+        final int size) throws IOException {
+        final Map<String, Condition> conditions = new HashMap<>(2);
+        conditions.put(
+            DyMessages.HASH,
+            new Condition()
+                .withComparisonOperator(ComparisonOperator.EQ)
+                .withAttributeValueList(
+                    new AttributeValue().withN(Long.toString(this.bout))
+                )
+        );
+        conditions.put(
+            DyMessages.RANGE,
+            new Condition()
+                .withComparisonOperator(ComparisonOperator.LT)
+                .withAttributeValueList(
+                    new AttributeValue().withN(Long.toString(this.start))
+                )
+        );
+        final Pageable.Page<Attributes> page = DyMessages.KEYSET.page(
+            this.region,
+            new QueryRequest()
+                .withTableName(this.region.table(DyMessages.TBL).name())
+                .withKeyConditions(conditions)
+                .withConsistentRead(this.strong())
+                .withScanIndexForward(false)
+                .withLimit(size)
+                .withAttributesToGet(
+                    DyMessages.HASH,
+                    DyMessages.RANGE,
+                    DyMessages.ATTR_TEXT,
+                    DyMessages.ATTR_ALIAS,
+                    DyMessages.ATTR_DATE,
+                    DyMessages.ATTR_HTML
+                ),
+            cursor
+        );
+        String next = page.cursor();
+        if (page.last()) {
+            long below = this.start;
+            for (final Attributes row : page.items()) {
+                below = Math.min(
+                    below, Long.parseLong(row.get(DyMessages.RANGE).getN())
+                );
+            }
+            if (!Iterables.isEmpty(
+                this.archive().messages(this.bout, below)
+            )) {
+                next = String.format("%s%d", DyMessages.COLD, below);
+            }
+        }
+        return new Pageable.Page<Attributes>(page.items(), next);
+    }
+
+    /**
+     * Read one page from the archive.
+     * @param below Take only messages with numbers lower than this one
+     * @param size Maximum size of the page
+     * @return Page of rows
+     */
+    private Pageable.Page<Attributes> cold(final long below, final int size) {
+        final List<Attributes> rows = Lists.newArrayList(
+            Iterables.limit(
+                this.archive().messages(this.bout, below), size + 1
+            )
+        );
+        String next = Pageable.FIRST;
+        if (rows.size() > size) {
+            rows.remove(size);
+            next = String.format(
+                "%s%s", DyMessages.COLD,
+                rows.get(size - 1).get(DyMessages.RANGE).getN()
+            );
+        }
+        return new Pageable.Page<Attributes>(rows, next);
+    }
+
+    /**
+     * Turn rows of "messages" table into messages.
+     * @param rows Rows, with all attributes
+     * @return Messages
+     */
+    private Iterable<Message> messages(final Iterable<Attributes> rows) {
+        return Iterables.transform(
+            rows,
+            new Function<Attributes, Message>() {
                 @Override
-                public boolean apply(final Item input) {
-                    try {
-                        input.put(
-                            new AttributeUpdates().with(
-                                DyFriends.ATTR_UNREAD, 0L
-                            )
-                        );
-                    } catch (final IOException ex) {
-                        throw new IllegalStateException(ex);
+                public Message apply(final Attributes row) {
+                    String html = "";
+                    if (row.containsKey(DyMessages.ATTR_HTML)) {
+                        html = row.get(DyMessages.ATTR_HTML).getS();
                     }
-                    return true;
+                    return new DyMessage(
+                        new Row(
+                            DyMessages.this.region, DyMessages.TBL, row,
+                            DyMessages.HASH, DyMessages.RANGE
+                        ),
+                        html
+                    );
                 }
             }
         );
     }
 
     /**
-     * Sttc counter.
-     * @return Counter
+     * Archive of old messages.
+     * @return Archive
      */
-    @Cacheable(forever = true)
-    private static Counter sttc() {
-        try {
-            return new CdSttc(
-                new ReSttc(
-                    RtSttc.make(
-                        URN.create(Manifests.read("Netbout-SttcUrn")),
-                        Manifests.read("Netbout-SttcToken")
-                    )
+    private Archive archive() {
+        return new Archive(this.region, DyAttachment.storage());
+    }
+
+    /**
+     * Shall messages be read strongly consistent?
+     * @return TRUE if so
+     */
+    private boolean strong() {
+        return new Consistency(this.self).strong(
+            Consistency.MESSAGES, this.bout
+        );
+    }
+
+    /**
+     * Find one message, in the table or in the archive.
+     *
+     * <p>The row is read with all its attributes, in order to have
+     * the HTML of the message, if it is stored.
+     *
+     * @param number Message number
+     * @return Message
+     * @throws IOException If fails
+     */
+    private Message message(final long number) throws IOException {
+        Attributes row = new BatchGet(
+            this.region, DyMessages.TBL, this.strong()
+        ).read(
+            new Attributes()
+                .with(DyMessages.HASH, this.bout)
+                .with(DyMessages.RANGE, number)
+        );
+        if (row.isEmpty()) {
+            row = this.archive().message(this.bout, number);
+        }
+        if (row.isEmpty()) {
+            throw new IOException(
+                String.format(
+                    "message #%d not found in bout #%d",
+                    number, this.bout
                 )
-            ).counters().get("nb-message");
+            );
+        }
+        return this.messages(Collections.singleton(row)).iterator().next();
+    }
+
+    /**
+     * It was updated just now.
+     */
+    private void updated() {
+        Fanout.SHARED.post(this.region, this.bout, this.self);
+    }
+
+    /**
+     * Add new message to the full-text index.
+     * @param number Message number
+     * @param text Text of it
+     */
+    @Async
+    private void indexed(final long number, final String text) {
+        try {
+            new Index(this.region).add(this.bout, number, text);
+        } catch (final IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Move old messages to the archive, once in a while.
+     */
+    @Async
+    private void compacted() {
+        try {
+            this.archive().compact(this.bout);
+        } catch (final IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * It was seen just now.
+     */
+    private void seen() {
+        try {
+            if (this.unread() > 0L) {
+                Seen.SHARED.messages(this.region, this.bout, this.self);
+            }
         } catch (final IOException ex) {
             throw new IllegalStateException(ex);
         }
@@ -27,7 +27,6 @@
 package com.netbout.dynamo;
 
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.aspects.Tv;
 import com.jcabi.dynamo.Conditions;
 import com.jcabi.dynamo.QueryValve;
@@ -43,11 +42,15 @@ import lombok.ToString;
  * @since 2.0
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString
 @EqualsAndHashCode(of = "region")
 final class Everybody {
 
+    /**
+     * Aliases known to this node.
+     */
+    private static final Names NAMES = new Names();
+
     /**
      * Region to work with.
      */
@@ -67,17 +70,56 @@ final class Everybody {
      * @return TRUE if occupied
      */
     public boolean occupied(final String name) {
+        Everybody.validate(name);
+        boolean occupied = Everybody.NAMES.confirmed(name);
+        if (!occupied) {
+            occupied = this.region.table(DyAliases.TBL).frame()
+                .through(new QueryValve().withLimit(1))
+                .where(DyAliases.HASH, Conditions.equalTo(name))
+                .iterator()
+                .hasNext();
+            if (occupied) {
+                Everybody.NAMES.add(name);
+            }
+        }
+        return occupied;
+    }
+
+    /**
+     * This name is most likely occupied.
+     *
+     * <p>Unlike {@link #occupied(String)}, it usually answers without
+     * DynamoDB, but may say FALSE for a name that was taken on another
+     * node during the last few minutes.
+     *
+     * @param name The name
+     * @return TRUE if occupied
+     */
+    public boolean taken(final String name) {
+        Everybody.validate(name);
+        return !Everybody.NAMES.absent(this.region, name)
+            && this.occupied(name);
+    }
+
+    /**
+     * This name was just occupied.
+     * @param name The name
+     */
+    public void add(final String name) {
+        Everybody.NAMES.add(name);
+    }
+
+    /**
+     * Validate the name.
+     * @param name The name
+     */
+    private static void validate(final String name) {
         if (name.isEmpty()) {
             throw new IllegalArgumentException("alias can't be empty");
         }
         if (name.length() > Tv.HUNDRED) {
             throw new IllegalArgumentException("alias is too long");
         }
-        return this.region.table(DyAliases.TBL).frame()
-            .through(new QueryValve().withLimit(1))
-            .where(DyAliases.HASH, Conditions.equalTo(name))
-            .iterator()
-            .hasNext();
     }
 
 }
@@ -0,0 +1,545 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeAction;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.google.common.collect.Lists;
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.AttributeUpdates;
+import com.jcabi.dynamo.Item;
+import com.jcabi.dynamo.QueryValve;
+import com.jcabi.dynamo.Region;
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseRunnable;
+import com.jcabi.log.VerboseThreads;
+import com.netbout.misc.Bus;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.ToString;
+
+/**
+ * Batched fan-out of new messages and attachments to all participants
+ * of a bout.
+ *
+ * <p>Posts and uploads that land in the same bout within a short window
+ * are coalesced into a single write per participant, which increments its
+ * "unread" counter by the number of posts it didn't author and atomically
+ * ADDs names of attachments it didn't upload to its "unseen" string set,
+ * without reading the row first. Writes are grouped
+ * into chunks of {@link #CHUNK} rows and executed by a bounded pool
+ * of writers. DynamoDB BatchWriteItem can't carry ADD updates, that's
+ * why every chunk is a sequence of UpdateItem calls. Totals of unread
+ * messages in "aliases" table (see {@link Unread}) are changed together
+ * with per-bout counters. Every instance owns its timer and writers,
+ * which {@link #close()} stops, after flushing pending batches; the
+ * {@link #SHARED} one is closed on JVM shutdown, in order not to lose
+ * posts of the last window on restart.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ */
+@ToString(of = { "window", "saved" })
+@SuppressWarnings({ "PMD.DoNotUseThreads", "PMD.ExcessiveImports" })
+final class Fanout implements Closeable {
+
+    /**
+     * Maximum number of rows in one chunk of writes.
+     */
+    public static final int CHUNK = 25;
+
+    /**
+     * Batches of this JVM, shared by messages and attachments, in order
+     * to coalesce fan-out of posts and uploads of a bout
+     * into the same writes.
+     */
+    static final Fanout SHARED = new Fanout();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(
+            new Thread(
+                new VerboseRunnable(
+                    new Callable<Void>() {
+                        @Override
+                        public Void call() throws IOException {
+                            Fanout.SHARED.close();
+                            return null;
+                        }
+                    },
+                    true
+                )
+            )
+        );
+    }
+
+    /**
+     * Coalescing window, in milliseconds.
+     */
+    private final transient long window;
+
+    /**
+     * Pending batches, by bout number.
+     */
+    private final transient ConcurrentMap<Long, Fanout.Batch> pending;
+
+    /**
+     * Timer that flushes batches when their windows close.
+     */
+    private final transient ScheduledExecutorService timer;
+
+    /**
+     * Writers.
+     */
+    private final transient ExecutorService writers;
+
+    /**
+     * How many writes were coalesced so far.
+     */
+    private final transient AtomicLong saved;
+
+    /**
+     * Ctor.
+     */
+    Fanout() {
+        this((long) Tv.FIVE * Tv.HUNDRED, Tv.FOUR);
+    }
+
+    /**
+     * Ctor.
+     * @param msec Coalescing window in milliseconds
+     * @param threads How many writers to run in parallel
+     */
+    Fanout(final long msec, final int threads) {
+        this.window = msec;
+        this.pending = new ConcurrentHashMap<Long, Fanout.Batch>(0);
+        this.timer = Executors.newSingleThreadScheduledExecutor(
+            new VerboseThreads(Fanout.class)
+        );
+        this.writers = Executors.newFixedThreadPool(
+            threads, new VerboseThreads(Fanout.class)
+        );
+        this.saved = new AtomicLong();
+    }
+
+    /**
+     * A new message was posted into the bout.
+     * @param region Region we're in
+     * @param bout Bout number
+     * @param author Alias of the author
+     */
+    public void post(final Region region, final long bout,
+        final String author) {
+        while (true) {
+            final Fanout.Batch batch = this.batch(region, bout);
+            if (batch.add(author)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * A new version of an attachment was uploaded into the bout.
+     * @param region Region we're in
+     * @param bout Bout number
+     * @param author Alias of the uploader
+     * @param name Name of the attachment
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public void upload(final Region region, final long bout,
+        final String author, final String name) {
+        while (true) {
+            final Fanout.Batch batch = this.batch(region, bout);
+            if (batch.attach(author, name)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Flush all pending batches right now and wait for their writes.
+     * @throws IOException If fails
+     */
+    public void flush() throws IOException {
+        final Collection<Future<?>> futures = new LinkedList<Future<?>>();
+        for (final Long bout : this.pending.keySet()) {
+            final Fanout.Batch batch = this.pending.get(bout);
+            if (batch != null) {
+                futures.addAll(this.flush(bout, batch));
+            }
+        }
+        for (final Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException(ex);
+            } catch (final ExecutionException ex) {
+                throw new IOException(ex);
+            }
+        }
+    }
+
+    /**
+     * Stop the timer, flush all pending batches and stop the writers.
+     *
+     * <p>Posts and uploads that come after this call are lost.
+     *
+     * @throws IOException If fails
+     */
+    @Override
+    public void close() throws IOException {
+        this.timer.shutdown();
+        try {
+            this.flush();
+        } finally {
+            this.writers.shutdown();
+        }
+    }
+
+    /**
+     * How many writes were coalesced since start.
+     * @return Total number of writes saved
+     */
+    public long coalesced() {
+        return this.saved.get();
+    }
+
+    /**
+     * Pending batch of the bout, maybe closed already.
+     * @param region Region we're in
+     * @param bout Bout number
+     * @return The batch
+     */
+    private Fanout.Batch batch(final Region region, final long bout) {
+        Fanout.Batch batch = this.pending.get(bout);
+        if (batch == null) {
+            final Fanout.Batch fresh = new Fanout.Batch(region);
+            batch = this.pending.putIfAbsent(bout, fresh);
+            if (batch == null) {
+                batch = fresh;
+                this.schedule(bout, fresh);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Schedule a flush of the batch when its window closes.
+     * @param bout Bout number
+     * @param batch The batch
+     */
+    private void schedule(final long bout, final Fanout.Batch batch) {
+        this.timer.schedule(
+            new VerboseRunnable(
+                new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        Fanout.this.flush(bout, batch);
+                        return null;
+                    }
+                },
+                true
+            ),
+            this.window,
+            TimeUnit.MILLISECONDS
+        );
+    }
+
+    /**
+     * Flush one batch.
+     * @param bout Bout number
+     * @param batch The batch
+     * @return Futures of the submitted chunks
+     * @throws IOException If fails
+     */
+    private Collection<Future<?>> flush(final long bout,
+        final Fanout.Batch batch) throws IOException {
+        final Collection<Future<?>> futures = new LinkedList<Future<?>>();
+        if (this.pending.remove(bout, batch)) {
+            batch.close();
+            final List<String> authors = batch.authors();
+            final Map<String, String> uploads = batch.uploads();
+            final List<Item> rows = new ArrayList<Item>(Tv.TEN);
+            rows.addAll(
+                new Shards(batch.region()).rows(bout, new QueryValve())
+            );
+            final long now = System.currentTimeMillis();
+            for (final List<Item> chunk : Lists.partition(rows, Fanout.CHUNK)) {
+                futures.add(
+                    this.writers.submit(
+                        new VerboseRunnable(
+                            new Callable<Void>() {
+                                @Override
+                                public Void call() throws IOException {
+                                    Fanout.write(
+                                        batch.region(), bout, chunk,
+                                        new Fanout.Changes(authors, uploads),
+                                        now
+                                    );
+                                    return null;
+                                }
+                            },
+                            true
+                        )
+                    )
+                );
+            }
+            final long coalesced =
+                (long) (authors.size() + uploads.size() - 1) * rows.size();
+            this.saved.addAndGet(coalesced);
+            Logger.info(
+                this,
+                "%d post(s), %d upload(s) fanned out into #%d: %s",
+                authors.size(), uploads.size(), bout,
+                String.format(
+                    "%d write(s), %d coalesced", rows.size(), coalesced
+                )
+            );
+        }
+        return futures;
+    }
+
+    /**
+     * Write one chunk of rows.
+     * @param region Region we're in
+     * @param bout Bout number
+     * @param chunk Rows of "friends" table
+     * @param changes Posts and uploads
+     * @param now Time of update
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private static void write(final Region region, final long bout,
+        final Iterable<Item> chunk, final Fanout.Changes changes,
+        final long now) throws IOException {
+        final Unread total = new Unread(region);
+        final Shards shards = new Shards(region);
+        String event = Bus.POSTED;
+        if (changes.authors().isEmpty()) {
+            event = Bus.ATTACHED;
+        }
+        for (final Item row : chunk) {
+            final String alias = row.get(DyFriends.RANGE).getS();
+            int unread = 0;
+            for (final String author : changes.authors()) {
+                if (!author.equals(alias)) {
+                    ++unread;
+                }
+            }
+            final Collection<String> unseen = new LinkedList<String>();
+            for (final Map.Entry<String, String> upload
+                : changes.uploads().entrySet()) {
+                if (!upload.getValue().equals(alias)) {
+                    unseen.add(upload.getKey());
+                }
+            }
+            AttributeUpdates updates = new AttributeUpdates().with(
+                DyFriends.ATTR_UPDATED, now
+            );
+            if (!unseen.isEmpty()) {
+                updates = updates.with(
+                    DyFriends.ATTR_UNSEEN,
+                    new AttributeValueUpdate()
+                        .withAction(AttributeAction.ADD)
+                        .withValue(new AttributeValue().withSS(unseen))
+                );
+            }
+            if (unread > 0) {
+                updates = updates.with(
+                    DyFriends.ATTR_UNREAD,
+                    new AttributeValueUpdate()
+                        .withAction(AttributeAction.ADD)
+                        .withValue(
+                            new AttributeValue().withN(
+                                Integer.toString(unread)
+                            )
+                        )
+                );
+            }
+            if (!shards.update(bout, alias, updates).isEmpty()) {
+                total.add(alias, (long) unread);
+                Bus.SHARED.publish(
+                    event, Bus.row(bout, alias), Bus.inbox(alias)
+                );
+            }
+        }
+    }
+
+    /**
+     * Posts and uploads of one window.
+     */
+    private static final class Changes {
+        /**
+         * Authors of the posts, one per post.
+         */
+        private final transient Collection<String> posts;
+        /**
+         * Uploaders of attachments, by names of attachments.
+         */
+        private final transient Map<String, String> files;
+        /**
+         * Ctor.
+         * @param authors Authors of the posts
+         * @param uploads Uploaders of attachments, by names
+         */
+        Changes(final Collection<String> authors,
+            final Map<String, String> uploads) {
+            this.posts = authors;
+            this.files = uploads;
+        }
+        /**
+         * Authors of the posts.
+         * @return Authors, one per post
+         */
+        public Collection<String> authors() {
+            return this.posts;
+        }
+        /**
+         * Uploaders of attachments.
+         * @return Uploaders, by names of attachments
+         */
+        public Map<String, String> uploads() {
+            return this.files;
+        }
+    }
+
+    /**
+     * Posts and uploads accumulated for one bout during one window.
+     */
+    @ToString(of = { "authors", "files" })
+    private static final class Batch {
+        /**
+         * Region we're in.
+         */
+        private final transient Region rgn;
+        /**
+         * Authors of the posts, one per post.
+         */
+        private final transient List<String> authors;
+        /**
+         * Uploaders of attachments, by names of attachments.
+         */
+        private final transient Map<String, String> files;
+        /**
+         * Is it closed already?
+         */
+        private transient boolean closed;
+        /**
+         * Ctor.
+         * @param reg Region
+         */
+        Batch(final Region reg) {
+            this.rgn = reg;
+            this.authors = new LinkedList<String>();
+            this.files = new HashMap<String, String>(0);
+        }
+        /**
+         * Region.
+         * @return Region
+         */
+        public Region region() {
+            return this.rgn;
+        }
+        /**
+         * Add one more post.
+         * @param author Author of the post
+         * @return FALSE if the batch is closed already
+         */
+        public boolean add(final String author) {
+            synchronized (this.authors) {
+                final boolean added = !this.closed;
+                if (added) {
+                    this.authors.add(author);
+                }
+                return added;
+            }
+        }
+        /**
+         * Add one more upload.
+         * @param author Uploader of the attachment
+         * @param name Name of the attachment
+         * @return FALSE if the batch is closed already
+         */
+        public boolean attach(final String author, final String name) {
+            synchronized (this.authors) {
+                final boolean added = !this.closed;
+                if (added) {
+                    this.files.put(name, author);
+                }
+                return added;
+            }
+        }
+        /**
+         * Close it, no more posts and uploads.
+         */
+        public void close() {
+            synchronized (this.authors) {
+                this.closed = true;
+            }
+        }
+        /**
+         * All authors, when it is closed.
+         * @return Authors, one per post
+         */
+        public List<String> authors() {
+            synchronized (this.authors) {
+                return new ArrayList<String>(this.authors);
+            }
+        }
+        /**
+         * All uploads, when it is closed.
+         * @return Uploaders, by names of attachments
+         */
+        public Map<String, String> uploads() {
+            synchronized (this.authors) {
+                return new HashMap<String, String>(this.files);
+            }
+        }
+    }
+
+}
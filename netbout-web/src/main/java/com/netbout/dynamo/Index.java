@@ -0,0 +1,522 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.google.common.collect.Lists;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Conditions;
+import com.jcabi.dynamo.Frame;
+import com.jcabi.dynamo.Item;
+import com.jcabi.dynamo.QueryValve;
+import com.jcabi.dynamo.Region;
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseRunnable;
+import com.jcabi.log.VerboseThreads;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Inverted full-text index of messages.
+ *
+ * <p>Every term of every message (see {@link Terms}) is a row in
+ * "postings" table, where hash is the term and range is a posting
+ * "bout:message", with message number padded by zeros, together with
+ * the number of occurrences of the term in the message. Search in a bout
+ * is a range query per term, search in an inbox is one query per term,
+ * whose postings are filtered by the bouts of the inbox in memory.
+ * Neither reads messages themselves.
+ *
+ * <p>Results are ranked by TF-IDF, where IDF is calculated over
+ * the postings of the query: rare terms weight more than frequent ones.
+ * All terms of the query must be present in a result.
+ *
+ * <p>Messages posted before the index was introduced are indexed lazily,
+ * bout by bout, in background, after the first search that touches
+ * the bout, including the ones already moved to the archive (see
+ * {@link Archive}); an indexed bout is marked by a row with
+ * {@link #MARKER} term.
+ * Until then, search finds only new messages of the bout.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ * @checkstyle MultipleStringLiteralsCheck (500 lines)
+ */
+@Immutable
+@ToString
+@EqualsAndHashCode(of = "region")
+@SuppressWarnings({ "PMD.ExcessiveImports", "PMD.DoNotUseThreads" })
+final class Index {
+
+    /**
+     * Table name.
+     */
+    public static final String TBL = "postings";
+
+    /**
+     * Term attribute.
+     */
+    public static final String HASH = "term";
+
+    /**
+     * Posting attribute, "bout:message".
+     */
+    public static final String RANGE = "posting";
+
+    /**
+     * Frequency of the term in the message.
+     */
+    public static final String ATTR_FREQ = "freq";
+
+    /**
+     * Term that marks bouts already indexed (it is never produced
+     * by {@link Terms}).
+     */
+    private static final String MARKER = "*";
+
+    /**
+     * Max items in one BatchWriteItem request.
+     */
+    private static final int CHUNK = 25;
+
+    /**
+     * Bouts known to be indexed.
+     */
+    private static final Set<Long> INDEXED = Collections.newSetFromMap(
+        new ConcurrentHashMap<Long, Boolean>(0)
+    );
+
+    /**
+     * Bouts being indexed right now.
+     */
+    private static final Set<Long> BUILDING = Collections.newSetFromMap(
+        new ConcurrentHashMap<Long, Boolean>(0)
+    );
+
+    /**
+     * Builder of the index of old messages.
+     */
+    private static final ExecutorService BUILDER =
+        Executors.newSingleThreadExecutor(new VerboseThreads(Index.class));
+
+    /**
+     * Region we're in.
+     */
+    private final transient Region region;
+
+    /**
+     * Ctor.
+     * @param reg Region
+     */
+    Index(final Region reg) {
+        this.region = reg;
+    }
+
+    /**
+     * Index a new message.
+     * @param bout Bout number
+     * @param number Message number
+     * @param text Text of the message
+     * @throws IOException If fails
+     */
+    public void add(final long bout, final long number, final String text)
+        throws IOException {
+        this.write(Index.postings(bout, number, text));
+    }
+
+    /**
+     * Make sure the entire history of the bout is in the index, eventually.
+     *
+     * <p>The method doesn't wait for the index to be built.
+     *
+     * @param bout Bout number
+     */
+    public void ensure(final long bout) {
+        if (!Index.INDEXED.contains(bout) && Index.BUILDING.add(bout)) {
+            Index.BUILDER.submit(
+                new VerboseRunnable(
+                    new Callable<Void>() {
+                        @Override
+                        public Void call() throws IOException {
+                            try {
+                                Index.this.build(bout);
+                            } finally {
+                                Index.BUILDING.remove(bout);
+                            }
+                            return null;
+                        }
+                    },
+                    true
+                )
+            );
+        }
+    }
+
+    /**
+     * Find messages in a bout, with numbers below the given one.
+     * @param bout Bout number
+     * @param query Search query
+     * @param before Upper bound of message numbers, exclusive
+     * @return Message numbers, the most relevant first
+     * @throws IOException If fails
+     */
+    public List<Long> messages(final long bout, final String query,
+        final long before) throws IOException {
+        final List<Map<Long, Integer>> lists = new LinkedList<>();
+        if (before > 0L) {
+            final Condition range = new Condition()
+                .withComparisonOperator(ComparisonOperator.BETWEEN)
+                .withAttributeValueList(
+                    new AttributeValue().withS(Index.posting(bout, 0L)),
+                    new AttributeValue().withS(Index.posting(bout, before - 1L))
+                );
+            for (final String term
+                : new Terms(query).frequencies().keySet()) {
+                final Map<Long, Integer> list = new HashMap<>(0);
+                for (final Item item : this.postings(term, range)) {
+                    list.put(
+                        Index.message(item),
+                        Integer.parseInt(item.get(Index.ATTR_FREQ).getN())
+                    );
+                }
+                lists.add(list);
+            }
+        }
+        return Index.rank(lists);
+    }
+
+    /**
+     * Find bouts.
+     *
+     * <p>Every term is queried once, for all bouts, and its postings
+     * are filtered by the scope in memory. The rest of the terms are
+     * not queried as soon as no bout of the scope has all terms seen
+     * so far, since all of them must be present.
+     *
+     * @param query Search query
+     * @param scope Bouts to search in
+     * @return Bout numbers, the most relevant first
+     * @throws IOException If fails
+     */
+    public List<Long> bouts(final String query, final Collection<Long> scope)
+        throws IOException {
+        final Set<Long> mine = new HashSet<>(scope);
+        final Set<Long> common = new HashSet<>(scope);
+        final List<Map<Long, Integer>> lists = new LinkedList<>();
+        for (final String term : new Terms(query).frequencies().keySet()) {
+            if (common.isEmpty()) {
+                break;
+            }
+            final Map<Long, Integer> list = new HashMap<>(0);
+            for (final Item item : this.postings(term)) {
+                final Long bout = Index.bout(item);
+                if (mine.contains(bout)) {
+                    final Integer before = list.get(bout);
+                    int freq = Integer.parseInt(
+                        item.get(Index.ATTR_FREQ).getN()
+                    );
+                    if (before != null) {
+                        freq += before;
+                    }
+                    list.put(bout, freq);
+                }
+            }
+            common.retainAll(list.keySet());
+            lists.add(list);
+        }
+        return Index.rank(lists);
+    }
+
+    /**
+     * Index the entire history of the bout, unless it is indexed already.
+     * @param bout Bout number
+     * @throws IOException If fails
+     */
+    private void build(final long bout) throws IOException {
+        final String marker = Long.toString(bout);
+        final boolean done = this.region.table(Index.TBL)
+            .frame()
+            .through(new QueryValve().withLimit(1))
+            .where(Index.HASH, Index.MARKER)
+            .where(Index.RANGE, marker)
+            .iterator().hasNext();
+        if (!done) {
+            final Collection<Map<String, AttributeValue>> rows =
+                new LinkedList<>();
+            final Set<Long> seen = new HashSet<>(0);
+            for (final Item item : this.region.table(DyMessages.TBL)
+                .frame()
+                .through(
+                    new QueryValve().withAttributesToGet(
+                        DyMessages.RANGE, DyMessages.ATTR_TEXT
+                    )
+                )
+                .where(DyMessages.HASH, Conditions.equalTo(bout))) {
+                final long number = Long.parseLong(
+                    item.get(DyMessages.RANGE).getN()
+                );
+                seen.add(number);
+                rows.addAll(
+                    Index.postings(
+                        bout, number, item.get(DyMessages.ATTR_TEXT).getS()
+                    )
+                );
+            }
+            for (final Attributes row
+                : new Archive(this.region, DyAttachment.storage())
+                    .messages(bout, Long.MAX_VALUE)) {
+                final long number = Long.parseLong(
+                    row.get(DyMessages.RANGE).getN()
+                );
+                if (seen.add(number)) {
+                    rows.addAll(
+                        Index.postings(
+                            bout, number, row.get(DyMessages.ATTR_TEXT).getS()
+                        )
+                    );
+                }
+            }
+            this.write(rows);
+            this.region.table(Index.TBL).put(
+                new Attributes()
+                    .with(Index.HASH, Index.MARKER)
+                    .with(Index.RANGE, marker)
+            );
+            Logger.info(
+                this, "bout #%d indexed: %d message(s), %d posting(s)",
+                bout, seen.size(), rows.size()
+            );
+        }
+        Index.INDEXED.add(bout);
+    }
+
+    /**
+     * Postings of the term.
+     * @param term The term
+     * @param range Condition for the range
+     * @return Items found
+     */
+    private Iterable<Item> postings(final String term, final Condition range) {
+        return this.postings(term).where(Index.RANGE, range);
+    }
+
+    /**
+     * All postings of the term.
+     * @param term The term
+     * @return Items found
+     */
+    private Frame postings(final String term) {
+        return this.region.table(Index.TBL)
+            .frame()
+            .through(
+                new QueryValve()
+                    .withLimit(Tv.THOUSAND)
+                    .withConsistentRead(false)
+                    .withAttributesToGet(Index.RANGE, Index.ATTR_FREQ)
+            )
+            .where(Index.HASH, term);
+    }
+
+    /**
+     * Save rows into the table, in batches.
+     * @param rows Rows to save
+     * @throws IOException If fails
+     */
+    private void write(final Collection<Map<String, AttributeValue>> rows)
+        throws IOException {
+        final String table = this.region.table(Index.TBL).name();
+        final AmazonDynamoDB aws = this.region.aws();
+        try {
+            for (final List<Map<String, AttributeValue>> chunk
+                : Lists.partition(new ArrayList<>(rows), Index.CHUNK)) {
+                final List<WriteRequest> requests =
+                    new ArrayList<>(chunk.size());
+                for (final Map<String, AttributeValue> row : chunk) {
+                    requests.add(
+                        new WriteRequest().withPutRequest(
+                            new PutRequest().withItem(row)
+                        )
+                    );
+                }
+                Map<String, List<WriteRequest>> left =
+                    Collections.singletonMap(table, requests);
+                int attempt = 0;
+                while (!left.isEmpty()) {
+                    if (attempt > Tv.FIVE) {
+                        throw new IOException(
+                            String.format(
+                                "failed to index %d posting(s) in %s",
+                                left.get(table).size(), table
+                            )
+                        );
+                    }
+                    BatchGet.backoff(attempt);
+                    left = aws.batchWriteItem(
+                        new BatchWriteItemRequest().withRequestItems(left)
+                    ).getUnprocessedItems();
+                    ++attempt;
+                }
+            }
+        } catch (final AmazonClientException ex) {
+            throw new IOException(ex);
+        } finally {
+            aws.shutdown();
+        }
+    }
+
+    /**
+     * Make postings of a message.
+     * @param bout Bout number
+     * @param number Message number
+     * @param text Text of the message
+     * @return Rows for the table
+     */
+    private static Collection<Map<String, AttributeValue>> postings(
+        final long bout, final long number, final String text) {
+        final Collection<Map<String, AttributeValue>> rows =
+            new LinkedList<>();
+        for (final Map.Entry<String, Integer> term
+            : new Terms(text).frequencies().entrySet()) {
+            rows.add(
+                new Attributes()
+                    .with(Index.HASH, term.getKey())
+                    .with(Index.RANGE, Index.posting(bout, number))
+                    .with(Index.ATTR_FREQ, term.getValue())
+            );
+        }
+        return rows;
+    }
+
+    /**
+     * Rank documents that are present in all lists of postings.
+     * @param lists Postings, document number and term frequency
+     * @return Document numbers, the most relevant first
+     */
+    private static List<Long> rank(final Collection<Map<Long, Integer>> lists) {
+        final Map<Long, Double> scores = new HashMap<>(0);
+        final Set<Long> all = new HashSet<>(0);
+        for (final Map<Long, Integer> list : lists) {
+            all.addAll(list.keySet());
+        }
+        final Set<Long> common = new HashSet<>(all);
+        for (final Map<Long, Integer> list : lists) {
+            common.retainAll(list.keySet());
+        }
+        if (!common.isEmpty()) {
+            for (final Map<Long, Integer> list : lists) {
+                final double idf = Math.log(
+                    1.0d + (double) all.size() / (double) list.size()
+                );
+                for (final Long doc : common) {
+                    final double score = idf * list.get(doc);
+                    final Double before = scores.get(doc);
+                    if (before == null) {
+                        scores.put(doc, score);
+                    } else {
+                        scores.put(doc, before + score);
+                    }
+                }
+            }
+        }
+        final List<Long> ranked = new ArrayList<>(scores.keySet());
+        Collections.sort(
+            ranked,
+            new Comparator<Long>() {
+                @Override
+                public int compare(final Long left, final Long right) {
+                    int cmp = Double.compare(
+                        scores.get(right), scores.get(left)
+                    );
+                    if (cmp == 0) {
+                        cmp = right.compareTo(left);
+                    }
+                    return cmp;
+                }
+            }
+        );
+        return ranked;
+    }
+
+    /**
+     * Make a posting.
+     * @param bout Bout number
+     * @param number Message number
+     * @return Posting, range key in the table
+     */
+    private static String posting(final long bout, final long number) {
+        return String.format("%d:%019d", bout, number);
+    }
+
+    /**
+     * Get bout number from posting.
+     * @param item Item with a posting
+     * @return Bout number
+     * @throws IOException If fails
+     */
+    private static Long bout(final Item item) throws IOException {
+        final String posting = item.get(Index.RANGE).getS();
+        return Long.parseLong(posting.substring(0, posting.indexOf(':')));
+    }
+
+    /**
+     * Get message number from posting.
+     * @param item Item with a posting
+     * @return Message number
+     * @throws IOException If fails
+     */
+    private static Long message(final Item item) throws IOException {
+        final String posting = item.get(Index.RANGE).getS();
+        return Long.parseLong(posting.substring(posting.indexOf(':') + 1));
+    }
+
+}
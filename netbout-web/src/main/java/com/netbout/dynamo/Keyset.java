@@ -0,0 +1,285 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Region;
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseThreads;
+import com.netbout.spi.Pageable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import lombok.ToString;
+import org.apache.commons.codec.binary.Base64;
+
+/**
+ * Keyset pagination of DynamoDB queries.
+ *
+ * <p>Every page is one Query call, which starts right after the
+ * LastEvaluatedKey of the previous page. The key travels between pages
+ * as an opaque cursor (see {@link Pageable.Page#cursor()}), so a page
+ * never re-reads what was shown before, no matter how deep it is.
+ *
+ * <p>With read-ahead enabled, the next page is fetched in background as
+ * soon as the current one is returned, and kept for a minute, until
+ * somebody asks for it with the same query and cursor.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+@ToString(of = "readahead")
+@SuppressWarnings("PMD.DoNotUseThreads")
+final class Keyset {
+
+    /**
+     * Separator of key attributes in a cursor.
+     */
+    private static final String SEP = ".";
+
+    /**
+     * Read-ahead enabled?
+     */
+    private final transient boolean readahead;
+
+    /**
+     * Pages being read ahead, by queries and cursors.
+     */
+    private final transient Cache<String, Future<Pageable.Page<Attributes>>>
+        ahead;
+
+    /**
+     * Readers of pages ahead.
+     */
+    private final transient ExecutorService readers;
+
+    /**
+     * Ctor.
+     * @param enabled Read next pages ahead?
+     */
+    Keyset(final boolean enabled) {
+        this.readahead = enabled;
+        this.ahead = CacheBuilder.newBuilder()
+            .expireAfterWrite(1L, TimeUnit.MINUTES)
+            .maximumSize((long) Tv.THOUSAND)
+            .build();
+        this.readers = Executors.newFixedThreadPool(
+            Tv.FOUR, new VerboseThreads(Keyset.class)
+        );
+    }
+
+    /**
+     * Read one page.
+     *
+     * <p>The query must be new, it is changed here and may be used again
+     * in background, to read the next page ahead.
+     *
+     * @param region Region we're in
+     * @param query Query with table name, conditions and limit
+     * @param cursor Cursor or {@link Pageable#FIRST}
+     * @return Page of rows, with a cursor to the next one
+     * @throws IOException If fails
+     */
+    public Pageable.Page<Attributes> page(final Region region,
+        final QueryRequest query, final String cursor) throws IOException {
+        final String base = query.withExclusiveStartKey(null).toString();
+        final Future<Pageable.Page<Attributes>> future =
+            this.ahead.asMap().remove(Keyset.key(base, cursor));
+        Pageable.Page<Attributes> page = null;
+        if (future != null) {
+            page = Keyset.done(future);
+        }
+        if (page == null) {
+            page = Keyset.fetch(
+                region, query.withExclusiveStartKey(Keyset.decode(cursor))
+            );
+        }
+        if (this.readahead && !page.last()) {
+            final String next = page.cursor();
+            query.setExclusiveStartKey(Keyset.decode(next));
+            this.ahead.put(
+                Keyset.key(base, next),
+                this.readers.submit(
+                    new Callable<Pageable.Page<Attributes>>() {
+                        @Override
+                        public Pageable.Page<Attributes> call()
+                            throws IOException {
+                            return Keyset.fetch(region, query);
+                        }
+                    }
+                )
+            );
+        }
+        return page;
+    }
+
+    /**
+     * Encode LastEvaluatedKey into a cursor.
+     * @param key The key, maybe NULL
+     * @return Cursor, empty if there is no key
+     */
+    public static String encode(final Map<String, AttributeValue> key) {
+        final Collection<String> parts = new ArrayList<>(0);
+        if (key != null) {
+            for (final Map.Entry<String, AttributeValue> ent
+                : new TreeMap<>(key).entrySet()) {
+                final AttributeValue value = ent.getValue();
+                final String text;
+                if (value.getN() == null) {
+                    text = String.format("%s:S:%s", ent.getKey(), value.getS());
+                } else {
+                    text = String.format("%s:N:%s", ent.getKey(), value.getN());
+                }
+                parts.add(
+                    Base64.encodeBase64URLSafeString(
+                        text.getBytes(StandardCharsets.UTF_8)
+                    )
+                );
+            }
+        }
+        return Joiner.on(Keyset.SEP).join(parts);
+    }
+
+    /**
+     * Decode cursor into ExclusiveStartKey.
+     * @param cursor The cursor
+     * @return Key or NULL if the cursor is empty
+     */
+    public static Map<String, AttributeValue> decode(final String cursor) {
+        Map<String, AttributeValue> key = null;
+        if (!cursor.isEmpty()) {
+            key = new HashMap<>(2);
+            for (final String part
+                : Splitter.on(Keyset.SEP).split(cursor)) {
+                final List<String> pair = Splitter.on(':').limit(Tv.THREE)
+                    .splitToList(
+                        new String(
+                            Base64.decodeBase64(part), StandardCharsets.UTF_8
+                        )
+                    );
+                if (pair.size() != Tv.THREE) {
+                    throw new IllegalArgumentException(
+                        String.format("invalid cursor \"%s\"", cursor)
+                    );
+                }
+                final AttributeValue value;
+                if ("N".equals(pair.get(1))) {
+                    value = new AttributeValue().withN(pair.get(2));
+                } else {
+                    value = new AttributeValue(pair.get(2));
+                }
+                key.put(pair.get(0), value);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Fetch one page.
+     * @param region Region we're in
+     * @param request Query request, with a start key
+     * @return Page of rows
+     * @throws IOException If fails
+     */
+    private static Pageable.Page<Attributes> fetch(final Region region,
+        final QueryRequest request) throws IOException {
+        final AmazonDynamoDB aws = region.aws();
+        try {
+            final QueryResult result = aws.query(request);
+            final Collection<Attributes> rows =
+                new ArrayList<>(result.getItems().size());
+            for (final Map<String, AttributeValue> item : result.getItems()) {
+                rows.add(new Attributes(item));
+            }
+            return new Pageable.Page<Attributes>(
+                rows, Keyset.encode(result.getLastEvaluatedKey())
+            );
+        } catch (final AmazonClientException ex) {
+            throw new IOException(ex);
+        } finally {
+            aws.shutdown();
+        }
+    }
+
+    /**
+     * Take the page read ahead.
+     * @param future The future
+     * @return Page or NULL if the read failed
+     * @throws IOException If interrupted
+     */
+    private static Pageable.Page<Attributes> done(
+        final Future<Pageable.Page<Attributes>> future) throws IOException {
+        Pageable.Page<Attributes> page = null;
+        try {
+            page = future.get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        } catch (final ExecutionException ex) {
+            Logger.warn(
+                Keyset.class, "page read ahead failed, reading again: %s",
+                ex.getCause()
+            );
+        }
+        return page;
+    }
+
+    /**
+     * Key of a page in the read-ahead cache.
+     * @param base Query without a start key
+     * @param cursor Cursor of the page
+     * @return Key
+     */
+    private static String key(final String base, final String cursor) {
+        return String.format("%s %s", base, cursor);
+    }
+
+}
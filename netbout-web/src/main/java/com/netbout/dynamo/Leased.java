@@ -0,0 +1,182 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import co.stateful.Counter;
+import com.jcabi.aspects.Tv;
+import com.jcabi.log.Logger;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.ToString;
+
+/**
+ * Counter that leases blocks of numbers from another counter.
+ *
+ * <p>A block is reserved with one increment of the origin by the size
+ * of the block (the "hi" part) and then its numbers are given out locally,
+ * without locks, from an {@link AtomicLong} (the "lo" part). Blocks never
+ * overlap, since the origin increments atomically, so numbers are unique
+ * across nodes; numbers of an unused rest of a block are lost on restart.
+ * Numbers are growing inside one node only: two nodes with different
+ * blocks give out numbers out of order. That's why it is good for
+ * bout numbers, but not for message numbers, which order messages
+ * (see {@link Sequence}).
+ *
+ * <p>The class is thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+@ToString(of = { "origin", "size" })
+final class Leased implements Counter {
+
+    /**
+     * Default size of a block.
+     */
+    public static final long BLOCK = (long) Tv.THOUSAND;
+
+    /**
+     * Origin counter.
+     */
+    private final transient Counter origin;
+
+    /**
+     * Size of a block.
+     */
+    private final transient long size;
+
+    /**
+     * Current block.
+     */
+    private final transient AtomicReference<Leased.Block> block;
+
+    /**
+     * Ctor.
+     * @param counter Origin counter
+     */
+    Leased(final Counter counter) {
+        this(counter, Leased.BLOCK);
+    }
+
+    /**
+     * Ctor.
+     * @param counter Origin counter
+     * @param total Size of a block
+     */
+    Leased(final Counter counter, final long total) {
+        this.origin = counter;
+        this.size = total;
+        this.block = new AtomicReference<>(new Leased.Block(0L, 0L));
+    }
+
+    @Override
+    public String name() {
+        return this.origin.name();
+    }
+
+    @Override
+    public void set(final long value) throws IOException {
+        synchronized (this.block) {
+            this.origin.set(value);
+            this.block.set(new Leased.Block(0L, 0L));
+        }
+    }
+
+    @Override
+    public long incrementAndGet(final long delta) throws IOException {
+        long value;
+        if (delta > this.size) {
+            value = this.origin.incrementAndGet(delta);
+        } else {
+            do {
+                final Leased.Block current = this.block.get();
+                value = current.take(delta);
+                if (value == 0L) {
+                    this.lease(current);
+                }
+            } while (value == 0L);
+        }
+        return value;
+    }
+
+    /**
+     * Lease a new block, unless somebody did it already.
+     * @param used The block that is used up
+     * @throws IOException If fails
+     */
+    private void lease(final Leased.Block used) throws IOException {
+        synchronized (this.block) {
+            if (this.block.get() == used) {
+                final long top = this.origin.incrementAndGet(this.size);
+                this.block.set(new Leased.Block(top - this.size, top));
+                Logger.info(
+                    this, "numbers %d..%d of \"%s\" leased",
+                    top - this.size + 1L, top, this.origin.name()
+                );
+            }
+        }
+    }
+
+    /**
+     * Block of numbers.
+     */
+    private static final class Block {
+        /**
+         * The last number given out.
+         */
+        private final transient AtomicLong last;
+        /**
+         * The biggest number in the block.
+         */
+        private final transient long top;
+        /**
+         * Ctor.
+         * @param start The number right before the block
+         * @param max The biggest number in the block
+         */
+        Block(final long start, final long max) {
+            this.last = new AtomicLong(start);
+            this.top = max;
+        }
+        /**
+         * Take next number.
+         * @param delta How much to add
+         * @return The number or zero if the block is used up
+         */
+        public long take(final long delta) {
+            final long next = this.last.addAndGet(delta);
+            long value = 0L;
+            if (next <= this.top) {
+                value = next;
+            }
+            return value;
+        }
+    }
+
+}
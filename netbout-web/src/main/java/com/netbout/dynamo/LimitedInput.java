@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.netbout.spi.Attachment;
+import java.io.IOException;
+import java.io.InputStream;
+import lombok.ToString;
+import org.apache.commons.io.input.CountingInputStream;
+
+/**
+ * Input stream that counts bytes and fails when there are too many.
+ *
+ * <p>The limit is enforced while the stream is being read, so the
+ * content never has to be kept in memory in order to check its size.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+@ToString(of = "max")
+final class LimitedInput extends CountingInputStream {
+
+    /**
+     * Maximum number of bytes allowed.
+     */
+    private final transient long max;
+
+    /**
+     * Ctor.
+     * @param stream Original stream
+     * @param limit Maximum number of bytes allowed
+     */
+    LimitedInput(final InputStream stream, final long limit) {
+        super(stream);
+        this.max = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int data = super.read();
+        this.check();
+        return data;
+    }
+
+    @Override
+    public int read(final byte[] buf) throws IOException {
+        final int len = super.read(buf);
+        this.check();
+        return len;
+    }
+
+    @Override
+    public int read(final byte[] buf, final int off, final int len)
+        throws IOException {
+        final int total = super.read(buf, off, len);
+        this.check();
+        return total;
+    }
+
+    /**
+     * Check the limit.
+     * @throws Attachment.TooBigException If it's exceeded
+     */
+    private void check() throws Attachment.TooBigException {
+        if (this.getByteCount() > this.max) {
+            throw new Attachment.TooBigException(
+                String.format(
+                    "attachment is too big, %d bytes is the maximum size",
+                    this.max
+                )
+            );
+        }
+    }
+
+}
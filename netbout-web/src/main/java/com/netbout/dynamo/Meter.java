@@ -0,0 +1,298 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.dynamodbv2.model.Capacity;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.jcabi.aspects.Tv;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import lombok.ToString;
+
+/**
+ * Meter of DynamoDB calls.
+ *
+ * <p>Every operation on every table (and index, for queries)
+ * gets a latency histogram, a counter of errors and a counter of items
+ * read or written. Consumed capacity units are counted per table and
+ * per index. Everything is printed in Prometheus text format, see
+ * {@link #print(StringBuilder)}.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+@ToString(of = "series")
+final class Meter {
+
+    /**
+     * Prefix of all metric names.
+     */
+    private static final String PREFIX = "netbout_dynamo_";
+
+    /**
+     * Upper bounds of latency buckets, in milliseconds.
+     */
+    private static final List<Long> BOUNDS = Arrays.asList(
+        1L, 2L, 5L, 10L, 25L, 50L, 100L, 250L, 500L, 1000L, 2500L, 5000L
+    );
+
+    /**
+     * Series of calls, by their labels.
+     */
+    private final transient ConcurrentMap<String, Meter.Series> series;
+
+    /**
+     * Capacity units consumed, in thousandths, by labels.
+     */
+    private final transient ConcurrentMap<String, AtomicLong> units;
+
+    /**
+     * Ctor.
+     */
+    Meter() {
+        this.series = new ConcurrentHashMap<>(0);
+        this.units = new ConcurrentHashMap<>(0);
+    }
+
+    /**
+     * Record one call.
+     * @param oper Operation, like "query"
+     * @param table Table name
+     * @param index Index name or empty
+     * @param nano Latency in nanoseconds
+     * @param items Items read or written, or negative if the call failed
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public void call(final String oper, final String table,
+        final String index, final long nano, final long items) {
+        final String labels = String.format(
+            "op=\"%s\",table=\"%s\",index=\"%s\"",
+            oper, Meter.escape(table), Meter.escape(index)
+        );
+        Meter.Series srs = this.series.get(labels);
+        if (srs == null) {
+            this.series.putIfAbsent(labels, new Meter.Series());
+            srs = this.series.get(labels);
+        }
+        srs.add(nano, items);
+    }
+
+    /**
+     * Record consumed capacity.
+     * @param capacity Consumed capacity, as reported by DynamoDB
+     */
+    public void consumed(final ConsumedCapacity capacity) {
+        final String table = capacity.getTableName();
+        if (capacity.getTable() == null) {
+            this.consumed(table, "", capacity.getCapacityUnits());
+        } else {
+            this.consumed(table, "", capacity.getTable().getCapacityUnits());
+        }
+        if (capacity.getGlobalSecondaryIndexes() != null) {
+            for (final Map.Entry<String, Capacity> ent
+                : capacity.getGlobalSecondaryIndexes().entrySet()) {
+                this.consumed(
+                    table, ent.getKey(), ent.getValue().getCapacityUnits()
+                );
+            }
+        }
+        if (capacity.getLocalSecondaryIndexes() != null) {
+            for (final Map.Entry<String, Capacity> ent
+                : capacity.getLocalSecondaryIndexes().entrySet()) {
+                this.consumed(
+                    table, ent.getKey(), ent.getValue().getCapacityUnits()
+                );
+            }
+        }
+    }
+
+    /**
+     * Print all metrics in Prometheus text format.
+     * @param out Where to print
+     */
+    public void print(final StringBuilder out) {
+        final String latency = String.format("%slatency_seconds", Meter.PREFIX);
+        out.append(String.format("# TYPE %s histogram\n", latency));
+        for (final Map.Entry<String, Meter.Series> ent
+            : this.series.entrySet()) {
+            ent.getValue().histogram(latency, ent.getKey(), out);
+        }
+        final String items = String.format("%sitems_total", Meter.PREFIX);
+        out.append(String.format("# TYPE %s counter\n", items));
+        for (final Map.Entry<String, Meter.Series> ent
+            : this.series.entrySet()) {
+            Meter.line(out, items, ent.getKey(), ent.getValue().items.get());
+        }
+        final String errors = String.format("%serrors_total", Meter.PREFIX);
+        out.append(String.format("# TYPE %s counter\n", errors));
+        for (final Map.Entry<String, Meter.Series> ent
+            : this.series.entrySet()) {
+            Meter.line(out, errors, ent.getKey(), ent.getValue().errors.get());
+        }
+        final String capacity = String.format(
+            "%sconsumed_capacity_units_total", Meter.PREFIX
+        );
+        out.append(String.format("# TYPE %s counter\n", capacity));
+        for (final Map.Entry<String, AtomicLong> ent
+            : this.units.entrySet()) {
+            Meter.line(
+                out, capacity, ent.getKey(),
+                (double) ent.getValue().get() / (double) Tv.THOUSAND
+            );
+        }
+    }
+
+    /**
+     * Record consumed capacity of a table or index.
+     * @param table Table name
+     * @param index Index name or empty
+     * @param total Capacity units or NULL
+     */
+    private void consumed(final String table, final String index,
+        final Double total) {
+        if (total != null) {
+            final String labels = String.format(
+                "table=\"%s\",index=\"%s\"",
+                Meter.escape(table), Meter.escape(index)
+            );
+            AtomicLong counter = this.units.get(labels);
+            if (counter == null) {
+                this.units.putIfAbsent(labels, new AtomicLong());
+                counter = this.units.get(labels);
+            }
+            counter.addAndGet(Math.round(total * (double) Tv.THOUSAND));
+        }
+    }
+
+    /**
+     * Print one line.
+     * @param out Where to print
+     * @param name Metric name
+     * @param labels Labels
+     * @param value Value
+     */
+    private static void line(final StringBuilder out, final String name,
+        final String labels, final Object value) {
+        out.append(name).append('{').append(labels).append("} ")
+            .append(value).append('\n');
+    }
+
+    /**
+     * Escape label value.
+     * @param value Value
+     * @return Escaped
+     */
+    private static String escape(final String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /**
+     * Series of calls with the same labels.
+     */
+    private static final class Series {
+        /**
+         * Calls in buckets, the last one is "+Inf".
+         */
+        private final transient AtomicLongArray buckets =
+            new AtomicLongArray(Meter.BOUNDS.size() + 1);
+        /**
+         * Total latency, in nanoseconds.
+         */
+        private final transient AtomicLong nanos = new AtomicLong();
+        /**
+         * Items read or written.
+         */
+        private final transient AtomicLong items = new AtomicLong();
+        /**
+         * Failed calls.
+         */
+        private final transient AtomicLong errors = new AtomicLong();
+        /**
+         * Add a call.
+         * @param nano Latency in nanoseconds
+         * @param total Items or negative if failed
+         */
+        public void add(final long nano, final long total) {
+            final long msec = TimeUnit.NANOSECONDS.toMillis(nano);
+            int bucket = 0;
+            while (bucket < Meter.BOUNDS.size()
+                && msec > Meter.BOUNDS.get(bucket)) {
+                ++bucket;
+            }
+            this.buckets.incrementAndGet(bucket);
+            this.nanos.addAndGet(nano);
+            if (total < 0L) {
+                this.errors.incrementAndGet();
+            } else {
+                this.items.addAndGet(total);
+            }
+        }
+        /**
+         * Print histogram lines.
+         * @param name Metric name
+         * @param labels Labels
+         * @param out Where to print
+         */
+        public void histogram(final String name, final String labels,
+            final StringBuilder out) {
+            final String bucket = String.format("%s_bucket", name);
+            long count = 0L;
+            for (int idx = 0; idx < Meter.BOUNDS.size(); ++idx) {
+                count += this.buckets.get(idx);
+                Meter.line(
+                    out, bucket,
+                    String.format(
+                        "%s,le=\"%s\"", labels,
+                        (double) Meter.BOUNDS.get(idx)
+                            / (double) Tv.THOUSAND
+                    ),
+                    count
+                );
+            }
+            count += this.buckets.get(Meter.BOUNDS.size());
+            Meter.line(
+                out, bucket, String.format("%s,le=\"+Inf\"", labels), count
+            );
+            Meter.line(
+                out, String.format("%s_sum", name), labels,
+                (double) this.nanos.get()
+                    / (double) TimeUnit.SECONDS.toNanos(1L)
+            );
+            Meter.line(out, String.format("%s_count", name), labels, count);
+        }
+    }
+
+}
@@ -0,0 +1,280 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemResult;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemResult;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.jcabi.dynamo.Credentials;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Credentials with a metered DynamoDB client.
+ *
+ * <p>Every call of the client that works with a table is timed and
+ * recorded in the {@link Meter}, together with the number of items it
+ * read or wrote and the capacity it consumed. Requests are asked to
+ * return consumed capacity with details for indexes.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+@ToString
+@EqualsAndHashCode(of = "origin")
+@SuppressWarnings("PMD.ExcessiveImports")
+final class Metered implements Credentials {
+
+    /**
+     * Original credentials.
+     */
+    private final transient Credentials origin;
+
+    /**
+     * Meter.
+     */
+    private final transient Meter meter;
+
+    /**
+     * Ctor.
+     * @param creds Original credentials
+     * @param mtr Meter
+     */
+    Metered(final Credentials creds, final Meter mtr) {
+        this.origin = creds;
+        this.meter = mtr;
+    }
+
+    @Override
+    public AmazonDynamoDB aws() {
+        final AmazonDynamoDB aws = this.origin.aws();
+        final Meter mtr = this.meter;
+        return AmazonDynamoDB.class.cast(
+            Proxy.newProxyInstance(
+                AmazonDynamoDB.class.getClassLoader(),
+                new Class<?>[] {AmazonDynamoDB.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(final Object proxy,
+                        final Method method, final Object[] args)
+                        throws Exception {
+                        return Metered.invoke(mtr, aws, method, args);
+                    }
+                }
+            )
+        );
+    }
+
+    /**
+     * Invoke the method of the client and record it.
+     * @param meter The meter
+     * @param aws The client
+     * @param method The method
+     * @param args Arguments
+     * @return Result
+     * @throws Exception If fails
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private static Object invoke(final Meter meter, final AmazonDynamoDB aws,
+        final Method method, final Object[] args) throws Exception {
+        final String table = Throttled.table(args);
+        Object req = null;
+        if (!table.isEmpty()) {
+            req = args[0];
+            Metered.ask(req);
+        }
+        final long start = System.nanoTime();
+        long items = -1L;
+        try {
+            final Object result = method.invoke(aws, args);
+            items = Metered.items(req, result);
+            for (final ConsumedCapacity capacity
+                : Metered.capacities(result)) {
+                meter.consumed(capacity);
+            }
+            return result;
+        } catch (final InvocationTargetException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (Exception) cause;
+        } finally {
+            if (!table.isEmpty()) {
+                meter.call(
+                    method.getName(), table, Metered.index(req),
+                    System.nanoTime() - start, items
+                );
+            }
+        }
+    }
+
+    /**
+     * Ask the request to return consumed capacity.
+     * @param req The request
+     */
+    private static void ask(final Object req) {
+        final ReturnConsumedCapacity rcc = ReturnConsumedCapacity.INDEXES;
+        if (req instanceof GetItemRequest) {
+            GetItemRequest.class.cast(req).setReturnConsumedCapacity(rcc);
+        } else if (req instanceof PutItemRequest) {
+            PutItemRequest.class.cast(req).setReturnConsumedCapacity(rcc);
+        } else if (req instanceof UpdateItemRequest) {
+            UpdateItemRequest.class.cast(req).setReturnConsumedCapacity(rcc);
+        } else if (req instanceof DeleteItemRequest) {
+            DeleteItemRequest.class.cast(req).setReturnConsumedCapacity(rcc);
+        } else if (req instanceof QueryRequest) {
+            QueryRequest.class.cast(req).setReturnConsumedCapacity(rcc);
+        } else if (req instanceof ScanRequest) {
+            ScanRequest.class.cast(req).setReturnConsumedCapacity(rcc);
+        } else if (req instanceof BatchGetItemRequest) {
+            BatchGetItemRequest.class.cast(req)
+                .setReturnConsumedCapacity(rcc);
+        } else if (req instanceof BatchWriteItemRequest) {
+            BatchWriteItemRequest.class.cast(req)
+                .setReturnConsumedCapacity(rcc);
+        }
+    }
+
+    /**
+     * Index the query works with.
+     * @param req The request
+     * @return Index name or empty
+     */
+    private static String index(final Object req) {
+        String index = null;
+        if (req instanceof QueryRequest) {
+            index = QueryRequest.class.cast(req).getIndexName();
+        }
+        if (index == null) {
+            index = "";
+        }
+        return index;
+    }
+
+    /**
+     * Items read or written by the call.
+     * @param req The request
+     * @param result The result
+     * @return Number of items
+     */
+    @SuppressWarnings("PMD.CyclomaticComplexity")
+    private static long items(final Object req, final Object result) {
+        long items = 0L;
+        if (result instanceof GetItemResult) {
+            if (GetItemResult.class.cast(result).getItem() != null) {
+                items = 1L;
+            }
+        } else if (result instanceof QueryResult) {
+            items = (long) QueryResult.class.cast(result).getCount();
+        } else if (result instanceof ScanResult) {
+            items = (long) ScanResult.class.cast(result).getCount();
+        } else if (result instanceof BatchGetItemResult) {
+            for (final List<Map<String, AttributeValue>> rows
+                : BatchGetItemResult.class.cast(result)
+                    .getResponses().values()) {
+                items += (long) rows.size();
+            }
+        } else if (result instanceof BatchWriteItemResult) {
+            for (final List<WriteRequest> rows
+                : BatchWriteItemRequest.class.cast(req)
+                    .getRequestItems().values()) {
+                items += (long) rows.size();
+            }
+        } else if (result instanceof PutItemResult
+            || result instanceof UpdateItemResult
+            || result instanceof DeleteItemResult) {
+            items = 1L;
+        }
+        return items;
+    }
+
+    /**
+     * Capacities consumed by the call.
+     * @param result The result
+     * @return Capacities
+     */
+    @SuppressWarnings("PMD.CyclomaticComplexity")
+    private static Collection<ConsumedCapacity> capacities(
+        final Object result) {
+        Collection<ConsumedCapacity> all = Collections.emptyList();
+        ConsumedCapacity one = null;
+        if (result instanceof GetItemResult) {
+            one = GetItemResult.class.cast(result).getConsumedCapacity();
+        } else if (result instanceof PutItemResult) {
+            one = PutItemResult.class.cast(result).getConsumedCapacity();
+        } else if (result instanceof UpdateItemResult) {
+            one = UpdateItemResult.class.cast(result).getConsumedCapacity();
+        } else if (result instanceof DeleteItemResult) {
+            one = DeleteItemResult.class.cast(result).getConsumedCapacity();
+        } else if (result instanceof QueryResult) {
+            one = QueryResult.class.cast(result).getConsumedCapacity();
+        } else if (result instanceof ScanResult) {
+            one = ScanResult.class.cast(result).getConsumedCapacity();
+        } else if (result instanceof BatchGetItemResult) {
+            all = BatchGetItemResult.class.cast(result).getConsumedCapacity();
+        } else if (result instanceof BatchWriteItemResult) {
+            all = BatchWriteItemResult.class.cast(result)
+                .getConsumedCapacity();
+        }
+        if (one != null) {
+            all = Collections.singletonList(one);
+        }
+        if (all == null) {
+            all = Collections.emptyList();
+        }
+        return all;
+    }
+
+}
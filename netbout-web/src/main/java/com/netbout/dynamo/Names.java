@@ -0,0 +1,244 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.Item;
+import com.jcabi.dynamo.Region;
+import com.jcabi.dynamo.ScanValve;
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseRunnable;
+import com.jcabi.log.VerboseThreads;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.ToString;
+
+/**
+ * Aliases known to this node.
+ *
+ * <p>A Bloom filter of all aliases, seeded by a scan of "aliases"
+ * table and re-seeded every few minutes, tells which aliases are
+ * definitely absent. A bounded LRU keeps aliases confirmed to exist.
+ * Aliases are never deleted, so a confirmed alias stays confirmed; but an
+ * alias added on another node is "absent" here until the next seeding.
+ *
+ * <p>Seeding runs in background and the new filter replaces the old
+ * one when ready, so nobody waits for the scan. Until the first filter
+ * is ready no alias is reported absent.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+@ToString(of = "seeded")
+@SuppressWarnings("PMD.DoNotUseThreads")
+final class Names {
+
+    /**
+     * How long the Bloom filter is valid, in milliseconds.
+     */
+    private static final long TTL = TimeUnit.MINUTES.toMillis(Tv.TEN);
+
+    /**
+     * False positive probability of the Bloom filter.
+     */
+    private static final double FPP = 0.01d;
+
+    /**
+     * Seeder of Bloom filters.
+     */
+    private static final ExecutorService SEEDER =
+        Executors.newSingleThreadExecutor(new VerboseThreads(Names.class));
+
+    /**
+     * Aliases confirmed to exist.
+     */
+    private final transient Cache<String, Boolean> hits;
+
+    /**
+     * Executor to seed in.
+     */
+    private final transient ExecutorService seeder;
+
+    /**
+     * Seeding is in progress.
+     */
+    private final transient AtomicBoolean seeding;
+
+    /**
+     * Lock for the Bloom filter.
+     */
+    private final transient Object lock;
+
+    /**
+     * Bloom filter of all aliases, or NULL if not seeded yet.
+     */
+    private transient BloomFilter<CharSequence> bloom;
+
+    /**
+     * When the Bloom filter was seeded.
+     */
+    private transient long seeded;
+
+    /**
+     * Ctor.
+     */
+    Names() {
+        this(Names.SEEDER);
+    }
+
+    /**
+     * Ctor.
+     * @param exec Executor to seed in
+     */
+    Names(final ExecutorService exec) {
+        this.hits = CacheBuilder.newBuilder()
+            .maximumSize((long) Tv.TEN * (long) Tv.THOUSAND)
+            .build();
+        this.seeder = exec;
+        this.seeding = new AtomicBoolean();
+        this.lock = new Object();
+    }
+
+    /**
+     * This alias is confirmed to exist.
+     * @param name The alias
+     * @return TRUE if it exists for sure
+     */
+    public boolean confirmed(final String name) {
+        return this.hits.getIfPresent(name) != null;
+    }
+
+    /**
+     * This alias is absent, as far as this node knows.
+     * @param region Region to seed from, if necessary
+     * @param name The alias
+     * @return TRUE if it is absent for sure, unless added elsewhere lately
+     */
+    public boolean absent(final Region region, final String name) {
+        final boolean stale;
+        synchronized (this.lock) {
+            stale = System.currentTimeMillis() - this.seeded > Names.TTL;
+        }
+        if (stale) {
+            this.reseed(region);
+        }
+        synchronized (this.lock) {
+            return this.bloom != null && !this.bloom.mightContain(name);
+        }
+    }
+
+    /**
+     * Remember alias, which exists for sure.
+     * @param name The alias
+     */
+    public void add(final String name) {
+        this.hits.put(name, true);
+        synchronized (this.lock) {
+            if (this.bloom != null) {
+                this.bloom.put(name);
+            }
+        }
+    }
+
+    /**
+     * Start seeding in background, unless it is already running.
+     * @param region Region
+     */
+    private void reseed(final Region region) {
+        if (this.seeding.compareAndSet(false, true)) {
+            this.seeder.submit(
+                new VerboseRunnable(
+                    new Callable<Void>() {
+                        @Override
+                        public Void call() throws IOException {
+                            try {
+                                Names.this.seed(region);
+                            } finally {
+                                Names.this.seeding.set(false);
+                            }
+                            return null;
+                        }
+                    },
+                    true
+                )
+            );
+        }
+    }
+
+    /**
+     * Seed the Bloom filter from "aliases" table.
+     *
+     * <p>Aliases confirmed while the table was being scanned may be
+     * missing in the scan, that's why all confirmed aliases are added
+     * to the new filter right before it replaces the old one.
+     *
+     * @param region Region
+     * @throws IOException If fails
+     */
+    private void seed(final Region region) throws IOException {
+        final long start = System.currentTimeMillis();
+        final Collection<String> names = new LinkedList<>();
+        for (final Item item : region.table(DyAliases.TBL).frame()
+            .through(new ScanValve().withAttributeToGet(DyAliases.HASH))) {
+            names.add(item.get(DyAliases.HASH).getS());
+        }
+        final BloomFilter<CharSequence> filter = BloomFilter.create(
+            Funnels.stringFunnel(Charsets.UTF_8),
+            Math.max(names.size() << 1, Tv.THOUSAND),
+            Names.FPP
+        );
+        for (final String name : names) {
+            filter.put(name);
+        }
+        synchronized (this.lock) {
+            for (final String name : this.hits.asMap().keySet()) {
+                filter.put(name);
+            }
+            this.bloom = filter;
+            this.seeded = start;
+        }
+        Logger.info(
+            this, "%d aliases seeded in %[ms]s",
+            names.size(), System.currentTimeMillis() - start
+        );
+    }
+
+}
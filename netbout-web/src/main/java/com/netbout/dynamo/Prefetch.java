@@ -0,0 +1,194 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Item;
+import com.jcabi.dynamo.QueryValve;
+import com.jcabi.dynamo.Region;
+import com.netbout.spi.Bout;
+import com.netbout.spi.Friend;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import lombok.ToString;
+
+/**
+ * Page of inbox, loaded with a few batch reads.
+ *
+ * <p>For a page of bouts it reads my rows in "friends" table with one
+ * BatchGetItem, lists members of every bout, and reads their rows in
+ * "aliases" table with one more BatchGetItem. Rows of aliases are kept in
+ * an identity map, so that no alias is read twice by the same object.
+ *
+ * <p>The class is not thread-safe, make one per request.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+@ToString(of = "self")
+final class Prefetch {
+
+    /**
+     * Region we're in.
+     */
+    private final transient Region region;
+
+    /**
+     * Alias of myself.
+     */
+    private final transient String self;
+
+    /**
+     * Rows of "aliases" table already read, or empty if absent there.
+     */
+    private final transient Map<String, Attributes> aliases;
+
+    /**
+     * Ctor.
+     * @param reg Region we're in
+     * @param slf My alias
+     */
+    Prefetch(final Region reg, final String slf) {
+        this.region = reg;
+        this.self = slf;
+        this.aliases = new HashMap<>(0);
+    }
+
+    /**
+     * Make bouts from my items in "friends" table, with everything
+     * inbox needs loaded.
+     * @param items Items, one per bout
+     * @return Bouts, in the same order
+     * @throws IOException If fails
+     */
+    public Collection<Bout> bouts(final Collection<Item> items)
+        throws IOException {
+        final Collection<Attributes> keys = new LinkedList<>();
+        final Map<Long, Collection<String>> members =
+            new HashMap<>(items.size());
+        final Collection<String> everybody = new HashSet<>(0);
+        for (final Item item : items) {
+            final long bout = Prefetch.number(item);
+            keys.add(
+                new Attributes()
+                    .with(DyFriends.HASH, item.get(DyFriends.HASH))
+                    .with(DyFriends.RANGE, this.self)
+            );
+            final Collection<String> names = this.members(bout);
+            members.put(bout, names);
+            everybody.addAll(names);
+        }
+        final Map<Long, Attributes> rows = new HashMap<>(items.size());
+        for (final Attributes row
+            : new BatchGet(this.region, DyFriends.TBL).read(keys)) {
+            rows.put(Shards.bout(row.get(DyFriends.HASH)), row);
+        }
+        this.load(everybody);
+        final Collection<Bout> bouts = new ArrayList<>(items.size());
+        for (final Item item : items) {
+            final long bout = Prefetch.number(item);
+            final Collection<Friend> friends = new LinkedList<>();
+            for (final String alias : members.get(bout)) {
+                friends.add(
+                    new DyFriend(this.region, alias, this.aliases.get(alias))
+                );
+            }
+            final Attributes row = rows.get(bout);
+            final Snapshot snapshot;
+            if (row == null) {
+                snapshot = Snapshot.read(this.region, bout, this.self);
+            } else {
+                snapshot = new Snapshot(row);
+            }
+            bouts.add(
+                new Bout.ReadOnly(
+                    new DyBout(this.region, item, this.self, snapshot, friends)
+                )
+            );
+        }
+        return bouts;
+    }
+
+    /**
+     * Read rows of aliases, which are not in the identity map yet.
+     * @param names Aliases
+     * @throws IOException If fails
+     */
+    private void load(final Collection<String> names) throws IOException {
+        final Collection<Attributes> keys = new LinkedList<>();
+        for (final String name : names) {
+            if (!this.aliases.containsKey(name)) {
+                keys.add(new Attributes().with(DyAliases.HASH, name));
+                this.aliases.put(name, new Attributes());
+            }
+        }
+        for (final Attributes row : new BatchGet(this.region, DyAliases.TBL)
+            .read(keys, DyAliases.ATTR_PHOTO, DyAliases.ATTR_EMAIL)) {
+            this.aliases.put(row.get(DyAliases.HASH).getS(), row);
+        }
+    }
+
+    /**
+     * Aliases of all members of the bout.
+     * @param bout Bout number
+     * @return Aliases
+     * @throws IOException If fails
+     */
+    private Collection<String> members(final long bout) throws IOException {
+        final Collection<String> names = new LinkedList<>();
+        for (final Item item : new Shards(this.region).rows(
+            bout,
+            new QueryValve()
+                .withAttributesToGet(DyFriends.RANGE)
+                .withConsistentRead(
+                    new Consistency(this.self).strong(
+                        Consistency.FRIENDS, bout
+                    )
+                )
+        )) {
+            names.add(item.get(DyFriends.RANGE).getS());
+        }
+        return names;
+    }
+
+    /**
+     * Bout number of the item.
+     * @param item Item in "friends" table
+     * @return Bout number
+     * @throws IOException If fails
+     */
+    private static long number(final Item item) throws IOException {
+        return Shards.bout(item.get(DyFriends.HASH));
+    }
+
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Frame;
+import com.jcabi.dynamo.Item;
+import com.jcabi.dynamo.QueryValve;
+import com.jcabi.dynamo.Region;
+import com.jcabi.immutable.Array;
+import java.io.IOException;
+import java.util.Map;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Row of a table, loaded by a query of our own (see {@link Keyset}).
+ *
+ * <p>Attributes loaded are served from memory. Anything else, a missing
+ * attribute or a write, goes to the table, through the item found by
+ * the keys of the row.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+@Immutable
+@ToString(of = { "table", "attrs" })
+@EqualsAndHashCode(of = { "table", "attrs" })
+final class Row implements Item {
+
+    /**
+     * Region we're in.
+     */
+    private final transient Region region;
+
+    /**
+     * Table name, not prefixed.
+     */
+    private final transient String table;
+
+    /**
+     * Attributes loaded.
+     */
+    private final transient Attributes attrs;
+
+    /**
+     * Names of key attributes.
+     */
+    private final transient Array<String> keys;
+
+    /**
+     * Ctor.
+     * @param reg Region
+     * @param tbl Table name
+     * @param row Attributes loaded, including all keys
+     * @param names Names of key attributes
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    Row(final Region reg, final String tbl, final Attributes row,
+        final String... names) {
+        this.region = reg;
+        this.table = tbl;
+        this.attrs = row;
+        this.keys = new Array<String>(names);
+    }
+
+    @Override
+    public AttributeValue get(final String name) throws IOException {
+        final AttributeValue value;
+        if (this.attrs.containsKey(name)) {
+            value = this.attrs.get(name);
+        } else {
+            value = this.item().get(name);
+        }
+        return value;
+    }
+
+    @Override
+    public boolean has(final String name) throws IOException {
+        return this.attrs.containsKey(name) || this.item().has(name);
+    }
+
+    @Override
+    public Map<String, AttributeValue> put(final String name,
+        final AttributeValueUpdate value) throws IOException {
+        return this.item().put(name, value);
+    }
+
+    @Override
+    public Map<String, AttributeValue> put(
+        final Map<String, AttributeValueUpdate> updates) throws IOException {
+        return this.item().put(updates);
+    }
+
+    @Override
+    public Frame frame() {
+        return this.region.table(this.table).frame();
+    }
+
+    /**
+     * The item in the table.
+     * @return Item
+     */
+    private Item item() {
+        Frame frame = this.frame();
+        for (final String key : this.keys) {
+            frame = frame.where(
+                key,
+                new Condition()
+                    .withComparisonOperator(ComparisonOperator.EQ)
+                    .withAttributeValueList(this.attrs.get(key))
+            );
+        }
+        return frame.through(new QueryValve().withLimit(1)).iterator().next();
+    }
+
+}
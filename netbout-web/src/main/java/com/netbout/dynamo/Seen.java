@@ -0,0 +1,415 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeAction;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.google.common.collect.Lists;
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.AttributeUpdates;
+import com.jcabi.dynamo.Region;
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseRunnable;
+import com.jcabi.log.VerboseThreads;
+import com.netbout.misc.Bus;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.ToString;
+
+/**
+ * Write-behind acknowledgements of seen messages and attachments.
+ *
+ * <p>Every view of a bout acknowledges that its messages are seen and
+ * every download of an attachment acknowledges the attachment. Instead
+ * of writing right away, acknowledgements are queued per bout and alias,
+ * repeated ones are collapsed, and the queue is flushed every few hundred
+ * milliseconds and on JVM shutdown, in chunks of {@link #CHUNK} writes
+ * executed by a bounded pool of writers. One flushed acknowledgement
+ * resets "unread" counter (see {@link Unread}) and removes all seen
+ * attachments from "unseen" set of the row, with one atomic DELETE.
+ * Callers are expected not to acknowledge what is seen already, judging
+ * by their {@link Snapshot} of the row.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ */
+@ToString(of = { "window", "saved" })
+@SuppressWarnings({ "PMD.DoNotUseThreads", "PMD.ExcessiveImports" })
+final class Seen {
+
+    /**
+     * Maximum number of acknowledgements in one chunk of writes.
+     */
+    public static final int CHUNK = 25;
+
+    /**
+     * Batches of this JVM, shared by messages and attachments, in order
+     * to coalesce acknowledgements of seen messages and attachments of a bout
+     * into the same writes.
+     */
+    static final Seen SHARED = new Seen();
+
+    /**
+     * Flushing interval, in milliseconds.
+     */
+    private final transient long window;
+
+    /**
+     * Pending acknowledgements, by bout and alias.
+     */
+    private final transient ConcurrentMap<String, Seen.Ack> pending;
+
+    /**
+     * Writers.
+     */
+    private final transient ExecutorService writers;
+
+    /**
+     * How many writes were collapsed so far.
+     */
+    private final transient AtomicLong saved;
+
+    /**
+     * Ctor.
+     */
+    Seen() {
+        this((long) Tv.FIVE * Tv.HUNDRED, 2);
+    }
+
+    /**
+     * Ctor.
+     * @param msec Flushing interval in milliseconds
+     * @param threads How many writers to run in parallel
+     */
+    Seen(final long msec, final int threads) {
+        this.window = msec;
+        this.pending = new ConcurrentHashMap<String, Seen.Ack>(0);
+        this.writers = Executors.newFixedThreadPool(
+            threads, new VerboseThreads(Seen.class)
+        );
+        this.saved = new AtomicLong();
+        final ScheduledExecutorService timer =
+            Executors.newSingleThreadScheduledExecutor(
+                new VerboseThreads(Seen.class)
+            );
+        timer.scheduleWithFixedDelay(
+            new VerboseRunnable(
+                new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        Seen.this.drain();
+                        return null;
+                    }
+                },
+                true
+            ),
+            msec, msec, TimeUnit.MILLISECONDS
+        );
+        Runtime.getRuntime().addShutdownHook(
+            new Thread(
+                new VerboseRunnable(
+                    new Callable<Void>() {
+                        @Override
+                        public Void call() throws IOException {
+                            timer.shutdown();
+                            Seen.this.flush();
+                            return null;
+                        }
+                    },
+                    true
+                )
+            )
+        );
+    }
+
+    /**
+     * All messages of the bout were seen.
+     * @param region Region we're in
+     * @param bout Bout number
+     * @param alias Alias who has seen them
+     */
+    public void messages(final Region region, final long bout,
+        final String alias) {
+        boolean added;
+        do {
+            added = this.ack(region, bout, alias).messages();
+        } while (!added);
+    }
+
+    /**
+     * Attachment of the bout was seen.
+     * @param region Region we're in
+     * @param bout Bout number
+     * @param alias Alias who has seen it
+     * @param name Name of the attachment
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    public void attachment(final Region region, final long bout,
+        final String alias, final String name) {
+        boolean added;
+        do {
+            added = this.ack(region, bout, alias).attachment(name);
+        } while (!added);
+    }
+
+    /**
+     * Flush all pending acknowledgements right now and wait for writes.
+     * @throws IOException If fails
+     */
+    public void flush() throws IOException {
+        for (final Future<?> future : this.drain()) {
+            try {
+                future.get();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException(ex);
+            } catch (final ExecutionException ex) {
+                throw new IOException(ex);
+            }
+        }
+    }
+
+    /**
+     * How many writes were collapsed since start.
+     * @return Total number of writes saved
+     */
+    public long collapsed() {
+        return this.saved.get();
+    }
+
+    /**
+     * Pending acknowledgement of the bout and alias.
+     * @param region Region we're in
+     * @param bout Bout number
+     * @param alias Alias
+     * @return Acknowledgement, maybe closed already
+     */
+    private Seen.Ack ack(final Region region, final long bout,
+        final String alias) {
+        final String key = String.format("%d %s", bout, alias);
+        Seen.Ack ack = this.pending.get(key);
+        if (ack == null) {
+            final Seen.Ack fresh = new Seen.Ack(region, bout, alias);
+            ack = this.pending.putIfAbsent(key, fresh);
+            if (ack == null) {
+                ack = fresh;
+            }
+        }
+        return ack;
+    }
+
+    /**
+     * Take all pending acknowledgements and submit their writes.
+     * @return Futures of the submitted chunks
+     */
+    private Collection<Future<?>> drain() {
+        final List<Seen.Ack> acks = new ArrayList<Seen.Ack>(Tv.TEN);
+        for (final String key : this.pending.keySet()) {
+            final Seen.Ack ack = this.pending.remove(key);
+            if (ack != null) {
+                ack.close();
+                acks.add(ack);
+            }
+        }
+        final Collection<Future<?>> futures = new LinkedList<Future<?>>();
+        long events = 0L;
+        for (final List<Seen.Ack> chunk : Lists.partition(acks, Seen.CHUNK)) {
+            for (final Seen.Ack ack : chunk) {
+                events += ack.events();
+            }
+            futures.add(
+                this.writers.submit(
+                    new VerboseRunnable(
+                        new Callable<Void>() {
+                            @Override
+                            public Void call() throws IOException {
+                                for (final Seen.Ack ack : chunk) {
+                                    ack.write();
+                                }
+                                return null;
+                            }
+                        },
+                        true
+                    )
+                )
+            );
+        }
+        if (!acks.isEmpty()) {
+            final long collapsed = events - (long) acks.size();
+            this.saved.addAndGet(collapsed);
+            Logger.info(
+                this, "%d acknowledgement(s) flushed, %d collapsed",
+                acks.size(), collapsed
+            );
+        }
+        return futures;
+    }
+
+    /**
+     * Acknowledgements accumulated for one bout and alias.
+     */
+    @ToString(of = { "bout", "alias" })
+    private static final class Ack {
+        /**
+         * Region we're in.
+         */
+        private final transient Region region;
+        /**
+         * Bout number.
+         */
+        private final transient long bout;
+        /**
+         * Alias.
+         */
+        private final transient String alias;
+        /**
+         * Names of attachments seen.
+         */
+        private final transient Collection<String> names;
+        /**
+         * Messages are seen.
+         */
+        private transient boolean all;
+        /**
+         * How many acknowledgements were added.
+         */
+        private transient long total;
+        /**
+         * Is it closed already?
+         */
+        private transient boolean closed;
+        /**
+         * Ctor.
+         * @param reg Region
+         * @param num Bout number
+         * @param name Alias
+         */
+        Ack(final Region reg, final long num, final String name) {
+            this.region = reg;
+            this.bout = num;
+            this.alias = name;
+            this.names = new HashSet<String>(0);
+        }
+        /**
+         * Messages are seen.
+         * @return FALSE if it is closed already
+         */
+        public boolean messages() {
+            synchronized (this.names) {
+                final boolean added = !this.closed;
+                if (added) {
+                    this.all = true;
+                    ++this.total;
+                }
+                return added;
+            }
+        }
+        /**
+         * Attachment is seen.
+         * @param name Name of it
+         * @return FALSE if it is closed already
+         */
+        public boolean attachment(final String name) {
+            synchronized (this.names) {
+                final boolean added = !this.closed;
+                if (added) {
+                    this.names.add(name);
+                    ++this.total;
+                }
+                return added;
+            }
+        }
+        /**
+         * Close it, no more acknowledgements.
+         */
+        public void close() {
+            synchronized (this.names) {
+                this.closed = true;
+            }
+        }
+        /**
+         * How many acknowledgements were added.
+         * @return Total
+         */
+        public long events() {
+            synchronized (this.names) {
+                return this.total;
+            }
+        }
+        /**
+         * Write it, when it is closed.
+         * @throws IOException If fails
+         */
+        public void write() throws IOException {
+            if (this.all) {
+                new Unread(this.region).reset(this.bout, this.alias);
+            }
+            if (!this.names.isEmpty()) {
+                this.forget();
+            }
+            Bus.SHARED.publish(
+                Bus.SEEN, Bus.row(this.bout, this.alias),
+                Bus.inbox(this.alias)
+            );
+        }
+        /**
+         * Remove seen attachments from "unseen" set of the row.
+         * @throws IOException If fails
+         */
+        private void forget() throws IOException {
+            new Shards(this.region).update(
+                this.bout, this.alias,
+                new AttributeUpdates().with(
+                    DyFriends.ATTR_UNSEEN,
+                    new AttributeValueUpdate()
+                        .withAction(AttributeAction.DELETE)
+                        .withValue(new AttributeValue().withSS(this.names))
+                )
+            );
+        }
+    }
+
+}
@@ -0,0 +1,206 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.jcabi.aspects.Immutable;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.s3.Bucket;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Segment of archived messages of one bout, stored as one S3 object.
+ *
+ * <p>The object is a GZIP-compressed sequence of messages, in the order
+ * they were written. Segments are never changed once written. Since
+ * the second version of the format, every message carries its rendered
+ * HTML too, empty if it was never rendered; segments of the first
+ * version are still readable.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+@Immutable
+@ToString(of = "key")
+@EqualsAndHashCode(of = { "bucket", "key" })
+final class Segment {
+
+    /**
+     * Version of the format.
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * Version of the format without rendered HTML.
+     */
+    private static final int PLAIN = 1;
+
+    /**
+     * Bucket.
+     */
+    private final transient Bucket bucket;
+
+    /**
+     * Object key.
+     */
+    private final transient String key;
+
+    /**
+     * Ctor.
+     * @param bkt Bucket
+     * @param name Object key
+     */
+    Segment(final Bucket bkt, final String name) {
+        this.bucket = bkt;
+        this.key = name;
+    }
+
+    /**
+     * Write messages, rows of "messages" table.
+     * @param rows Rows, with all attributes
+     * @throws IOException If fails
+     */
+    public void write(final Collection<Attributes> rows) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final DataOutputStream data = new DataOutputStream(
+            new GZIPOutputStream(baos)
+        );
+        try {
+            data.writeInt(Segment.VERSION);
+            data.writeInt(rows.size());
+            for (final Attributes row : rows) {
+                data.writeLong(Segment.number(row, DyMessages.HASH));
+                data.writeLong(Segment.number(row, DyMessages.RANGE));
+                data.writeLong(Segment.number(row, DyMessages.ATTR_DATE));
+                Segment.text(data, row.get(DyMessages.ATTR_ALIAS).getS());
+                Segment.text(data, row.get(DyMessages.ATTR_TEXT).getS());
+                String html = "";
+                if (row.containsKey(DyMessages.ATTR_HTML)) {
+                    html = row.get(DyMessages.ATTR_HTML).getS();
+                }
+                Segment.text(data, html);
+            }
+        } finally {
+            data.close();
+        }
+        new Upload(this.bucket, this.key).write(
+            new ByteArrayInputStream(baos.toByteArray()), "application/gzip"
+        );
+    }
+
+    /**
+     * Read messages, as rows of "messages" table.
+     * @return Rows, in the order they were written
+     * @throws IOException If fails
+     */
+    public List<Attributes> read() throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        this.bucket.ocket(this.key).read(baos);
+        final DataInputStream data = new DataInputStream(
+            new GZIPInputStream(new ByteArrayInputStream(baos.toByteArray()))
+        );
+        try {
+            final int version = data.readInt();
+            if (version != Segment.VERSION && version != Segment.PLAIN) {
+                throw new IOException(
+                    String.format(
+                        "unknown version %d of segment %s", version, this.key
+                    )
+                );
+            }
+            final int total = data.readInt();
+            final List<Attributes> rows = new ArrayList<>(total);
+            for (int idx = 0; idx < total; ++idx) {
+                Attributes row = new Attributes()
+                    .with(DyMessages.HASH, data.readLong())
+                    .with(DyMessages.RANGE, data.readLong())
+                    .with(DyMessages.ATTR_DATE, data.readLong())
+                    .with(DyMessages.ATTR_ALIAS, Segment.text(data))
+                    .with(DyMessages.ATTR_TEXT, Segment.text(data));
+                if (version == Segment.VERSION) {
+                    final String html = Segment.text(data);
+                    if (!html.isEmpty()) {
+                        row = row.with(DyMessages.ATTR_HTML, html);
+                    }
+                }
+                rows.add(row);
+            }
+            return rows;
+        } finally {
+            data.close();
+        }
+    }
+
+    /**
+     * Numeric attribute of the row.
+     * @param row The row
+     * @param attr Attribute name
+     * @return Number
+     */
+    private static long number(final Attributes row, final String attr) {
+        return Long.parseLong(row.get(attr).getN());
+    }
+
+    /**
+     * Write text, of any length.
+     * @param data Where to write
+     * @param text Text
+     * @throws IOException If fails
+     */
+    private static void text(final DataOutputStream data, final String text)
+        throws IOException {
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+
+    /**
+     * Read text.
+     * @param data Where to read from
+     * @return Text
+     * @throws IOException If fails
+     */
+    private static String text(final DataInputStream data)
+        throws IOException {
+        final byte[] bytes = new byte[data.readInt()];
+        data.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import co.stateful.Counter;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.dynamo.Conditions;
+import com.jcabi.dynamo.Item;
+import com.jcabi.dynamo.QueryValve;
+import com.jcabi.dynamo.Region;
+import com.jcabi.log.Logger;
+import java.io.IOException;
+import java.util.Iterator;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Numbers of messages of one bout.
+ *
+ * <p>Messages of a bout are ordered by their numbers, that's why numbers
+ * must grow in the order of posting, no matter which node posts.
+ * Every bout has its own counter in "counters" table, incremented with
+ * a conditional ADD (see {@link DyCounter}), one per message. A bout
+ * started before per-bout counters were introduced doesn't have one:
+ * it is created, conditionally, with the biggest number the bout
+ * has already, in "messages" or in the archive (see {@link Archive}).
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+@Immutable
+@ToString(of = "bout")
+@EqualsAndHashCode(of = { "region", "bout" })
+final class Sequence implements Counter {
+
+    /**
+     * Region we're in.
+     */
+    private final transient Region region;
+
+    /**
+     * Bout number.
+     */
+    private final transient long bout;
+
+    /**
+     * Ctor.
+     * @param reg Region
+     * @param num Bout number
+     */
+    Sequence(final Region reg, final long num) {
+        this.region = reg;
+        this.bout = num;
+    }
+
+    @Override
+    public String name() {
+        return String.format("nb-message-%d", this.bout);
+    }
+
+    @Override
+    public void set(final long value) throws IOException {
+        new DyCounter(this.region, this.name()).set(value);
+    }
+
+    @Override
+    public long incrementAndGet(final long delta) throws IOException {
+        final DyCounter counter = new DyCounter(this.region, this.name());
+        long value = counter.add(delta);
+        if (value == DyCounter.ABSENT) {
+            final long top = this.top();
+            counter.create(top);
+            Logger.info(
+                this, "counter of bout #%d created, starting after #%d",
+                this.bout, top
+            );
+            value = counter.add(delta);
+        }
+        return value;
+    }
+
+    /**
+     * The biggest message number of the bout so far.
+     * @return Message number or zero if there are no messages
+     * @throws IOException If fails
+     */
+    private long top() throws IOException {
+        return Math.max(
+            this.last(DyMessages.TBL, DyMessages.HASH, DyMessages.RANGE),
+            this.last(Archive.TBL, Archive.HASH, Archive.RANGE)
+        );
+    }
+
+    /**
+     * The biggest range key of the bout in the table.
+     * @param table Table name
+     * @param hash Hash attribute
+     * @param range Range attribute, a number
+     * @return The biggest range or zero if there are no rows
+     * @throws IOException If fails
+     */
+    private long last(final String table, final String hash,
+        final String range) throws IOException {
+        final Iterator<Item> items = this.region.table(table)
+            .frame()
+            .through(
+                new QueryValve()
+                    .withLimit(1)
+                    .withConsistentRead(true)
+                    .withScanIndexForward(false)
+                    .withAttributesToGet(range)
+            )
+            .where(hash, Conditions.equalTo(this.bout))
+            .iterator();
+        long last = 0L;
+        if (items.hasNext()) {
+            last = Long.parseLong(items.next().get(range).getN());
+        }
+        return last;
+    }
+
+}
@@ -0,0 +1,588 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.ReturnValue;
+import com.amazonaws.services.dynamodbv2.model.Select;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Conditions;
+import com.jcabi.dynamo.Item;
+import com.jcabi.dynamo.QueryValve;
+import com.jcabi.dynamo.Region;
+import com.jcabi.dynamo.Table;
+import com.jcabi.log.Logger;
+import com.jcabi.log.VerboseThreads;
+import com.netbout.misc.Bus;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import lombok.ToString;
+
+/**
+ * Write shards of hot bouts in "friends" table.
+ *
+ * <p>All rows of a bout share one hash key, so a bout with many
+ * participants turns every post into a burst of writes to one partition.
+ * When a bout grows above {@link #THRESHOLD} participants, its rows are
+ * moved to {@link #COUNT} shards: the hash key of a row becomes
+ * a negative number, made of the bout number and a shard of the alias
+ * (see {@link #key(long, String)}). The hash key of the bout itself keeps
+ * only a marker row, with {@link #MARKER} instead of an alias. The
+ * marker has no "updated" attribute, so it never shows up in the inbox
+ * index.
+ *
+ * <p>Rows of a sharded bout are read from all shards at once and merged
+ * ({@link #rows(long, QueryValve)}), while a row of one alias is still
+ * read and written by its key ({@link #hash(long, String)}). Bout
+ * numbers must be decoded from hash keys with {@link #bout(AttributeValue)}.
+ *
+ * <p>Bouts known to be sharded are cached forever, since they never get
+ * back; bouts known to be plain are cached for a minute. A split is
+ * published on the {@link Bus} as {@link Bus#SHARDED}, which makes every
+ * node forget its plain bouts. The bus may lose the event, that's why
+ * writes to existing rows go through
+ * {@link #update(long, String, Map)}, which never creates a row and
+ * checks the bout again when the row is not found by its key.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+@Immutable
+@ToString(of = "threshold")
+@SuppressWarnings("PMD.DoNotUseThreads")
+final class Shards {
+
+    /**
+     * How many shards a hot bout has.
+     */
+    public static final int COUNT = Tv.EIGHT;
+
+    /**
+     * Participants in a bout to shard it.
+     */
+    public static final int THRESHOLD = Tv.HUNDRED;
+
+    /**
+     * Alias of the marker row.
+     */
+    public static final String MARKER = "~";
+
+    /**
+     * Bouts known to be sharded.
+     */
+    private static final Cache<Long, Boolean> SHARDED = CacheBuilder
+        .newBuilder()
+        .maximumSize((long) Tv.HUNDRED * (long) Tv.THOUSAND)
+        .build();
+
+    /**
+     * Bouts known to be plain, recently.
+     */
+    private static final Cache<Long, Boolean> PLAIN = CacheBuilder
+        .newBuilder()
+        .expireAfterWrite(1L, TimeUnit.MINUTES)
+        .maximumSize((long) Tv.HUNDRED * (long) Tv.THOUSAND)
+        .build();
+
+    static {
+        Bus.SHARED.subscribe(
+            new Bus.Listener() {
+                @Override
+                public void on(final String event,
+                    final Collection<String> tags) {
+                    if (Bus.SHARDED.equals(event) || Bus.LOST.equals(event)) {
+                        Shards.PLAIN.invalidateAll();
+                    }
+                }
+            }
+        );
+    }
+
+    /**
+     * Readers of shards.
+     */
+    private static final ExecutorService READERS = Executors.newFixedThreadPool(
+        Shards.COUNT, new VerboseThreads(Shards.class)
+    );
+
+    /**
+     * Region we're in.
+     */
+    private final transient Region region;
+
+    /**
+     * Participants in a bout to shard it.
+     */
+    private final transient int threshold;
+
+    /**
+     * Ctor.
+     * @param reg Region
+     */
+    Shards(final Region reg) {
+        this(reg, Shards.THRESHOLD);
+    }
+
+    /**
+     * Ctor.
+     * @param reg Region
+     * @param max Participants in a bout to shard it
+     */
+    Shards(final Region reg, final int max) {
+        this.region = reg;
+        this.threshold = max;
+    }
+
+    /**
+     * Hash key of the row of this alias in the bout.
+     * @param bout Bout number
+     * @param alias Alias
+     * @return Hash key
+     * @throws IOException If fails
+     */
+    public long hash(final long bout, final String alias) throws IOException {
+        long hash = bout;
+        if (this.sharded(bout)) {
+            hash = Shards.key(bout, alias);
+        }
+        return hash;
+    }
+
+    /**
+     * All rows of the bout, from all its shards, in no particular order.
+     *
+     * <p>The valve must fetch the "alias" attribute, if it fetches
+     * any specific attributes.
+     *
+     * @param bout Bout number
+     * @param valve Valve to query with
+     * @return Rows, one per alias
+     * @throws IOException If fails
+     */
+    public Collection<Item> rows(final long bout, final QueryValve valve)
+        throws IOException {
+        final Map<String, Item> rows = new LinkedHashMap<>(0);
+        if (this.sharded(bout)) {
+            final Collection<Future<Collection<Item>>> futures =
+                new ArrayList<>(Shards.COUNT + 1);
+            futures.add(Shards.READERS.submit(this.query(bout, valve)));
+            for (int shard = 0; shard < Shards.COUNT; ++shard) {
+                futures.add(
+                    Shards.READERS.submit(
+                        this.query(Shards.key(bout, shard), valve)
+                    )
+                );
+            }
+            for (final Future<Collection<Item>> future : futures) {
+                Shards.merge(rows, Shards.done(future));
+            }
+        } else {
+            Shards.merge(rows, this.items(bout, valve));
+        }
+        return rows.values();
+    }
+
+    /**
+     * Shard the bout, if it has too many participants already.
+     *
+     * <p>Participants are counted first, by an eventually consistent
+     * query that stops at the threshold, and only a bout that reached it
+     * is read entirely.
+     *
+     * @param bout Bout number
+     * @throws IOException If fails
+     */
+    public void balance(final long bout) throws IOException {
+        if (!this.sharded(bout) && this.count(bout) >= this.threshold) {
+            final List<Map<String, AttributeValue>> rows = this.plain(bout);
+            if (rows.size() >= this.threshold) {
+                this.split(bout, rows);
+            }
+        }
+    }
+
+    /**
+     * Update the row of the alias in the bout, only if it exists.
+     *
+     * <p>When the row is not found by its key, the bout may have been
+     * split by another node since this one checked it, so the bout is
+     * checked again and the update is retried by the new key, if the key
+     * changed.
+     *
+     * @param bout Bout number
+     * @param alias Alias
+     * @param updates Updates
+     * @return All attributes of the row before the update, empty if
+     *  there is no such row
+     * @throws IOException If fails
+     */
+    public Map<String, AttributeValue> update(final long bout,
+        final String alias, final Map<String, AttributeValueUpdate> updates)
+        throws IOException {
+        final long hash = this.hash(bout, alias);
+        Map<String, AttributeValue> old = this.change(hash, alias, updates);
+        if (old.isEmpty()) {
+            Shards.PLAIN.invalidate(bout);
+            final long moved = this.hash(bout, alias);
+            if (moved != hash) {
+                old = this.change(moved, alias, updates);
+            }
+        }
+        return old;
+    }
+
+    /**
+     * Bout number of the hash key.
+     * @param hash Hash key of a row in "friends" table
+     * @return Bout number
+     */
+    public static long bout(final AttributeValue hash) {
+        long bout = Long.parseLong(hash.getN());
+        if (bout < 0L) {
+            bout = (-bout - 1L) / (long) Shards.COUNT;
+        }
+        return bout;
+    }
+
+    /**
+     * Hash key of the alias in the sharded bout.
+     * @param bout Bout number
+     * @param alias Alias
+     * @return Hash key
+     */
+    public static long key(final long bout, final String alias) {
+        return Shards.key(
+            bout, (alias.hashCode() & Integer.MAX_VALUE) % Shards.COUNT
+        );
+    }
+
+    /**
+     * Is it sharded?
+     * @param bout Bout number
+     * @return TRUE if it is
+     * @throws IOException If fails
+     */
+    private boolean sharded(final long bout) throws IOException {
+        boolean sharded = Shards.SHARDED.getIfPresent(bout) != null;
+        if (!sharded && Shards.PLAIN.getIfPresent(bout) == null) {
+            final Iterator<Item> items = this.region.table(DyFriends.TBL)
+                .frame()
+                .through(
+                    new QueryValve()
+                        .withLimit(1)
+                        .withAttributesToGet(DyFriends.RANGE)
+                )
+                .where(DyFriends.HASH, Conditions.equalTo(bout))
+                .where(DyFriends.RANGE, Shards.MARKER)
+                .iterator();
+            sharded = items.hasNext() && Shards.MARKER.equals(
+                items.next().get(DyFriends.RANGE).getS()
+            );
+            if (sharded) {
+                Shards.SHARDED.put(bout, true);
+            } else {
+                Shards.PLAIN.put(bout, true);
+            }
+        }
+        return sharded;
+    }
+
+    /**
+     * Update the row by its key, only if it exists.
+     * @param hash Hash key
+     * @param alias Alias
+     * @param updates Updates
+     * @return All attributes before the update, empty if no such row
+     * @throws IOException If fails
+     */
+    private Map<String, AttributeValue> change(final long hash,
+        final String alias, final Map<String, AttributeValueUpdate> updates)
+        throws IOException {
+        final AmazonDynamoDB aws = this.region.aws();
+        Map<String, AttributeValue> old = Collections.emptyMap();
+        try {
+            final Map<String, AttributeValue> attrs = aws.updateItem(
+                new UpdateItemRequest()
+                    .withTableName(this.region.table(DyFriends.TBL).name())
+                    .withKey(
+                        new Attributes()
+                            .with(DyFriends.HASH, hash)
+                            .with(DyFriends.RANGE, alias)
+                    )
+                    .withAttributeUpdates(updates)
+                    .withExpected(
+                        Collections.singletonMap(
+                            DyFriends.RANGE,
+                            new ExpectedAttributeValue().withComparisonOperator(
+                                ComparisonOperator.NOT_NULL
+                            )
+                        )
+                    )
+                    .withReturnValues(ReturnValue.ALL_OLD)
+            ).getAttributes();
+            if (attrs != null) {
+                old = attrs;
+            }
+        } catch (final ConditionalCheckFailedException ex) {
+            Logger.debug(
+                this, "@%s is not in %d: %s",
+                alias, hash, ex.getLocalizedMessage()
+            );
+        } catch (final AmazonClientException ex) {
+            throw new IOException(ex);
+        } finally {
+            aws.shutdown();
+        }
+        return old;
+    }
+
+    /**
+     * Count rows of the plain bout, up to the threshold.
+     * @param bout Bout number
+     * @return How many rows, the threshold at most
+     * @throws IOException If fails
+     */
+    private int count(final long bout) throws IOException {
+        final AmazonDynamoDB aws = this.region.aws();
+        try {
+            return aws.query(
+                new QueryRequest()
+                    .withTableName(this.region.table(DyFriends.TBL).name())
+                    .withKeyConditions(
+                        Collections.singletonMap(
+                            DyFriends.HASH,
+                            new Condition()
+                                .withComparisonOperator(ComparisonOperator.EQ)
+                                .withAttributeValueList(
+                                    new AttributeValue().withN(
+                                        Long.toString(bout)
+                                    )
+                                )
+                        )
+                    )
+                    .withSelect(Select.COUNT)
+                    .withLimit(this.threshold)
+                    .withConsistentRead(false)
+            ).getCount();
+        } catch (final AmazonClientException ex) {
+            throw new IOException(ex);
+        } finally {
+            aws.shutdown();
+        }
+    }
+
+    /**
+     * Query rows by one hash key, in background.
+     * @param hash Hash key
+     * @param valve Valve to query with
+     * @return Callable that queries
+     */
+    private Callable<Collection<Item>> query(final long hash,
+        final QueryValve valve) {
+        return new Callable<Collection<Item>>() {
+            @Override
+            public Collection<Item> call() {
+                return Shards.this.items(hash, valve);
+            }
+        };
+    }
+
+    /**
+     * Query rows by one hash key.
+     * @param hash Hash key
+     * @param valve Valve to query with
+     * @return Rows
+     */
+    private Collection<Item> items(final long hash, final QueryValve valve) {
+        final Collection<Item> items = new LinkedList<>();
+        for (final Item item : this.region.table(DyFriends.TBL).frame()
+            .through(valve)
+            .where(DyFriends.HASH, Conditions.equalTo(hash))) {
+            items.add(item);
+        }
+        return items;
+    }
+
+    /**
+     * All rows of the plain bout, with all attributes.
+     * @param bout Bout number
+     * @return Rows
+     * @throws IOException If fails
+     */
+    private List<Map<String, AttributeValue>> plain(final long bout)
+        throws IOException {
+        final List<Map<String, AttributeValue>> rows = new LinkedList<>();
+        final AmazonDynamoDB aws = this.region.aws();
+        try {
+            final QueryRequest request = new QueryRequest()
+                .withTableName(this.region.table(DyFriends.TBL).name())
+                .withKeyConditions(
+                    Collections.singletonMap(
+                        DyFriends.HASH,
+                        new Condition()
+                            .withComparisonOperator(ComparisonOperator.EQ)
+                            .withAttributeValueList(
+                                new AttributeValue().withN(Long.toString(bout))
+                            )
+                    )
+                )
+                .withConsistentRead(true);
+            Map<String, AttributeValue> start = null;
+            do {
+                final QueryResult result = aws.query(
+                    request.withExclusiveStartKey(start)
+                );
+                rows.addAll(result.getItems());
+                start = result.getLastEvaluatedKey();
+            } while (start != null && !start.isEmpty());
+        } catch (final AmazonClientException ex) {
+            throw new IOException(ex);
+        } finally {
+            aws.shutdown();
+        }
+        return rows;
+    }
+
+    /**
+     * Move all rows of the bout to shards.
+     *
+     * <p>Rows are copied first, then the marker is saved and only then
+     * the originals are deleted, so readers see every participant
+     * all the time, maybe twice for a moment ({@link #rows(long, QueryValve)}
+     * keeps one row per alias).
+     *
+     * @param bout Bout number
+     * @param rows All its rows
+     * @throws IOException If fails
+     */
+    private void split(final long bout,
+        final Collection<Map<String, AttributeValue>> rows)
+        throws IOException {
+        final Table table = this.region.table(DyFriends.TBL);
+        for (final Map<String, AttributeValue> row : rows) {
+            table.put(
+                new Attributes(row).with(
+                    DyFriends.HASH,
+                    Shards.key(bout, row.get(DyFriends.RANGE).getS())
+                )
+            );
+        }
+        table.put(
+            new Attributes()
+                .with(DyFriends.HASH, bout)
+                .with(DyFriends.RANGE, Shards.MARKER)
+        );
+        Shards.SHARDED.put(bout, true);
+        Shards.PLAIN.invalidate(bout);
+        Bus.SHARED.publish(Bus.SHARDED, Bus.bout(bout));
+        for (final Map<String, AttributeValue> row : rows) {
+            table.delete(
+                new Attributes(row).only(
+                    Arrays.asList(DyFriends.HASH, DyFriends.RANGE)
+                )
+            );
+        }
+        Logger.info(
+            this, "bout #%d with %d participants split into %d shards",
+            bout, rows.size(), Shards.COUNT
+        );
+    }
+
+    /**
+     * Hash key of the shard of the bout.
+     * @param bout Bout number
+     * @param shard Shard, from zero to {@link #COUNT}
+     * @return Hash key
+     */
+    private static long key(final long bout, final int shard) {
+        return -(bout * (long) Shards.COUNT + (long) shard) - 1L;
+    }
+
+    /**
+     * Merge rows, one per alias, skipping the marker.
+     * @param rows Rows merged so far, by aliases
+     * @param items More rows
+     * @throws IOException If fails
+     */
+    private static void merge(final Map<String, Item> rows,
+        final Iterable<Item> items) throws IOException {
+        for (final Item item : items) {
+            final String alias = item.get(DyFriends.RANGE).getS();
+            if (!Shards.MARKER.equals(alias)) {
+                rows.put(alias, item);
+            }
+        }
+    }
+
+    /**
+     * Take the rows of one shard.
+     * @param future The future
+     * @return Rows
+     * @throws IOException If fails
+     */
+    private static Collection<Item> done(
+        final Future<Collection<Item>> future) throws IOException {
+        try {
+            return future.get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException(ex);
+        } catch (final ExecutionException ex) {
+            throw new IOException(ex.getCause());
+        }
+    }
+
+}
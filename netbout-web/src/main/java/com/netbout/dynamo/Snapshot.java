@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.jcabi.aspects.Immutable;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Region;
+import java.io.IOException;
+import lombok.ToString;
+
+/**
+ * Snapshot of my row in "friends" table, shared by all objects of
+ * one bout.
+ *
+ * <p>The row is read once, with all attributes, by whoever finds
+ * the bout (see {@link Prefetch} and {@link DyInbox#bout(long)}) and is
+ * passed here explicitly, so objects of the bout never read it again.
+ * The snapshot doesn't see writes made after it was taken; they are
+ * visible to the next request, which reads the row strongly consistent
+ * (see {@link Consistency}).
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+@Immutable
+@ToString
+final class Snapshot {
+
+    /**
+     * My row, with all attributes, or empty if I'm not in the bout.
+     */
+    private final transient Attributes attrs;
+
+    /**
+     * Ctor.
+     * @param row My row in "friends" table, just read
+     */
+    Snapshot(final Attributes row) {
+        this.attrs = row;
+    }
+
+    /**
+     * My row, with all attributes.
+     * @return The row or empty attributes if I'm not in the bout
+     */
+    public Attributes row() {
+        return this.attrs;
+    }
+
+    /**
+     * Take a snapshot by reading my row, with one GetItem.
+     * @param region Region
+     * @param bout Bout number
+     * @param self My alias
+     * @return Snapshot
+     * @throws IOException If fails
+     */
+    public static Snapshot read(final Region region, final long bout,
+        final String self) throws IOException {
+        return new Snapshot(
+            new BatchGet(
+                region, DyFriends.TBL,
+                new Consistency(self).strong(Consistency.ROW, bout)
+            ).read(
+                new Attributes()
+                    .with(DyFriends.HASH, new Shards(region).hash(bout, self))
+                    .with(DyFriends.RANGE, self)
+            )
+        );
+    }
+
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.jcabi.aspects.Immutable;
+import com.jcabi.aspects.Tv;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Terms of a text, for full-text index.
+ *
+ * <p>The text is broken into words by any character that is neither
+ * a letter nor a digit, words are lower-cased and counted. Words that
+ * are shorter than two characters are ignored, longer ones are cut
+ * to {@link #MAX} characters.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+@Immutable
+@ToString
+@EqualsAndHashCode(of = "text")
+final class Terms {
+
+    /**
+     * Maximum length of a term.
+     */
+    public static final int MAX = Tv.SIXTY;
+
+    /**
+     * The text.
+     */
+    private final transient String text;
+
+    /**
+     * Ctor.
+     * @param txt The text
+     */
+    Terms(final String txt) {
+        this.text = txt;
+    }
+
+    /**
+     * Terms found, with the number of their occurrences.
+     * @return Map of terms and their frequencies
+     */
+    public Map<String, Integer> frequencies() {
+        final Map<String, Integer> terms = new TreeMap<>();
+        final StringBuilder word = new StringBuilder(Terms.MAX);
+        final String lower = this.text.toLowerCase(Locale.ENGLISH);
+        for (int pos = 0; pos <= lower.length(); ++pos) {
+            if (pos < lower.length()
+                && Character.isLetterOrDigit(lower.charAt(pos))) {
+                if (word.length() < Terms.MAX) {
+                    word.append(lower.charAt(pos));
+                }
+                continue;
+            }
+            if (word.length() > 1) {
+                final String term = word.toString();
+                final Integer before = terms.get(term);
+                if (before == null) {
+                    terms.put(term, 1);
+                } else {
+                    terms.put(term, before + 1);
+                }
+            }
+            word.setLength(0);
+        }
+        return Collections.unmodifiableMap(terms);
+    }
+
+}
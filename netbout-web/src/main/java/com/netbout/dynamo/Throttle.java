@@ -0,0 +1,534 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.jcabi.aspects.Tv;
+import com.jcabi.log.Logger;
+import java.net.HttpURLConnection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.ToString;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Adaptive throttle of DynamoDB calls.
+ *
+ * <p>Every table has its own token bucket, which starts at the maximum
+ * rate, halves it when DynamoDB throttles us and grows it back slowly
+ * with every success (AIMD). Throttled and failed calls are retried
+ * with exponential backoff and full jitter, but only while the retry
+ * budget allows: every call deposits a fraction of a retry into it, every
+ * retry takes one out, so retries never exceed a fixed share of traffic,
+ * no matter how many threads fail at once.
+ *
+ * <p>When calls to a table fail a few times in a row even after retries,
+ * its circuit breaker opens and all calls to the table fail fast for
+ * a while. After that calls go through again, and the first success
+ * closes the breaker, while one more failure opens it again.
+ *
+ * <p>Per-table counters are available through {@link #metrics()} and
+ * {@link #print(StringBuilder)}.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+@ToString(of = { "rate", "attempts" })
+@SuppressWarnings("PMD.DoNotUseThreads")
+final class Throttle {
+
+    /**
+     * Error codes of throttling.
+     */
+    private static final Collection<String> CODES = Arrays.asList(
+        "ProvisionedThroughputExceededException",
+        "ThrottlingException",
+        "RequestLimitExceeded"
+    );
+
+    /**
+     * Share of a retry every call deposits into the budget.
+     */
+    private static final double RATIO = 0.1d;
+
+    /**
+     * Limits, by table names.
+     */
+    private final transient ConcurrentMap<String, Throttle.Limit> limits;
+
+    /**
+     * Retry budget.
+     */
+    private final transient Throttle.Budget budget;
+
+    /**
+     * Maximum rate of calls per table, per second.
+     */
+    private final transient double rate;
+
+    /**
+     * Maximum attempts of one call.
+     */
+    private final transient int attempts;
+
+    /**
+     * Base delay of backoff, in milliseconds.
+     */
+    private final transient long delay;
+
+    /**
+     * Failures in a row to open the breaker.
+     */
+    private final transient int failures;
+
+    /**
+     * How long the breaker stays open, in milliseconds.
+     */
+    private final transient long cooldown;
+
+    /**
+     * Ctor.
+     */
+    Throttle() {
+        this(
+            (double) Tv.THOUSAND, Tv.FIVE, (long) Tv.FIFTY,
+            Tv.FIVE, TimeUnit.SECONDS.toMillis((long) Tv.TEN)
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param max Maximum rate of calls per table, per second
+     * @param tries Maximum attempts of one call
+     * @param msec Base delay of backoff, in milliseconds
+     * @param fails Failures in a row to open the breaker
+     * @param cool How long the breaker stays open, in milliseconds
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    Throttle(final double max, final int tries, final long msec,
+        final int fails, final long cool) {
+        this.limits = new ConcurrentHashMap<>(0);
+        this.budget = new Throttle.Budget((double) Tv.HUNDRED);
+        this.rate = max;
+        this.attempts = tries;
+        this.delay = msec;
+        this.failures = fails;
+        this.cooldown = cool;
+    }
+
+    /**
+     * Make a call to the table.
+     * @param table Table name
+     * @param action The call
+     * @param <T> Type of result
+     * @return Result of the call
+     * @throws Exception If fails
+     */
+    public <T> T call(final String table, final Callable<T> action)
+        throws Exception {
+        final Throttle.Limit limit = this.limit(table);
+        limit.admit(this.cooldown);
+        limit.acquire();
+        this.budget.deposit(Throttle.RATIO);
+        T result = null;
+        boolean done = false;
+        int attempt = 0;
+        while (!done) {
+            try {
+                result = action.call();
+                limit.success();
+                done = true;
+            } catch (final AmazonClientException ex) {
+                if (!Throttle.retryable(ex)) {
+                    throw ex;
+                }
+                if (Throttle.throttled(ex)) {
+                    limit.throttle();
+                }
+                ++attempt;
+                if (attempt >= this.attempts || !this.budget.withdraw()) {
+                    limit.fail(this.failures);
+                    throw ex;
+                }
+                limit.retry();
+                Throttle.sleep(this.backoff(attempt));
+                limit.acquire();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * All counters, by names like "nb-friends.throttled".
+     * @return Metrics
+     */
+    public SortedMap<String, Long> metrics() {
+        final SortedMap<String, Long> metrics = new TreeMap<>();
+        for (final Map.Entry<String, Throttle.Limit> ent
+            : this.limits.entrySet()) {
+            ent.getValue().report(ent.getKey(), metrics);
+        }
+        metrics.put("budget", this.budget.available());
+        return metrics;
+    }
+
+    /**
+     * Print all counters in Prometheus text format.
+     * @param out Where to print
+     */
+    public void print(final StringBuilder out) {
+        final SortedMap<String, Long> metrics = this.metrics();
+        for (final String counter : Arrays.asList(
+            "calls", "throttled", "retries", "rejected", "waited", "rate"
+        )) {
+            final String name;
+            if ("rate".equals(counter)) {
+                name = "netbout_dynamo_throttle_rate";
+                out.append(String.format("# TYPE %s gauge\n", name));
+            } else {
+                name = String.format(
+                    "netbout_dynamo_throttle_%s_total", counter
+                );
+                out.append(String.format("# TYPE %s counter\n", name));
+            }
+            final String suffix = String.format(".%s", counter);
+            for (final Map.Entry<String, Long> ent : metrics.entrySet()) {
+                if (ent.getKey().endsWith(suffix)) {
+                    out.append(
+                        String.format(
+                            "%s{table=\"%s\"} %d\n", name,
+                            StringUtils.removeEnd(ent.getKey(), suffix),
+                            ent.getValue()
+                        )
+                    );
+                }
+            }
+        }
+        out.append("# TYPE netbout_dynamo_retry_budget gauge\n")
+            .append(
+                String.format(
+                    "netbout_dynamo_retry_budget %d\n", metrics.get("budget")
+                )
+            );
+    }
+
+    /**
+     * Limit of the table.
+     * @param table Table name
+     * @return Limit
+     */
+    private Throttle.Limit limit(final String table) {
+        Throttle.Limit limit = this.limits.get(table);
+        if (limit == null) {
+            this.limits.putIfAbsent(
+                table, new Throttle.Limit(table, this.rate)
+            );
+            limit = this.limits.get(table);
+        }
+        return limit;
+    }
+
+    /**
+     * Delay before the next attempt, exponential with full jitter.
+     * @param attempt Number of attempt, starting with one
+     * @return Delay in milliseconds
+     */
+    private long backoff(final int attempt) {
+        final long max = this.delay << Math.min(attempt, Tv.TEN);
+        return ThreadLocalRandom.current().nextLong(max + 1L);
+    }
+
+    /**
+     * Is it worth retrying?
+     * @param error The error
+     * @return TRUE if it is
+     */
+    private static boolean retryable(final AmazonClientException error) {
+        boolean retry = true;
+        if (error instanceof AmazonServiceException) {
+            final AmazonServiceException svc = (AmazonServiceException) error;
+            retry = Throttle.throttled(error)
+                || svc.getStatusCode() >= HttpURLConnection.HTTP_INTERNAL_ERROR;
+        }
+        return retry;
+    }
+
+    /**
+     * Was it throttled by DynamoDB?
+     * @param error The error
+     * @return TRUE if it was
+     */
+    private static boolean throttled(final AmazonClientException error) {
+        return error instanceof AmazonServiceException
+            && Throttle.CODES.contains(
+                AmazonServiceException.class.cast(error).getErrorCode()
+            );
+    }
+
+    /**
+     * Sleep a bit.
+     * @param msec Milliseconds
+     */
+    private static void sleep(final long msec) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(msec);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException(ex);
+        }
+    }
+
+    /**
+     * Token bucket and circuit breaker of one table.
+     */
+    @ToString(of = { "table", "current" })
+    private static final class Limit {
+        /**
+         * Table name.
+         */
+        private final transient String table;
+        /**
+         * Maximum rate, per second.
+         */
+        private final transient double ceiling;
+        /**
+         * Calls made.
+         */
+        private final transient AtomicLong calls = new AtomicLong();
+        /**
+         * Calls throttled by DynamoDB.
+         */
+        private final transient AtomicLong throttled = new AtomicLong();
+        /**
+         * Retries made.
+         */
+        private final transient AtomicLong retries = new AtomicLong();
+        /**
+         * Calls rejected by the open breaker.
+         */
+        private final transient AtomicLong rejected = new AtomicLong();
+        /**
+         * Milliseconds spent waiting for tokens.
+         */
+        private final transient AtomicLong waited = new AtomicLong();
+        /**
+         * Current rate, per second.
+         */
+        private transient double current;
+        /**
+         * Tokens available, may be negative when callers wait.
+         */
+        private transient double tokens;
+        /**
+         * When tokens were added last time, in nanoseconds.
+         */
+        private transient long refilled;
+        /**
+         * Failures in a row.
+         */
+        private transient int failed;
+        /**
+         * When the breaker was opened, in milliseconds, or zero.
+         */
+        private transient long opened;
+        /**
+         * Ctor.
+         * @param name Table name
+         * @param max Maximum rate, per second
+         */
+        Limit(final String name, final double max) {
+            this.table = name;
+            this.ceiling = max;
+            this.current = max;
+            this.tokens = max;
+            this.refilled = System.nanoTime();
+        }
+        /**
+         * Let the call in, unless the breaker is open.
+         * @param cooldown How long the breaker stays open, in msec
+         */
+        public void admit(final long cooldown) {
+            final boolean open;
+            synchronized (this) {
+                open = this.opened > 0L
+                    && System.currentTimeMillis() - this.opened < cooldown;
+            }
+            if (open) {
+                this.rejected.incrementAndGet();
+                throw new AmazonClientException(
+                    String.format("circuit breaker of %s is open", this.table)
+                );
+            }
+            this.calls.incrementAndGet();
+        }
+        /**
+         * Take a token, waiting for it if necessary.
+         */
+        public void acquire() {
+            final long wait;
+            synchronized (this) {
+                final long now = System.nanoTime();
+                this.tokens = Math.min(
+                    this.current,
+                    this.tokens + this.current * (double) (now - this.refilled)
+                        / (double) TimeUnit.SECONDS.toNanos(1L)
+                );
+                this.refilled = now;
+                this.tokens -= 1.0d;
+                wait = (long) Math.ceil(
+                    -this.tokens * (double) TimeUnit.SECONDS.toMillis(1L)
+                        / this.current
+                );
+            }
+            if (wait > 0L) {
+                this.waited.addAndGet(wait);
+                Throttle.sleep(wait);
+            }
+        }
+        /**
+         * The call succeeded.
+         */
+        public synchronized void success() {
+            this.failed = 0;
+            this.opened = 0L;
+            this.current = Math.min(
+                this.ceiling, this.current + 1.0d / this.current
+            );
+        }
+        /**
+         * DynamoDB throttled the call.
+         */
+        public synchronized void throttle() {
+            this.throttled.incrementAndGet();
+            this.current = Math.max(1.0d, this.current / 2.0d);
+        }
+        /**
+         * The call will be retried.
+         */
+        public void retry() {
+            this.retries.incrementAndGet();
+        }
+        /**
+         * The call failed, even after retries.
+         * @param max Failures in a row to open the breaker
+         */
+        public synchronized void fail(final int max) {
+            ++this.failed;
+            if (this.failed >= max) {
+                this.opened = System.currentTimeMillis();
+                Logger.warn(
+                    this, "circuit breaker of %s opened after %d failures",
+                    this.table, this.failed
+                );
+            }
+        }
+        /**
+         * Report counters.
+         * @param name Table name
+         * @param metrics Where to put them
+         */
+        public void report(final String name,
+            final Map<String, Long> metrics) {
+            metrics.put(String.format("%s.calls", name), this.calls.get());
+            metrics.put(
+                String.format("%s.throttled", name), this.throttled.get()
+            );
+            metrics.put(String.format("%s.retries", name), this.retries.get());
+            metrics.put(
+                String.format("%s.rejected", name), this.rejected.get()
+            );
+            metrics.put(String.format("%s.waited", name), this.waited.get());
+            synchronized (this) {
+                metrics.put(
+                    String.format("%s.rate", name), (long) this.current
+                );
+            }
+        }
+    }
+
+    /**
+     * Retry budget.
+     */
+    @ToString
+    private static final class Budget {
+        /**
+         * Maximum retries in the budget.
+         */
+        private final transient double max;
+        /**
+         * Retries available.
+         */
+        private transient double tokens;
+        /**
+         * Ctor.
+         * @param most Maximum retries in the budget
+         */
+        Budget(final double most) {
+            this.max = most;
+            this.tokens = most / (double) Tv.TEN;
+        }
+        /**
+         * Deposit a share of a retry.
+         * @param share The share
+         */
+        public synchronized void deposit(final double share) {
+            this.tokens = Math.min(this.max, this.tokens + share);
+        }
+        /**
+         * Take one retry out, if there is one.
+         * @return TRUE if taken
+         */
+        public synchronized boolean withdraw() {
+            final boolean enough = this.tokens >= 1.0d;
+            if (enough) {
+                this.tokens -= 1.0d;
+            }
+            return enough;
+        }
+        /**
+         * Retries available.
+         * @return Whole retries
+         */
+        public synchronized long available() {
+            return (long) this.tokens;
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.jcabi.dynamo.Credentials;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Credentials with a throttled DynamoDB client.
+ *
+ * <p>Tables, frames and items of jcabi-dynamo get their clients from
+ * credentials, not from the region, so this is the only place where all
+ * calls can be seen. Every call of the client that works with a table
+ * goes through the {@link Throttle}; everything else, like
+ * {@code shutdown()}, goes straight to the client.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+@ToString
+@EqualsAndHashCode(of = "origin")
+final class Throttled implements Credentials {
+
+    /**
+     * Original credentials.
+     */
+    private final transient Credentials origin;
+
+    /**
+     * Throttle.
+     */
+    private final transient Throttle throttle;
+
+    /**
+     * Ctor.
+     * @param creds Original credentials
+     * @param thr Throttle
+     */
+    Throttled(final Credentials creds, final Throttle thr) {
+        this.origin = creds;
+        this.throttle = thr;
+    }
+
+    @Override
+    public AmazonDynamoDB aws() {
+        final AmazonDynamoDB aws = this.origin.aws();
+        final Throttle thr = this.throttle;
+        return AmazonDynamoDB.class.cast(
+            Proxy.newProxyInstance(
+                AmazonDynamoDB.class.getClassLoader(),
+                new Class<?>[] {AmazonDynamoDB.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(final Object proxy,
+                        final Method method, final Object[] args)
+                        throws Exception {
+                        final String table = Throttled.table(args);
+                        final Callable<Object> call = new Callable<Object>() {
+                            @Override
+                            public Object call() throws Exception {
+                                return Throttled.invoke(aws, method, args);
+                            }
+                        };
+                        final Object result;
+                        if (table.isEmpty()) {
+                            result = call.call();
+                        } else {
+                            result = thr.call(table, call);
+                        }
+                        return result;
+                    }
+                }
+            )
+        );
+    }
+
+    /**
+     * Invoke the method of the client.
+     * @param aws The client
+     * @param method The method
+     * @param args Arguments
+     * @return Result
+     * @throws Exception If fails
+     */
+    private static Object invoke(final AmazonDynamoDB aws,
+        final Method method, final Object[] args) throws Exception {
+        try {
+            return method.invoke(aws, args);
+        } catch (final InvocationTargetException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (Exception) cause;
+        }
+    }
+
+    /**
+     * Name of the table the call works with.
+     * @param args Arguments of the call
+     * @return Table name or empty if none
+     */
+    @SuppressWarnings("PMD.CyclomaticComplexity")
+    static String table(final Object[] args) {
+        Object req = null;
+        if (args != null && args.length == 1
+            && args[0] instanceof AmazonWebServiceRequest) {
+            req = args[0];
+        }
+        final String table;
+        if (req instanceof GetItemRequest) {
+            table = GetItemRequest.class.cast(req).getTableName();
+        } else if (req instanceof PutItemRequest) {
+            table = PutItemRequest.class.cast(req).getTableName();
+        } else if (req instanceof UpdateItemRequest) {
+            table = UpdateItemRequest.class.cast(req).getTableName();
+        } else if (req instanceof DeleteItemRequest) {
+            table = DeleteItemRequest.class.cast(req).getTableName();
+        } else if (req instanceof QueryRequest) {
+            table = QueryRequest.class.cast(req).getTableName();
+        } else if (req instanceof ScanRequest) {
+            table = ScanRequest.class.cast(req).getTableName();
+        } else if (req instanceof BatchGetItemRequest) {
+            table = Throttled.first(
+                BatchGetItemRequest.class.cast(req).getRequestItems()
+            );
+        } else if (req instanceof BatchWriteItemRequest) {
+            table = Throttled.first(
+                BatchWriteItemRequest.class.cast(req).getRequestItems()
+            );
+        } else {
+            table = "";
+        }
+        return table;
+    }
+
+    /**
+     * Name of the first table in a batch.
+     * @param items Request items of the batch
+     * @return Table name or empty if none
+     */
+    private static String first(final Map<String, ?> items) {
+        String table = "";
+        if (items != null && !items.isEmpty()) {
+            table = items.keySet().iterator().next();
+        }
+        return table;
+    }
+
+}
@@ -0,0 +1,302 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeAction;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.dynamo.AttributeUpdates;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Region;
+import com.jcabi.log.Logger;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Materialized total of unread messages of an alias.
+ *
+ * <p>The total is kept in "unread" attribute of "aliases" table and is
+ * changed by atomic ADD, together with per-bout counters in "friends"
+ * table. Per-bout counter and the total are two separate writes, and
+ * the sum of per-bout counters is read from an eventually consistent
+ * index, that's why the total may drift a bit. In order to keep the drift
+ * bounded, the total is trusted only for {@link #PERIOD} after it was
+ * reconciled by {@link #seed(String, long, long)}; after that
+ * {@link #get(String)} reports it as {@link #UNKNOWN} and the caller
+ * recalculates it. Reconciliation is optimistic: the new total is saved
+ * only if nobody changed the old one while the caller was summing up.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ */
+@Immutable
+@ToString
+@EqualsAndHashCode(of = "region")
+@SuppressWarnings("PMD.ExcessiveImports")
+final class Unread {
+
+    /**
+     * The total is not known yet.
+     */
+    public static final long UNKNOWN = -1L;
+
+    /**
+     * How long a reconciled total is trusted, in milliseconds.
+     */
+    public static final long PERIOD = TimeUnit.HOURS.toMillis(1L);
+
+    /**
+     * Region we're in.
+     */
+    private final transient Region region;
+
+    /**
+     * Ctor.
+     * @param reg Region
+     */
+    Unread(final Region reg) {
+        this.region = reg;
+    }
+
+    /**
+     * Get the total, with a single GetItem.
+     * @param alias Alias
+     * @return Total or {@link #UNKNOWN} if not reconciled recently
+     * @throws IOException If fails
+     */
+    public long get(final String alias) throws IOException {
+        final Map<String, AttributeValue> attrs = this.load(alias, false);
+        long total = Unread.UNKNOWN;
+        if (attrs.containsKey(DyAliases.ATTR_UNREAD)
+            && attrs.containsKey(DyAliases.ATTR_CHECKED)
+            && System.currentTimeMillis() - Long.parseLong(
+                attrs.get(DyAliases.ATTR_CHECKED).getN()
+            ) < Unread.PERIOD) {
+            total = Math.max(
+                0L, Long.parseLong(attrs.get(DyAliases.ATTR_UNREAD).getN())
+            );
+        }
+        return total;
+    }
+
+    /**
+     * Get the total as it is, with a strongly consistent GetItem,
+     * before reconciling it with {@link #seed(String, long, long)}.
+     * @param alias Alias
+     * @return Total or {@link #UNKNOWN} if there is no total yet
+     * @throws IOException If fails
+     */
+    public long raw(final String alias) throws IOException {
+        final Map<String, AttributeValue> attrs = this.load(alias, true);
+        long total = Unread.UNKNOWN;
+        if (attrs.containsKey(DyAliases.ATTR_UNREAD)) {
+            total = Long.parseLong(attrs.get(DyAliases.ATTR_UNREAD).getN());
+        }
+        return total;
+    }
+
+    /**
+     * Change the total, even if it is not reconciled yet.
+     *
+     * <p>Changes are never dropped, in order to let
+     * {@link #seed(String, long, long)} notice that the total was changed
+     * while it was being recalculated.
+     *
+     * @param alias Alias
+     * @param delta How much to add (negative to subtract)
+     * @throws IOException If fails
+     */
+    public void add(final String alias, final long delta) throws IOException {
+        if (delta != 0L) {
+            this.update(
+                alias,
+                Collections.singletonMap(
+                    DyAliases.ATTR_UNREAD,
+                    new AttributeValueUpdate()
+                        .withAction(AttributeAction.ADD)
+                        .withValue(
+                            new AttributeValue().withN(Long.toString(delta))
+                        )
+                ),
+                new ExpectedAttributeValue().withComparisonOperator(
+                    ComparisonOperator.NOT_NULL
+                ),
+                DyAliases.HASH
+            );
+        }
+    }
+
+    /**
+     * Save the reconciled total, unless the total was changed since
+     * it was read by {@link #raw(String)}.
+     * @param alias Alias
+     * @param before Total returned by {@link #raw(String)}
+     * @param total Total calculated from "friends" table
+     * @throws IOException If fails
+     */
+    public void seed(final String alias, final long before, final long total)
+        throws IOException {
+        final ExpectedAttributeValue expected;
+        if (before == Unread.UNKNOWN) {
+            expected = new ExpectedAttributeValue().withComparisonOperator(
+                ComparisonOperator.NULL
+            );
+        } else {
+            expected = new ExpectedAttributeValue()
+                .withComparisonOperator(ComparisonOperator.EQ)
+                .withAttributeValueList(
+                    new AttributeValue().withN(Long.toString(before))
+                );
+        }
+        this.update(
+            alias,
+            new AttributeUpdates()
+                .with(DyAliases.ATTR_UNREAD, total)
+                .with(DyAliases.ATTR_CHECKED, System.currentTimeMillis()),
+            expected,
+            DyAliases.ATTR_UNREAD
+        );
+    }
+
+    /**
+     * Reset per-bout counter of unread messages to zero and subtract
+     * its previous value from the total.
+     * @param bout Bout number
+     * @param alias Alias
+     * @throws IOException If fails
+     */
+    public void reset(final long bout, final String alias)
+        throws IOException {
+        final Map<String, AttributeValue> old = new Shards(this.region)
+            .update(
+                bout, alias,
+                new AttributeUpdates().with(DyFriends.ATTR_UNREAD, 0L)
+            );
+        if (old.containsKey(DyFriends.ATTR_UNREAD)) {
+            this.add(
+                alias, -Long.parseLong(old.get(DyFriends.ATTR_UNREAD).getN())
+            );
+        }
+    }
+
+    /**
+     * Load the total and the time of its reconciliation.
+     * @param alias Alias
+     * @param strong Read it strongly consistent
+     * @return Attributes found, maybe empty
+     * @throws IOException If fails
+     */
+    private Map<String, AttributeValue> load(final String alias,
+        final boolean strong) throws IOException {
+        final AmazonDynamoDB aws = this.region.aws();
+        try {
+            Map<String, AttributeValue> attrs = aws.getItem(
+                new GetItemRequest()
+                    .withTableName(this.table())
+                    .withKey(Unread.key(alias))
+                    .withAttributesToGet(
+                        DyAliases.ATTR_UNREAD, DyAliases.ATTR_CHECKED
+                    )
+                    .withConsistentRead(strong)
+            ).getItem();
+            if (attrs == null) {
+                attrs = Collections.emptyMap();
+            }
+            return attrs;
+        } catch (final AmazonClientException ex) {
+            throw new IOException(ex);
+        } finally {
+            aws.shutdown();
+        }
+    }
+
+    /**
+     * Update the total, if the condition is met.
+     * @param alias Alias
+     * @param updates The updates
+     * @param cond Condition
+     * @param attr Attribute the condition is about
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private void update(final String alias,
+        final Map<String, AttributeValueUpdate> updates,
+        final ExpectedAttributeValue cond, final String attr)
+        throws IOException {
+        final AmazonDynamoDB aws = this.region.aws();
+        try {
+            aws.updateItem(
+                new UpdateItemRequest()
+                    .withTableName(this.table())
+                    .withKey(Unread.key(alias))
+                    .withAttributeUpdates(updates)
+                    .withExpected(Collections.singletonMap(attr, cond))
+            );
+        } catch (final ConditionalCheckFailedException ex) {
+            Logger.debug(
+                this, "total of @%s not updated: %s",
+                alias, ex.getLocalizedMessage()
+            );
+        } catch (final AmazonClientException ex) {
+            throw new IOException(ex);
+        } finally {
+            aws.shutdown();
+        }
+    }
+
+    /**
+     * Full name of "aliases" table.
+     * @return Table name
+     */
+    private String table() {
+        return this.region.table(DyAliases.TBL).name();
+    }
+
+    /**
+     * Key of the alias in "aliases" table.
+     * @param alias Alias
+     * @return Key
+     */
+    private static Map<String, AttributeValue> key(final String alias) {
+        return new Attributes().with(DyAliases.HASH, alias);
+    }
+
+}
@@ -0,0 +1,195 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.jcabi.aspects.Immutable;
+import com.jcabi.aspects.Tv;
+import com.jcabi.log.Logger;
+import com.jcabi.s3.Bucket;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedList;
+import java.util.List;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Streaming upload of an S3 object.
+ *
+ * <p>The stream is read part by part, into one buffer of {@link #PART}
+ * bytes, which is reused for all parts. If the entire content fits into
+ * one part, it is saved by a single PUT, otherwise it goes through S3
+ * multipart upload, which is aborted if anything goes wrong.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ */
+@Immutable
+@ToString
+@EqualsAndHashCode(of = { "bucket", "key" })
+final class Upload {
+
+    /**
+     * Size of one part, the minimum allowed by S3.
+     */
+    private static final int PART = Tv.FIVE << Tv.TWENTY;
+
+    /**
+     * Bucket.
+     */
+    private final transient Bucket bucket;
+
+    /**
+     * Object key.
+     */
+    private final transient String key;
+
+    /**
+     * Ctor.
+     * @param bkt Bucket
+     * @param name Object key
+     */
+    Upload(final Bucket bkt, final String name) {
+        this.bucket = bkt;
+        this.key = name;
+    }
+
+    /**
+     * Upload the content.
+     * @param stream Stream to read
+     * @param ctype Content type
+     * @return Total number of bytes uploaded
+     * @throws IOException If fails
+     */
+    public long write(final InputStream stream, final String ctype)
+        throws IOException {
+        final byte[] part = new byte[Upload.PART];
+        final int len = IOUtils.read(stream, part);
+        final long total;
+        if (len < part.length) {
+            final ObjectMetadata meta = Upload.meta(ctype);
+            meta.setContentLength((long) len);
+            this.bucket.ocket(this.key).write(
+                new ByteArrayInputStream(part, 0, len), meta
+            );
+            total = (long) len;
+        } else {
+            total = this.multipart(stream, ctype, part);
+        }
+        return total;
+    }
+
+    /**
+     * Upload through multipart upload.
+     * @param stream Stream to read
+     * @param ctype Content type
+     * @param part Buffer with the first part, full
+     * @return Total number of bytes uploaded
+     * @throws IOException If fails
+     */
+    private long multipart(final InputStream stream, final String ctype,
+        final byte[] part) throws IOException {
+        final AmazonS3 aws = this.bucket.region().aws();
+        final String name = this.bucket.name();
+        final String upload;
+        try {
+            upload = aws.initiateMultipartUpload(
+                new InitiateMultipartUploadRequest(
+                    name, this.key, Upload.meta(ctype)
+                )
+            ).getUploadId();
+        } catch (final AmazonClientException ex) {
+            throw new IOException(ex);
+        }
+        final List<PartETag> tags = new LinkedList<>();
+        long total = 0L;
+        boolean done = false;
+        try {
+            int len = part.length;
+            while (len > 0) {
+                tags.add(
+                    aws.uploadPart(
+                        new UploadPartRequest()
+                            .withBucketName(name)
+                            .withKey(this.key)
+                            .withUploadId(upload)
+                            .withPartNumber(tags.size() + 1)
+                            .withInputStream(
+                                new ByteArrayInputStream(part, 0, len)
+                            )
+                            .withPartSize((long) len)
+                    ).getPartETag()
+                );
+                total += (long) len;
+                len = IOUtils.read(stream, part);
+            }
+            aws.completeMultipartUpload(
+                new CompleteMultipartUploadRequest(
+                    name, this.key, upload, tags
+                )
+            );
+            done = true;
+        } catch (final AmazonClientException ex) {
+            throw new IOException(ex);
+        } finally {
+            if (!done) {
+                aws.abortMultipartUpload(
+                    new AbortMultipartUploadRequest(name, this.key, upload)
+                );
+            }
+        }
+        Logger.info(
+            this, "%d byte(s) uploaded to %s/%s in %d part(s)",
+            total, name, this.key, tags.size()
+        );
+        return total;
+    }
+
+    /**
+     * Make metadata.
+     * @param ctype Content type
+     * @return Metadata
+     */
+    private static ObjectMetadata meta(final String ctype) {
+        final ObjectMetadata meta = new ObjectMetadata();
+        meta.setContentType(ctype);
+        return meta;
+    }
+
+}
@@ -31,12 +31,18 @@
  * <p>There are the following tables in DynamoDB:
  *
  * <pre>
- * aliases: (hash:alias, urn, photo, locale) -> GSI(urn,alias)
+ * aliases: (hash:alias, urn, photo, locale, unread) -> GSI(urn,alias)
  * friends: (hash:bout, range:alias, title, updated, new) -> GSI(alias,updated)
  * messages: (hash:bout, range:msg, text, alias, date)
  * attachments: (hash:bout, range:name, owner, ctype, data)
+ * postings: (hash:term, range:posting, freq)
+ * counters: (hash:name, value)
+ * segments: (hash:bout, range:top, bottom, total, key)
  * </pre>
  *
+ * <p>Rows of bouts with many participants in "friends" table are
+ * spread over a few hash keys, see {@link com.netbout.dynamo.Shards}.
+ *
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 2.0
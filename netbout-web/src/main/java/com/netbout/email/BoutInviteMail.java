@@ -28,14 +28,13 @@ package com.netbout.email;
 
 import com.google.common.base.Joiner;
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.email.Envelope;
 import com.jcabi.email.Postman;
 import com.jcabi.email.enclosure.EnHTML;
 import com.jcabi.email.stamp.StRecipient;
 import com.jcabi.email.stamp.StSubject;
 import com.jcabi.manifests.Manifests;
-import com.netbout.rest.Markdown;
+import com.netbout.misc.Markdown;
 import com.netbout.spi.Bout;
 import java.io.IOException;
 import lombok.EqualsAndHashCode;
@@ -50,7 +49,6 @@ import org.jasypt.encryption.pbe.StandardPBEStringEncryptor;
  * @since 2.17
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "postman")
 @EqualsAndHashCode(of = "postman")
 final class BoutInviteMail {
@@ -27,7 +27,6 @@
 package com.netbout.email;
 
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.email.Envelope;
 import com.jcabi.email.Postman;
 import com.jcabi.email.stamp.StSender;
@@ -48,7 +47,6 @@ import lombok.ToString;
  * @since 2.12
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
 @EqualsAndHashCode(of = "origin")
 final class EmAlias implements Alias {
@@ -29,7 +29,6 @@ package com.netbout.email;
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.email.Postman;
 import com.netbout.spi.Alias;
 import com.netbout.spi.Aliases;
@@ -45,7 +44,6 @@ import lombok.ToString;
  * @since 2.12
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
 @EqualsAndHashCode(of = "origin")
 final class EmAliases implements Aliases {
@@ -27,10 +27,10 @@
 package com.netbout.email;
 
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.netbout.spi.Attachment;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Date;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 
@@ -42,7 +42,6 @@ import lombok.ToString;
  * @since 2.2
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
 @EqualsAndHashCode(of = "origin")
 final class EmAttachment implements Attachment {
@@ -80,11 +79,27 @@ final class EmAttachment implements Attachment {
         return this.origin.unseen();
     }
 
+    @Override
+    public long length() throws IOException {
+        return this.origin.length();
+    }
+
+    @Override
+    public Date date() throws IOException {
+        return this.origin.date();
+    }
+
     @Override
     public InputStream read() throws IOException {
         return this.origin.read();
     }
 
+    @Override
+    public InputStream read(final long first, final long last)
+        throws IOException {
+        return this.origin.read(first, last);
+    }
+
     @Override
     public void write(final InputStream stream, final String ctype,
         final String etag) throws IOException {
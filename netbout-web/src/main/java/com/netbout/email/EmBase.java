@@ -27,7 +27,6 @@
 package com.netbout.email;
 
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.email.Postman;
 import com.jcabi.urn.URN;
 import com.netbout.spi.Base;
@@ -44,7 +43,6 @@ import lombok.ToString;
  * @since 2.12
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
 @EqualsAndHashCode(of = "origin")
 public final class EmBase implements Base {
@@ -27,7 +27,6 @@
 package com.netbout.email;
 
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.email.Postman;
 import com.netbout.spi.Attachments;
 import com.netbout.spi.Bout;
@@ -46,7 +45,6 @@ import lombok.ToString;
  * @since 2.12
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
 @EqualsAndHashCode(of = "origin")
 @SuppressWarnings("PMD.TooManyMethods")
@@ -27,7 +27,6 @@
 package com.netbout.email;
 
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.log.Logger;
 import com.jcabi.manifests.Manifests;
 import java.io.IOException;
@@ -54,7 +53,6 @@ import org.jasypt.encryption.pbe.StandardPBEStringEncryptor;
  * @since 2.15
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = { "action", "user", "password" })
 @EqualsAndHashCode(of = { "action", "user", "password" })
 final class EmCatch {
@@ -28,13 +28,12 @@ package com.netbout.email;
 
 import com.google.common.base.Joiner;
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.email.Envelope;
 import com.jcabi.email.Postman;
 import com.jcabi.email.enclosure.EnHTML;
 import com.jcabi.email.stamp.StRecipient;
 import com.jcabi.email.stamp.StSubject;
-import com.netbout.rest.Markdown;
+import com.netbout.misc.Markdown;
 import com.netbout.spi.Bout;
 import com.netbout.spi.Friend;
 import java.io.IOException;
@@ -48,7 +47,6 @@ import lombok.ToString;
  * @since 2.18
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = { "postman", "bout" })
 final class EmCourier {
 
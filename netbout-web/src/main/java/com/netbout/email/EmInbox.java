@@ -29,7 +29,6 @@ package com.netbout.email;
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.email.Postman;
 import com.netbout.spi.Bout;
 import com.netbout.spi.Inbox;
@@ -48,7 +47,6 @@ import lombok.ToString;
  * @since 2.12
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
 @EqualsAndHashCode(of = "origin")
 final class EmInbox implements Inbox {
@@ -91,10 +89,6 @@ final class EmInbox implements Inbox {
     }
 
     @Override
-    @Loggable(
-        value = Loggable.DEBUG,
-        ignore = Inbox.BoutNotFoundException.class
-    )
     public Bout bout(final long number) throws Inbox.BoutNotFoundException {
         return new EmBout(this.origin.bout(number), this.postman, this.self);
     }
@@ -123,6 +117,14 @@ final class EmInbox implements Inbox {
         );
     }
 
+    @Override
+    public Pageable.Page<Bout> page(final String cursor, final int size)
+        throws IOException {
+        return new EmPageable<Bout>(
+            this.origin, this.postman, this.self
+        ).page(cursor, size);
+    }
+
     @Override
     public Iterable<Bout> search(final String term) throws IOException {
         final List<Bout> result = new ArrayList<>(16);
@@ -28,7 +28,6 @@ package com.netbout.email;
 
 import com.google.common.base.Joiner;
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.email.Postman;
 import com.netbout.spi.Bout;
 import com.netbout.spi.Friend;
@@ -50,7 +49,6 @@ import org.takes.facets.forward.RsFailure;
  * @since 2.2
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
 @EqualsAndHashCode(of = "origin")
 final class EmMessages implements Messages {
@@ -140,6 +138,12 @@ final class EmMessages implements Messages {
         return this.origin.iterate();
     }
 
+    @Override
+    public Pageable.Page<Message> page(final String cursor, final int size)
+        throws IOException {
+        return this.origin.page(cursor, size);
+    }
+
     @Override
     public Iterable<Message> search(final String term) throws IOException {
         return this.origin.search(term);
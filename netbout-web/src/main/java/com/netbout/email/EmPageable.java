@@ -29,7 +29,6 @@ package com.netbout.email;
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
 import com.jcabi.aspects.Immutable;
-import com.jcabi.aspects.Loggable;
 import com.jcabi.email.Postman;
 import com.netbout.spi.Bout;
 import com.netbout.spi.Message;
@@ -46,7 +45,6 @@ import lombok.ToString;
  * @since 2.10.3
  */
 @Immutable
-@Loggable(Loggable.DEBUG)
 @ToString(of = "origin")
 @EqualsAndHashCode(of = "origin")
 final class EmPageable<T> implements Pageable<T> {
@@ -88,8 +86,24 @@ final class EmPageable<T> implements Pageable<T> {
 
     @Override
     public Iterable<T> iterate() throws IOException {
+        return this.wrap(this.origin.iterate());
+    }
+
+    @Override
+    public Pageable.Page<T> page(final String cursor, final int size)
+        throws IOException {
+        final Pageable.Page<T> page = this.origin.page(cursor, size);
+        return new Pageable.Page<T>(this.wrap(page.items()), page.cursor());
+    }
+
+    /**
+     * Wrap bouts into e-mail decorators.
+     * @param items Items
+     * @return Decorated items
+     */
+    private Iterable<T> wrap(final Iterable<T> items) {
         return Iterables.transform(
-            this.origin.iterate(),
+            items,
             new Function<T, T>() {
                 @Override
                 @SuppressWarnings("unchecked")
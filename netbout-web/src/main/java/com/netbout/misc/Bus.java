@@ -0,0 +1,381 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.misc;
+
+import com.jcabi.log.Logger;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Bus of invalidation events.
+ *
+ * <p>Write paths publish an event together with tags of the data they
+ * changed, like {@link #row(long, String)} after a bout is renamed.
+ * Caches keep the tag that every value depends on and evict values by
+ * tags, as soon as an event arrives. Tags are plain strings, built only
+ * by the static methods of this class, so that writers and caches
+ * agree on them.
+ *
+ * <p>Events are delivered synchronously, in the thread of the writer,
+ * after the write succeeded. Write-behind paths publish when the data
+ * actually reach the table.
+ *
+ * <p>Other nodes of the cluster learn about events through attached
+ * {@link Bus.Transport}s, like {@link Multicast}. Every event is sent
+ * as one small packet: format, origin of the bus, version of the event,
+ * the event and its tags. Versions of one origin grow by one, so that
+ * a receiver drops duplicates and events older than the last one it
+ * saw, and notices lost packets. When packets are lost, listeners get
+ * {@link #LOST} without tags and must forget everything they cached,
+ * since they can't know which tags they missed.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+public final class Bus {
+
+    /**
+     * Bus of this JVM, which all writers publish to.
+     */
+    public static final Bus SHARED = new Bus();
+
+    /**
+     * Message posted.
+     */
+    public static final String POSTED = "posted";
+
+    /**
+     * Friend invited.
+     */
+    public static final String INVITED = "invited";
+
+    /**
+     * Friend kicked off.
+     */
+    public static final String KICKED = "kicked";
+
+    /**
+     * Bout renamed.
+     */
+    public static final String RENAMED = "renamed";
+
+    /**
+     * Subscription changed.
+     */
+    public static final String SUBSCRIBED = "subscribed";
+
+    /**
+     * Bout started.
+     */
+    public static final String STARTED = "started";
+
+    /**
+     * Attachment created, deleted or uploaded.
+     */
+    public static final String ATTACHED = "attached";
+
+    /**
+     * Messages or attachments seen.
+     */
+    public static final String SEEN = "seen";
+
+    /**
+     * Alias added or changed.
+     */
+    public static final String ALIASED = "aliased";
+
+    /**
+     * Bout split into shards.
+     */
+    public static final String SHARDED = "sharded";
+
+    /**
+     * Events of another node lost, anything may be stale.
+     */
+    public static final String LOST = "lost";
+
+    /**
+     * Format of packets.
+     */
+    private static final byte FORMAT = 1;
+
+    /**
+     * Listeners.
+     */
+    private final transient Collection<Bus.Listener> listeners;
+
+    /**
+     * Transports to other nodes.
+     */
+    private final transient Collection<Bus.Transport> transports;
+
+    /**
+     * Last versions received, by origins.
+     */
+    private final transient Map<Long, Long> versions;
+
+    /**
+     * Origin of this bus, unique in the cluster.
+     */
+    private final transient long origin;
+
+    /**
+     * Version of the last event sent.
+     */
+    private transient long version;
+
+    /**
+     * Ctor.
+     */
+    public Bus() {
+        this.listeners = new CopyOnWriteArraySet<>();
+        this.transports = new CopyOnWriteArraySet<>();
+        this.versions = new HashMap<>(0);
+        this.origin = new SecureRandom().nextLong();
+    }
+
+    /**
+     * Listener of events.
+     */
+    public interface Listener {
+        /**
+         * Data with these tags changed.
+         * @param event Event, like {@link Bus#POSTED}
+         * @param tags Tags of changed data
+         */
+        void on(String event, Collection<String> tags);
+    }
+
+    /**
+     * Transport of packets between buses of the cluster.
+     */
+    public interface Transport extends Closeable {
+        /**
+         * Start delivering packets of other buses to this one,
+         * see {@link Bus#receive(byte[])}.
+         * @param bus The bus
+         * @throws IOException If fails
+         */
+        void open(Bus bus) throws IOException;
+        /**
+         * Send a packet to all other buses.
+         * @param packet Packet
+         * @throws IOException If fails
+         */
+        void send(byte[] packet) throws IOException;
+    }
+
+    /**
+     * Subscribe a listener, unless it is subscribed already.
+     * @param listener Listener
+     */
+    public void subscribe(final Bus.Listener listener) {
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Publish an event.
+     * @param event Event, like {@link #POSTED}
+     * @param tags Tags of changed data
+     */
+    public void publish(final String event, final String... tags) {
+        this.deliver(event, Arrays.asList(tags));
+        if (!this.transports.isEmpty()) {
+            this.send(event, tags);
+        }
+    }
+
+    /**
+     * Attach a transport and start receiving from it.
+     * @param transport Transport
+     * @throws IOException If fails
+     */
+    public void attach(final Bus.Transport transport) throws IOException {
+        transport.open(this);
+        this.transports.add(transport);
+    }
+
+    /**
+     * Receive a packet from another bus and deliver its event.
+     *
+     * <p>Own packets, duplicates and packets of unknown formats
+     * are ignored.
+     *
+     * @param packet Packet
+     * @throws IOException If the packet is broken
+     */
+    public void receive(final byte[] packet) throws IOException {
+        final DataInputStream data = new DataInputStream(
+            new ByteArrayInputStream(packet)
+        );
+        if (data.readByte() == Bus.FORMAT) {
+            final long from = data.readLong();
+            final long ver = data.readLong();
+            final String event = data.readUTF();
+            final String[] tags = new String[data.readUnsignedByte()];
+            for (int idx = 0; idx < tags.length; ++idx) {
+                tags[idx] = data.readUTF();
+            }
+            if (from != this.origin && this.fresh(from, ver)) {
+                this.deliver(event, Arrays.asList(tags));
+            }
+        }
+    }
+
+    /**
+     * Deliver an event to local listeners.
+     * @param event Event
+     * @param tags Tags
+     */
+    private void deliver(final String event, final Collection<String> tags) {
+        for (final Bus.Listener listener : this.listeners) {
+            listener.on(event, tags);
+        }
+    }
+
+    /**
+     * Send an event to other buses, without failing the writer.
+     *
+     * <p>The method is synchronized in order to send versions in order.
+     *
+     * @param event Event
+     * @param tags Tags
+     */
+    private synchronized void send(final String event, final String[] tags) {
+        ++this.version;
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final DataOutputStream data = new DataOutputStream(bytes);
+            data.writeByte(Bus.FORMAT);
+            data.writeLong(this.origin);
+            data.writeLong(this.version);
+            data.writeUTF(event);
+            data.writeByte(tags.length);
+            for (final String tag : tags) {
+                data.writeUTF(tag);
+            }
+            data.flush();
+            for (final Bus.Transport transport : this.transports) {
+                transport.send(bytes.toByteArray());
+            }
+        } catch (final IOException ex) {
+            Logger.warn(
+                this, "failed to send \"%s\" #%d: %s",
+                event, this.version, ex.getMessage()
+            );
+        }
+    }
+
+    /**
+     * Is it a new version of the origin?
+     *
+     * <p>If some versions are skipped, listeners get {@link #LOST}.
+     * The lock is not the one of {@link #send(String, String[])}, since
+     * a loopback transport receives in the thread of another sender.
+     *
+     * @param from Origin
+     * @param ver Version
+     * @return TRUE if it is new
+     */
+    private boolean fresh(final long from, final long ver) {
+        final boolean fresh;
+        synchronized (this.versions) {
+            final Long last = this.versions.get(from);
+            fresh = last == null || ver > last;
+            if (fresh) {
+                if (last != null && ver > last + 1L) {
+                    this.deliver(Bus.LOST, Collections.<String>emptyList());
+                }
+                this.versions.put(from, ver);
+            }
+        }
+        return fresh;
+    }
+
+    /**
+     * Tag of the data shared by all members of a bout: messages,
+     * members and attachments.
+     * @param bout Bout number
+     * @return Tag
+     */
+    public static String bout(final long bout) {
+        return String.format("bout:%d", bout);
+    }
+
+    /**
+     * Tag of the row of a member of a bout: title, subscription,
+     * update time, unread messages and unseen attachments.
+     * @param bout Bout number
+     * @param alias Alias of the member
+     * @return Tag
+     */
+    public static String row(final long bout, final String alias) {
+        return String.format("row:%d:%s", bout, alias);
+    }
+
+    /**
+     * Tag of the inbox of an alias: its bouts and total unread.
+     * @param alias Alias
+     * @return Tag
+     */
+    public static String inbox(final String alias) {
+        return String.format("inbox:%s", alias);
+    }
+
+    /**
+     * Tag of an alias: photo, email and locale.
+     * @param alias Alias
+     * @return Tag
+     */
+    public static String alias(final String alias) {
+        return String.format("alias:%s", alias);
+    }
+
+    /**
+     * Tag of the aliases of a user.
+     * @param urn URN of the user
+     * @return Tag
+     */
+    public static String aliases(final String urn) {
+        return String.format("aliases:%s", urn);
+    }
+
+}
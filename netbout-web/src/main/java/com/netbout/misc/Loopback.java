@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.misc;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.CopyOnWriteArraySet;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Transport of a bus to other buses of the same JVM.
+ *
+ * <p>Every bus attached to one loopback gets packets of all others,
+ * synchronously, in the thread of the sender. Useful for tests and
+ * for a few nodes running in one JVM.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+@ToString(of = "buses")
+@EqualsAndHashCode(of = "buses")
+public final class Loopback implements Bus.Transport {
+
+    /**
+     * Buses attached.
+     */
+    private final transient Collection<Bus> buses;
+
+    /**
+     * Ctor.
+     */
+    public Loopback() {
+        this.buses = new CopyOnWriteArraySet<>();
+    }
+
+    @Override
+    public void open(final Bus bus) {
+        this.buses.add(bus);
+    }
+
+    @Override
+    public void send(final byte[] packet) throws IOException {
+        for (final Bus bus : this.buses) {
+            bus.receive(packet);
+        }
+    }
+
+    @Override
+    public void close() {
+        this.buses.clear();
+    }
+
+}
@@ -24,20 +24,19 @@
  * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
  * SUCH DAMAGE.
  */
-package com.netbout.rest;
+package com.netbout.misc;
 
 import com.jcabi.aspects.Immutable;
 import com.jcabi.aspects.RetryOnFailure;
 import com.jcabi.log.Logger;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.validation.constraints.NotNull;
 import org.apache.commons.codec.CharEncoding;
-import org.apache.commons.io.IOUtils;
 import org.pegdown.Extensions;
 import org.pegdown.PegDownProcessor;
 import org.w3c.tidy.Tidy;
@@ -45,6 +44,11 @@ import org.w3c.tidy.Tidy;
 /**
  * Text with markdown formatting.
  *
+ * <p>Neither PegDown nor Tidy is thread-safe, and a PegDown processor
+ * is expensive to build, so every thread keeps its own instances of
+ * both and reuses them. Threads render in parallel, without locks,
+ * and HTML goes from PegDown to Tidy and back as text, never as bytes.
+ *
  * <p>The class is immutable and thread-safe.
  *
  * @author Yegor Bugayenko (yegor@teamed.io)
@@ -63,9 +67,25 @@ public final class Markdown {
     );
 
     /**
-     * Tidy.
+     * Tidy of the current thread.
      */
-    private static final Tidy TIDY = Markdown.makeTidy();
+    private static final ThreadLocal<Tidy> TIDY = new ThreadLocal<Tidy>() {
+        @Override
+        protected Tidy initialValue() {
+            return Markdown.makeTidy();
+        }
+    };
+
+    /**
+     * PegDown processor of the current thread.
+     */
+    private static final ThreadLocal<PegDownProcessor> PEGDOWN =
+        new ThreadLocal<PegDownProcessor>() {
+            @Override
+            protected PegDownProcessor initialValue() {
+                return new PegDownProcessor(Extensions.ALL);
+            }
+        };
 
     /**
      * Plain link detection pattern.
@@ -94,15 +114,13 @@ public final class Markdown {
      */
     @RetryOnFailure(verbose = true)
     public String html() {
-        synchronized (Markdown.TIDY) {
-            return LINK_WHITESPACE.matcher(
-                Markdown.clean(
-                    new PegDownProcessor(Extensions.ALL).markdownToHtml(
-                        Markdown.formatLinks(this.text)
-                    )
+        return Markdown.LINK_WHITESPACE.matcher(
+            Markdown.clean(
+                Markdown.PEGDOWN.get().markdownToHtml(
+                    Markdown.formatLinks(this.text)
                 )
-            ).replaceAll("$1 $2");
-        }
+            )
+        ).replaceAll("$1 $2");
     }
 
     /**
@@ -111,16 +129,9 @@ public final class Markdown {
      * @return Clean XML
      */
     private static String clean(final String xml) {
-        try {
-            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            Markdown.TIDY.parse(
-                IOUtils.toInputStream(xml, CharEncoding.UTF_8),
-                baos
-            );
-            return baos.toString(CharEncoding.UTF_8);
-        } catch (final IOException ex) {
-            throw new IllegalArgumentException(ex);
-        }
+        final StringWriter html = new StringWriter(xml.length());
+        Markdown.TIDY.get().parse(new StringReader(xml), html);
+        return html.toString();
     }
     /**
      * Make and return a configured Tidy.
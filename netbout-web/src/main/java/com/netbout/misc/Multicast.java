@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.misc;
+
+import com.jcabi.log.Logger;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.MulticastSocket;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * Transport of a bus to other nodes, by UDP multicast.
+ *
+ * <p>Every node joins the same group, sends packets of its bus
+ * to it and delivers packets of other nodes to its bus, in a daemon
+ * thread. Packets are not acknowledged; a lost one is noticed by
+ * the next version of its origin, see {@link Bus#LOST}.
+ *
+ * <p>The class is thread-safe.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+@ToString(of = { "group", "port" })
+@EqualsAndHashCode(of = { "group", "port" })
+public final class Multicast implements Bus.Transport {
+
+    /**
+     * Max size of a packet, in bytes.
+     */
+    private static final int MTU = 1500;
+
+    /**
+     * Multicast group.
+     */
+    private final transient InetAddress group;
+
+    /**
+     * UDP port.
+     */
+    private final transient int port;
+
+    /**
+     * Socket, when open.
+     */
+    private final transient AtomicReference<MulticastSocket> socket;
+
+    /**
+     * Ctor.
+     * @param addr Address of the group, like "239.255.27.1"
+     * @param prt UDP port
+     * @throws IOException If the address is wrong
+     */
+    public Multicast(final String addr, final int prt) throws IOException {
+        this.group = InetAddress.getByName(addr);
+        this.port = prt;
+        this.socket = new AtomicReference<>();
+    }
+
+    @Override
+    @SuppressWarnings("PMD.DoNotUseThreads")
+    public void open(final Bus bus) throws IOException {
+        final MulticastSocket sock = new MulticastSocket(this.port);
+        sock.joinGroup(this.group);
+        if (!this.socket.compareAndSet(null, sock)) {
+            sock.close();
+            throw new IllegalStateException(
+                String.format("%s is open already", this)
+            );
+        }
+        final Thread receiver = new Thread(
+            new Runnable() {
+                @Override
+                public void run() {
+                    Multicast.this.receive(sock, bus);
+                }
+            },
+            String.format("multicast-%d", this.port)
+        );
+        receiver.setDaemon(true);
+        receiver.start();
+    }
+
+    @Override
+    public void send(final byte[] packet) throws IOException {
+        final MulticastSocket sock = this.socket.get();
+        if (sock == null) {
+            throw new IllegalStateException(
+                String.format("%s is not open", this)
+            );
+        }
+        sock.send(
+            new DatagramPacket(packet, packet.length, this.group, this.port)
+        );
+    }
+
+    @Override
+    public void close() throws IOException {
+        final MulticastSocket sock = this.socket.getAndSet(null);
+        if (sock != null) {
+            sock.leaveGroup(this.group);
+            sock.close();
+        }
+    }
+
+    /**
+     * Receive packets, until the socket is closed.
+     * @param sock Socket
+     * @param bus Bus to deliver to
+     */
+    private void receive(final MulticastSocket sock, final Bus bus) {
+        final byte[] buf = new byte[Multicast.MTU];
+        while (!sock.isClosed()) {
+            final DatagramPacket packet = new DatagramPacket(buf, buf.length);
+            try {
+                sock.receive(packet);
+                bus.receive(Arrays.copyOf(buf, packet.getLength()));
+            } catch (final IOException ex) {
+                if (!sock.isClosed()) {
+                    Logger.warn(
+                        this, "failed to receive: %s", ex.getMessage()
+                    );
+                }
+            }
+        }
+    }
+
+}
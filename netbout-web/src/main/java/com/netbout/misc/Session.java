@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.misc;
+
+import com.jcabi.aspects.Tv;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recent writes of the user session, carried by the client.
+ *
+ * <p>Every HTTP request starts with {@link #resume(String)}, which binds
+ * the writes the client reported back to the current thread, and ends
+ * with {@link #token()}, which is sent to the client again. The token
+ * is a list of "key=time" pairs, where the time is when the key was
+ * written, in milliseconds. Writes older than {@link #TTL} are dropped,
+ * so the token stays short. That's how any node of the cluster knows
+ * what the session wrote lately, without sticky sessions. Threads that
+ * never resume a session, like background writers, have their own
+ * writes only.
+ *
+ * <p>The class is thread-safe, since every thread has its own writes.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+public final class Session {
+
+    /**
+     * How long a write is remembered, in milliseconds.
+     */
+    public static final long TTL = TimeUnit.SECONDS.toMillis((long) Tv.TEN);
+
+    /**
+     * Times of writes, by keys, of every thread.
+     */
+    private static final ThreadLocal<Map<String, Long>> WRITES =
+        new ThreadLocal<Map<String, Long>>() {
+            @Override
+            protected Map<String, Long> initialValue() {
+                return new HashMap<>(0);
+            }
+        };
+
+    /**
+     * Utility class.
+     */
+    private Session() {
+        // intentionally empty
+    }
+
+    /**
+     * Bind writes of the session to the current thread.
+     *
+     * <p>The token comes from the client, that's why broken pairs are
+     * ignored and only the first {@link Tv#HUNDRED} pairs are taken.
+     *
+     * @param token Token made by {@link #token()} or empty
+     */
+    public static void resume(final String token) {
+        final Map<String, Long> writes = Session.WRITES.get();
+        writes.clear();
+        for (final String pair : token.split("/", Tv.HUNDRED)) {
+            final String[] parts = pair.split("=");
+            if (parts.length == 2 && parts[1].matches("[0-9]{1,18}")) {
+                writes.put(parts[0], Long.parseLong(parts[1]));
+            }
+        }
+    }
+
+    /**
+     * Token of recent writes of the current thread.
+     * @return Token, empty if nothing was written lately
+     */
+    public static String token() {
+        final StringBuilder token = new StringBuilder(0);
+        for (final Map.Entry<String, Long> write
+            : Session.WRITES.get().entrySet()) {
+            if (Session.recent(write.getValue())) {
+                if (token.length() > 0) {
+                    token.append('/');
+                }
+                token.append(write.getKey()).append('=')
+                    .append(write.getValue());
+            }
+        }
+        return token.toString();
+    }
+
+    /**
+     * The key was just written.
+     * @param key Key, without "=" and "/"
+     * @return Time of the write
+     */
+    public static long wrote(final String key) {
+        final long time = System.currentTimeMillis();
+        Session.WRITES.get().put(key, time);
+        return time;
+    }
+
+    /**
+     * When the key was written, if lately.
+     * @param key Key
+     * @return Time of the write or zero if not written lately
+     */
+    public static long written(final String key) {
+        final Long time = Session.WRITES.get().get(key);
+        long written = 0L;
+        if (time != null && Session.recent(time)) {
+            written = time;
+        }
+        return written;
+    }
+
+    /**
+     * Is it recent enough?
+     * @param time Time of a write
+     * @return TRUE if it is
+     */
+    private static boolean recent(final long time) {
+        return System.currentTimeMillis() - time < Session.TTL;
+    }
+
+}
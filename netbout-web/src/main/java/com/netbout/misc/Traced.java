@@ -0,0 +1,211 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.misc;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Iterables;
+import com.netbout.spi.Base;
+import com.netbout.spi.Pageable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Traced SPI objects.
+ *
+ * <p>Wraps an object of SPI and everything it returns, including items
+ * of iterables and pages, so that every call of an SPI method goes
+ * through the {@link Tracer}. Methods of {@link Object} are not traced.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+public final class Traced implements InvocationHandler {
+
+    /**
+     * SPI interfaces of classes, already found.
+     */
+    private static final ConcurrentMap<Class<?>, Class<?>[]> TYPES =
+        new ConcurrentHashMap<>(0);
+
+    /**
+     * Tracer.
+     */
+    private final transient Tracer tracer;
+
+    /**
+     * Scope.
+     */
+    private final transient String scope;
+
+    /**
+     * Original object.
+     */
+    private final transient Object origin;
+
+    /**
+     * Ctor.
+     * @param trc Tracer
+     * @param scp Scope, like "dynamo"
+     * @param obj Original object
+     */
+    private Traced(final Tracer trc, final String scp, final Object obj) {
+        this.tracer = trc;
+        this.scope = scp;
+        this.origin = obj;
+    }
+
+    /**
+     * Traced base.
+     * @param tracer Tracer
+     * @param scope Scope, like "dynamo"
+     * @param base Original base
+     * @return Base
+     */
+    public static Base base(final Tracer tracer, final String scope,
+        final Base base) {
+        return Base.class.cast(Traced.wrap(tracer, scope, base));
+    }
+
+    @Override
+    public Object invoke(final Object proxy, final Method method,
+        final Object[] args) throws Throwable {
+        final Object result;
+        if (method.getDeclaringClass().equals(Object.class)) {
+            result = Traced.call(this.origin, method, args);
+        } else {
+            final Tracer.Span span = this.tracer.start(this.scope, method);
+            boolean failed = true;
+            try {
+                result = Traced.wrap(
+                    this.tracer, this.scope,
+                    Traced.call(this.origin, method, args)
+                );
+                failed = false;
+            } finally {
+                span.end(failed);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Wrap the object, if it is from SPI.
+     * @param tracer Tracer
+     * @param scope Scope
+     * @param object The object or NULL
+     * @return Wrapped object or the same object
+     */
+    @SuppressWarnings("unchecked")
+    private static Object wrap(final Tracer tracer, final String scope,
+        final Object object) {
+        Object wrapped = object;
+        if (object instanceof Pageable.Page) {
+            final Pageable.Page<Object> page = (Pageable.Page<Object>) object;
+            wrapped = new Pageable.Page<Object>(
+                Traced.wrap(tracer, scope, page.items()), page.cursor()
+            );
+        } else if (object != null) {
+            final Class<?>[] types = Traced.types(object.getClass());
+            if (types.length > 0) {
+                wrapped = Proxy.newProxyInstance(
+                    Traced.class.getClassLoader(), types,
+                    new Traced(tracer, scope, object)
+                );
+            } else if (object instanceof Iterable) {
+                wrapped = Traced.wrap(tracer, scope, (Iterable<Object>) object);
+            }
+        }
+        return wrapped;
+    }
+
+    /**
+     * Wrap all items of the iterable, lazily.
+     * @param tracer Tracer
+     * @param scope Scope
+     * @param items Items
+     * @return Wrapped items
+     */
+    private static Iterable<Object> wrap(final Tracer tracer,
+        final String scope, final Iterable<Object> items) {
+        return Iterables.transform(
+            items,
+            new Function<Object, Object>() {
+                @Override
+                public Object apply(final Object item) {
+                    return Traced.wrap(tracer, scope, item);
+                }
+            }
+        );
+    }
+
+    /**
+     * SPI interfaces of the class.
+     * @param type The class
+     * @return Interfaces, maybe empty
+     */
+    private static Class<?>[] types(final Class<?> type) {
+        Class<?>[] types = Traced.TYPES.get(type);
+        if (types == null) {
+            final Collection<Class<?>> all = new LinkedHashSet<>(0);
+            for (Class<?> cls = type; cls != null; cls = cls.getSuperclass()) {
+                for (final Class<?> iface : cls.getInterfaces()) {
+                    if (iface.getPackage().equals(Base.class.getPackage())) {
+                        all.add(iface);
+                    }
+                }
+            }
+            types = all.toArray(new Class<?>[all.size()]);
+            Traced.TYPES.putIfAbsent(type, types);
+        }
+        return types;
+    }
+
+    /**
+     * Call the method of the object.
+     * @param object The object
+     * @param method The method
+     * @param args Arguments
+     * @return Result
+     * @throws Throwable If fails
+     */
+    private static Object call(final Object object, final Method method,
+        final Object[] args) throws Throwable {
+        try {
+            return method.invoke(object, args);
+        } catch (final InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+}
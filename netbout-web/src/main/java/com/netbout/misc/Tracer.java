@@ -0,0 +1,305 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.misc;
+
+import com.jcabi.aspects.Tv;
+import java.lang.reflect.Method;
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sampling tracer.
+ *
+ * <p>One of every N top-level calls in a thread is sampled, together with
+ * all calls nested into it. Spans of sampled calls are stored in a ring
+ * buffer, allocated once, where the newest spans overwrite the oldest.
+ * Calls which are not sampled cost a thread-local lookup and nothing
+ * else: no objects, no clock, no strings. Spans are turned into text
+ * only when somebody asks for them, see {@link #print(StringBuilder)}.
+ *
+ * <p>The class is thread-safe. Spans written while the buffer is being
+ * printed may show up half-written, which is fine for diagnostics.
+ *
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+public final class Tracer {
+
+    /**
+     * Sample one of every so many top-level calls, or none if zero.
+     */
+    private final transient int every;
+
+    /**
+     * Spans ever recorded.
+     */
+    private final transient AtomicLong next;
+
+    /**
+     * Context of every thread.
+     */
+    private final transient ThreadLocal<Tracer.Context> context;
+
+    /**
+     * Scopes of spans in the ring.
+     */
+    private final transient String[] scopes;
+
+    /**
+     * Methods of spans in the ring.
+     */
+    private final transient Method[] methods;
+
+    /**
+     * Start times of spans in the ring, in milliseconds.
+     */
+    private final transient long[] starts;
+
+    /**
+     * Durations of spans in the ring, in nanoseconds.
+     */
+    private final transient long[] nanos;
+
+    /**
+     * Depths of spans in the ring.
+     */
+    private final transient int[] depths;
+
+    /**
+     * Threads of spans in the ring.
+     */
+    private final transient long[] threads;
+
+    /**
+     * Failures of spans in the ring.
+     */
+    private final transient boolean[] failures;
+
+    /**
+     * Ctor.
+     */
+    public Tracer() {
+        this(Tv.THOUSAND, Tv.HUNDRED);
+    }
+
+    /**
+     * Ctor.
+     * @param capacity How many spans to keep
+     * @param sample Sample one of every so many calls, or none if zero
+     */
+    public Tracer(final int capacity, final int sample) {
+        this.every = sample;
+        this.next = new AtomicLong();
+        this.context = new ThreadLocal<Tracer.Context>() {
+            @Override
+            protected Tracer.Context initialValue() {
+                return new Tracer.Context();
+            }
+        };
+        this.scopes = new String[capacity];
+        this.methods = new Method[capacity];
+        this.starts = new long[capacity];
+        this.nanos = new long[capacity];
+        this.depths = new int[capacity];
+        this.threads = new long[capacity];
+        this.failures = new boolean[capacity];
+    }
+
+    /**
+     * Start a span.
+     * @param scope Scope, like "dynamo"
+     * @param method Method called
+     * @return Span, to end when the call is over
+     */
+    public Tracer.Span start(final String scope, final Method method) {
+        final Tracer.Context ctx = this.context.get();
+        if (ctx.depth == 0) {
+            ctx.sampled = this.every > 0
+                && ThreadLocalRandom.current().nextInt(this.every) == 0;
+        }
+        ++ctx.depth;
+        final Tracer.Span span;
+        if (ctx.sampled) {
+            span = new Tracer.Live(this, ctx, scope, method);
+        } else {
+            span = ctx;
+        }
+        return span;
+    }
+
+    /**
+     * Print spans, the newest first.
+     * @param out Where to print
+     */
+    public void print(final StringBuilder out) {
+        final long last = this.next.get();
+        final int total = (int) Math.min(last, (long) this.scopes.length);
+        for (int idx = 1; idx <= total; ++idx) {
+            final int slot = (int) ((last - idx) % (long) this.scopes.length);
+            if (this.methods[slot] != null) {
+                this.line(out, slot);
+            }
+        }
+    }
+
+    /**
+     * Print one span.
+     * @param out Where to print
+     * @param slot Its slot in the ring
+     */
+    private void line(final StringBuilder out, final int slot) {
+        final Method method = this.methods[slot];
+        out.append(
+            String.format("%tFT%<tT.%<tL ", new Date(this.starts[slot]))
+        );
+        for (int depth = 1; depth < this.depths[slot]; ++depth) {
+            out.append("  ");
+        }
+        out.append(
+            String.format(
+                "%s %s.%s %.3fms #%d",
+                this.scopes[slot],
+                method.getDeclaringClass().getSimpleName(),
+                method.getName(),
+                (double) this.nanos[slot]
+                    / (double) TimeUnit.MILLISECONDS.toNanos(1L),
+                this.threads[slot]
+            )
+        );
+        if (this.failures[slot]) {
+            out.append(" failed");
+        }
+        out.append('\n');
+    }
+
+    /**
+     * Save the span into the ring.
+     * @param span The span
+     * @param failed Did it fail?
+     */
+    private void save(final Tracer.Live span, final boolean failed) {
+        final int slot = (int) (this.next.getAndIncrement()
+            % (long) this.scopes.length);
+        this.scopes[slot] = span.scope;
+        this.methods[slot] = span.method;
+        this.starts[slot] = span.time;
+        this.nanos[slot] = System.nanoTime() - span.start;
+        this.depths[slot] = span.depth;
+        this.threads[slot] = Thread.currentThread().getId();
+        this.failures[slot] = failed;
+    }
+
+    /**
+     * Span of a call.
+     */
+    public interface Span {
+        /**
+         * The call is over.
+         * @param failed Did it fail?
+         */
+        void end(boolean failed);
+    }
+
+    /**
+     * Context of a thread, which is also a span of calls not sampled.
+     */
+    private static final class Context implements Tracer.Span {
+        /**
+         * Depth of the current call.
+         */
+        private transient int depth;
+        /**
+         * Is the current top-level call sampled?
+         */
+        private transient boolean sampled;
+        @Override
+        public void end(final boolean failed) {
+            --this.depth;
+        }
+    }
+
+    /**
+     * Span of a sampled call.
+     */
+    private static final class Live implements Tracer.Span {
+        /**
+         * Tracer.
+         */
+        private final transient Tracer tracer;
+        /**
+         * Context of the thread.
+         */
+        private final transient Tracer.Context ctx;
+        /**
+         * Scope.
+         */
+        private final transient String scope;
+        /**
+         * Method.
+         */
+        private final transient Method method;
+        /**
+         * Start time, in milliseconds.
+         */
+        private final transient long time;
+        /**
+         * Start time, in nanoseconds.
+         */
+        private final transient long start;
+        /**
+         * Depth.
+         */
+        private final transient int depth;
+        /**
+         * Ctor.
+         * @param trc Tracer
+         * @param context Context of the thread
+         * @param scp Scope
+         * @param mtd Method
+         * @checkstyle ParameterNumberCheck (5 lines)
+         */
+        Live(final Tracer trc, final Tracer.Context context,
+            final String scp, final Method mtd) {
+            this.tracer = trc;
+            this.ctx = context;
+            this.scope = scp;
+            this.method = mtd;
+            this.time = System.currentTimeMillis();
+            this.start = System.nanoTime();
+            this.depth = context.depth;
+        }
+        @Override
+        public void end(final boolean failed) {
+            this.tracer.save(this, failed);
+            this.ctx.end(failed);
+        }
+    }
+
+}
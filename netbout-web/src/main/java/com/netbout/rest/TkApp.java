@@ -28,6 +28,7 @@ package com.netbout.rest;
 
 import com.jcabi.log.VerboseProcess;
 import com.jcabi.manifests.Manifests;
+import com.netbout.misc.Tracer;
 import com.netbout.rest.account.TkAccount;
 import com.netbout.rest.bout.TkBout;
 import com.netbout.rest.login.TkLogin;
@@ -97,6 +98,17 @@ public final class TkApp extends TkWrap {
         this(base, new Opt.Empty<Pass>());
     }
 
+    /**
+     * Ctor.
+     * @param base Base
+     * @param tracer Tracer, to show its spans
+     * @throws IOException If fails
+     * @since 3.0
+     */
+    public TkApp(final Base base, final Tracer tracer) throws IOException {
+        super(TkApp.make(base, new Opt.Empty<Pass>(), tracer));
+    }
+
     /**
      * Ctor.
      * @param base Base
@@ -104,18 +116,19 @@ public final class TkApp extends TkWrap {
      * @throws IOException If fails
      */
     public TkApp(final Base base, final Opt<Pass> pass) throws IOException {
-        super(TkApp.make(base, pass));
+        super(TkApp.make(base, pass, new Tracer()));
     }
 
     /**
      * Ctor.
      * @param base Base
      * @param pass Last Pass to be executed by the TkAppAuth
+     * @param tracer Tracer
      * @return Take
      * @throws IOException If fails
      */
-    private static Take make(final Base base, final Opt<Pass> pass)
-        throws IOException {
+    private static Take make(final Base base, final Opt<Pass> pass,
+        final Tracer tracer) throws IOException {
         if (!"UTF-8".equals(Charset.defaultCharset().name())) {
             throw new IllegalStateException(
                 String.format(
@@ -126,12 +139,12 @@ public final class TkApp extends TkWrap {
         TkAppAuth auth;
         if (pass.has()) {
             auth = new TkAppAuth(
-                TkApp.regex(base),
+                TkApp.regex(base, tracer),
                 pass.get()
             );
         } else {
             auth = new TkAppAuth(
-                TkApp.regex(base)
+                TkApp.regex(base, tracer)
             );
         }
         return new TkWithHeaders(
@@ -139,7 +152,7 @@ public final class TkApp extends TkWrap {
                 new TkMeasured(
                     new TkFlash(
                         new TkAppFallback(
-                            new TkForward(auth)
+                            new TkSession(new TkForward(auth))
                         )
                     )
                 )
@@ -152,10 +165,12 @@ public final class TkApp extends TkWrap {
     /**
      * Regex takes.
      * @param base Base
+     * @param tracer Tracer
      * @return Take
      * @throws IOException If fails
      */
-    private static Take regex(final Base base) throws IOException {
+    private static Take regex(final Base base, final Tracer tracer)
+        throws IOException {
         return new TkFork(
             new FkParams(
                 PsByFlag.class.getSimpleName(),
@@ -163,6 +178,8 @@ public final class TkApp extends TkWrap {
                 new TkRedirect()
             ),
             new FkRegex("/robots.txt", ""),
+            new FkRegex("/metrics", new TkMetrics()),
+            new FkRegex("/trace", new TkTrace(tracer)),
             new FkRegex(
                 "/xsl/[a-z\\-]+\\.xsl",
                 new TkWithType(
@@ -33,17 +33,15 @@ import com.netbout.spi.Base;
 import com.netbout.spi.Bout;
 import eu.medsea.mimeutil.MimeUtil;
 import eu.medsea.mimeutil.detector.MagicMimeMimeDetector;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URLDecoder;
 import java.util.Collection;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.apache.commons.codec.CharEncoding;
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CountingInputStream;
 import org.takes.Request;
 import org.takes.Response;
 import org.takes.Take;
@@ -106,8 +104,9 @@ final class TkAttach implements Take {
             matcher.group(5),
             CharEncoding.UTF_8
         );
-        final File temp = File.createTempFile("netbout", "bin");
-        IOUtils.copy(file.body(), new FileOutputStream(temp));
+        final InputStream body = new BufferedInputStream(file.body());
+        final String ctype = TkAttach.ctype(body);
+        final CountingInputStream input = new CountingInputStream(body);
         final Bout bout = new RqBout(this.base, req).bout();
         final StringBuilder msg = new StringBuilder(Tv.HUNDRED);
         if (new Attachments.Search(bout.attachments()).exists(name)) {
@@ -120,29 +119,28 @@ final class TkAttach implements Take {
             }
             msg.append(String.format("attachment \"%s\" uploaded", name));
         }
-        final String ctype = TkAttach.ctype(temp);
-        msg.append(" (").append(temp.length())
-            .append(" bytes, ").append(ctype).append(')');
         try {
             bout.attachments().get(name).write(
-                new FileInputStream(temp),
-                ctype, Long.toString(System.currentTimeMillis())
+                input, ctype, Long.toString(System.currentTimeMillis())
             );
         } catch (final Attachment.TooBigException
             | Attachment.BrokenContentException ex) {
             throw new RsFailure(ex);
+        } finally {
+            input.close();
         }
-        FileUtils.forceDelete(temp);
+        msg.append(" (").append(input.getByteCount())
+            .append(" bytes, ").append(ctype).append(')');
         throw new RsForward(new RsFlash(msg.toString()));
     }
 
     /**
-     * Get CType of file.
-     * @param file File
+     * Get CType of content, by its first bytes.
+     * @param stream Stream that supports mark/reset
      * @return MIME type
      */
-    private static String ctype(final File file) {
-        final Collection<?> ctypes = MimeUtil.getMimeTypes(file);
+    private static String ctype(final InputStream stream) {
+        final Collection<?> ctypes = MimeUtil.getMimeTypes(stream);
         final String ctype;
         if (ctypes.isEmpty()) {
             ctype = "application/octet-stream";
@@ -26,27 +26,70 @@
  */
 package com.netbout.rest.bout;
 
+import com.jcabi.aspects.Tv;
+import com.jcabi.log.Logger;
 import com.netbout.spi.Attachment;
 import com.netbout.spi.Base;
 import com.netbout.spi.Bout;
 import java.io.IOException;
+import java.net.HttpURLConnection;
 import java.net.URLEncoder;
+import java.text.ParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import org.apache.commons.lang3.CharEncoding;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.time.FastDateFormat;
 import org.takes.Request;
 import org.takes.Response;
 import org.takes.Take;
+import org.takes.rq.RqHeaders;
 import org.takes.rq.RqHref;
 import org.takes.rs.RsFluent;
 
 /**
  * Download.
  *
+ * <p>Content is streamed to the client as is, without reading it into
+ * memory. When its length is known, "Content-Length" is sent and a single
+ * byte range ("Range: bytes=first-last") is supported.
+ *
+ * <p>Conditional requests are supported: if "If-None-Match" has
+ * the etag of the attachment, 304 is returned without reading the content;
+ * "If-Modified-Since" is checked against the date of the last upload.
+ * The response may be cached only by the browser, and only after
+ * revalidation.
+ *
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 2.14
  */
 final class TkDownload implements Take {
 
+    /**
+     * HTTP status "Requested Range Not Satisfiable".
+     */
+    private static final int UNSATISFIABLE = 416;
+
+    /**
+     * Format of HTTP dates.
+     */
+    private static final FastDateFormat HTTP_DATE = FastDateFormat.getInstance(
+        "EEE, dd MMM yyyy HH:mm:ss 'GMT'",
+        TimeZone.getTimeZone("GMT"),
+        Locale.ENGLISH
+    );
+
+    /**
+     * Single byte range.
+     */
+    private static final Pattern RANGE = Pattern.compile(
+        "bytes=(\\d*)-(\\d*)"
+    );
+
     /**
      * Base.
      */
@@ -66,16 +109,184 @@ final class TkDownload implements Take {
         final Attachment attachment = bout.attachments().get(
             new RqHref.Smart(new RqHref.Base(req)).single("name")
         );
-        return new RsFluent()
-            .withBody(attachment.read())
-            .withHeader(
-                "Content-Disposition",
-                String.format(
-                    "attachment; filename=\"%s\"",
-                    URLEncoder.encode(attachment.name(), CharEncoding.UTF_8)
-                )
-            )
-            .withType(attachment.ctype());
+        final RqHeaders headers = new RqHeaders.Base(req);
+        final String etag = attachment.etag();
+        RsFluent response = new RsFluent()
+            .withHeader("Cache-Control", "private, no-cache");
+        if (!etag.isEmpty()) {
+            response = response.withHeader(
+                "ETag", String.format("\"%s\"", etag)
+            );
+        }
+        final Response answer;
+        if (TkDownload.matches(headers.header("If-None-Match"), etag)) {
+            answer = response.withStatus(HttpURLConnection.HTTP_NOT_MODIFIED);
+        } else {
+            answer = TkDownload.content(
+                response
+                    .withHeader(
+                        "Content-Disposition",
+                        String.format(
+                            "attachment; filename=\"%s\"",
+                            URLEncoder.encode(
+                                attachment.name(), CharEncoding.UTF_8
+                            )
+                        )
+                    )
+                    .withType(attachment.ctype()),
+                attachment,
+                headers
+            );
+        }
+        return answer;
+    }
+
+    /**
+     * Response with the content.
+     * @param response Response so far
+     * @param attachment The attachment
+     * @param headers Request headers
+     * @return Response
+     * @throws IOException If fails
+     */
+    private static Response content(final RsFluent response,
+        final Attachment attachment, final RqHeaders headers)
+        throws IOException {
+        final long modified = attachment.date().getTime();
+        RsFluent dated = response;
+        if (modified > 0L) {
+            dated = dated.withHeader(
+                "Last-Modified", TkDownload.HTTP_DATE.format(modified)
+            );
+        }
+        final long total = attachment.length();
+        final Response answer;
+        if (TkDownload.unmodified(headers, modified)) {
+            answer = dated.withStatus(HttpURLConnection.HTTP_NOT_MODIFIED);
+        } else if (total < 0L) {
+            answer = dated.withBody(attachment.read());
+        } else {
+            answer = TkDownload.sized(
+                dated.withHeader("Accept-Ranges", "bytes"),
+                attachment, total, headers.header("Range")
+            );
+        }
+        return answer;
+    }
+
+    /**
+     * Does any of "If-None-Match" values match the etag?
+     * @param values Values of "If-None-Match" header
+     * @param etag ETag of the attachment, maybe empty
+     * @return TRUE if the client has this version already
+     */
+    private static boolean matches(final Iterable<String> values,
+        final String etag) {
+        boolean matches = false;
+        if (!etag.isEmpty()) {
+            for (final String value : values) {
+                for (final String tag : value.split(",")) {
+                    final String clean = StringUtils.removeStart(
+                        tag.trim(), "W/"
+                    );
+                    if ("*".equals(clean)
+                        || clean.equals(String.format("\"%s\"", etag))) {
+                        matches = true;
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Was it modified since the date in "If-Modified-Since" header?
+     *
+     * <p>The header is ignored if "If-None-Match" is present,
+     * as RFC 7232 requires.
+     *
+     * @param headers Request headers
+     * @param modified Date of the last modification, or zero if unknown
+     * @return TRUE if the client has this version already
+     * @throws IOException If fails
+     */
+    private static boolean unmodified(final RqHeaders headers,
+        final long modified) throws IOException {
+        final List<String> since = headers.header("If-Modified-Since");
+        boolean unmodified = false;
+        if (modified > 0L && since.size() == 1
+            && headers.header("If-None-Match").isEmpty()) {
+            try {
+                unmodified = modified / Tv.THOUSAND
+                    <= TkDownload.HTTP_DATE.parse(since.get(0)).getTime()
+                    / Tv.THOUSAND;
+            } catch (final ParseException ex) {
+                Logger.debug(
+                    TkDownload.class, "invalid If-Modified-Since: %s",
+                    ex.getLocalizedMessage()
+                );
+            }
+        }
+        return unmodified;
+    }
+
+    /**
+     * Response with the content of known length, full or its range.
+     *
+     * <p>Only the requested range is read from the storage.
+     *
+     * @param response Response so far
+     * @param attachment The attachment
+     * @param total Length of its content
+     * @param ranges Values of "Range" header
+     * @return Response
+     * @throws IOException If fails
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private static RsFluent sized(final RsFluent response,
+        final Attachment attachment, final long total,
+        final List<String> ranges) throws IOException {
+        Matcher matcher = TkDownload.RANGE.matcher("");
+        if (ranges.size() == 1) {
+            matcher = TkDownload.RANGE.matcher(ranges.get(0));
+        }
+        final RsFluent answer;
+        if (matcher.matches()
+            && !(matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+            final long first;
+            long last = total - 1L;
+            if (matcher.group(1).isEmpty()) {
+                first = Math.max(0L, total - Long.parseLong(matcher.group(2)));
+            } else {
+                first = Long.parseLong(matcher.group(1));
+                if (!matcher.group(2).isEmpty()) {
+                    last = Math.min(last, Long.parseLong(matcher.group(2)));
+                }
+            }
+            if (first > last) {
+                answer = response
+                    .withStatus(TkDownload.UNSATISFIABLE)
+                    .withHeader(
+                        "Content-Range", String.format("bytes */%d", total)
+                    );
+            } else {
+                answer = response
+                    .withStatus(HttpURLConnection.HTTP_PARTIAL)
+                    .withHeader(
+                        "Content-Range",
+                        String.format("bytes %d-%d/%d", first, last, total)
+                    )
+                    .withHeader(
+                        "Content-Length", Long.toString(last - first + 1L)
+                    )
+                    .withBody(attachment.read(first, last));
+            }
+        } else {
+            answer = response
+                .withHeader("Content-Length", Long.toString(total))
+                .withBody(attachment.read());
+        }
+        return answer;
     }
 
 }
@@ -26,7 +26,6 @@
  */
 package com.netbout.rest.bout;
 
-import com.google.common.collect.Iterables;
 import com.netbout.rest.RsPage;
 import com.netbout.spi.Attachment;
 import com.netbout.spi.Base;
@@ -35,6 +34,7 @@ import com.netbout.spi.Friend;
 import com.netbout.spi.Inbox;
 import com.netbout.spi.Message;
 import com.netbout.spi.Messages;
+import com.netbout.spi.Pageable;
 import java.io.IOException;
 import org.apache.commons.lang3.StringUtils;
 import org.takes.Request;
@@ -78,6 +78,7 @@ final class TkIndex implements Take {
             "q", ""
         );
         final Bout bout = new RqBout(this.base, req).bout();
+        final Pageable.Page<Message> page = this.messages(bout, req, query);
         final Href home = new Href("/b").path(bout.number());
         return new RsPage(
             "/xsl/bout.xsl",
@@ -126,12 +127,14 @@ final class TkIndex implements Take {
                 new XeAppend(
                     "messages",
                     new XeTransform<>(
-                        this.messages(bout, req, query),
+                        page.items(),
                         new XeTransform.Func<Message>() {
                             @Override
                             public XeSource transform(final Message msg)
                                 throws IOException {
-                                return new XeMessage(bout, msg);
+                                return new XeMessage(
+                                    bout, msg, page.cursor()
+                                );
                             }
                         }
                     )
@@ -151,30 +154,33 @@ final class TkIndex implements Take {
     }
     /**
      * Returns searched or paginated messages.
+     *
+     * <p>Pages after the first one are read by the cursor of the previous
+     * page, which DynamoDB resumes from without skipping anything.
+     *
      * @param bout Bout
      * @param req Request to use
      * @param query Search term
-     * @return Messages
+     * @return Page of messages
      * @throws IOException If fails
      */
-    private Iterable<Message> messages(final Bout bout, final Request req,
-        final String query) throws IOException {
-        final Iterable<Message> messages;
+    private Pageable.Page<Message> messages(final Bout bout,
+        final Request req, final String query) throws IOException {
+        final Pageable.Page<Message> page;
         if (StringUtils.isBlank(query)) {
+            final RqHref.Smart href = new RqHref.Smart(new RqHref.Base(req));
             final long start = Long.parseLong(
-                new RqHref.Smart(new RqHref.Base(req)).single(
-                    "start",
-                    Long.toString(Inbox.NEVER)
-                )
+                href.single("start", Long.toString(Inbox.NEVER))
             );
-            messages = Iterables.limit(
-                bout.messages().jump(start).iterate(),
-                Messages.PAGE
+            page = bout.messages().jump(start).page(
+                href.single("cursor", Pageable.FIRST), Messages.PAGE
             );
         } else {
-            messages = bout.messages().search(query);
+            page = new Pageable.Page<Message>(
+                bout.messages().search(query), Pageable.FIRST
+            );
         }
-        return messages;
+        return page;
     }
 
 }
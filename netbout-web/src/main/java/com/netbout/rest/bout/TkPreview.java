@@ -26,7 +26,7 @@
  */
 package com.netbout.rest.bout;
 
-import com.netbout.rest.Markdown;
+import com.netbout.misc.Markdown;
 import java.io.IOException;
 import org.takes.Request;
 import org.takes.Response;
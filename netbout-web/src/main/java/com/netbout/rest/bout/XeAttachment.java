@@ -26,7 +26,10 @@
  */
 package com.netbout.rest.bout;
 
-import com.netbout.rest.Markdown;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.jcabi.aspects.Tv;
+import com.netbout.misc.Markdown;
 import com.netbout.spi.Attachment;
 import com.netbout.spi.Bout;
 import java.io.IOException;
@@ -49,6 +52,15 @@ import org.xembly.Xembler;
 /**
  * Attachment in Xembly.
  *
+ * <p>Preview of a markdown attachment is rendered right into the page
+ * of the bout, together with messages and unread counters, which change
+ * independently of the attachment. That's why the preview is not
+ * validated by ETag or Last-Modified: a 304 for the page would hide new
+ * messages. Instead, rendered HTML is cached on the server by etag of
+ * the attachment (see {@link #html(Bout, Attachment)}), while
+ * conditional GET is supported for the attachment itself, by
+ * {@link TkDownload}.
+ *
  * @author Yegor Bugayenko (yegor@teamed.io)
  * @version $Id$
  * @since 2.14
@@ -57,6 +69,14 @@ import org.xembly.Xembler;
  */
 final class XeAttachment extends XeWrap {
 
+    /**
+     * Rendered markdown attachments, by bout number, name and etag.
+     */
+    private static final Cache<String, String> HTML = CacheBuilder
+        .newBuilder()
+        .maximumSize((long) Tv.HUNDRED)
+        .build();
+
     /**
      * Ctor.
      * @param req Request
@@ -125,14 +145,7 @@ final class XeAttachment extends XeWrap {
                     @Override
                     public Iterable<Directive> toXembly() throws IOException {
                         return new Directives().add("html").set(
-                            Xembler.escape(
-                                new Markdown(
-                                    IOUtils.toString(
-                                        atmt.read(),
-                                        CharEncoding.UTF_8
-                                    )
-                                ).html()
-                            )
+                            Xembler.escape(XeAttachment.html(bout, atmt))
                         );
                     }
                 }
@@ -140,4 +153,34 @@ final class XeAttachment extends XeWrap {
         );
     }
 
+    /**
+     * Render markdown attachment into HTML.
+     *
+     * <p>HTML is cached by etag, so the content is not read again while
+     * it stays the same. Unseen attachments are always read, in order
+     * to mark them as seen.
+     *
+     * @param bout Bout
+     * @param atmt Attachment
+     * @return HTML
+     * @throws IOException If fails
+     */
+    private static String html(final Bout bout, final Attachment atmt)
+        throws IOException {
+        final String etag = atmt.etag();
+        final String key = String.format(
+            "%d %s %s", bout.number(), atmt.name(), etag
+        );
+        String html = XeAttachment.HTML.getIfPresent(key);
+        if (html == null || etag.isEmpty() || atmt.unseen()) {
+            html = new Markdown(
+                IOUtils.toString(atmt.read(), CharEncoding.UTF_8)
+            ).html();
+            if (!etag.isEmpty()) {
+                XeAttachment.HTML.put(key, html);
+            }
+        }
+        return html;
+    }
+
 }
@@ -26,10 +26,16 @@
  */
 package com.netbout.rest.bout;
 
-import com.netbout.rest.Markdown;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.jcabi.aspects.Tv;
+import com.netbout.misc.Markdown;
 import com.netbout.spi.Bout;
 import com.netbout.spi.Message;
+import com.netbout.spi.Rendered;
 import java.io.IOException;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.time.DateFormatUtils;
 import org.ocpsoft.prettytime.PrettyTime;
 import org.takes.misc.Href;
@@ -52,26 +58,52 @@ import org.xembly.Xembler;
  */
 final class XeMessage extends XeWrap {
 
+    /**
+     * Rendered messages, by bout, number and digest of the text,
+     * weighed by length of HTML.
+     */
+    private static final Cache<String, String> HTML = CacheBuilder
+        .newBuilder()
+        .maximumWeight((long) Tv.TEN * (long) Tv.MILLION)
+        .weigher(
+            new Weigher<String, String>() {
+                @Override
+                public int weigh(final String key, final String html) {
+                    return key.length() + html.length();
+                }
+            }
+        )
+        .build();
+
     /**
      * Ctor.
      * @param bout Bout
      * @param msg Message
+     * @param cursor Cursor of the next page, maybe empty
      * @throws IOException In case of failure
      */
-    XeMessage(final Bout bout, final Message msg)
+    XeMessage(final Bout bout, final Message msg, final String cursor)
         throws IOException {
-        super(XeMessage.make(bout, msg));
+        super(XeMessage.make(bout, msg, cursor));
     }
 
     /**
      * Convert message to Xembly source.
      * @param bout Bout
      * @param msg Message
+     * @param cursor Cursor of the next page, maybe empty
      * @return Xembly source
      * @throws IOException In case of failure
      */
-    private static XeSource make(final Bout bout, final Message msg)
-        throws IOException {
+    private static XeSource make(final Bout bout, final Message msg,
+        final String cursor) throws IOException {
+        final Href home = new Href().path("b").path(bout.number());
+        final Href more;
+        if (cursor.isEmpty()) {
+            more = home.with("start", msg.number());
+        } else {
+            more = home.with("cursor", cursor);
+        }
         return new XeAppend(
             "message",
             new XeDirectives(
@@ -82,7 +114,7 @@ final class XeMessage extends XeWrap {
                     .add("author").set(Xembler.escape(msg.author())).up()
                     .add("text").set(Xembler.escape(msg.text())).up()
                     .add("html")
-                    .set(Xembler.escape(new Markdown(msg.text()).html())).up()
+                    .set(Xembler.escape(XeMessage.html(bout, msg))).up()
                     .add("timeago")
                     .set(new PrettyTime().format(msg.date())).up()
                     .add("date")
@@ -98,13 +130,43 @@ final class XeMessage extends XeWrap {
                     String.format("%s.png", msg.author())
                 )
             ),
-            new XeLink(
-                "more",
-                new Href().path("b")
-                    .path(bout.number())
-                    .with("start", msg.number())
-            )
+            new XeLink("more", more)
+        );
+    }
+
+    /**
+     * Render the message into HTML.
+     *
+     * <p>Messages never change, so each one is rendered once and cached.
+     * HTML stored with the message, when it was posted, is taken as is.
+     * Messages are numbered in every bout separately, so the key is
+     * the bout number and the message number, together with SHA-256
+     * of the text, in order not to mix up messages of different bases
+     * with the same numbers.
+     *
+     * @param bout Bout
+     * @param msg Message
+     * @return HTML
+     * @throws IOException If fails
+     */
+    private static String html(final Bout bout, final Message msg)
+        throws IOException {
+        final String text = msg.text();
+        final String key = String.format(
+            "%d %d %s", bout.number(), msg.number(),
+            DigestUtils.sha256Hex(text)
         );
+        String html = XeMessage.HTML.getIfPresent(key);
+        if (html == null) {
+            if (msg instanceof Rendered) {
+                html = Rendered.class.cast(msg).html();
+            }
+            if (html == null || html.isEmpty()) {
+                html = new Markdown(text).html();
+            }
+            XeMessage.HTML.put(key, html);
+        }
+        return html;
     }
 
 }
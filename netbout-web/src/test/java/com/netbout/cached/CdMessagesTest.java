@@ -49,7 +49,7 @@ public final class CdMessagesTest {
     public void flushesUnreadNumber() throws Exception {
         final Messages origin = Mockito.mock(Messages.class);
         Mockito.doReturn(1L).doReturn(2L).when(origin).unread();
-        final Messages messages = new CdMessages(origin);
+        final Messages messages = new CdMessages(origin, "jeff", 1L);
         MatcherAssert.assertThat(messages.unread(), Matchers.equalTo(1L));
         MatcherAssert.assertThat(messages.unread(), Matchers.equalTo(1L));
         Mockito.doReturn(Collections.emptyList()).when(origin).iterate();
@@ -0,0 +1,198 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.cached;
+
+import com.jcabi.aspects.Tv;
+import com.netbout.misc.Bus;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Test case for {@link Lfu}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+public final class LfuTest {
+
+    /**
+     * Lfu can cache values and evict them by tags of events.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void evictsValuesByTagsOfEvents() throws Exception {
+        final Bus bus = new Bus();
+        final Lfu lfu = new Lfu(
+            "test-tags", (long) Tv.MILLION, 1L, TimeUnit.HOURS, bus
+        );
+        final AtomicInteger loads = new AtomicInteger();
+        final Key title = new Key("jeff", 1L, "title");
+        final Key other = new Key("jeff", 2L, "title");
+        lfu.get(title, Bus.row(1L, "jeff"), LfuTest.source(loads));
+        lfu.get(title, Bus.row(1L, "jeff"), LfuTest.source(loads));
+        lfu.get(other, Bus.row(2L, "jeff"), LfuTest.source(loads));
+        MatcherAssert.assertThat(loads.get(), Matchers.equalTo(2));
+        bus.publish(Bus.RENAMED, Bus.row(1L, "jeff"));
+        lfu.get(title, Bus.row(1L, "jeff"), LfuTest.source(loads));
+        lfu.get(other, Bus.row(2L, "jeff"), LfuTest.source(loads));
+        MatcherAssert.assertThat(loads.get(), Matchers.equalTo(Tv.THREE));
+        MatcherAssert.assertThat(
+            lfu.stats(),
+            Matchers.allOf(
+                Matchers.hasEntry("hits", 2L),
+                Matchers.hasEntry("misses", (long) Tv.THREE),
+                Matchers.hasEntry("invalidations", 1L),
+                Matchers.hasEntry("entries", 2L)
+            )
+        );
+    }
+
+    /**
+     * Lfu can keep popular values while a scan passes by.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void keepsPopularValuesDuringScan() throws Exception {
+        final Lfu lfu = new Lfu(
+            "test-scan", (long) Tv.FIFTY * (long) Tv.THOUSAND,
+            1L, TimeUnit.HOURS
+        );
+        final AtomicInteger loads = new AtomicInteger();
+        final Key popular = new Key("mary", 1L, "title");
+        for (int idx = 0; idx < Tv.TEN; ++idx) {
+            lfu.get(popular, "popular", LfuTest.source(loads));
+        }
+        for (int idx = 0; idx < Tv.THOUSAND; ++idx) {
+            lfu.get(
+                new Key("scan", idx, "title"), "scan", LfuTest.source(loads)
+            );
+        }
+        loads.set(0);
+        lfu.get(popular, "popular", LfuTest.source(loads));
+        MatcherAssert.assertThat(loads.get(), Matchers.equalTo(0));
+        MatcherAssert.assertThat(
+            lfu.stats().get("weight"),
+            Matchers.lessThanOrEqualTo(lfu.stats().get("capacity"))
+        );
+        MatcherAssert.assertThat(
+            lfu.stats().get("rejections"),
+            Matchers.greaterThan(0L)
+        );
+    }
+
+    /**
+     * Lfu can skip caching of values invalidated while loading.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void skipsValuesInvalidatedWhileLoading() throws Exception {
+        final Bus bus = new Bus();
+        final Lfu lfu = new Lfu(
+            "test-stale", (long) Tv.MILLION, 1L, TimeUnit.HOURS, bus
+        );
+        final AtomicInteger loads = new AtomicInteger();
+        final Key stale = new Key("anna", 1L, "title");
+        final Key fresh = new Key("anna", 2L, "title");
+        for (int idx = 0; idx < 2; ++idx) {
+            lfu.get(
+                stale, Bus.row(1L, "anna"),
+                LfuTest.source(loads, bus, Bus.row(1L, "anna"))
+            );
+            lfu.get(
+                fresh, Bus.row(2L, "anna"),
+                LfuTest.source(loads, bus, Bus.row(1L, "anna"))
+            );
+        }
+        MatcherAssert.assertThat(loads.get(), Matchers.equalTo(Tv.THREE));
+    }
+
+    /**
+     * Lfu can spread values over segments.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void spreadsValuesOverSegments() throws Exception {
+        final long bytes = (long) Tv.HUNDRED * (long) Tv.MILLION;
+        final Lfu lfu = new Lfu("test-segments", bytes, 1L, TimeUnit.HOURS);
+        final AtomicInteger loads = new AtomicInteger();
+        for (int round = 0; round < 2; ++round) {
+            for (int idx = 0; idx < Tv.HUNDRED; ++idx) {
+                lfu.get(
+                    new Key("many", idx, "title"), Bus.bout(idx),
+                    LfuTest.source(loads)
+                );
+            }
+        }
+        MatcherAssert.assertThat(loads.get(), Matchers.equalTo(Tv.HUNDRED));
+        MatcherAssert.assertThat(
+            lfu.stats(),
+            Matchers.allOf(
+                Matchers.hasEntry("capacity", bytes),
+                Matchers.hasEntry("entries", (long) Tv.HUNDRED),
+                Matchers.hasEntry("hits", (long) Tv.HUNDRED)
+            )
+        );
+    }
+
+    /**
+     * Source of a value that counts loads and publishes an event.
+     * @param loads Counter of loads
+     * @param bus Bus to publish to
+     * @param tag Tag of the event
+     * @return Source
+     */
+    private static Lfu.Source<String, IOException> source(
+        final AtomicInteger loads, final Bus bus, final String tag) {
+        return new Lfu.Source<String, IOException>() {
+            @Override
+            public String load() {
+                bus.publish(Bus.RENAMED, tag);
+                return String.format("value %d", loads.incrementAndGet());
+            }
+        };
+    }
+
+    /**
+     * Source of a value that counts loads.
+     * @param loads Counter of loads
+     * @return Source
+     */
+    private static Lfu.Source<String, IOException> source(
+        final AtomicInteger loads) {
+        return new Lfu.Source<String, IOException>() {
+            @Override
+            public String load() {
+                return String.format("value %d", loads.incrementAndGet());
+            }
+        };
+    }
+
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Region;
+import com.jcabi.dynamo.Table;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Test case for {@link BatchGet}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+public final class BatchGetTest {
+
+    /**
+     * BatchGet can read rows in chunks of one hundred keys.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void readsRowsInChunks() throws Exception {
+        final String name = "nb-aliases";
+        final AmazonDynamoDB aws = Mockito.mock(AmazonDynamoDB.class);
+        Mockito.doAnswer(
+            new Answer<BatchGetItemResult>() {
+                @Override
+                public BatchGetItemResult answer(final InvocationOnMock inv) {
+                    final KeysAndAttributes request = BatchGetItemRequest.class
+                        .cast(inv.getArguments()[0])
+                        .getRequestItems().get(name);
+                    return new BatchGetItemResult().withResponses(
+                        Collections.singletonMap(name, request.getKeys())
+                    );
+                }
+            }
+        ).when(aws).batchGetItem(Mockito.any(BatchGetItemRequest.class));
+        final Table table = Mockito.mock(Table.class);
+        Mockito.doReturn(name).when(table).name();
+        final Region region = Mockito.mock(Region.class);
+        Mockito.doReturn(table).when(region).table(DyAliases.TBL);
+        Mockito.doReturn(aws).when(region).aws();
+        final Collection<Attributes> keys = new LinkedList<>();
+        for (int idx = 0; idx < Tv.HUNDRED + Tv.FIFTY; ++idx) {
+            keys.add(
+                new Attributes().with(DyAliases.HASH, String.format("a%d", idx))
+            );
+        }
+        MatcherAssert.assertThat(
+            new BatchGet(region, DyAliases.TBL).read(
+                keys, DyAliases.ATTR_PHOTO
+            ),
+            Matchers.<Attributes>iterableWithSize(Tv.HUNDRED + Tv.FIFTY)
+        );
+        Mockito.verify(aws, Mockito.times(2))
+            .batchGetItem(Mockito.any(BatchGetItemRequest.class));
+    }
+
+}
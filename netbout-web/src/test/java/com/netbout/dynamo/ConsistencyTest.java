@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Test case for {@link Consistency}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+public final class ConsistencyTest {
+
+    /**
+     * Consistency can read strongly only after own writes.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void readsStronglyOnlyAfterOwnWrite() throws Exception {
+        final long bout = 7L;
+        final Consistency writer = new Consistency("alice");
+        final Consistency reader = new Consistency("bob");
+        MatcherAssert.assertThat(
+            writer.strong(Consistency.MESSAGES, bout),
+            Matchers.is(false)
+        );
+        final long version = writer.wrote(bout);
+        MatcherAssert.assertThat(
+            writer.version(bout),
+            Matchers.equalTo(version)
+        );
+        MatcherAssert.assertThat(
+            writer.strong(Consistency.MESSAGES, bout),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            writer.strong(Consistency.MESSAGES, bout + 1L),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            reader.strong(Consistency.MESSAGES, bout),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            writer.strong("unknown", bout),
+            Matchers.is(false)
+        );
+    }
+
+    /**
+     * Consistency can parse modes of operations.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void parsesModesOfOperations() throws Exception {
+        MatcherAssert.assertThat(
+            Consistency.parse(" messages:strong, broken,rows:Eventual"),
+            Matchers.allOf(
+                Matchers.hasEntry(
+                    Consistency.MESSAGES, Consistency.Mode.STRONG
+                ),
+                Matchers.hasEntry("rows", Consistency.Mode.EVENTUAL),
+                Matchers.hasEntry(
+                    Consistency.FRIENDS, Consistency.Mode.SESSION
+                )
+            )
+        );
+    }
+
+}
@@ -64,7 +64,7 @@ public final class DyInboxITCase {
         final Bout second = inbox.bout(inbox.start());
         first.messages().post("hello");
         second.messages().post("world");
-        final Iterator<Bout> result = inbox.search("ell").iterator();
+        final Iterator<Bout> result = inbox.search("hello").iterator();
         MatcherAssert.assertThat(
             "search result is empty",
             result.hasNext()
@@ -109,6 +109,36 @@ public final class DyInboxITCase {
         );
     }
 
+    /**
+     * DyInbox can list bouts with their friends loaded.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void listsBoutsWithFriends() throws Exception {
+        final String second = "maria-friend";
+        new DyBase().user(new URN("urn:test:88028")).aliases().add(second);
+        final Inbox inbox = new DyBase().user(new URN("urn:test:88027"))
+            .aliases().add("maria").inbox();
+        final long number = inbox.start();
+        inbox.bout(number).friends().invite(second);
+        final Bout bout = inbox.iterate().iterator().next();
+        MatcherAssert.assertThat(bout.number(), Matchers.equalTo(number));
+        MatcherAssert.assertThat(
+            bout.friends().iterate(),
+            Matchers.<Friend>iterableWithSize(2)
+        );
+        MatcherAssert.assertThat(
+            bout.friends().iterate(),
+            Matchers.hasItem(
+                new Friend.HasAlias(Matchers.equalTo(second))
+            )
+        );
+        MatcherAssert.assertThat(
+            bout.attachments().unseen(),
+            Matchers.equalTo(0)
+        );
+    }
+
     /**
      * DyInbox can count unread messages.
      * @throws Exception If there is some problem inside
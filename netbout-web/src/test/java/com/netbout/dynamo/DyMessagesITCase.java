@@ -26,6 +26,7 @@
  */
 package com.netbout.dynamo;
 
+import com.google.common.collect.Iterables;
 import com.jcabi.aspects.Tv;
 import com.jcabi.urn.URN;
 import com.netbout.spi.Aliases;
@@ -34,6 +35,7 @@ import com.netbout.spi.Inbox;
 import com.netbout.spi.Message;
 import com.netbout.spi.Messages;
 import com.netbout.spi.Pageable;
+import com.netbout.spi.Rendered;
 import java.util.Iterator;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
@@ -67,6 +69,27 @@ public final class DyMessagesITCase {
         );
     }
 
+    /**
+     * DyMessages can store HTML of messages, rendered when posted.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void storesRenderedHtml() throws Exception {
+        final String alias = "sarah";
+        final Aliases aliases =
+            new DyBase().user(new URN("urn:test:84219")).aliases();
+        aliases.add(alias);
+        final Inbox inbox = aliases.iterate().iterator().next().inbox();
+        final Messages messages = inbox.bout(inbox.start()).messages();
+        messages.post("**hello**");
+        MatcherAssert.assertThat(
+            Rendered.class.cast(
+                messages.page(Pageable.FIRST, 1).items().iterator().next()
+            ).html(),
+            Matchers.containsString("<strong>hello</strong>")
+        );
+    }
+
     /**
      * DyMessages can jump through the list.
      * @throws Exception If there is some problem inside
@@ -97,6 +120,32 @@ public final class DyMessagesITCase {
         MatcherAssert.assertThat(found, Matchers.equalTo(total));
     }
 
+    /**
+     * DyMessages can read pages by cursors.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void readsPagesByCursors() throws Exception {
+        final String alias = "gregor";
+        final Aliases aliases =
+            new DyBase().user(new URN("urn:test:844839")).aliases();
+        aliases.add(alias);
+        final Inbox inbox = aliases.iterate().iterator().next().inbox();
+        final Messages messages = inbox.bout(inbox.start()).messages();
+        final int total = Tv.FIVE;
+        for (int idx = 0; idx < total; ++idx) {
+            messages.post(String.format("page msg #%d", idx));
+        }
+        String cursor = Pageable.FIRST;
+        int found = 0;
+        do {
+            final Pageable.Page<Message> page = messages.page(cursor, 2);
+            found += Iterables.size(page.items());
+            cursor = page.cursor();
+        } while (!cursor.isEmpty());
+        MatcherAssert.assertThat(found, Matchers.equalTo(total));
+    }
+
     /**
      * DyMessages can search for text in messages.
      * @throws Exception If there is some problem inside
@@ -113,7 +162,8 @@ public final class DyMessagesITCase {
         // @checkstyle MultipleStringLiteralsCheck (1 line)
         bout.messages().post("world");
         bout.messages().post("foo");
-        final Iterator<Message> result = bout.messages().search("r").iterator();
+        final Iterator<Message> result =
+            bout.messages().search("World").iterator();
         MatcherAssert.assertThat(
             "search result is empty",
             result.hasNext()
@@ -0,0 +1,260 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeAction;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.Frame;
+import com.jcabi.dynamo.Item;
+import com.jcabi.dynamo.Region;
+import com.jcabi.dynamo.Table;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.Map;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Test case for {@link Fanout}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+public final class FanoutTest {
+
+    /**
+     * Name of "friends" table.
+     */
+    private static final String FRIENDS = "nb-friends";
+
+    /**
+     * Fanout can coalesce posts into one write per participant.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void coalescesPostsIntoOneWritePerFriend() throws Exception {
+        final AmazonDynamoDB aws = FanoutTest.aws();
+        final Region region = FanoutTest.region(aws, "jeff", "mary");
+        final Fanout fanout = new Fanout(Tv.HUNDRED * Tv.THOUSAND, 2);
+        final long bout = 1L;
+        fanout.post(region, bout, "jeff");
+        fanout.post(region, bout, "jeff");
+        fanout.post(region, bout, "mary");
+        fanout.close();
+        MatcherAssert.assertThat(
+            FanoutTest.updates(aws, "jeff").get(DyFriends.ATTR_UNREAD)
+                .getValue().getN(),
+            Matchers.equalTo("1")
+        );
+        final Map<String, AttributeValueUpdate> mary =
+            FanoutTest.updates(aws, "mary");
+        MatcherAssert.assertThat(
+            mary.get(DyFriends.ATTR_UNREAD).getAction(),
+            Matchers.equalTo(AttributeAction.ADD.toString())
+        );
+        MatcherAssert.assertThat(
+            mary.get(DyFriends.ATTR_UNREAD).getValue().getN(),
+            Matchers.equalTo("2")
+        );
+        MatcherAssert.assertThat(fanout.coalesced(), Matchers.equalTo(4L));
+    }
+
+    /**
+     * Fanout can skip unread counter of the author.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void skipsUnreadOfTheAuthor() throws Exception {
+        final AmazonDynamoDB aws = FanoutTest.aws();
+        final Fanout fanout = new Fanout(Tv.HUNDRED * Tv.THOUSAND, 1);
+        fanout.post(FanoutTest.region(aws, "peter"), 2L, "peter");
+        fanout.close();
+        MatcherAssert.assertThat(
+            FanoutTest.updates(aws, "peter").keySet(),
+            Matchers.not(Matchers.hasItem(DyFriends.ATTR_UNREAD))
+        );
+        MatcherAssert.assertThat(fanout.coalesced(), Matchers.equalTo(0L));
+    }
+
+    /**
+     * Fanout can add uploads to unseen sets of other participants.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void addsUploadsToUnseenOfOthers() throws Exception {
+        final AmazonDynamoDB aws = FanoutTest.aws();
+        final Fanout fanout = new Fanout(Tv.HUNDRED * Tv.THOUSAND, 1);
+        final Region region = FanoutTest.region(aws, "anna", "boris");
+        fanout.upload(region, 2L, "anna", "a.txt");
+        fanout.upload(region, 2L, "boris", "b.txt");
+        fanout.close();
+        final Map<String, AttributeValueUpdate> anna =
+            FanoutTest.updates(aws, "anna");
+        MatcherAssert.assertThat(
+            anna.get(DyFriends.ATTR_UNSEEN).getAction(),
+            Matchers.equalTo(AttributeAction.ADD.toString())
+        );
+        MatcherAssert.assertThat(
+            anna.get(DyFriends.ATTR_UNSEEN).getValue().getSS(),
+            Matchers.contains("b.txt")
+        );
+        MatcherAssert.assertThat(
+            anna.keySet(),
+            Matchers.not(Matchers.hasItem(DyFriends.ATTR_UNREAD))
+        );
+        MatcherAssert.assertThat(fanout.coalesced(), Matchers.equalTo(2L));
+    }
+
+    /**
+     * Fanout can skip rows that are gone.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void skipsRowsThatAreGone() throws Exception {
+        final AmazonDynamoDB aws = Mockito.mock(AmazonDynamoDB.class);
+        Mockito.doThrow(new ConditionalCheckFailedException("gone"))
+            .when(aws).updateItem(Mockito.any(UpdateItemRequest.class));
+        final Fanout fanout = new Fanout(Tv.HUNDRED * Tv.THOUSAND, 1);
+        fanout.post(FanoutTest.region(aws, "kate", "olga"), 3L, "kate");
+        fanout.close();
+        final ArgumentCaptor<UpdateItemRequest> requests =
+            ArgumentCaptor.forClass(UpdateItemRequest.class);
+        Mockito.verify(aws, Mockito.times(2))
+            .updateItem(requests.capture());
+        for (final UpdateItemRequest request : requests.getAllValues()) {
+            MatcherAssert.assertThat(
+                request.getTableName(),
+                Matchers.equalTo(FanoutTest.FRIENDS)
+            );
+            MatcherAssert.assertThat(
+                request.getExpected(),
+                Matchers.hasKey(DyFriends.RANGE)
+            );
+        }
+    }
+
+    /**
+     * Updates of the row of the alias in "friends" table, written once.
+     * @param aws AWS client
+     * @param alias Alias
+     * @return Updates
+     */
+    private static Map<String, AttributeValueUpdate> updates(
+        final AmazonDynamoDB aws, final String alias) {
+        final ArgumentCaptor<UpdateItemRequest> requests =
+            ArgumentCaptor.forClass(UpdateItemRequest.class);
+        Mockito.verify(aws, Mockito.atLeastOnce())
+            .updateItem(requests.capture());
+        final Collection<Map<String, AttributeValueUpdate>> found =
+            new LinkedList<>();
+        for (final UpdateItemRequest request : requests.getAllValues()) {
+            if (FanoutTest.FRIENDS.equals(request.getTableName())
+                && alias.equals(
+                    request.getKey().get(DyFriends.RANGE).getS()
+                )) {
+                found.add(request.getAttributeUpdates());
+            }
+        }
+        MatcherAssert.assertThat(found, Matchers.hasSize(1));
+        return found.iterator().next();
+    }
+
+    /**
+     * Make AWS client, which finds every row it updates.
+     * @return AWS client
+     */
+    private static AmazonDynamoDB aws() {
+        final AmazonDynamoDB aws = Mockito.mock(AmazonDynamoDB.class);
+        Mockito.doReturn(
+            new UpdateItemResult().withAttributes(
+                Collections.singletonMap(
+                    DyFriends.RANGE, new AttributeValue("found")
+                )
+            )
+        ).when(aws).updateItem(Mockito.any(UpdateItemRequest.class));
+        return aws;
+    }
+
+    /**
+     * Make a region with rows of these aliases in "friends" table.
+     * @param aws AWS client
+     * @param aliases Aliases
+     * @return Region
+     * @throws Exception If fails
+     */
+    private static Region region(final AmazonDynamoDB aws,
+        final String... aliases) throws Exception {
+        final Collection<Item> rows = new ArrayList<>(aliases.length);
+        for (final String alias : aliases) {
+            final Item item = Mockito.mock(Item.class);
+            Mockito.doReturn(new AttributeValue(alias))
+                .when(item).get(DyFriends.RANGE);
+            rows.add(item);
+        }
+        final Frame frame = Mockito.mock(
+            Frame.class,
+            new Answer<Object>() {
+                @Override
+                public Object answer(final InvocationOnMock inv) {
+                    final Object result;
+                    if (Frame.class.equals(inv.getMethod().getReturnType())) {
+                        result = inv.getMock();
+                    } else if ("iterator".equals(inv.getMethod().getName())) {
+                        result = rows.iterator();
+                    } else {
+                        result = null;
+                    }
+                    return result;
+                }
+            }
+        );
+        final Table friends = Mockito.mock(Table.class);
+        Mockito.doReturn(frame).when(friends).frame();
+        Mockito.doReturn(FanoutTest.FRIENDS).when(friends).name();
+        final Table other = Mockito.mock(Table.class);
+        Mockito.doReturn("nb-other").when(other).name();
+        final Region region = Mockito.mock(Region.class);
+        Mockito.doReturn(other).when(region).table(Mockito.anyString());
+        Mockito.doReturn(friends).when(region).table(DyFriends.TBL);
+        Mockito.doReturn(aws).when(region).aws();
+        return region;
+    }
+
+}
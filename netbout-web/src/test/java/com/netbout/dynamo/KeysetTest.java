@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Region;
+import com.netbout.spi.Pageable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Test case for {@link Keyset}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+public final class KeysetTest {
+
+    /**
+     * Keyset can turn a key into a cursor and back.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void encodesAndDecodesKeys() throws Exception {
+        final Map<String, AttributeValue> key = new HashMap<>(2);
+        key.put(DyMessages.HASH, new AttributeValue().withN("42"));
+        key.put(DyFriends.RANGE, new AttributeValue("jeff:.smith"));
+        MatcherAssert.assertThat(
+            Keyset.decode(Keyset.encode(key)),
+            Matchers.equalTo(key)
+        );
+        MatcherAssert.assertThat(
+            Keyset.encode(null),
+            Matchers.equalTo(Pageable.FIRST)
+        );
+    }
+
+    /**
+     * Keyset can read the next page ahead.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void readsNextPageAhead() throws Exception {
+        final Map<String, AttributeValue> last = Collections.singletonMap(
+            DyMessages.RANGE, new AttributeValue().withN("7")
+        );
+        final AmazonDynamoDB aws = Mockito.mock(AmazonDynamoDB.class);
+        Mockito.doAnswer(
+            new Answer<QueryResult>() {
+                @Override
+                public QueryResult answer(final InvocationOnMock inv) {
+                    final QueryResult result = new QueryResult().withItems(
+                        Collections.singletonList(last)
+                    );
+                    if (QueryRequest.class.cast(inv.getArguments()[0])
+                        .getExclusiveStartKey() == null) {
+                        result.setLastEvaluatedKey(last);
+                    }
+                    return result;
+                }
+            }
+        ).when(aws).query(Mockito.any(QueryRequest.class));
+        final Region region = Mockito.mock(Region.class);
+        Mockito.doReturn(aws).when(region).aws();
+        final Keyset keyset = new Keyset(true);
+        final Pageable.Page<Attributes> first = keyset.page(
+            region, new QueryRequest("nb-messages").withLimit(1),
+            Pageable.FIRST
+        );
+        MatcherAssert.assertThat(first.last(), Matchers.is(false));
+        Mockito.verify(aws, Mockito.timeout(Tv.FIVE * Tv.THOUSAND).times(2))
+            .query(Mockito.any(QueryRequest.class));
+        final Pageable.Page<Attributes> second = keyset.page(
+            region, new QueryRequest("nb-messages").withLimit(1),
+            first.cursor()
+        );
+        MatcherAssert.assertThat(second.last(), Matchers.is(true));
+        MatcherAssert.assertThat(
+            second.items(), Matchers.<Attributes>iterableWithSize(1)
+        );
+        Mockito.verify(aws, Mockito.times(2))
+            .query(Mockito.any(QueryRequest.class));
+    }
+
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import co.stateful.Counter;
+import com.jcabi.aspects.Tv;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Test case for {@link Leased}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+public final class LeasedTest {
+
+    /**
+     * Leased can lease one block for many numbers.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void leasesOneBlockForManyNumbers() throws Exception {
+        final Counter origin = LeasedTest.origin();
+        final Counter counter = new Leased(origin, (long) Tv.TEN);
+        for (long num = 1L; num <= (long) Tv.FIFTEEN; ++num) {
+            MatcherAssert.assertThat(
+                counter.incrementAndGet(1L),
+                Matchers.equalTo(num)
+            );
+        }
+        Mockito.verify(origin, Mockito.times(2)).incrementAndGet(Tv.TEN);
+    }
+
+    /**
+     * Leased can give out unique numbers in many threads.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    @SuppressWarnings("PMD.DoNotUseThreads")
+    public void givesOutUniqueNumbersInThreads() throws Exception {
+        final Counter counter = new Leased(
+            LeasedTest.origin(), (long) Tv.SEVEN
+        );
+        final Set<Long> numbers = Collections.newSetFromMap(
+            new ConcurrentHashMap<Long, Boolean>(0)
+        );
+        final ExecutorService svc = Executors.newFixedThreadPool(Tv.EIGHT);
+        final Collection<Future<?>> futures = new LinkedList<>();
+        for (int thread = 0; thread < Tv.EIGHT; ++thread) {
+            futures.add(
+                svc.submit(
+                    new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            for (int idx = 0; idx < Tv.HUNDRED; ++idx) {
+                                numbers.add(counter.incrementAndGet(1L));
+                            }
+                            return null;
+                        }
+                    }
+                )
+            );
+        }
+        for (final Future<?> future : futures) {
+            future.get(1L, TimeUnit.MINUTES);
+        }
+        svc.shutdown();
+        MatcherAssert.assertThat(
+            numbers,
+            Matchers.<Long>iterableWithSize(Tv.EIGHT * Tv.HUNDRED)
+        );
+    }
+
+    /**
+     * Make an origin counter.
+     * @return Counter
+     * @throws Exception If there is some problem inside
+     */
+    private static Counter origin() throws Exception {
+        final AtomicLong value = new AtomicLong();
+        final Counter origin = Mockito.mock(Counter.class);
+        Mockito.doAnswer(
+            new Answer<Long>() {
+                @Override
+                public Long answer(final InvocationOnMock inv) {
+                    return value.addAndGet(
+                        Long.class.cast(inv.getArguments()[0])
+                    );
+                }
+            }
+        ).when(origin).incrementAndGet(Mockito.anyLong());
+        Mockito.doReturn("test").when(origin).name();
+        return origin;
+    }
+
+}
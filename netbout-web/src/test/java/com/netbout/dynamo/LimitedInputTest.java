@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.netbout.spi.Attachment;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import org.apache.commons.io.IOUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Test case for {@link LimitedInput}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+public final class LimitedInputTest {
+
+    /**
+     * LimitedInput can read content within the limit.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void readsContentWithinLimit() throws Exception {
+        final LimitedInput input = new LimitedInput(
+            new ByteArrayInputStream(new byte[] {1, 2, 3}), 3L
+        );
+        MatcherAssert.assertThat(
+            IOUtils.toByteArray(input).length,
+            Matchers.equalTo(3)
+        );
+        MatcherAssert.assertThat(input.getByteCount(), Matchers.equalTo(3L));
+    }
+
+    /**
+     * LimitedInput can fail when content is too big.
+     * @throws Exception If there is some problem inside
+     */
+    @Test(expected = Attachment.TooBigException.class)
+    public void failsWhenContentIsTooBig() throws Exception {
+        final InputStream input = new LimitedInput(
+            new ByteArrayInputStream(new byte[] {1, 2, 3, 4}), 3L
+        );
+        IOUtils.toByteArray(input);
+    }
+
+}
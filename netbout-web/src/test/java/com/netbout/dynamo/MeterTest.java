@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.dynamodbv2.model.Capacity;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Test case for {@link Meter}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+public final class MeterTest {
+
+    /**
+     * Meter can print latency, items and capacity in Prometheus format.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void printsMetrics() throws Exception {
+        final Meter meter = new Meter();
+        meter.call(
+            "query", "nb-friends", "inbox",
+            TimeUnit.MILLISECONDS.toNanos(3L), 2L
+        );
+        meter.call("query", "nb-friends", "inbox", 1L, -1L);
+        meter.consumed(
+            new ConsumedCapacity()
+                .withTableName("nb-friends")
+                .withCapacityUnits(1.5d)
+                .withTable(new Capacity().withCapacityUnits(1.0d))
+                .withGlobalSecondaryIndexes(
+                    Collections.singletonMap(
+                        "inbox", new Capacity().withCapacityUnits(0.5d)
+                    )
+                )
+        );
+        final StringBuilder out = new StringBuilder(0);
+        meter.print(out);
+        MatcherAssert.assertThat(
+            out.toString(),
+            Matchers.allOf(
+                Matchers.containsString(
+                    // @checkstyle LineLengthCheck (1 line)
+                    "netbout_dynamo_latency_seconds_bucket{op=\"query\",table=\"nb-friends\",index=\"inbox\",le=\"0.005\"} 2"
+                ),
+                Matchers.containsString(
+                    // @checkstyle LineLengthCheck (1 line)
+                    "netbout_dynamo_items_total{op=\"query\",table=\"nb-friends\",index=\"inbox\"} 2"
+                ),
+                Matchers.containsString(
+                    // @checkstyle LineLengthCheck (1 line)
+                    "netbout_dynamo_errors_total{op=\"query\",table=\"nb-friends\",index=\"inbox\"} 1"
+                ),
+                Matchers.containsString(
+                    // @checkstyle LineLengthCheck (1 line)
+                    "netbout_dynamo_consumed_capacity_units_total{table=\"nb-friends\",index=\"inbox\"} 0.5"
+                )
+            )
+        );
+    }
+
+}
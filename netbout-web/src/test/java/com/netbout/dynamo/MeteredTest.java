@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
+import com.jcabi.dynamo.Credentials;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Test case for {@link Metered}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+public final class MeteredTest {
+
+    /**
+     * Metered can record items and capacity of queries.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void recordsQueries() throws Exception {
+        final AmazonDynamoDB aws = Mockito.mock(AmazonDynamoDB.class);
+        Mockito.doReturn(
+            new QueryResult().withCount(2).withConsumedCapacity(
+                new ConsumedCapacity()
+                    .withTableName("nb-messages")
+                    .withCapacityUnits(2.0d)
+            )
+        ).when(aws).query(Mockito.any(QueryRequest.class));
+        final Credentials creds = Mockito.mock(Credentials.class);
+        Mockito.doReturn(aws).when(creds).aws();
+        final Meter meter = new Meter();
+        final QueryRequest request = new QueryRequest()
+            .withTableName("nb-messages");
+        new Metered(creds, meter).aws().query(request);
+        MatcherAssert.assertThat(
+            request.getReturnConsumedCapacity(),
+            Matchers.equalTo(ReturnConsumedCapacity.INDEXES.toString())
+        );
+        final StringBuilder out = new StringBuilder(0);
+        meter.print(out);
+        MatcherAssert.assertThat(
+            out.toString(),
+            Matchers.allOf(
+                Matchers.containsString(
+                    // @checkstyle LineLengthCheck (1 line)
+                    "netbout_dynamo_items_total{op=\"query\",table=\"nb-messages\",index=\"\"} 2"
+                ),
+                Matchers.containsString(
+                    // @checkstyle LineLengthCheck (1 line)
+                    "netbout_dynamo_consumed_capacity_units_total{table=\"nb-messages\",index=\"\"} 2.0"
+                )
+            )
+        );
+    }
+
+}
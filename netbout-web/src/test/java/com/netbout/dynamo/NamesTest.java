@@ -0,0 +1,160 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.jcabi.dynamo.Frame;
+import com.jcabi.dynamo.Item;
+import com.jcabi.dynamo.Region;
+import com.jcabi.dynamo.Table;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Test case for {@link Names}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+public final class NamesTest {
+
+    /**
+     * Names can tell absent aliases without a query.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void tellsAbsentAliases() throws Exception {
+        final Region region = NamesTest.region("jeff", "mary");
+        final Names names = new Names(
+            MoreExecutors.newDirectExecutorService()
+        );
+        MatcherAssert.assertThat(
+            names.absent(region, "jeff"),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            names.absent(region, "nobody"),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(
+            names.absent(region, "mary"),
+            Matchers.is(false)
+        );
+        Mockito.verify(region, Mockito.times(1)).table(DyAliases.TBL);
+    }
+
+    /**
+     * Names can remember added aliases.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void remembersAddedAliases() throws Exception {
+        final Region region = NamesTest.region("peter");
+        final Names names = new Names(
+            MoreExecutors.newDirectExecutorService()
+        );
+        final String alias = "newcomer";
+        MatcherAssert.assertThat(
+            names.absent(region, alias),
+            Matchers.is(true)
+        );
+        MatcherAssert.assertThat(names.confirmed(alias), Matchers.is(false));
+        names.add(alias);
+        MatcherAssert.assertThat(
+            names.absent(region, alias),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(names.confirmed(alias), Matchers.is(true));
+    }
+
+    /**
+     * Names can answer before the filter is seeded.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void answersBeforeSeeding() throws Exception {
+        final Region region = NamesTest.region("walter");
+        final ExecutorService exec = Mockito.mock(ExecutorService.class);
+        final Names names = new Names(exec);
+        MatcherAssert.assertThat(
+            names.absent(region, "nobody"),
+            Matchers.is(false)
+        );
+        MatcherAssert.assertThat(
+            names.absent(region, "walter"),
+            Matchers.is(false)
+        );
+        Mockito.verify(exec, Mockito.times(1))
+            .submit(Mockito.any(Runnable.class));
+        Mockito.verify(region, Mockito.never()).table(DyAliases.TBL);
+    }
+
+    /**
+     * Make a region with the given rows in "aliases" table.
+     * @param aliases Aliases
+     * @return Region
+     * @throws Exception If fails
+     */
+    private static Region region(final String... aliases) throws Exception {
+        final Item[] rows = new Item[aliases.length];
+        for (int idx = 0; idx < aliases.length; ++idx) {
+            rows[idx] = Mockito.mock(Item.class);
+            Mockito.doReturn(new AttributeValue(aliases[idx]))
+                .when(rows[idx]).get(DyAliases.HASH);
+        }
+        final Frame frame = Mockito.mock(
+            Frame.class,
+            new Answer<Object>() {
+                @Override
+                public Object answer(final InvocationOnMock inv) {
+                    final Object result;
+                    if (Frame.class.equals(inv.getMethod().getReturnType())) {
+                        result = inv.getMock();
+                    } else if ("iterator".equals(inv.getMethod().getName())) {
+                        result = Arrays.asList(rows).iterator();
+                    } else {
+                        result = null;
+                    }
+                    return result;
+                }
+            }
+        );
+        final Table table = Mockito.mock(Table.class);
+        Mockito.doReturn(frame).when(table).frame();
+        final Region region = Mockito.mock(Region.class);
+        Mockito.doReturn(table).when(region).table(DyAliases.TBL);
+        return region;
+    }
+
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeAction;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.Frame;
+import com.jcabi.dynamo.Region;
+import com.jcabi.dynamo.Table;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+/**
+ * Test case for {@link Seen}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+public final class SeenTest {
+
+    /**
+     * Seen can collapse acknowledgements into one write per row.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void collapsesAcknowledgements() throws Exception {
+        final AmazonDynamoDB aws = Mockito.mock(AmazonDynamoDB.class);
+        Mockito.doReturn(new UpdateItemResult())
+            .when(aws).updateItem(Mockito.any(UpdateItemRequest.class));
+        final Region region = SeenTest.region(aws);
+        final Seen seen = new Seen((long) Tv.HUNDRED * Tv.THOUSAND, 1);
+        final long bout = 1L;
+        final String alias = "jeff";
+        seen.messages(region, bout, alias);
+        seen.messages(region, bout, alias);
+        seen.attachment(region, bout, alias, "a.txt");
+        seen.attachment(region, bout, alias, "b.txt");
+        seen.flush();
+        final ArgumentCaptor<UpdateItemRequest> requests =
+            ArgumentCaptor.forClass(UpdateItemRequest.class);
+        Mockito.verify(aws, Mockito.times(2)).updateItem(requests.capture());
+        MatcherAssert.assertThat(
+            requests.getAllValues().get(1).getAttributeUpdates()
+                .get(DyFriends.ATTR_UNSEEN).getAction(),
+            Matchers.equalTo(AttributeAction.DELETE.toString())
+        );
+        MatcherAssert.assertThat(
+            requests.getAllValues().get(1).getAttributeUpdates()
+                .get(DyFriends.ATTR_UNSEEN).getValue().getSS(),
+            Matchers.containsInAnyOrder("a.txt", "b.txt")
+        );
+        MatcherAssert.assertThat(seen.collapsed(), Matchers.equalTo(3L));
+    }
+
+    /**
+     * Make a region.
+     * @param aws AWS client
+     * @return Region
+     */
+    private static Region region(final AmazonDynamoDB aws) {
+        final Table table = Mockito.mock(Table.class);
+        Mockito.doReturn("nb-friends").when(table).name();
+        Mockito.doReturn(Mockito.mock(Frame.class, Mockito.RETURNS_MOCKS))
+            .when(table).frame();
+        final Region region = Mockito.mock(Region.class);
+        Mockito.doReturn(table).when(region).table(Mockito.anyString());
+        Mockito.doReturn(aws).when(region).aws();
+        return region;
+    }
+
+}
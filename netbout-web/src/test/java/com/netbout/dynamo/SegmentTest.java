@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.s3.Bucket;
+import com.jcabi.s3.Ocket;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.commons.io.IOUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+/**
+ * Test case for {@link Segment}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+public final class SegmentTest {
+
+    /**
+     * Segment can write messages and read them back.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void writesAndReadsMessages() throws Exception {
+        final Bucket bucket = SegmentTest.bucket();
+        final Attributes first = SegmentTest.row(
+            2L, "\u0442\u0435\u043a\u0441\u0442"
+        );
+        final Attributes second = SegmentTest.row(1L, "hello, world!");
+        new Segment(bucket, "segments/1/2.gz").write(
+            Arrays.asList(first, second)
+        );
+        final List<Attributes> rows =
+            new Segment(bucket, "segments/1/2.gz").read();
+        MatcherAssert.assertThat(rows, Matchers.contains(first, second));
+    }
+
+    /**
+     * Segment can keep rendered HTML of messages.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void keepsRenderedHtml() throws Exception {
+        final Bucket bucket = SegmentTest.bucket();
+        final Attributes rendered = SegmentTest.row(2L, "**bold**")
+            .with(DyMessages.ATTR_HTML, "<p><b>bold</b></p>");
+        final Attributes plain = SegmentTest.row(1L, "plain");
+        new Segment(bucket, "segments/1/3.gz").write(
+            Arrays.asList(rendered, plain)
+        );
+        MatcherAssert.assertThat(
+            new Segment(bucket, "segments/1/3.gz").read(),
+            Matchers.contains(rendered, plain)
+        );
+    }
+
+    /**
+     * Make a bucket with one object, which keeps what was written.
+     * @return Bucket
+     * @throws Exception If fails
+     */
+    private static Bucket bucket() throws Exception {
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        final Ocket ocket = Mockito.mock(Ocket.class);
+        Mockito.doAnswer(
+            new Answer<Void>() {
+                @Override
+                public Void answer(final InvocationOnMock inv)
+                    throws Exception {
+                    IOUtils.copy(
+                        InputStream.class.cast(inv.getArguments()[0]), content
+                    );
+                    return null;
+                }
+            }
+        ).when(ocket).write(
+            Mockito.any(InputStream.class), Mockito.any(ObjectMetadata.class)
+        );
+        Mockito.doAnswer(
+            new Answer<Void>() {
+                @Override
+                public Void answer(final InvocationOnMock inv)
+                    throws Exception {
+                    content.writeTo(
+                        OutputStream.class.cast(inv.getArguments()[0])
+                    );
+                    return null;
+                }
+            }
+        ).when(ocket).read(Mockito.any(OutputStream.class));
+        final Bucket bucket = Mockito.mock(Bucket.class);
+        Mockito.doReturn(ocket).when(bucket).ocket(Mockito.anyString());
+        return bucket;
+    }
+
+    /**
+     * Make a row of "messages" table.
+     * @param number Message number
+     * @param text Text of it
+     * @return Row
+     */
+    private static Attributes row(final long number, final String text) {
+        return new Attributes()
+            .with(DyMessages.HASH, 1L)
+            .with(DyMessages.RANGE, number)
+            .with(DyMessages.ATTR_DATE, number * 2L)
+            .with(DyMessages.ATTR_ALIAS, "jeff")
+            .with(DyMessages.ATTR_TEXT, text);
+    }
+
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeAction;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Frame;
+import com.jcabi.dynamo.Item;
+import com.jcabi.dynamo.Region;
+import com.jcabi.dynamo.Table;
+import com.jcabi.dynamo.Valve;
+import java.util.Collections;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+/**
+ * Test case for {@link Sequence}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+public final class SequenceTest {
+
+    /**
+     * Sequence can create a missing counter after the last message.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void createsMissingCounterAfterLastMessage() throws Exception {
+        final AmazonDynamoDB aws = Mockito.mock(AmazonDynamoDB.class);
+        Mockito.doThrow(new ConditionalCheckFailedException("absent"))
+            .doReturn(new UpdateItemResult())
+            .doReturn(
+                new UpdateItemResult().withAttributes(
+                    new Attributes().with(DyCounter.ATTR_VALUE, 43L)
+                )
+            )
+            .when(aws).updateItem(Mockito.any(UpdateItemRequest.class));
+        final Region region = Mockito.mock(Region.class);
+        Mockito.doReturn(aws).when(region).aws();
+        Mockito.doReturn(SequenceTest.table("nb-counters", null))
+            .when(region).table(DyCounter.TBL);
+        Mockito.doReturn(SequenceTest.table("nb-messages", 42L))
+            .when(region).table(DyMessages.TBL);
+        Mockito.doReturn(SequenceTest.table("nb-segments", null))
+            .when(region).table(Archive.TBL);
+        MatcherAssert.assertThat(
+            new Sequence(region, 1L).incrementAndGet(1L),
+            Matchers.equalTo(43L)
+        );
+        final ArgumentCaptor<UpdateItemRequest> requests =
+            ArgumentCaptor.forClass(UpdateItemRequest.class);
+        Mockito.verify(aws, Mockito.times(3)).updateItem(requests.capture());
+        MatcherAssert.assertThat(
+            requests.getAllValues().get(1).getAttributeUpdates()
+                .get(DyCounter.ATTR_VALUE).getAction(),
+            Matchers.equalTo(AttributeAction.PUT.toString())
+        );
+        MatcherAssert.assertThat(
+            requests.getAllValues().get(1).getAttributeUpdates()
+                .get(DyCounter.ATTR_VALUE).getValue().getN(),
+            Matchers.equalTo("42")
+        );
+    }
+
+    /**
+     * Make a table with one row of a bout, or none.
+     * @param name Table name
+     * @param last The biggest range key or NULL if there are no rows
+     * @return Table
+     * @throws Exception If fails
+     */
+    private static Table table(final String name, final Long last)
+        throws Exception {
+        final Frame frame = Mockito.mock(Frame.class);
+        Mockito.doReturn(frame).when(frame).through(Mockito.any(Valve.class));
+        Mockito.doReturn(frame).when(frame)
+            .where(Mockito.anyString(), Mockito.any(Condition.class));
+        if (last == null) {
+            Mockito.doReturn(Collections.<Item>emptyIterator())
+                .when(frame).iterator();
+        } else {
+            final Item item = Mockito.mock(Item.class);
+            Mockito.doReturn(
+                new AttributeValue().withN(Long.toString(last))
+            ).when(item).get(Mockito.anyString());
+            Mockito.doReturn(Collections.singleton(item).iterator())
+                .when(frame).iterator();
+        }
+        final Table table = Mockito.mock(Table.class);
+        Mockito.doReturn(name).when(table).name();
+        Mockito.doReturn(frame).when(table).frame();
+        return table;
+    }
+
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.Select;
+import com.jcabi.aspects.Tv;
+import com.jcabi.dynamo.Frame;
+import com.jcabi.dynamo.Region;
+import com.jcabi.dynamo.Table;
+import java.util.Collection;
+import java.util.HashSet;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+/**
+ * Test case for {@link Shards}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+public final class ShardsTest {
+
+    /**
+     * Shards can decode bout numbers from hash keys.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void decodesBoutNumbersFromHashKeys() throws Exception {
+        final long bout = 7345L;
+        final long key = Shards.key(bout, "jeffrey");
+        MatcherAssert.assertThat(key, Matchers.lessThan(0L));
+        MatcherAssert.assertThat(
+            Shards.bout(new AttributeValue().withN(Long.toString(key))),
+            Matchers.equalTo(bout)
+        );
+        MatcherAssert.assertThat(
+            Shards.bout(new AttributeValue().withN(Long.toString(bout))),
+            Matchers.equalTo(bout)
+        );
+    }
+
+    /**
+     * Shards can spread aliases over all shards of a bout.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void spreadsAliasesOverShards() throws Exception {
+        final long bout = 1L;
+        final Collection<Long> keys = new HashSet<>(0);
+        for (int idx = 0; idx < Tv.THOUSAND; ++idx) {
+            final long key = Shards.key(bout, String.format("friend%d", idx));
+            keys.add(key);
+            MatcherAssert.assertThat(
+                Shards.bout(new AttributeValue().withN(Long.toString(key))),
+                Matchers.equalTo(bout)
+            );
+        }
+        MatcherAssert.assertThat(keys, Matchers.hasSize(Shards.COUNT));
+    }
+
+    /**
+     * Shards can skip reading a small bout entirely.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void countsBeforeReadingBout() throws Exception {
+        final AmazonDynamoDB aws = Mockito.mock(AmazonDynamoDB.class);
+        Mockito.doReturn(new QueryResult().withCount(Tv.THREE))
+            .when(aws).query(Mockito.any(QueryRequest.class));
+        final Table table = Mockito.mock(Table.class);
+        Mockito.doReturn("nb-friends").when(table).name();
+        Mockito.doReturn(Mockito.mock(Frame.class, Mockito.RETURNS_MOCKS))
+            .when(table).frame();
+        final Region region = Mockito.mock(Region.class);
+        Mockito.doReturn(table).when(region).table(DyFriends.TBL);
+        Mockito.doReturn(aws).when(region).aws();
+        new Shards(region, Tv.TEN).balance(Tv.FIVE);
+        final ArgumentCaptor<QueryRequest> request =
+            ArgumentCaptor.forClass(QueryRequest.class);
+        Mockito.verify(aws, Mockito.times(1)).query(request.capture());
+        MatcherAssert.assertThat(
+            request.getValue().getSelect(),
+            Matchers.equalTo(Select.COUNT.toString())
+        );
+        MatcherAssert.assertThat(
+            request.getValue().getLimit(),
+            Matchers.equalTo(Tv.TEN)
+        );
+    }
+
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.jcabi.dynamo.Attributes;
+import com.jcabi.dynamo.Frame;
+import com.jcabi.dynamo.Region;
+import com.jcabi.dynamo.Table;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ * Test case for {@link Snapshot}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+public final class SnapshotTest {
+
+    /**
+     * Snapshot can read the row with one request.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void readsRowWithOneRequest() throws Exception {
+        final String name = "nb-friends";
+        final Map<String, AttributeValue> row = new Attributes()
+            .with(DyFriends.HASH, 1L)
+            .with(DyFriends.RANGE, "jeff")
+            .with(DyFriends.ATTR_UNREAD, 2L);
+        final AmazonDynamoDB aws = Mockito.mock(AmazonDynamoDB.class);
+        Mockito.doReturn(
+            new BatchGetItemResult().withResponses(
+                Collections.<String, List<Map<String, AttributeValue>>>
+                    singletonMap(name, Collections.singletonList(row))
+            )
+        ).when(aws).batchGetItem(Mockito.any(BatchGetItemRequest.class));
+        final Table table = Mockito.mock(Table.class);
+        Mockito.doReturn(name).when(table).name();
+        Mockito.doReturn(Mockito.mock(Frame.class, Mockito.RETURNS_MOCKS))
+            .when(table).frame();
+        final Region region = Mockito.mock(Region.class);
+        Mockito.doReturn(table).when(region).table(DyFriends.TBL);
+        Mockito.doReturn(aws).when(region).aws();
+        final Snapshot snapshot = Snapshot.read(region, 1L, "jeff");
+        MatcherAssert.assertThat(
+            snapshot.row().get(DyFriends.ATTR_UNREAD).getN(),
+            Matchers.equalTo("2")
+        );
+        snapshot.row();
+        Mockito.verify(aws, Mockito.times(1))
+            .batchGetItem(Mockito.any(BatchGetItemRequest.class));
+    }
+
+    /**
+     * Snapshot can use the row read already.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void usesRowReadAlready() throws Exception {
+        final Snapshot snapshot = new Snapshot(
+            new Attributes().with(DyFriends.ATTR_UNSEEN, "a.txt")
+        );
+        MatcherAssert.assertThat(
+            snapshot.row().containsKey(DyFriends.ATTR_UNSEEN),
+            Matchers.is(true)
+        );
+    }
+
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Test case for {@link Terms}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+public final class TermsTest {
+
+    /**
+     * Terms can break text into lower-cased words and count them.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void countsLowerCasedWords() throws Exception {
+        MatcherAssert.assertThat(
+            new Terms("Hello, world! hello\n\u0443\u0440\u0430 42")
+                .frequencies(),
+            Matchers.allOf(
+                Matchers.hasEntry("hello", 2),
+                Matchers.hasEntry("world", 1),
+                Matchers.hasEntry("\u0443\u0440\u0430", 1),
+                Matchers.hasEntry("42", 1)
+            )
+        );
+    }
+
+    /**
+     * Terms can ignore one-letter words and punctuation.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void ignoresShortWords() throws Exception {
+        MatcherAssert.assertThat(
+            new Terms("a * b-c, I").frequencies().keySet(),
+            Matchers.empty()
+        );
+    }
+
+    /**
+     * Terms can cut too long words.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void cutsLongWords() throws Exception {
+        final StringBuilder text = new StringBuilder(0);
+        for (int idx = 0; idx < Terms.MAX * 2; ++idx) {
+            text.append('x');
+        }
+        MatcherAssert.assertThat(
+            new Terms(text.toString()).frequencies().keySet().iterator()
+                .next().length(),
+            Matchers.equalTo(Terms.MAX)
+        );
+    }
+
+}
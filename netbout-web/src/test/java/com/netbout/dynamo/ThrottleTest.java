@@ -0,0 +1,155 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.dynamo;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.jcabi.aspects.Tv;
+import java.net.HttpURLConnection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Test case for {@link Throttle}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+public final class ThrottleTest {
+
+    /**
+     * Throttle can retry throttled calls.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void retriesThrottledCalls() throws Exception {
+        final Throttle throttle = new Throttle(
+            (double) Tv.THOUSAND, Tv.FIVE, 1L, Tv.FIVE, 1L
+        );
+        final AtomicInteger calls = new AtomicInteger();
+        MatcherAssert.assertThat(
+            throttle.call(
+                "t",
+                new Callable<String>() {
+                    @Override
+                    public String call() {
+                        if (calls.incrementAndGet() < Tv.THREE) {
+                            throw ThrottleTest.error(
+                                "ProvisionedThroughputExceededException",
+                                HttpURLConnection.HTTP_BAD_REQUEST
+                            );
+                        }
+                        return "done";
+                    }
+                }
+            ),
+            Matchers.equalTo("done")
+        );
+        MatcherAssert.assertThat(
+            throttle.metrics().get("t.throttled"), Matchers.equalTo(2L)
+        );
+        MatcherAssert.assertThat(
+            throttle.metrics().get("t.retries"), Matchers.equalTo(2L)
+        );
+    }
+
+    /**
+     * Throttle can pass through errors not worth retrying.
+     * @throws Exception If there is some problem inside
+     */
+    @Test(expected = ConditionalCheckFailedException.class)
+    public void doesNotRetryFailedConditions() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        new Throttle().call(
+            "x",
+            new Callable<Void>() {
+                @Override
+                public Void call() {
+                    if (calls.incrementAndGet() > 1) {
+                        throw new IllegalStateException("retried");
+                    }
+                    throw new ConditionalCheckFailedException("no");
+                }
+            }
+        );
+    }
+
+    /**
+     * Throttle can open the breaker after failures in a row.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void opensBreakerAfterFailures() throws Exception {
+        final Throttle throttle = new Throttle(
+            (double) Tv.THOUSAND, 1, 1L, 2, TimeUnit.MINUTES.toMillis(1L)
+        );
+        final AtomicInteger calls = new AtomicInteger();
+        final Callable<Void> failing = new Callable<Void>() {
+            @Override
+            public Void call() {
+                calls.incrementAndGet();
+                throw ThrottleTest.error(
+                    "InternalServerError",
+                    HttpURLConnection.HTTP_INTERNAL_ERROR
+                );
+            }
+        };
+        final AtomicInteger failures = new AtomicInteger();
+        for (int idx = 0; idx < Tv.THREE; ++idx) {
+            try {
+                throttle.call("y", failing);
+            } catch (final AmazonClientException ex) {
+                failures.incrementAndGet();
+            }
+        }
+        MatcherAssert.assertThat(failures.get(), Matchers.equalTo(Tv.THREE));
+        MatcherAssert.assertThat(calls.get(), Matchers.equalTo(2));
+        MatcherAssert.assertThat(
+            throttle.metrics().get("y.rejected"), Matchers.equalTo(1L)
+        );
+    }
+
+    /**
+     * Make an error of DynamoDB.
+     * @param code Error code
+     * @param status HTTP status
+     * @return The error
+     */
+    private static AmazonServiceException error(final String code,
+        final int status) {
+        final AmazonServiceException error = new AmazonServiceException(code);
+        error.setErrorCode(code);
+        error.setStatusCode(status);
+        return error;
+    }
+
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.misc;
+
+import com.jcabi.aspects.Tv;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Test case for {@link Bus}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+public final class BusTest {
+
+    /**
+     * Bus can deliver tags to local listeners.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void deliversTagsToListeners() throws Exception {
+        final Bus bus = new Bus();
+        final Collection<String> seen = BusTest.listen(bus);
+        bus.publish(Bus.SEEN, Bus.row(1L, "jeff"), Bus.inbox("jeff"));
+        MatcherAssert.assertThat(
+            seen,
+            Matchers.contains(Bus.SEEN, "row:1:jeff", "inbox:jeff")
+        );
+    }
+
+    /**
+     * Bus can deliver events to buses of other nodes.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void deliversEventsToOtherNodes() throws Exception {
+        final Loopback wire = new Loopback();
+        final Bus first = new Bus();
+        final Bus second = new Bus();
+        first.attach(wire);
+        second.attach(wire);
+        final Collection<String> mine = BusTest.listen(first);
+        final Collection<String> theirs = BusTest.listen(second);
+        first.publish(Bus.RENAMED, Bus.row(2L, "mary"));
+        MatcherAssert.assertThat(
+            mine, Matchers.contains(Bus.RENAMED, "row:2:mary")
+        );
+        MatcherAssert.assertThat(
+            theirs, Matchers.contains(Bus.RENAMED, "row:2:mary")
+        );
+    }
+
+    /**
+     * Bus can drop duplicates and report lost events.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void reportsLostEvents() throws Exception {
+        final List<byte[]> packets = new LinkedList<>();
+        final Bus sender = new Bus();
+        sender.attach(
+            new Bus.Transport() {
+                @Override
+                public void open(final Bus bus) {
+                    // nothing to receive
+                }
+                @Override
+                public void send(final byte[] packet) {
+                    packets.add(packet);
+                }
+                @Override
+                public void close() {
+                    packets.clear();
+                }
+            }
+        );
+        sender.publish(Bus.POSTED, Bus.bout(1L));
+        sender.publish(Bus.POSTED, Bus.bout(2L));
+        sender.publish(Bus.POSTED, Bus.bout(Tv.THREE));
+        final Bus receiver = new Bus();
+        final Collection<String> seen = BusTest.listen(receiver);
+        receiver.receive(packets.get(0));
+        receiver.receive(packets.get(2));
+        receiver.receive(packets.get(1));
+        receiver.receive(packets.get(0));
+        MatcherAssert.assertThat(
+            seen,
+            Matchers.contains(
+                Bus.POSTED, "bout:1", Bus.LOST, Bus.POSTED, "bout:3"
+            )
+        );
+    }
+
+    /**
+     * Listen to the bus.
+     * @param bus Bus
+     * @return Events and tags received, in order
+     */
+    private static Collection<String> listen(final Bus bus) {
+        final Collection<String> seen = new LinkedList<>();
+        bus.subscribe(
+            new Bus.Listener() {
+                @Override
+                public void on(final String event,
+                    final Collection<String> tags) {
+                    seen.add(event);
+                    seen.addAll(tags);
+                }
+            }
+        );
+        return seen;
+    }
+
+}
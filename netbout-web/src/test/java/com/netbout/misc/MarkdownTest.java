@@ -24,9 +24,17 @@
  * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
  * SUCH DAMAGE.
  */
-package com.netbout.rest;
+package com.netbout.misc;
 
+import com.jcabi.aspects.Tv;
 import com.jcabi.matchers.XhtmlMatchers;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.Test;
@@ -245,6 +253,44 @@ public final class MarkdownTest {
         }
     }
 
+    /**
+     * Markdown can render texts in many threads at once.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void rendersInParallel() throws Exception {
+        final ExecutorService svc = Executors.newFixedThreadPool(Tv.EIGHT);
+        final Collection<Future<String>> futures = new LinkedList<>();
+        for (int idx = 0; idx < Tv.HUNDRED; ++idx) {
+            final int num = idx;
+            futures.add(
+                svc.submit(
+                    new Callable<String>() {
+                        @Override
+                        public String call() {
+                            return new Markdown(
+                                String.format("**%d** http://a.com/%1$d", num)
+                            ).html();
+                        }
+                    }
+                )
+            );
+        }
+        int idx = 0;
+        for (final Future<String> future : futures) {
+            MatcherAssert.assertThat(
+                future.get(1L, TimeUnit.MINUTES),
+                Matchers.equalTo(
+                    new Markdown(
+                        String.format("**%d** http://a.com/%1$d", idx)
+                    ).html()
+                )
+            );
+            ++idx;
+        }
+        svc.shutdown();
+    }
+
     /**
      * Replace '\n' to the platform line separator.
      * @param source Source string
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.misc;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Test case for {@link Session}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+public final class SessionTest {
+
+    /**
+     * Session can carry recent writes in its token.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void carriesRecentWrites() throws Exception {
+        Session.resume("");
+        final long time = Session.wrote("jeff#1");
+        final String token = Session.token();
+        Session.resume("");
+        MatcherAssert.assertThat(Session.written("jeff#1"), Matchers.is(0L));
+        Session.resume(token);
+        MatcherAssert.assertThat(
+            Session.written("jeff#1"),
+            Matchers.equalTo(time)
+        );
+    }
+
+    /**
+     * Session can ignore broken and old writes.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void ignoresBrokenAndOldWrites() throws Exception {
+        Session.resume(
+            String.format(
+                "a#1=%d/b#2=x/c#3/d#4=1",
+                System.currentTimeMillis()
+            )
+        );
+        MatcherAssert.assertThat(
+            Session.written("a#1"),
+            Matchers.greaterThan(0L)
+        );
+        MatcherAssert.assertThat(Session.written("b#2"), Matchers.is(0L));
+        MatcherAssert.assertThat(Session.written("d#4"), Matchers.is(0L));
+        MatcherAssert.assertThat(
+            Session.token(),
+            Matchers.startsWith("a#1=")
+        );
+    }
+
+}
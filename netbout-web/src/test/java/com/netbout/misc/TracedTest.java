@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2009-2015, netbout.com
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are PROHIBITED without prior written permission from
+ * the author. This product may NOT be used anywhere and on any computer
+ * except the server platform of netbout Inc. located at www.netbout.com.
+ * Federal copyright law prohibits unauthorized reproduction by any means
+ * and imposes fines up to $25,000 for violation. If you received
+ * this code accidentally and without intent to use it, please report this
+ * incident to the author by email.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT
+ * OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF
+ * SUCH DAMAGE.
+ */
+package com.netbout.misc;
+
+import com.jcabi.aspects.Tv;
+import com.jcabi.urn.URN;
+import com.netbout.mock.MkBase;
+import com.netbout.spi.Aliases;
+import com.netbout.spi.Base;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+
+/**
+ * Test case for {@link Traced}.
+ * @author Yegor Bugayenko (yegor@teamed.io)
+ * @version $Id$
+ * @since 3.0
+ */
+public final class TracedTest {
+
+    /**
+     * Traced can trace calls of all SPI objects returned.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void tracesNestedCalls() throws Exception {
+        final Tracer tracer = new Tracer(Tv.TEN, 1);
+        final Base base = Traced.base(tracer, "test", new MkBase());
+        final Aliases aliases = base.user(new URN("urn:test:1")).aliases();
+        aliases.add("jeff");
+        MatcherAssert.assertThat(
+            aliases.iterate().iterator().next().name(),
+            Matchers.equalTo("jeff")
+        );
+        final StringBuilder out = new StringBuilder(0);
+        tracer.print(out);
+        MatcherAssert.assertThat(
+            out.toString(),
+            Matchers.allOf(
+                Matchers.containsString("test Base.user"),
+                Matchers.containsString("test Aliases.add"),
+                Matchers.containsString("test Alias.name")
+            )
+        );
+    }
+
+}
@@ -28,10 +28,12 @@ package com.netbout.rest.bout;
 
 import com.netbout.mock.MkBase;
 import com.netbout.spi.Message;
+import com.netbout.spi.Rendered;
 import java.util.Date;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.Test;
+import org.mockito.Mockito;
 import org.xembly.Xembler;
 
 /**
@@ -80,4 +82,28 @@ public final class XeMessageTest {
             Matchers.containsString("<text>text contains \\u0000</text>")
         );
     }
+
+    /**
+     * XeMessage can use HTML stored with the message.
+     * @throws Exception If there is some problem inside
+     */
+    @Test
+    public void usesStoredHtml() throws Exception {
+        final Message msg = Mockito.mock(
+            Message.class,
+            Mockito.withSettings().extraInterfaces(Rendered.class)
+        );
+        Mockito.doReturn(Long.MAX_VALUE).when(msg).number();
+        Mockito.doReturn(new Date()).when(msg).date();
+        Mockito.doReturn("**hey**").when(msg).text();
+        Mockito.doReturn("jeff").when(msg).author();
+        Mockito.doReturn("<p>stored</p>").when(Rendered.class.cast(msg))
+            .html();
+        MatcherAssert.assertThat(
+            new Xembler(
+                new XeMessage(new MkBase().randomBout(), msg, "").toXembly()
+            ).xml(),
+            Matchers.containsString("<html>&lt;p&gt;stored&lt;/p&gt;</html>")
+        );
+    }
 }